@@ -0,0 +1,41 @@
+package uk.gov.companieshouse.filetransferservice;
+
+import java.lang.reflect.Proxy;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import uk.gov.companieshouse.logging.Logger;
+
+/**
+ * Runs the JMH benchmarks with the GC profiler always attached, so every benchmark reports its allocation rate
+ * (gc.alloc.rate.norm is bytes allocated per operation) alongside its time. Results are also written as JSON to
+ * target/jmh-result.json so runs can be compared. Any JMH command line options, such as a benchmark name pattern,
+ * are passed through.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-result.json")
+                .build();
+
+        new Runner(options).run();
+    }
+
+    /**
+     * A Logger which discards everything, so benchmarks measure the code under test rather than log output.
+     */
+    public static Logger noOpLogger() {
+        return (Logger) Proxy.newProxyInstance(Logger.class.getClassLoader(), new Class<?>[]{Logger.class},
+                (proxy, method, arguments) -> null);
+    }
+}
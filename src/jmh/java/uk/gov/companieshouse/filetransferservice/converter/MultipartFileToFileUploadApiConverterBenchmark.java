@@ -0,0 +1,44 @@
+package uk.gov.companieshouse.filetransferservice.converter;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+import uk.gov.companieshouse.filetransferservice.model.FileUploadApi;
+
+/**
+ * Measures converting an uploaded multipart file to the upload model. The multipart file is held in memory, so this
+ * excludes the cost of opening a file spooled to disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultipartFileToFileUploadApiConverterBenchmark {
+
+    private MultipartFileToFileUploadApiConverter converter;
+    private MultipartFile multipartFile;
+
+    @Setup
+    public void setUp() {
+        converter = new MultipartFileToFileUploadApiConverter();
+        multipartFile = new MockMultipartFile("file", "CIC_D’Artagnan House C.I.C._31102024.pdf",
+                "application/pdf", new byte[1024]);
+    }
+
+    @Benchmark
+    public FileUploadApi convert() {
+        return converter.convert(multipartFile);
+    }
+}
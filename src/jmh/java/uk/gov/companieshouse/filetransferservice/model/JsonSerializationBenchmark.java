@@ -0,0 +1,84 @@
+package uk.gov.companieshouse.filetransferservice.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.companieshouse.api.filetransfer.AvStatus;
+import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
+import uk.gov.companieshouse.api.filetransfer.FileLinksApi;
+import uk.gov.companieshouse.filetransferservice.converter.FileDownloadApiToLegacyJsonConverter;
+import uk.gov.companieshouse.filetransferservice.model.legacy.FileApi;
+
+/**
+ * Measures the JSON responses: the file details, and the legacy FileApi download both bound to a byte[] and streamed
+ * through {@link FileDownloadApiToLegacyJsonConverter}. The streamed output is discarded, so only the encoding cost
+ * is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"1024", "1048576"})
+    private int fileSize;
+
+    private ObjectMapper objectMapper;
+    private FileDownloadApiToLegacyJsonConverter legacyJsonConverter;
+    private FileDetailsApi fileDetails;
+    private byte[] content;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        legacyJsonConverter = new FileDownloadApiToLegacyJsonConverter(objectMapper);
+
+        fileDetails = new FileDetailsApi("9d4d6a4e-3c4b-4b59-8a4a-2b4c3b1d1f0e",
+                "2024-10-31T12:00:05Z",
+                AvStatus.CLEAN,
+                "application/pdf",
+                (long) fileSize,
+                "CIC_D’Artagnan House C.I.C._31102024.pdf",
+                "2024-10-31T12:00:00Z",
+                new FileLinksApi("/file-transfer-service/9d4d6a4e/download", "/file-transfer-service/9d4d6a4e"));
+
+        content = new byte[fileSize];
+        new Random(1).nextBytes(content);
+    }
+
+    @Benchmark
+    public byte[] fileDetails() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(fileDetails);
+    }
+
+    @Benchmark
+    public byte[] legacyFileApi() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(new FileApi(fileDetails.getName(), content,
+                fileDetails.getContentType(), fileSize, "pdf"));
+    }
+
+    @Benchmark
+    public void legacyFileApiStreamed() throws IOException {
+        FileDownloadApi fileDownload = new FileDownloadApi(fileDetails.getName(), new ByteArrayInputStream(content),
+                fileDetails.getContentType(), fileSize, null);
+
+        legacyJsonConverter.convert(fileDetails, fileDownload).writeTo(OutputStream.nullOutputStream());
+    }
+}
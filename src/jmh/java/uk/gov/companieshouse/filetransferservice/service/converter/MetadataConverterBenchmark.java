@@ -0,0 +1,92 @@
+package uk.gov.companieshouse.filetransferservice.service.converter;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the single-pass metadata encoder and decoder against the previous implementation, which decoded and
+ * re-encoded every value to find out whether it was already encoded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetadataConverterBenchmark {
+
+    @Param({
+            "report.pdf",
+            "CIC_31102024.zip",
+            "test file.txt",
+            "Annual%20Accounts%202024.pdf",
+            "CIC_D’Artagnan House C.I.C._31102024.zip",
+            "CIC_D%E2%80%99Artagnan%20House%20C.I.C._31102024.zip"
+    })
+    private String fileName;
+
+    private MetadataEncoder encoder;
+    private MetadataDecoder decoder;
+
+    @Setup
+    public void setUp() {
+        encoder = new MetadataEncoder();
+        decoder = new MetadataDecoder();
+    }
+
+    @Benchmark
+    public String encode() {
+        return encoder.convert(fileName);
+    }
+
+    @Benchmark
+    public String decode() {
+        return decoder.convert(fileName);
+    }
+
+    @Benchmark
+    public String encodePrevious() {
+        try {
+            if (fileName.isEmpty() || isUrlEncoded(fileName)) {
+                return fileName;
+            }
+            return URLEncoder.encode(fileName, StandardCharsets.UTF_8).replace("+", "%20");
+
+        } catch (Exception e) {
+            return fileName;
+        }
+    }
+
+    @Benchmark
+    public String decodePrevious() {
+        try {
+            if (fileName.isEmpty() || !isUrlEncoded(fileName)) {
+                return fileName;
+            }
+            return URLDecoder.decode(fileName, StandardCharsets.UTF_8);
+
+        } catch (Exception e) {
+            return fileName;
+        }
+    }
+
+    private static boolean isUrlEncoded(final String input) {
+        String decoded = URLDecoder.decode(input, StandardCharsets.UTF_8);
+        String encoded = URLEncoder.encode(decoded, StandardCharsets.UTF_8).replace("+", "%20");
+
+        return input.replace("+", "%20").equals(encoded);
+    }
+}
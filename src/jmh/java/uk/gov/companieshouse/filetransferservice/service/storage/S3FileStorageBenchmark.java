@@ -0,0 +1,86 @@
+package uk.gov.companieshouse.filetransferservice.service.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.Tag;
+import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
+import uk.gov.companieshouse.filetransferservice.BenchmarkRunner;
+import uk.gov.companieshouse.filetransferservice.metrics.TransferMetrics;
+import uk.gov.companieshouse.filetransferservice.service.AmazonFileTransfer;
+import uk.gov.companieshouse.filetransferservice.service.converter.MetadataDecoder;
+import uk.gov.companieshouse.filetransferservice.service.converter.MetadataEncoder;
+
+/**
+ * Measures building the file details from an S3 response: decoding each metadata value, building the
+ * case-insensitive metadata map, reading the AV tags and creating the links. S3 itself is replaced by canned
+ * responses, so no time is spent on the network.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class S3FileStorageBenchmark {
+
+    @Param({"true", "false"})
+    private boolean scanned;
+
+    private S3FileStorage s3FileStorage;
+
+    @Setup
+    public void setUp() {
+        HeadObjectResponse objectResponse = HeadObjectResponse.builder()
+                .contentType("application/pdf")
+                .contentLength(1_048_576L)
+                .lastModified(Instant.parse("2024-10-31T12:00:00Z"))
+                .metadata(Map.of(
+                        "content-type", "application/pdf",
+                        "filename", "CIC_D%E2%80%99Artagnan%20House%20C.I.C._31102024.pdf",
+                        "extension", "pdf"))
+                .build();
+
+        List<Tag> tags = scanned
+                ? List.of(
+                        Tag.builder().key("av-status").value("clean").build(),
+                        Tag.builder().key("av-timestamp").value("2024-10-31T12:00:05Z").build())
+                : List.of();
+
+        AmazonFileTransfer amazonFileTransfer = (AmazonFileTransfer) Proxy.newProxyInstance(
+                AmazonFileTransfer.class.getClassLoader(), new Class<?>[]{AmazonFileTransfer.class},
+                (proxy, method, arguments) -> switch (method.getName()) {
+                    case "getFileMetadata" -> Optional.of(objectResponse);
+                    case "getFileTags" -> Optional.of(tags);
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+
+        s3FileStorage = new S3FileStorage(amazonFileTransfer, new MetadataEncoder(), new MetadataDecoder(),
+                new TransferMetrics(new SimpleMeterRegistry()), BenchmarkRunner.noOpLogger(), "/file-transfer-service",
+                Duration.ofMinutes(5), Duration.ofMinutes(15), DataSize.ofMegabytes(64),
+                DataSize.ofMegabytes(8), Duration.ofHours(24));
+    }
+
+    @Benchmark
+    public Optional<FileDetailsApi> getFileDetails() {
+        return s3FileStorage.getFileDetails("9d4d6a4e-3c4b-4b59-8a4a-2b4c3b1d1f0e");
+    }
+}
@@ -0,0 +1,58 @@
+package uk.gov.companieshouse.filetransferservice.validation;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.companieshouse.filetransferservice.BenchmarkRunner;
+
+/**
+ * Measures the MIME type check, and the content sniffing done on each upload. Sniffing reads the first 8KB of the
+ * content, so the cost of text types (which scan the whole prefix) is compared with types with a fixed signature.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MimeTypeValidatorBenchmark {
+
+    @Param({"application/pdf", "text/csv"})
+    private String mimeType;
+
+    private MimeTypeValidator mimeTypeValidator;
+    private byte[] content;
+
+    @Setup
+    public void setUp() {
+        mimeTypeValidator = new MimeTypeValidator(BenchmarkRunner.noOpLogger());
+
+        content = new byte[64 * 1024];
+        Arrays.fill(content, (byte) 'a');
+        System.arraycopy("%PDF-1.7\n".getBytes(), 0, content, 0, 9);
+    }
+
+    @Benchmark
+    public String validateMimeType() {
+        mimeTypeValidator.validate(mimeType);
+        return mimeType;
+    }
+
+    @Benchmark
+    public InputStream validateContent() throws IOException {
+        return mimeTypeValidator.validate(mimeType, new ByteArrayInputStream(content));
+    }
+}
@@ -0,0 +1,59 @@
+package uk.gov.companieshouse.filetransferservice.loadtest;
+
+import java.net.URI;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import uk.gov.companieshouse.filetransferservice.admission.S3LaneClients;
+import uk.gov.companieshouse.filetransferservice.config.properties.S3LaneProperties;
+import uk.gov.companieshouse.filetransferservice.metrics.S3ClientMetricPublisher;
+
+/**
+ * Points the service's S3 clients at the {@link FakeS3Server}. Being a {@link TestConfiguration}, it is only used
+ * when the load test runner registers it, and is skipped by component scanning.
+ */
+@TestConfiguration
+public class FakeS3Configuration {
+
+    private final URI endpoint;
+    private final S3LaneProperties laneProperties;
+    private final S3ClientMetricPublisher metricPublisher;
+
+    public FakeS3Configuration(@Value("${loadtest.s3.endpoint}") URI endpoint, S3LaneProperties laneProperties,
+            S3ClientMetricPublisher metricPublisher) {
+        this.endpoint = endpoint;
+        this.laneProperties = laneProperties;
+        this.metricPublisher = metricPublisher;
+    }
+
+    @Primary
+    @Bean("loadtest.s3.lane.clients")
+    public S3LaneClients s3LaneClients() {
+        return S3LaneClients.create(laneProperties, metricPublisher, () -> S3Client.builder()
+                .credentialsProvider(getCredentialsProvider())
+                .region(LoadTestRunner.REGION)
+                .endpointOverride(endpoint)
+                .forcePathStyle(true));
+    }
+
+    @Primary
+    @Bean("loadtest.s3.presigner")
+    public S3Presigner s3Presigner() {
+        return S3Presigner.builder()
+                .credentialsProvider(getCredentialsProvider())
+                .region(LoadTestRunner.REGION)
+                .endpointOverride(endpoint)
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build())
+                .build();
+    }
+
+    private static StaticCredentialsProvider getCredentialsProvider() {
+        return StaticCredentialsProvider.create(AwsBasicCredentials.create("loadtest", "loadtest"));
+    }
+}
@@ -0,0 +1,290 @@
+package uk.gov.companieshouse.filetransferservice.loadtest;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * An in-memory stand-in for the parts of the S3 REST API the service uses: HeadBucket, PutObject, GetObject,
+ * HeadObject, GetObjectTagging and DeleteObject, with path-style addressing.
+ * <p>
+ * Every stored object is tagged as scanned and clean, so downloads pass the AV check. Each request is delayed by a
+ * fixed latency, and object bodies are transferred no faster than the configured bandwidth per connection, so the
+ * service sees S3-like timings without the cost of a real bucket or a container.
+ */
+final class FakeS3Server implements AutoCloseable {
+
+    private static final String XML_PREAMBLE = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
+    private static final String S3_NAMESPACE = "http://s3.amazonaws.com/doc/2006-03-01/";
+    private static final String METADATA_PREFIX = "x-amz-meta-";
+    private static final int TRANSFER_CHUNK_SIZE = 64 * 1024;
+
+    private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Duration latency;
+    private final long bandwidthBytesPerSecond;
+
+    /**
+     * @param latency                 the delay added to every request
+     * @param bandwidthBytesPerSecond the transfer rate of object bodies per connection, or 0 for no limit
+     */
+    FakeS3Server(final Duration latency, final long bandwidthBytesPerSecond) throws IOException {
+        this.latency = latency;
+        this.bandwidthBytesPerSecond = bandwidthBytesPerSecond;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    URI endpoint() {
+        InetSocketAddress address = server.getAddress();
+        return URI.create("http://" + address.getHostString() + ":" + address.getPort());
+    }
+
+    int objectCount() {
+        return objects.size();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        try (exchange) {
+            pause(latency);
+
+            String[] path = exchange.getRequestURI().getPath().substring(1).split("/", 2);
+            String method = exchange.getRequestMethod();
+
+            if (path.length == 1 || path[1].isEmpty()) {
+                // Bucket level requests, of which only HeadBucket is used
+                sendEmpty(exchange, "HEAD".equals(method) ? 200 : 501);
+                return;
+            }
+
+            String key = path[0] + "/" + path[1];
+            String query = exchange.getRequestURI().getRawQuery();
+            boolean tagging = query != null && query.contains("tagging");
+
+            switch (method) {
+                case "PUT" -> putObject(exchange, key);
+                case "GET" -> getObject(exchange, key, tagging, true);
+                case "HEAD" -> getObject(exchange, key, false, false);
+                case "DELETE" -> deleteObject(exchange, key);
+                default -> sendEmpty(exchange, 405);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void putObject(final HttpExchange exchange, final String key)
+            throws IOException, InterruptedException {
+        Headers requestHeaders = exchange.getRequestHeaders();
+        byte[] content = readBody(exchange.getRequestBody());
+
+        String contentEncoding = requestHeaders.getFirst("Content-Encoding");
+        if (requestHeaders.containsKey("x-amz-decoded-content-length")
+                || (contentEncoding != null && contentEncoding.contains("aws-chunked"))) {
+            content = decodeAwsChunked(content);
+        }
+
+        Map<String, String> metadata = new HashMap<>();
+        requestHeaders.forEach((name, values) -> {
+            String lowerCaseName = name.toLowerCase(Locale.ROOT);
+            if (lowerCaseName.startsWith(METADATA_PREFIX)) {
+                metadata.put(lowerCaseName, values.getFirst());
+            }
+        });
+
+        Instant now = Instant.now();
+        StoredObject object = new StoredObject(content,
+                requestHeaders.getFirst("Content-Type"),
+                metadata,
+                Map.of("av-status", "clean", "av-timestamp", String.valueOf(now.getEpochSecond())),
+                "\"" + md5Hex(content) + "\"",
+                now);
+        objects.put(key, object);
+
+        exchange.getResponseHeaders().set("ETag", object.eTag());
+        sendEmpty(exchange, 200);
+    }
+
+    private void getObject(final HttpExchange exchange, final String key, final boolean tagging,
+            final boolean withBody) throws IOException, InterruptedException {
+        StoredObject object = objects.get(key);
+        if (object == null) {
+            sendNoSuchKey(exchange, key, withBody);
+            return;
+        }
+
+        if (tagging) {
+            StringBuilder xml = new StringBuilder(XML_PREAMBLE)
+                    .append("<Tagging xmlns=\"").append(S3_NAMESPACE).append("\"><TagSet>");
+            object.tags().forEach((name, value) -> xml.append("<Tag><Key>").append(name)
+                    .append("</Key><Value>").append(value).append("</Value></Tag>"));
+            xml.append("</TagSet></Tagging>");
+            sendXml(exchange, 200, xml.toString());
+            return;
+        }
+
+        Headers responseHeaders = exchange.getResponseHeaders();
+        if (object.contentType() != null) {
+            responseHeaders.set("Content-Type", object.contentType());
+        }
+        responseHeaders.set("ETag", object.eTag());
+        responseHeaders.set("Last-Modified",
+                DateTimeFormatter.RFC_1123_DATE_TIME.format(object.lastModified().atOffset(ZoneOffset.UTC)));
+        responseHeaders.set("x-amz-tagging-count", String.valueOf(object.tags().size()));
+        object.metadata().forEach(responseHeaders::set);
+
+        byte[] content = object.content();
+        if (!withBody || content.length == 0) {
+            responseHeaders.set("Content-Length", String.valueOf(content.length));
+            exchange.sendResponseHeaders(200, -1);
+            return;
+        }
+
+        exchange.sendResponseHeaders(200, content.length);
+        writeBody(exchange.getResponseBody(), content);
+    }
+
+    private void deleteObject(final HttpExchange exchange, final String key) throws IOException {
+        objects.remove(key);
+        sendEmpty(exchange, 204);
+    }
+
+    private void sendNoSuchKey(final HttpExchange exchange, final String key, final boolean withBody)
+            throws IOException {
+        if (!withBody) {
+            sendEmpty(exchange, 404);
+            return;
+        }
+        sendXml(exchange, 404, XML_PREAMBLE + "<Error><Code>NoSuchKey</Code>"
+                + "<Message>The specified key does not exist.</Message><Key>" + key + "</Key></Error>");
+    }
+
+    private static void sendXml(final HttpExchange exchange, final int status, final String xml)
+            throws IOException {
+        byte[] body = xml.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static void sendEmpty(final HttpExchange exchange, final int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    private byte[] readBody(final InputStream in) throws IOException, InterruptedException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[TRANSFER_CHUNK_SIZE];
+        long start = System.nanoTime();
+        long transferred = 0;
+        int read;
+
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+            transferred += read;
+            throttle(start, transferred);
+        }
+        return out.toByteArray();
+    }
+
+    private void writeBody(final OutputStream out, final byte[] content) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+
+        for (int offset = 0; offset < content.length; offset += TRANSFER_CHUNK_SIZE) {
+            int length = Math.min(TRANSFER_CHUNK_SIZE, content.length - offset);
+            out.write(content, offset, length);
+            throttle(start, offset + length);
+        }
+    }
+
+    /**
+     * Sleeps for as long as it takes the transfer to fall back to the configured bandwidth.
+     */
+    private void throttle(final long startNanos, final long transferred) throws InterruptedException {
+        if (bandwidthBytesPerSecond <= 0) {
+            return;
+        }
+        long dueNanos = startNanos + transferred * 1_000_000_000L / bandwidthBytesPerSecond;
+        pause(Duration.ofNanos(dueNanos - System.nanoTime()));
+    }
+
+    private static void pause(final Duration duration) throws InterruptedException {
+        if (duration.isPositive()) {
+            Thread.sleep(duration);
+        }
+    }
+
+    /**
+     * Strips the chunk framing from an aws-chunked body, which the SDK uses when it signs the payload in chunks or
+     * sends a trailing checksum. Each chunk is its hex length and optional signature on one line, then the data and a
+     * CRLF; the last chunk has a zero length and is followed by any trailers and a blank line.
+     */
+    private static byte[] decodeAwsChunked(final byte[] encoded) {
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream(encoded.length);
+        int position = 0;
+
+        while (position < encoded.length) {
+            int lineEnd = indexOfCrLf(encoded, position);
+            String header = new String(encoded, position, lineEnd - position, StandardCharsets.US_ASCII);
+            int size = Integer.parseInt(header.split(";", 2)[0].trim(), 16);
+            if (size == 0) {
+                break;
+            }
+            position = lineEnd + 2;
+            decoded.write(encoded, position, size);
+            position += size + 2;
+        }
+        return decoded.toByteArray();
+    }
+
+    private static int indexOfCrLf(final byte[] bytes, final int from) {
+        for (int i = from; i + 1 < bytes.length; i++) {
+            if (bytes[i] == '\r' && bytes[i + 1] == '\n') {
+                return i;
+            }
+        }
+        return bytes.length;
+    }
+
+    private static String md5Hex(final byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record StoredObject(byte[] content, String contentType, Map<String, String> metadata,
+                                Map<String, String> tags, String eTag, Instant lastModified) {
+    }
+}
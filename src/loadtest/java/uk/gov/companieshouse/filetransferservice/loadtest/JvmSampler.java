@@ -0,0 +1,81 @@
+package uk.gov.companieshouse.filetransferservice.loadtest;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+
+/**
+ * Samples heap use while the load test measures, and takes the GC, thread and CPU figures over the same period.
+ */
+final class JvmSampler implements AutoCloseable {
+
+    private static final Duration SAMPLE_INTERVAL = Duration.ofMillis(100);
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final com.sun.management.OperatingSystemMXBean os =
+            (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+    private final long startNanos;
+    private final long startGcCount;
+    private final long startGcTimeMillis;
+    private final long startCpuNanos;
+    private final Thread sampler;
+    private volatile long peakHeapUsedBytes;
+
+    JvmSampler() {
+        threads.resetPeakThreadCount();
+        startNanos = System.nanoTime();
+        startGcCount = gcCount();
+        startGcTimeMillis = gcTimeMillis();
+        startCpuNanos = os.getProcessCpuTime();
+        sampler = Thread.ofPlatform().daemon().name("loadtest-jvm-sampler").start(this::sample);
+    }
+
+    private void sample() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                peakHeapUsedBytes = Math.max(peakHeapUsedBytes, memory.getHeapMemoryUsage().getUsed());
+                Thread.sleep(SAMPLE_INTERVAL);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    LoadTestReport.JvmReport report() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        double cpuSeconds = (os.getProcessCpuTime() - startCpuNanos) / 1e9;
+
+        return new LoadTestReport.JvmReport(
+                Runtime.getRuntime().availableProcessors(),
+                memory.getHeapMemoryUsage().getMax(),
+                peakHeapUsedBytes,
+                gcCount() - startGcCount,
+                gcTimeMillis() - startGcTimeMillis,
+                threads.getPeakThreadCount(),
+                cpuSeconds,
+                seconds > 0 ? cpuSeconds / seconds : 0);
+    }
+
+    @Override
+    public void close() {
+        sampler.interrupt();
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount)
+                .filter(count -> count > 0)
+                .sum();
+    }
+
+    private static long gcTimeMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime)
+                .filter(time -> time > 0)
+                .sum();
+    }
+}
@@ -0,0 +1,214 @@
+package uk.gov.companieshouse.filetransferservice.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Makes requests to the service at a fixed rate. The load is open: each request starts when it is due, on its own
+ * virtual thread, however long earlier requests are taking, and its latency is measured from when it was due rather
+ * than when it was sent. A service which falls behind therefore shows as growing latency, as it would to real
+ * clients, instead of quietly lowering the request rate (coordinated omission).
+ * <p>
+ * Details and downloads read a file uploaded earlier in the run, chosen at random from the most recent uploads.
+ */
+final class LoadGenerator implements AutoCloseable {
+
+    private static final int RECENT_FILES = 1024;
+    private static final String BOUNDARY = "loadtest-" + UUID.randomUUID();
+    private static final byte[] PDF_HEADER = "%PDF-1.7\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final HttpClient client;
+    private final ObjectMapper objectMapper;
+    private final URI baseUri;
+    private final LoadTestSettings settings;
+    private final byte[] uploadBody;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final AtomicReferenceArray<String> recentFileIds = new AtomicReferenceArray<>(RECENT_FILES);
+    private final AtomicLong uploadedFiles = new AtomicLong();
+
+    LoadGenerator(final URI baseUri, final LoadTestSettings settings, final ObjectMapper objectMapper) {
+        this.baseUri = baseUri;
+        this.settings = settings;
+        this.objectMapper = objectMapper;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        this.uploadBody = multipartBody(Math.toIntExact(settings.fileSize().toBytes()));
+
+        this.operations = settings.mix().keySet().toArray(new Operation[0]);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += settings.mix().get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    /**
+     * Uploads files one at a time, so there is something to download from the start.
+     */
+    void seed(final int files) {
+        OperationStats discarded = new OperationStats();
+        for (int i = 0; i < files; i++) {
+            execute(Operation.UPLOAD, System.nanoTime(), discarded);
+        }
+        if (uploadedFiles.get() == 0 && files > 0) {
+            throw new IllegalStateException("No seed files could be uploaded");
+        }
+    }
+
+    /**
+     * Applies the load for the given time, then waits for the requests still in flight.
+     *
+     * @return the outcomes of each operation
+     */
+    Map<Operation, OperationStats> run(final Duration duration) {
+        Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+
+        long requests = duration.toNanos() * settings.rate() / 1_000_000_000L;
+        double intervalNanos = 1_000_000_000.0 / settings.rate();
+        long start = System.nanoTime();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < requests; i++) {
+                long due = start + (long) (i * intervalNanos);
+                long wait;
+                while ((wait = due - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+
+                Operation operation = nextOperation();
+                executor.execute(() -> execute(operation, due, stats.get(operation)));
+            }
+        }
+        return stats;
+    }
+
+    private Operation nextOperation() {
+        int pick = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < operations.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        throw new IllegalStateException("Weights do not cover " + pick);
+    }
+
+    private void execute(final Operation operation, final long dueNanos, final OperationStats stats) {
+        String fileId = operation == Operation.UPLOAD ? null : randomFileId();
+        if (operation != Operation.UPLOAD && fileId == null) {
+            stats.recordError();
+            return;
+        }
+
+        try {
+            HttpResponse<String> response = client.send(request(operation, fileId), responseHandler(operation));
+            long latency = System.nanoTime() - dueNanos;
+
+            int status = response.statusCode();
+            if (status < 200 || status >= 300) {
+                stats.recordError(status);
+                return;
+            }
+
+            if (operation == Operation.UPLOAD) {
+                remember(objectMapper.readTree(response.body()).get("id").asText());
+            }
+            stats.recordSuccess(status, latency);
+        } catch (IOException e) {
+            stats.recordError();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stats.recordError();
+        }
+    }
+
+    private HttpRequest request(final Operation operation, final String fileId) {
+        String prefix = baseUri + "/file-transfer-service/";
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .timeout(settings.requestTimeout())
+                .header("ERIC-Identity", "loadtest")
+                .header("ERIC-Identity-Type", "key")
+                .header("ERIC-Authorised-Key-Roles", "*");
+
+        return switch (operation) {
+            case UPLOAD -> builder.uri(URI.create(prefix))
+                    .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(uploadBody))
+                    .build();
+            case DETAILS -> builder.uri(URI.create(prefix + fileId))
+                    .header("Accept", "application/json")
+                    .GET()
+                    .build();
+            case DOWNLOAD -> builder.uri(URI.create(prefix + fileId + "/download"))
+                    .header("Accept", "application/octet-stream")
+                    .GET()
+                    .build();
+        };
+    }
+
+    /**
+     * Only the upload response is read; other bodies are consumed in full and discarded, as a client would.
+     */
+    private static HttpResponse.BodyHandler<String> responseHandler(final Operation operation) {
+        if (operation == Operation.UPLOAD) {
+            return HttpResponse.BodyHandlers.ofString();
+        }
+        return info -> HttpResponse.BodySubscribers.replacing(null);
+    }
+
+    private void remember(final String fileId) {
+        recentFileIds.set((int) (uploadedFiles.getAndIncrement() % RECENT_FILES), fileId);
+    }
+
+    private String randomFileId() {
+        long uploaded = uploadedFiles.get();
+        if (uploaded == 0) {
+            return null;
+        }
+        int index = ThreadLocalRandom.current().nextInt((int) Math.min(uploaded, RECENT_FILES));
+        return recentFileIds.get(index);
+    }
+
+    private static byte[] multipartBody(final int fileSize) {
+        byte[] content = new byte[Math.max(fileSize, PDF_HEADER.length)];
+        new Random(fileSize).nextBytes(content);
+        System.arraycopy(PDF_HEADER, 0, content, 0, PDF_HEADER.length);
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream(content.length + 512);
+        body.writeBytes(("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"loadtest.pdf\"\r\n"
+                + "Content-Type: application/pdf\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        body.writeBytes(content);
+        body.writeBytes(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        return body.toByteArray();
+    }
+
+    @Override
+    public void close() {
+        client.close();
+    }
+}
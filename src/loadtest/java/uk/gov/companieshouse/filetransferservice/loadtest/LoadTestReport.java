@@ -0,0 +1,58 @@
+package uk.gov.companieshouse.filetransferservice.loadtest;
+
+import java.util.Map;
+
+/**
+ * The machine-readable result of a load test run, written as JSON.
+ *
+ * @param settings   the parameters the run used
+ * @param seconds    the length of the measured phase
+ * @param operations the results for each operation
+ * @param total      the results across all operations
+ * @param jvm        what the JVM used during the measured phase
+ */
+record LoadTestReport(Map<String, Object> settings,
+                      double seconds,
+                      Map<String, OperationReport> operations,
+                      OperationReport total,
+                      JvmReport jvm) {
+
+    /**
+     * @param requests            requests completed, including errors
+     * @param errors              requests which failed, timed out or returned an error status
+     * @param statusCodes         responses by HTTP status code
+     * @param throughputPerSecond successful requests per second
+     * @param latencyMillis       the latency of successful requests, measured from when each request was due to start
+     */
+    record OperationReport(long requests,
+                           long errors,
+                           Map<String, Long> statusCodes,
+                           double throughputPerSecond,
+                           LatencyReport latencyMillis) {
+    }
+
+    record LatencyReport(double p50, double p90, double p99, double p999, double max, double mean) {
+    }
+
+    /**
+     * These include the load generator and the fake S3, which run in the same JVM as the service.
+     *
+     * @param availableProcessors the processors the JVM sees, which {@code -XX:ActiveProcessorCount} overrides
+     * @param maxHeapBytes        the heap limit
+     * @param peakHeapUsedBytes   the most heap in use at any sample
+     * @param gcCount             collections during the measured phase
+     * @param gcTimeMillis        time spent in collections during the measured phase
+     * @param peakThreadCount     the most live platform threads, which excludes virtual threads
+     * @param cpuSeconds          process CPU time during the measured phase
+     * @param averageCpuCores     CPU time divided by elapsed time
+     */
+    record JvmReport(int availableProcessors,
+                     long maxHeapBytes,
+                     long peakHeapUsedBytes,
+                     long gcCount,
+                     long gcTimeMillis,
+                     int peakThreadCount,
+                     double cpuSeconds,
+                     double averageCpuCores) {
+    }
+}
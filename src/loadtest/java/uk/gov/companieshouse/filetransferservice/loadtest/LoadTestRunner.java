@@ -0,0 +1,103 @@
+package uk.gov.companieshouse.filetransferservice.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.File;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import software.amazon.awssdk.regions.Region;
+import uk.gov.companieshouse.filetransferservice.FileTransferServiceApplication;
+
+/**
+ * Runs the service against a {@link FakeS3Server}, applies a mix of uploads, detail requests and downloads at a
+ * fixed rate with a {@link LoadGenerator}, and writes throughput, latency percentiles and JVM use to a JSON report.
+ * <p>
+ * Run it in a JVM sized like an ECS task (heap and {@code -XX:ActiveProcessorCount}) to find the rate one task can
+ * sustain. The parameters are {@code loadtest.*} system properties, described in {@link LoadTestSettings}; any
+ * arguments are passed to the application, e.g. {@code --logging.level.root=WARN}.
+ */
+public final class LoadTestRunner {
+
+    static final Region REGION = Region.EU_WEST_2;
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+        // The default S3 client is still built at startup, although the fake one replaces it
+        System.setProperty("aws.region", REGION.id());
+
+        try (FakeS3Server s3 = new FakeS3Server(settings.s3Latency(), settings.s3Bandwidth().toBytes());
+                ConfigurableApplicationContext context = startService(s3.endpoint(), args);
+                LoadGenerator generator = new LoadGenerator(baseUri(context), settings, objectMapper)) {
+
+            generator.seed(settings.seedFiles());
+            generator.run(settings.warmup());
+            System.gc();
+
+            Map<Operation, OperationStats> stats;
+            LoadTestReport.JvmReport jvm;
+            try (JvmSampler sampler = new JvmSampler()) {
+                stats = generator.run(settings.duration());
+                jvm = sampler.report();
+            }
+
+            double seconds = settings.duration().toNanos() / 1e9;
+            Map<String, LoadTestReport.OperationReport> operations = new LinkedHashMap<>();
+            settings.mix().keySet().forEach(operation ->
+                    operations.put(operation.reportName(), stats.get(operation).toReport(seconds)));
+
+            LoadTestReport report = new LoadTestReport(describe(settings), seconds, operations,
+                    OperationStats.total(stats.values(), seconds), jvm);
+
+            File reportFile = new File(settings.report());
+            if (reportFile.getParentFile() != null) {
+                reportFile.getParentFile().mkdirs();
+            }
+            objectMapper.writeValue(reportFile, report);
+            System.out.println(objectMapper.writeValueAsString(report));
+            System.out.println("Report written to " + reportFile.getAbsolutePath());
+        }
+    }
+
+    private static ConfigurableApplicationContext startService(final URI s3Endpoint, final String[] args) {
+        List<String> properties = List.of(
+                "--server.port=0",
+                "--aws.accessKeyId=loadtest",
+                "--aws.secretAccessKey=loadtest",
+                "--aws.region=" + REGION.id(),
+                "--aws.bucketName=loadtest",
+                "--loadtest.s3.endpoint=" + s3Endpoint);
+
+        return new SpringApplicationBuilder(FileTransferServiceApplication.class, FakeS3Configuration.class)
+                .run(Stream.concat(properties.stream(), Stream.of(args)).toArray(String[]::new));
+    }
+
+    private static URI baseUri(final ConfigurableApplicationContext context) {
+        return URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+    }
+
+    private static Map<String, Object> describe(final LoadTestSettings settings) {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("rate", settings.rate());
+        description.put("warmup", settings.warmup().toString());
+        description.put("duration", settings.duration().toString());
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        settings.mix().forEach((operation, weight) -> mix.put(operation.reportName(), weight));
+        description.put("mix", mix);
+        description.put("fileSizeBytes", settings.fileSize().toBytes());
+        description.put("seedFiles", settings.seedFiles());
+        description.put("s3Latency", settings.s3Latency().toString());
+        description.put("s3BandwidthBytesPerSecond", settings.s3Bandwidth().toBytes());
+        description.put("requestTimeout", settings.requestTimeout().toString());
+        return description;
+    }
+}
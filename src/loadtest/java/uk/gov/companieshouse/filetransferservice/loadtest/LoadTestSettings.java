@@ -0,0 +1,70 @@
+package uk.gov.companieshouse.filetransferservice.loadtest;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * The load test parameters, read from {@code loadtest.*} system properties.
+ *
+ * @param rate                 the requests started per second, regardless of how quickly earlier ones complete
+ * @param warmup               how long load is applied before measurement starts
+ * @param duration             how long load is measured for
+ * @param mix                  the relative weight of each operation
+ * @param fileSize             the size of each uploaded file
+ * @param seedFiles            the files uploaded before the warmup, for the first downloads to read
+ * @param s3Latency            the delay the fake S3 adds to every request
+ * @param s3Bandwidth          the rate the fake S3 transfers object bodies per connection, or 0 for no limit
+ * @param requestTimeout       how long a request may take before it is counted as an error
+ * @param report               where the JSON report is written
+ */
+record LoadTestSettings(int rate,
+                        Duration warmup,
+                        Duration duration,
+                        Map<Operation, Integer> mix,
+                        DataSize fileSize,
+                        int seedFiles,
+                        Duration s3Latency,
+                        DataSize s3Bandwidth,
+                        Duration requestTimeout,
+                        String report) {
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.getInteger("loadtest.rate", 50),
+                Duration.parse("PT" + System.getProperty("loadtest.warmup", "30s")),
+                Duration.parse("PT" + System.getProperty("loadtest.duration", "120s")),
+                parseMix(System.getProperty("loadtest.mix", "upload=2,details=3,download=5")),
+                DataSize.parse(System.getProperty("loadtest.file-size", "1MB")),
+                Integer.getInteger("loadtest.seed-files", 50),
+                Duration.parse("PT" + System.getProperty("loadtest.s3.latency", "0.02s")),
+                DataSize.parse(System.getProperty("loadtest.s3.bandwidth", "0B")),
+                Duration.parse("PT" + System.getProperty("loadtest.request-timeout", "30s")),
+                System.getProperty("loadtest.report", "target/loadtest-report.json"));
+    }
+
+    /**
+     * Parses weights written as {@code upload=2,details=3,download=5}; operations which are not listed are not run.
+     */
+    static Map<Operation, Integer> parseMix(final String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+
+        for (String entry : mix.split(",")) {
+            String[] weight = entry.trim().split("=", 2);
+            if (weight.length != 2) {
+                throw new IllegalArgumentException("Invalid loadtest.mix entry: " + entry);
+            }
+            int value = Integer.parseInt(weight[1].trim());
+            if (value > 0) {
+                weights.put(Operation.valueOf(weight[0].trim().toUpperCase(Locale.ROOT)), value);
+            }
+        }
+
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix must give at least one operation a weight");
+        }
+        return weights;
+    }
+}
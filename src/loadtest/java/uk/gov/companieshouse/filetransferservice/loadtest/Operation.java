@@ -0,0 +1,19 @@
+package uk.gov.companieshouse.filetransferservice.loadtest;
+
+import java.util.Locale;
+
+/**
+ * The requests the load test makes.
+ */
+enum Operation {
+    /** A multipart upload to {@code POST /file-transfer-service/}. */
+    UPLOAD,
+    /** {@code GET /file-transfer-service/{fileId}}. */
+    DETAILS,
+    /** A binary download from {@code GET /file-transfer-service/{fileId}/download}. */
+    DOWNLOAD;
+
+    String reportName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,85 @@
+package uk.gov.companieshouse.filetransferservice.loadtest;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * The outcomes of one operation during a phase of the load test. Latency is recorded in microseconds for successful
+ * requests only; requests which fail, time out or return an error status are counted as errors.
+ */
+final class OperationStats {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Histogram latency = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+    private final Map<Integer, LongAdder> statusCodes = new ConcurrentHashMap<>();
+    private final LongAdder errors = new LongAdder();
+
+    void recordSuccess(final int statusCode, final long latencyNanos) {
+        latency.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        countStatus(statusCode);
+    }
+
+    void recordError(final int statusCode) {
+        errors.increment();
+        countStatus(statusCode);
+    }
+
+    void recordError() {
+        errors.increment();
+    }
+
+    private void countStatus(final int statusCode) {
+        statusCodes.computeIfAbsent(statusCode, code -> new LongAdder()).increment();
+    }
+
+    LoadTestReport.OperationReport toReport(final double seconds) {
+        return toReport(latency, errors.sum(), statusCodeCounts(), seconds);
+    }
+
+    static LoadTestReport.OperationReport total(final Iterable<OperationStats> stats, final double seconds) {
+        Histogram combined = new Histogram(SIGNIFICANT_DIGITS);
+        Map<String, Long> combinedStatusCodes = new TreeMap<>();
+        long combinedErrors = 0;
+
+        for (OperationStats operation : stats) {
+            combined.add(operation.latency);
+            operation.statusCodeCounts().forEach((code, count) -> combinedStatusCodes.merge(code, count, Long::sum));
+            combinedErrors += operation.errors.sum();
+        }
+        return toReport(combined, combinedErrors, combinedStatusCodes, seconds);
+    }
+
+    private Map<String, Long> statusCodeCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        statusCodes.forEach((code, count) -> counts.put(String.valueOf(code), count.sum()));
+        return counts;
+    }
+
+    private static LoadTestReport.OperationReport toReport(final Histogram latency, final long errors,
+            final Map<String, Long> statusCodes, final double seconds) {
+        long succeeded = latency.getTotalCount();
+
+        return new LoadTestReport.OperationReport(
+                succeeded + errors,
+                errors,
+                statusCodes,
+                seconds > 0 ? succeeded / seconds : 0,
+                new LoadTestReport.LatencyReport(
+                        millis(latency.getValueAtPercentile(50)),
+                        millis(latency.getValueAtPercentile(90)),
+                        millis(latency.getValueAtPercentile(99)),
+                        millis(latency.getValueAtPercentile(99.9)),
+                        millis(latency.getMaxValue()),
+                        succeeded > 0 ? latency.getMean() / 1000 : 0));
+    }
+
+    private static double millis(final long micros) {
+        return micros / 1000.0;
+    }
+}
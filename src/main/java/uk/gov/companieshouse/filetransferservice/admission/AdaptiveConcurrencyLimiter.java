@@ -0,0 +1,235 @@
+package uk.gov.companieshouse.filetransferservice.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.exception.AbortedException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import uk.gov.companieshouse.filetransferservice.config.properties.S3LaneProperties;
+import uk.gov.companieshouse.filetransferservice.exception.TransferRejectedException;
+import uk.gov.companieshouse.filetransferservice.exception.UploadAbortedException;
+import uk.gov.companieshouse.filetransferservice.metrics.S3Operation;
+
+/**
+ * Limits the S3 calls in progress in each {@link S3Lane} to a limit which adapts to how S3 is responding, using
+ * additive increase and multiplicative decrease. Each call which completes within {@code admission.s3.latency-threshold}
+ * while its lane's limit is in use raises the limit by about one per limit's worth of calls, and a call which is
+ * throttled, fails to connect or is slower than the threshold cuts the limit by {@code admission.s3.backoff-ratio}.
+ * Calls beyond the limit are rejected at once with a {@link TransferRejectedException}, rather than queueing behind a
+ * slow S3.
+ * <p>
+ * Each lane's limit adapts on its own, so slow transfers lower the limits of the transfer lanes but not that of the
+ * metadata lane. A lane's limit never rises above its {@code admission.lanes.max-connections}, as calls beyond that
+ * would only queue for a connection.
+ * <p>
+ * Uploads and multipart completions take as long as their content needs, so only their failures, not their latency,
+ * lower the limit. A call cancelled before it completes, such as the slower of a hedged pair, or failed by the client,
+ * such as an upload part whose client dropped its connection, says nothing about S3, so leaves the limit as it is.
+ * <p>
+ * The meters are {@code file.transfer.admission.s3.limit} and {@code file.transfer.admission.s3.inflight}, gauges of
+ * the limit and the calls in progress, and {@code file.transfer.admission.shed}, a counter of the work shed, tagged by
+ * the {@code stage} at which it was shed. All of them are tagged by {@code lane}.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    static final String LIMIT = "file.transfer.admission.s3.limit";
+    static final String IN_FLIGHT = "file.transfer.admission.s3.inflight";
+    static final String SHED = "file.transfer.admission.shed";
+    static final String STAGE_TAG = "stage";
+    static final String LANE_TAG = "lane";
+
+    private static final Set<S3Operation> SIZE_DEPENDENT_OPERATIONS =
+            EnumSet.of(S3Operation.PUT, S3Operation.UPLOAD_PART, S3Operation.COMPLETE_MULTIPART_UPLOAD);
+
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final Duration retryAfter;
+    private final Map<S3Lane, LaneLimit> limits = new EnumMap<>(S3Lane.class);
+    private final Counter shedRequests;
+
+    public AdaptiveConcurrencyLimiter(final MeterRegistry registry,
+            final S3LaneProperties lanes,
+            @Value("${admission.s3.initial-limit}") final int initialLimit,
+            @Value("${admission.s3.min-limit}") final int minLimit,
+            @Value("${admission.s3.latency-threshold}") final Duration latencyThreshold,
+            @Value("${admission.s3.backoff-ratio}") final double backoffRatio,
+            @Value("${admission.retry-after}") final Duration retryAfter) {
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.retryAfter = retryAfter;
+
+        for (S3Lane lane : S3Lane.values()) {
+            limits.put(lane, new LaneLimit(registry, lane, initialLimit, minLimit, lanes.maxConnectionsFor(lane)));
+        }
+        this.shedRequests = shedCounter(registry, "request", S3Lane.METADATA);
+    }
+
+    /**
+     * Makes an S3 call if it is within its lane's limit, and adjusts the limit by how the call went.
+     *
+     * @param lane      the lane the call is made in
+     * @param operation the S3 operation being called
+     * @param call      the call to make
+     * @return the call's result
+     * @throws TransferRejectedException if the lane's limit has been reached
+     */
+    public <T> T call(final S3Lane lane, final S3Operation operation, final Supplier<T> call) {
+        return limits.get(lane).call(operation, call);
+    }
+
+    /**
+     * Sheds a request before any work is done for it when the metadata lane is already at its limit, as every request
+     * looks up file details first and its calls would be rejected anyway. Full transfer lanes do not shed requests,
+     * so details and deletes are still served while transfers are busy.
+     *
+     * @return whether the request should be shed
+     */
+    public boolean shouldShedRequest() {
+        if (!limits.get(S3Lane.METADATA).isFull()) {
+            return false;
+        }
+        shedRequests.increment();
+        return true;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    public int getLimit(final S3Lane lane) {
+        return limits.get(lane).getLimit();
+    }
+
+    private static boolean isOverload(final RuntimeException e) {
+        if (e instanceof SdkServiceException serviceException) {
+            return serviceException.isThrottlingException() || serviceException.statusCode() == 503;
+        }
+        return e instanceof SdkClientException;
+    }
+
+    /**
+     * @return whether the call failed as its thread was interrupted, which the SDK reports as an
+     * {@link AbortedException}, or as a connection error if the interrupt closed the connection
+     */
+    private static boolean isCancelled(final RuntimeException e) {
+        return e instanceof AbortedException || Thread.currentThread().isInterrupted();
+    }
+
+    private static Counter shedCounter(final MeterRegistry registry, final String stage, final S3Lane lane) {
+        return Counter.builder(SHED)
+                .description("Work shed as S3 calls were at their concurrency limit")
+                .tag(STAGE_TAG, stage)
+                .tag(LANE_TAG, lane.getTagValue())
+                .register(registry);
+    }
+
+    private class LaneLimit {
+
+        private final S3Lane lane;
+        private final int minLimit;
+        private final int maxLimit;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final Counter shedCalls;
+
+        private double limit;
+        private long lastDecreaseNanos;
+
+        LaneLimit(final MeterRegistry registry, final S3Lane lane, final int initialLimit, final int minLimit,
+                final int maxLimit) {
+            this.lane = lane;
+            this.maxLimit = Math.max(1, maxLimit);
+            this.minLimit = Math.clamp(minLimit, 1, this.maxLimit);
+            this.limit = Math.clamp(initialLimit, this.minLimit, this.maxLimit);
+            this.lastDecreaseNanos = System.nanoTime() - latencyThresholdNanos;
+
+            Gauge.builder(LIMIT, this, LaneLimit::getLimit)
+                    .description("S3 calls allowed in progress")
+                    .tag(LANE_TAG, lane.getTagValue())
+                    .register(registry);
+            Gauge.builder(IN_FLIGHT, inFlight, AtomicInteger::get)
+                    .description("S3 calls in progress")
+                    .tag(LANE_TAG, lane.getTagValue())
+                    .register(registry);
+            this.shedCalls = shedCounter(registry, "s3", lane);
+        }
+
+        <T> T call(final S3Operation operation, final Supplier<T> call) {
+            int inFlightAtStart = tryAcquire();
+            if (inFlightAtStart < 0) {
+                shedCalls.increment();
+                throw new TransferRejectedException(String.format("S3 concurrency limit of %d reached in %s lane",
+                        getLimit(), lane.getTagValue()), retryAfter);
+            }
+
+            long startNanos = System.nanoTime();
+            boolean overloaded = true;
+            boolean neutral = false;
+            try {
+                T result = call.get();
+                overloaded = !SIZE_DEPENDENT_OPERATIONS.contains(operation)
+                        && System.nanoTime() - startNanos > latencyThresholdNanos;
+                return result;
+
+            } catch (RuntimeException e) {
+                neutral = isCancelled(e) || e instanceof UploadAbortedException;
+                overloaded = isOverload(e);
+                throw e;
+
+            } finally {
+                inFlight.decrementAndGet();
+                if (!neutral) {
+                    adjustLimit(overloaded, inFlightAtStart);
+                }
+            }
+        }
+
+        boolean isFull() {
+            return inFlight.get() >= getLimit();
+        }
+
+        synchronized int getLimit() {
+            return (int) limit;
+        }
+
+        /**
+         * @return the calls in progress before this one, or -1 if the limit has been reached
+         */
+        private int tryAcquire() {
+            int limitNow = getLimit();
+            while (true) {
+                int current = inFlight.get();
+                if (current >= limitNow) {
+                    return -1;
+                }
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    return current;
+                }
+            }
+        }
+
+        private synchronized void adjustLimit(final boolean overloaded, final int inFlightAtStart) {
+            if (overloaded) {
+                // The calls caught in one slowdown all report it together, so the limit is only cut once for them
+                long now = System.nanoTime();
+                if (now - lastDecreaseNanos >= latencyThresholdNanos) {
+                    lastDecreaseNanos = now;
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                }
+            } else if (inFlightAtStart + 1 >= limit / 2) {
+                // Only a limit which is being used is known to be safe to raise
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package uk.gov.companieshouse.filetransferservice.admission;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Sheds requests with a {@code 503} and a {@code Retry-After} header before any work is done for them, while S3 calls
+ * are at the limit set by the {@link AdaptiveConcurrencyLimiter}. The health check is not registered with this
+ * interceptor, so it is never shed.
+ */
+@Component
+public class LoadSheddingInterceptor implements HandlerInterceptor {
+
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    public LoadSheddingInterceptor(final AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request,
+                             @NonNull HttpServletResponse response,
+                             @NonNull Object handler) throws IOException {
+        if (!concurrencyLimiter.shouldShedRequest()) {
+            return true;
+        }
+
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(concurrencyLimiter.getRetryAfter().toSeconds()));
+        response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "S3 concurrency limit reached");
+        return false;
+    }
+}
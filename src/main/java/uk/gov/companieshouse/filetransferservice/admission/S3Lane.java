@@ -0,0 +1,20 @@
+package uk.gov.companieshouse.filetransferservice.admission;
+
+import java.util.Locale;
+
+/**
+ * The lanes S3 calls are made in, each with its own S3 client, HTTP connection pool and concurrency limit, so the
+ * calls in one lane cannot hold up those in another. Quick metadata calls, such as those behind file details and
+ * deletes, keep to their own lane however many transfers are in progress.
+ */
+public enum S3Lane {
+    METADATA,
+    SMALL_TRANSFER,
+    LARGE_TRANSFER;
+
+    private final String tagValue = name().toLowerCase(Locale.ROOT).replace('_', '-');
+
+    public String getTagValue() {
+        return tagValue;
+    }
+}
@@ -0,0 +1,74 @@
+package uk.gov.companieshouse.filetransferservice.admission;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import software.amazon.awssdk.awscore.retry.AwsRetryStrategy;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import uk.gov.companieshouse.filetransferservice.config.properties.S3LaneProperties;
+import uk.gov.companieshouse.filetransferservice.metrics.S3ClientMetricPublisher;
+
+/**
+ * The S3 client for each {@link S3Lane}. Each client has its own HTTP connection pool, so transfers holding every
+ * connection in their lanes leave the metadata lane's connections free. The metadata lane's client makes a single
+ * attempt at each call, as its calls are retried and hedged by
+ * {@link uk.gov.companieshouse.filetransferservice.resilience.S3Resilience}, while the transfer lanes' clients retry
+ * with the SDK's standard retry strategy.
+ */
+public class S3LaneClients implements AutoCloseable {
+
+    private final Map<S3Lane, S3Client> clients;
+
+    public S3LaneClients(final Map<S3Lane, S3Client> clients) {
+        this.clients = new EnumMap<>(clients);
+    }
+
+    /**
+     * Creates a client for each lane, with a connection pool of the lane's {@code admission.lanes.max-connections}
+     * and the lane's metric publisher.
+     *
+     * @param lanes           the lane properties
+     * @param metricPublisher the publisher of the SDK's metrics
+     * @param builders        supplies a new builder, configured with anything common to every lane, for each client
+     * @return the clients
+     */
+    public static S3LaneClients create(final S3LaneProperties lanes, final S3ClientMetricPublisher metricPublisher,
+            final Supplier<S3ClientBuilder> builders) {
+        Map<S3Lane, S3Client> clients = new EnumMap<>(S3Lane.class);
+        for (S3Lane lane : S3Lane.values()) {
+            clients.put(lane, builders.get()
+                    .httpClientBuilder(ApacheHttpClient.builder().maxConnections(lanes.maxConnectionsFor(lane)))
+                    .overrideConfiguration(configuration -> {
+                        configuration.addMetricPublisher(metricPublisher.forLane(lane));
+                        if (lane == S3Lane.METADATA) {
+                            configuration.retryStrategy(AwsRetryStrategy.doNotRetry());
+                        }
+                    })
+                    .build());
+        }
+        return new S3LaneClients(clients);
+    }
+
+    /**
+     * @param client the client to use in every lane
+     * @return lanes which share a single client, and so a single connection pool
+     */
+    public static S3LaneClients shared(final S3Client client) {
+        Map<S3Lane, S3Client> clients = new EnumMap<>(S3Lane.class);
+        for (S3Lane lane : S3Lane.values()) {
+            clients.put(lane, client);
+        }
+        return new S3LaneClients(clients);
+    }
+
+    public S3Client get(final S3Lane lane) {
+        return clients.get(lane);
+    }
+
+    @Override
+    public void close() {
+        clients.values().stream().distinct().forEach(S3Client::close);
+    }
+}
@@ -0,0 +1,159 @@
+package uk.gov.companieshouse.filetransferservice.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import uk.gov.companieshouse.filetransferservice.exception.TransferRejectedException;
+
+/**
+ * Bounds the bytes of uploads and downloads in progress, so a burst of large transfers cannot exhaust temporary disk,
+ * heap and S3 connections together. Each transfer is admitted against the budget for its direction by its size, and
+ * waits up to {@code admission.queue-timeout} for the budget to become available before it is rejected with a
+ * {@link TransferRejectedException}. A transfer larger than the whole budget is admitted once nothing else is in
+ * progress.
+ * <p>
+ * The meters are {@code file.transfer.admission.bytes}, a gauge of the bytes admitted, and
+ * {@code file.transfer.admission.rejected}, a counter of the transfers rejected, both tagged by direction.
+ */
+@Component
+public class TransferAdmission {
+
+    static final String ADMITTED_BYTES = "file.transfer.admission.bytes";
+    static final String REJECTED = "file.transfer.admission.rejected";
+    static final String DIRECTION_TAG = "direction";
+    static final String UPLOAD = "upload";
+    static final String DOWNLOAD = "download";
+
+    // Budgets are held as permits of a KiB each, so a budget of up to 2 TiB fits in a semaphore
+    private static final long PERMIT_BYTES = 1024;
+
+    private final ByteBudget uploads;
+    private final ByteBudget downloads;
+    private final Duration queueTimeout;
+    private final Duration retryAfter;
+
+    public TransferAdmission(final MeterRegistry registry,
+            @Value("${admission.upload.max-bytes-in-flight}") final DataSize maxUploadBytes,
+            @Value("${admission.download.max-bytes-in-flight}") final DataSize maxDownloadBytes,
+            @Value("${admission.queue-timeout}") final Duration queueTimeout,
+            @Value("${admission.retry-after}") final Duration retryAfter) {
+        this.uploads = new ByteBudget(registry, UPLOAD, maxUploadBytes);
+        this.downloads = new ByteBudget(registry, DOWNLOAD, maxDownloadBytes);
+        this.queueTimeout = queueTimeout;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Admits an upload, waiting briefly if the upload budget is in use.
+     *
+     * @param contentLength the declared size of the upload
+     * @return the permit, to be closed when the upload completes
+     * @throws TransferRejectedException if the budget does not become available in time
+     */
+    public Permit admitUpload(final long contentLength) {
+        return uploads.acquire(contentLength);
+    }
+
+    /**
+     * Admits a download, waiting briefly if the download budget is in use.
+     *
+     * @param size the size of the file being downloaded
+     * @return the permit, to be closed, or released with the download content, when the download completes
+     * @throws TransferRejectedException if the budget does not become available in time
+     */
+    public Permit admitDownload(final long size) {
+        return downloads.acquire(size);
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * A transfer's share of a budget, which is returned exactly once however many times it is closed.
+     */
+    public static final class Permit implements AutoCloseable {
+
+        private final Semaphore semaphore;
+        private final int permits;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(final Semaphore semaphore, final int permits) {
+            this.semaphore = semaphore;
+            this.permits = permits;
+        }
+
+        /**
+         * Wraps content being transferred so the permit is released when the content is closed, which for a streamed
+         * response is after the request has been handled.
+         */
+        public InputStream releaseOnClose(final InputStream content) {
+            return new FilterInputStream(content) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        Permit.this.close();
+                    }
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                semaphore.release(permits);
+            }
+        }
+    }
+
+    private class ByteBudget {
+
+        private final String direction;
+        private final int maxPermits;
+        private final Semaphore semaphore;
+        private final Counter rejected;
+
+        ByteBudget(final MeterRegistry registry, final String direction, final DataSize maxBytes) {
+            this.direction = direction;
+            this.maxPermits = (int) Math.min(Integer.MAX_VALUE, Math.max(1, maxBytes.toBytes() / PERMIT_BYTES));
+            this.semaphore = new Semaphore(maxPermits, true);
+            this.rejected = Counter.builder(REJECTED)
+                    .description("Transfers rejected as the bytes in progress were over budget")
+                    .tag(DIRECTION_TAG, direction)
+                    .register(registry);
+
+            Gauge.builder(ADMITTED_BYTES, semaphore, s -> (double) (maxPermits - s.availablePermits()) * PERMIT_BYTES)
+                    .description("Bytes of the transfers in progress")
+                    .baseUnit("bytes")
+                    .tag(DIRECTION_TAG, direction)
+                    .register(registry);
+        }
+
+        Permit acquire(final long bytes) {
+            int permits = (int) Math.min(maxPermits, Math.max(1, (bytes + PERMIT_BYTES - 1) / PERMIT_BYTES));
+            try {
+                if (semaphore.tryAcquire(permits, queueTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                    return new Permit(semaphore, permits);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            rejected.increment();
+            throw new TransferRejectedException(
+                    String.format("Too many %ss in progress to admit %d bytes", direction, bytes), retryAfter);
+        }
+    }
+}
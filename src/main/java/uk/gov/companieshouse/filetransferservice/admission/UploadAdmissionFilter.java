@@ -0,0 +1,62 @@
+package uk.gov.companieshouse.filetransferservice.admission;
+
+import jakarta.annotation.Nonnull;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import uk.gov.companieshouse.filetransferservice.admission.TransferAdmission.Permit;
+import uk.gov.companieshouse.filetransferservice.exception.TransferRejectedException;
+
+/**
+ * Admits uploads by their declared {@code Content-Length} before the request body is read, as a multipart upload is
+ * written to temporary disk before it reaches the controller. An upload without a declared length is admitted as the
+ * largest request allowed. An upload which is not admitted gets a {@code 503} with a {@code Retry-After} header.
+ */
+@Component
+public class UploadAdmissionFilter extends OncePerRequestFilter {
+
+    private final TransferAdmission transferAdmission;
+    private final Set<String> uploadPaths;
+    private final long maxRequestSize;
+
+    public UploadAdmissionFilter(final TransferAdmission transferAdmission,
+            @Value("${service.path.prefix}") final String servicePathPrefix,
+            @Value("${spring.servlet.multipart.max-request-size}") final DataSize maxRequestSize) {
+        this.transferAdmission = transferAdmission;
+        this.uploadPaths = Set.of(servicePathPrefix + "/", servicePathPrefix + "/upload");
+        this.maxRequestSize = maxRequestSize.toBytes();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@Nonnull HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !uploadPaths.contains(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(@Nonnull HttpServletRequest request,
+            @Nonnull HttpServletResponse response,
+            @Nonnull FilterChain filterChain) throws ServletException, IOException {
+        long contentLength = request.getContentLengthLong();
+
+        Permit permit;
+        try {
+            permit = transferAdmission.admitUpload(contentLength < 0 ? maxRequestSize : contentLength);
+        } catch (TransferRejectedException e) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfter().toSeconds()));
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, e.getMessage());
+            return;
+        }
+
+        try (permit) {
+            filterChain.doFilter(request, response);
+        }
+    }
+}
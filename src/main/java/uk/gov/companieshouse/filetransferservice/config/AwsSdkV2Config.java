@@ -3,12 +3,25 @@ package uk.gov.companieshouse.filetransferservice.config;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import uk.gov.companieshouse.filetransferservice.admission.S3LaneClients;
+import uk.gov.companieshouse.filetransferservice.config.properties.S3LaneProperties;
+import uk.gov.companieshouse.filetransferservice.metrics.S3ClientMetricPublisher;
 
 @Configuration
 class AwsSdkV2Config {
 
+    /**
+     * Creates an S3 client for each lane, each with its own connection pool, publishing the SDK's metrics for each
+     * call, such as connection pool use, retries and throttling, as application metrics.
+     */
     @Bean
-    S3Client s3Client() {
-        return S3Client.create();
+    S3LaneClients s3LaneClients(S3LaneProperties s3LaneProperties, S3ClientMetricPublisher s3ClientMetricPublisher) {
+        return S3LaneClients.create(s3LaneProperties, s3ClientMetricPublisher, S3Client::builder);
+    }
+
+    @Bean
+    S3Presigner s3Presigner() {
+        return S3Presigner.create();
     }
 }
@@ -4,24 +4,25 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import uk.gov.companieshouse.api.interceptor.InternalUserInterceptor;
-import uk.gov.companieshouse.filetransferservice.logging.LoggingInterceptor;
+import uk.gov.companieshouse.filetransferservice.admission.LoadSheddingInterceptor;
 import uk.gov.companieshouse.logging.Logger;
 
 @Component
 public class WebMvcConfig implements WebMvcConfigurer {
 
     private static final String HEALTH_CHECK_PATH = "/file-transfer-service/healthcheck";
+    private static final String PROMETHEUS_PATH = "/file-transfer-service/prometheus";
 
-    private final LoggingInterceptor loggingInterceptor;
+    private final LoadSheddingInterceptor loadSheddingInterceptor;
     private final InternalUserInterceptor internalUserInterceptor;
     private final Logger logger;
 
-    public WebMvcConfig(final LoggingInterceptor loggingInterceptor,
+    public WebMvcConfig(final LoadSheddingInterceptor loadSheddingInterceptor,
             final InternalUserInterceptor internalUserInterceptor,
             final Logger logger) {
         logger.trace("WebMvcConfig constructor");
 
-        this.loggingInterceptor = loggingInterceptor;
+        this.loadSheddingInterceptor = loadSheddingInterceptor;
         this.internalUserInterceptor = internalUserInterceptor;
         this.logger = logger;
     }
@@ -30,7 +31,8 @@ public class WebMvcConfig implements WebMvcConfigurer {
     public void addInterceptors(final InterceptorRegistry registry) {
         logger.trace("addInterceptors() method called.");
 
-        registry.addInterceptor(loggingInterceptor).excludePathPatterns(HEALTH_CHECK_PATH);
-        registry.addInterceptor(internalUserInterceptor).excludePathPatterns(HEALTH_CHECK_PATH);
+        // Shedding comes first, so a shed request costs as little as possible
+        registry.addInterceptor(loadSheddingInterceptor).excludePathPatterns(HEALTH_CHECK_PATH, PROMETHEUS_PATH);
+        registry.addInterceptor(internalUserInterceptor).excludePathPatterns(HEALTH_CHECK_PATH, PROMETHEUS_PATH);
     }
 }
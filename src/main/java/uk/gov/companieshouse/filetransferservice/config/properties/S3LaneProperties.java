@@ -0,0 +1,53 @@
+package uk.gov.companieshouse.filetransferservice.config.properties;
+
+import java.util.EnumMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import uk.gov.companieshouse.filetransferservice.admission.S3Lane;
+
+/**
+ * The size of each {@link S3Lane}'s HTTP connection pool, and the size from which a transfer goes in the large
+ * transfer lane.
+ */
+@Component
+@ConfigurationProperties(prefix = "admission.lanes")
+public class S3LaneProperties {
+
+    private Map<S3Lane, Integer> maxConnections = new EnumMap<>(S3Lane.class);
+
+    private DataSize largeTransferThreshold;
+
+    public Map<S3Lane, Integer> getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(Map<S3Lane, Integer> maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public DataSize getLargeTransferThreshold() {
+        return largeTransferThreshold;
+    }
+
+    public void setLargeTransferThreshold(DataSize largeTransferThreshold) {
+        this.largeTransferThreshold = largeTransferThreshold;
+    }
+
+    public int maxConnectionsFor(final S3Lane lane) {
+        Integer connections = maxConnections.get(lane);
+        if (connections == null) {
+            throw new IllegalStateException("No admission.lanes.max-connections set for lane " + lane.getTagValue());
+        }
+        return connections;
+    }
+
+    /**
+     * @param size the size of the transfer, or a negative number if it is not known
+     * @return the lane for the transfer, which is the large transfer lane if its size is not known
+     */
+    public S3Lane transferLane(final long size) {
+        return size < 0 || size >= largeTransferThreshold.toBytes() ? S3Lane.LARGE_TRANSFER : S3Lane.SMALL_TRANSFER;
+    }
+}
@@ -0,0 +1,34 @@
+package uk.gov.companieshouse.filetransferservice.config.properties;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.filetransferservice.metrics.S3Operation;
+
+/**
+ * The longest each {@link S3Operation} may take, including any retries, before the S3 client gives up on it.
+ */
+@Component
+@ConfigurationProperties(prefix = "s3.timeouts")
+public class S3TimeoutProperties {
+
+    private Map<S3Operation, Duration> apiCall = new EnumMap<>(S3Operation.class);
+
+    public Map<S3Operation, Duration> getApiCall() {
+        return apiCall;
+    }
+
+    public void setApiCall(Map<S3Operation, Duration> apiCall) {
+        this.apiCall = apiCall;
+    }
+
+    public Duration apiCallTimeoutFor(final S3Operation operation) {
+        Duration timeout = apiCall.get(operation);
+        if (timeout == null) {
+            throw new IllegalStateException("No s3.timeouts.api-call set for operation " + operation.getTagValue());
+        }
+        return timeout;
+    }
+}
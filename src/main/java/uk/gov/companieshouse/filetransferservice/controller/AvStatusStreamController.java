@@ -0,0 +1,176 @@
+package uk.gov.companieshouse.filetransferservice.controller;
+
+import static uk.gov.companieshouse.filetransferservice.controller.FileTransferController.FILE_ID_KEY;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import uk.gov.companieshouse.api.filetransfer.AvStatus;
+import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
+import uk.gov.companieshouse.api.filetransfer.IdApi;
+import uk.gov.companieshouse.filetransferservice.exception.InvalidRequestException;
+import uk.gov.companieshouse.filetransferservice.service.avstatus.AvStatusSource;
+import uk.gov.companieshouse.filetransferservice.service.avstatus.AvStatusSource.Subscription;
+import uk.gov.companieshouse.filetransferservice.service.storage.FileStorageStrategy;
+import uk.gov.companieshouse.logging.Logger;
+
+/**
+ * Streams the AV status of a set of files to a client as Server-Sent Events, so a client waiting for several uploads
+ * to be scanned is told of each as it happens, rather than polling each file. The streams listen to the shared
+ * {@link AvStatusSource}, so they add no S3 calls of their own once the files' details have been looked up.
+ */
+@Controller
+@RequestMapping(path = "${service.path.prefix}/av-status")
+public class AvStatusStreamController {
+
+    static final String AV_STATUS_EVENT = "av-status";
+    static final String NOT_FOUND_EVENT = "not-found";
+
+    private final FileStorageStrategy fileStorageStrategy;
+    private final AvStatusSource avStatusSource;
+    private final Logger logger;
+    private final Duration streamTimeout;
+    private final int maxFiles;
+
+    public AvStatusStreamController(FileStorageStrategy fileStorageStrategy,
+            AvStatusSource avStatusSource,
+            Logger logger,
+            @Value("${av-status.stream.timeout}") Duration streamTimeout,
+            @Value("${av-status.stream.max-files}") int maxFiles) {
+        this.fileStorageStrategy = fileStorageStrategy;
+        this.avStatusSource = avStatusSource;
+        this.logger = logger;
+        this.streamTimeout = streamTimeout;
+        this.maxFiles = maxFiles;
+    }
+
+    /**
+     * Streams the AV status of the given files. Each file's details are sent first as an {@code av-status} event,
+     * or, for a file which does not exist, its id as a {@code not-found} event. Each file not yet scanned has its
+     * details sent again once it has been scanned, or its id once it has been deleted. A file whose status cannot be
+     * looked up meanwhile is not sent as {@code not-found}, but is still listened for. The stream ends once every file
+     * has been scanned or is gone, or after {@code av-status.stream.timeout}, after which a client can reconnect to
+     * carry on listening.
+     *
+     * @param fileIds The fileIds of the files to listen for, at most {@code av-status.stream.max-files} of them.
+     * @return The stream of events, each with the id of the file it is for.
+     */
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAvStatus(@RequestParam(name = "fileIds") List<String> fileIds) {
+        logger.trace("streamAvStatus() method called.");
+
+        Set<String> uniqueFileIds = new LinkedHashSet<>(fileIds);
+        uniqueFileIds.removeIf(String::isBlank);
+        if (uniqueFileIds.isEmpty()) {
+            throw new InvalidRequestException("fileIds", "At least one file must be listened for");
+        }
+        if (uniqueFileIds.size() > maxFiles) {
+            throw new InvalidRequestException("fileIds",
+                    String.format("At most %d files can be listened for", maxFiles));
+        }
+
+        AvStatusStream stream = new AvStatusStream(new SseEmitter(streamTimeout.toMillis()), uniqueFileIds.size());
+        try {
+            for (String fileId : uniqueFileIds) {
+                Optional<FileDetailsApi> fileDetails = fileStorageStrategy.getFileDetails(fileId);
+                stream.send(fileId, fileDetails);
+                if (fileDetails.isPresent() && fileDetails.get().getAvStatus() == AvStatus.NOT_SCANNED) {
+                    stream.add(avStatusSource.subscribe(fileDetails.get(),
+                            scanned -> stream.send(fileId, scanned)));
+                }
+            }
+
+        } catch (RuntimeException e) {
+            stream.close();
+            throw e;
+        }
+
+        return stream.emitter;
+    }
+
+    /**
+     * A client's stream, which stops listening for its files when it ends, however it ends.
+     */
+    private class AvStatusStream {
+
+        private final SseEmitter emitter;
+        private final List<Subscription> subscriptions = new ArrayList<>();
+        private int remaining;
+        private boolean closed;
+
+        AvStatusStream(final SseEmitter emitter, final int files) {
+            this.emitter = emitter;
+            this.remaining = files;
+
+            emitter.onTimeout(emitter::complete);
+            emitter.onCompletion(this::close);
+            emitter.onError(failure -> close());
+        }
+
+        synchronized void add(final Subscription subscription) {
+            if (closed) {
+                subscription.close();
+            } else {
+                subscriptions.add(subscription);
+            }
+        }
+
+        /**
+         * Sends a file's details, or that it is not found, and ends the stream once every file is done with.
+         */
+        synchronized void send(final String fileId, final Optional<FileDetailsApi> fileDetails) {
+            if (closed) {
+                return;
+            }
+
+            try {
+                if (fileDetails.isPresent()) {
+                    emitter.send(SseEmitter.event()
+                            .id(fileId)
+                            .name(AV_STATUS_EVENT)
+                            .data(fileDetails.get(), MediaType.APPLICATION_JSON));
+                } else {
+                    emitter.send(SseEmitter.event()
+                            .id(fileId)
+                            .name(NOT_FOUND_EVENT)
+                            .data(new IdApi(fileId), MediaType.APPLICATION_JSON));
+                }
+
+            } catch (IOException | IllegalStateException e) {
+                // The client has gone, or the stream has already ended
+                Map<String, Object> loggedVars = new HashMap<>();
+                loggedVars.put(FILE_ID_KEY, fileId);
+                logger.infoContext(fileId, "Unable to send AV status event", loggedVars);
+                close();
+                return;
+            }
+
+            if (fileDetails.isEmpty() || fileDetails.get().getAvStatus() != AvStatus.NOT_SCANNED) {
+                if (--remaining == 0) {
+                    emitter.complete();
+                }
+            }
+        }
+
+        synchronized void close() {
+            if (!closed) {
+                closed = true;
+                subscriptions.forEach(Subscription::close);
+                subscriptions.clear();
+            }
+        }
+    }
+}
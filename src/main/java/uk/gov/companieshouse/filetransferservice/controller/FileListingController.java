@@ -0,0 +1,182 @@
+package uk.gov.companieshouse.filetransferservice.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import uk.gov.companieshouse.api.filetransfer.AvStatus;
+import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
+import uk.gov.companieshouse.filetransferservice.exception.InvalidRequestException;
+import uk.gov.companieshouse.filetransferservice.service.storage.FileStorageStrategy;
+import uk.gov.companieshouse.logging.Logger;
+
+/**
+ * Lists the stored files as newline-delimited JSON, one file's details per line. The listing is written as it is read
+ * from S3, a page at a time, so a listing of any length is sent with the memory of a single page, and a client which
+ * stops reading stops the listing. It is written on the request thread, so a long listing is not cut off by the async
+ * request timeout, and ends with a {@code {"complete":true,"count":n}} line, so a client can tell a listing which
+ * failed part way from one which ended.
+ */
+@Controller
+@RequestMapping(path = "${service.path.prefix}/files")
+public class FileListingController {
+
+    private final FileStorageStrategy fileStorageStrategy;
+    private final ObjectMapper objectMapper;
+    private final Logger logger;
+    private final int avStatusConcurrency;
+
+    public FileListingController(FileStorageStrategy fileStorageStrategy,
+            ObjectMapper objectMapper,
+            Logger logger,
+            @Value("${listing.av-status-concurrency}") int avStatusConcurrency) {
+        this.fileStorageStrategy = fileStorageStrategy;
+        this.objectMapper = objectMapper;
+        this.logger = logger;
+        this.avStatusConcurrency = avStatusConcurrency;
+    }
+
+    /**
+     * Lists the files in file id order. A client reads a long listing in parts by passing the id of the last file it
+     * received as {@code after}, so no listing state is kept between requests.
+     *
+     * @param prefix Only files whose ids start with this are listed.
+     * @param after Only files whose ids come after this are listed.
+     * @param createdFrom Only files created at or after this ISO-8601 instant are listed.
+     * @param createdTo Only files created before this ISO-8601 instant are listed.
+     * @param limit The most files to list, or all of them if not given.
+     * @param avStatus Whether each file's AV status should be looked up, in which case a file deleted since it was
+     *                 listed is left out, and a lookup which fails fails the listing.
+     * @param response The response the details of each file are written to, one per line, as they are listed, followed
+     *                 by a line marking the listing complete.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void listFiles(
+            @RequestParam(name = "prefix", required = false) String prefix,
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "createdFrom", required = false) String createdFrom,
+            @RequestParam(name = "createdTo", required = false) String createdTo,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "avStatus", defaultValue = "false") boolean avStatus,
+            HttpServletResponse response) throws IOException {
+        logger.trace("listFiles() method called.");
+
+        Instant from = parseInstant("createdFrom", createdFrom);
+        Instant to = parseInstant("createdTo", createdTo);
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new InvalidRequestException("createdTo", "createdTo must be after createdFrom");
+        }
+        if (limit != null && limit < 1) {
+            throw new InvalidRequestException("limit", "limit must be at least 1");
+        }
+
+        // The first page is listed now, so a failure to list is reported before the response is started
+        Stream<FileDetailsApi> files = fileStorageStrategy.list(prefix, after, from, to,
+                limit == null ? Integer.MAX_VALUE : limit);
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        OutputStream outputStream = response.getOutputStream();
+
+        int count = 0;
+        if (avStatus) {
+            count = writeWithAvStatus(files.iterator(), outputStream);
+        } else {
+            for (Iterator<FileDetailsApi> iterator = files.iterator(); iterator.hasNext(); count++) {
+                writeLine(iterator.next(), outputStream);
+            }
+        }
+        writeLine(new ListingComplete(true, count), outputStream);
+    }
+
+    /**
+     * Looks up the AV status of up to {@code listing.av-status-concurrency} files at once, writing each file in
+     * listing order once its own lookup and those of the files before it are done. A file deleted since it was listed
+     * is left out, but a lookup which fails fails the listing, rather than the file being left out as if deleted.
+     *
+     * @return The number of files written.
+     */
+    private int writeWithAvStatus(final Iterator<FileDetailsApi> files, final OutputStream outputStream)
+            throws IOException {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Deque<CompletableFuture<Optional<FileDetailsApi>>> lookups = new ArrayDeque<>();
+            int count = 0;
+            try {
+                while (files.hasNext() || !lookups.isEmpty()) {
+                    while (files.hasNext() && lookups.size() < avStatusConcurrency) {
+                        // Listed files have no AV status, so one without AV tags is not yet scanned
+                        FileDetailsApi fileDetails = files.next()
+                                .avTimestamp("")
+                                .avStatus(AvStatus.NOT_SCANNED);
+                        lookups.add(CompletableFuture.supplyAsync(
+                                () -> fileStorageStrategy.refreshAvStatus(fileDetails), executor));
+                    }
+
+                    Optional<FileDetailsApi> scanned = join(lookups.remove());
+                    if (scanned.isPresent()) {
+                        writeLine(scanned.get(), outputStream);
+                        count++;
+                    }
+                }
+                return count;
+
+            } finally {
+                lookups.forEach(lookup -> lookup.cancel(false));
+            }
+        }
+    }
+
+    private static <T> T join(final CompletableFuture<T> lookup) {
+        try {
+            return lookup.join();
+
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void writeLine(final Object line, final OutputStream outputStream) throws IOException {
+        objectMapper.writeValue(StreamUtils.nonClosing(outputStream), line);
+        outputStream.write('\n');
+    }
+
+    private static Instant parseInstant(final String parameter, final String value) {
+        if (value == null) {
+            return null;
+        }
+
+        try {
+            return Instant.parse(value);
+
+        } catch (DateTimeParseException e) {
+            throw new InvalidRequestException(parameter, parameter + " must be an ISO-8601 instant");
+        }
+    }
+
+    /**
+     * The last line of a listing, written once every file has been.
+     */
+    private record ListingComplete(boolean complete, int count) {
+    }
+}
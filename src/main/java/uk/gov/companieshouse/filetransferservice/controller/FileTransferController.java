@@ -1,18 +1,31 @@
 package uk.gov.companieshouse.filetransferservice.controller;
 
-import static java.lang.String.format;
+import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
+import jakarta.servlet.http.HttpServletResponse;
 import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
@@ -20,20 +33,27 @@ import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.multipart.MultipartFile;
 import uk.gov.companieshouse.api.filetransfer.AvStatus;
 import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
 import uk.gov.companieshouse.api.filetransfer.IdApi;
+import uk.gov.companieshouse.filetransferservice.admission.TransferAdmission;
+import uk.gov.companieshouse.filetransferservice.admission.TransferAdmission.Permit;
+import uk.gov.companieshouse.filetransferservice.converter.FileDownloadApiToLegacyJsonConverter;
+import uk.gov.companieshouse.filetransferservice.converter.LegacyJsonToFileUploadApiConverter;
 import uk.gov.companieshouse.filetransferservice.converter.MultipartFileToFileUploadApiConverter;
 import uk.gov.companieshouse.filetransferservice.exception.FileNotCleanException;
 import uk.gov.companieshouse.filetransferservice.exception.FileNotFoundException;
 import uk.gov.companieshouse.filetransferservice.exception.InvalidMimeTypeException;
 import uk.gov.companieshouse.filetransferservice.model.FileDownloadApi;
+import uk.gov.companieshouse.filetransferservice.model.FileDownloadLinkApi;
 import uk.gov.companieshouse.filetransferservice.model.FileUploadApi;
-import uk.gov.companieshouse.filetransferservice.model.legacy.FileApi;
+import uk.gov.companieshouse.filetransferservice.resilience.RequestDeadline;
+import uk.gov.companieshouse.filetransferservice.service.avstatus.AvStatusWatcher;
 import uk.gov.companieshouse.filetransferservice.service.storage.FileStorageStrategy;
 import uk.gov.companieshouse.filetransferservice.validation.FileUploadValidator;
 import uk.gov.companieshouse.filetransferservice.validation.MimeTypeValidator;
@@ -44,26 +64,44 @@ import uk.gov.companieshouse.logging.Logger;
 public class FileTransferController {
 
     public static final String FILE_ID_KEY = "fileId";
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String ERIC_IDENTITY_TYPE_HEADER = "ERIC-Identity-Type";
+    public static final String ERIC_IDENTITY_HEADER = "ERIC-Identity";
 
     private final FileStorageStrategy fileStorageStrategy;
     private final MultipartFileToFileUploadApiConverter fileUploadConverter;
+    private final LegacyJsonToFileUploadApiConverter legacyFileUploadConverter;
+    private final FileDownloadApiToLegacyJsonConverter legacyDownloadConverter;
     private final MimeTypeValidator mimeTypeValidator;
     private final FileUploadValidator fileUploadValidator;
+    private final TransferAdmission transferAdmission;
+    private final AvStatusWatcher avStatusWatcher;
     private final Logger logger;
     private final boolean antiVirusCheckingEnabled;
+    private final Duration maxAvStatusWait;
 
     public FileTransferController(FileStorageStrategy fileStorageStrategy,
             MultipartFileToFileUploadApiConverter fileUploadConverter,
+            LegacyJsonToFileUploadApiConverter legacyFileUploadConverter,
+            FileDownloadApiToLegacyJsonConverter legacyDownloadConverter,
             MimeTypeValidator mimeTypeValidator,
             FileUploadValidator fileUploadValidator,
+            TransferAdmission transferAdmission,
+            AvStatusWatcher avStatusWatcher,
             Logger logger,
-            @Value("${antivirus.checking.enabled:true}") boolean antiVirusCheckEnabled) {
+            @Value("${antivirus.checking.enabled:true}") boolean antiVirusCheckEnabled,
+            @Value("${av-status.max-wait}") Duration maxAvStatusWait) {
         this.fileStorageStrategy = fileStorageStrategy;
         this.fileUploadConverter = fileUploadConverter;
+        this.legacyFileUploadConverter = legacyFileUploadConverter;
+        this.legacyDownloadConverter = legacyDownloadConverter;
         this.mimeTypeValidator = mimeTypeValidator;
         this.fileUploadValidator = fileUploadValidator;
+        this.transferAdmission = transferAdmission;
+        this.avStatusWatcher = avStatusWatcher;
         this.logger = logger;
         this.antiVirusCheckingEnabled = antiVirusCheckEnabled;
+        this.maxAvStatusWait = maxAvStatusWait;
     }
 
     /**
@@ -71,22 +109,25 @@ public class FileTransferController {
      * MIME type and this end-point is only available for legacy clients. This endpoint is deprecated and only used for
      * earlier version of the private-api-sdk-java which did not originally support multipart/form-data.
      *
-     * @param file the data to upload, represented as a JSON payload
+     * <p>
+     * The request body is read as a stream and the base64 encoded content is decoded as it arrives, so the file is
+     * never held in memory as a whole.
+     *
+     * @param requestBody the data to upload, represented as a JSON payload
      * @return a ResponseEntity containing the ID of the uploaded file or an error message
      * @throws InvalidMimeTypeException if the MIME type of the uploaded file is unsupported
      * @throws IOException if an I/O error occurs during the upload process
      */
     @PostMapping(value = {"/", "/upload"}, consumes = "application/json", produces = "application/json")
     @Deprecated(since = "0.2.16", forRemoval = true)
-    public ResponseEntity<IdApi> upload(@RequestBody uk.gov.companieshouse.filetransferservice.model.legacy.FileApi file)
-            throws InvalidMimeTypeException, IOException {
+    public ResponseEntity<IdApi> upload(InputStream requestBody) throws InvalidMimeTypeException, IOException {
         logger.trace("upload(json) method called.");
 
-        mimeTypeValidator.validate(file.getMimeType());
+        FileUploadApi fileUploadApi = legacyFileUploadConverter.convert(requestBody);
 
-        try (ByteArrayInputStream inputStream = new ByteArrayInputStream(file.getBody())) {
-            FileUploadApi fileUploadApi = new FileUploadApi(file.getFileName(),
-                    inputStream, file.getMimeType(), file.getSize(), file.getExtension());
+        try (InputStream inputStream = fileUploadApi.getBody()) {
+            mimeTypeValidator.validate(fileUploadApi.getMimeType());
+            fileUploadApi.setBody(mimeTypeValidator.validate(fileUploadApi.getMimeType(), inputStream));
 
             String fileId = fileStorageStrategy.save(fileUploadApi);
             logger.infoContext(fileId, "File uploaded successfully", new HashMap<>(Map.of(FILE_ID_KEY, fileId)));
@@ -97,14 +138,26 @@ public class FileTransferController {
 
     /**
      * Uploads the specified file to the file transfer service. The uploaded file must be of a valid MIME type and
-     * within size limits. If the upload is successful, the ID of the uploaded file is returned in a ResponseEntity.
-     * Otherwise, an error message is returned.
+     * within size limits, and its content must match that MIME type. If the upload is successful, the ID of the
+     * uploaded file is returned in a ResponseEntity. Otherwise, an error message is returned.
+     *
+     * <p>
+     * An upload sent with an {@code Idempotency-Key} header is stored once for that key, so a client retrying an upload
+     * whose response it did not receive gets the id of the file already stored, and an upload retried while the first
+     * is still in progress waits for it. Sending the key with a different file is rejected. Keys are scoped to the
+     * caller's identity, as given by the API gateway, so one caller's keys cannot find or block another's files.
      *
      * @param uploadedFile the file to upload
+     * @param idempotencyKey a key chosen by the client for this file, if it may retry the upload
+     * @param identityType the type of the caller's identity, e.g. {@code key} or {@code oauth2}, if given
+     * @param identity the caller's identity, if given
      * @return a ResponseEntity containing the ID of the uploaded file or an error message
      */
     @PostMapping(value = "/", consumes = "multipart/form-data")
-    public ResponseEntity<IdApi> upload(@RequestParam(value = "file") MultipartFile uploadedFile)
+    public ResponseEntity<IdApi> upload(@RequestParam(value = "file") MultipartFile uploadedFile,
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @RequestHeader(name = ERIC_IDENTITY_TYPE_HEADER, required = false) String identityType,
+            @RequestHeader(name = ERIC_IDENTITY_HEADER, required = false) String identity)
             throws InvalidMimeTypeException, IOException {
         logger.trace("upload(file) method called.");
 
@@ -112,9 +165,42 @@ public class FileTransferController {
         fileUploadValidator.validate(uploadedFile);
 
         FileUploadApi file = fileUploadConverter.convert(uploadedFile);
-        String fileId = fileStorageStrategy.save(file);
 
-        return ResponseEntity.ok(new IdApi(fileId));
+        try (InputStream inputStream = file.getBody()) {
+            file.setBody(mimeTypeValidator.validate(file.getMimeType(), inputStream));
+
+            String fileId = isBlank(idempotencyKey)
+                    ? fileStorageStrategy.save(file)
+                    : fileStorageStrategy.save(file, callerIdentity(identityType, identity), idempotencyKey,
+                            contentHash(uploadedFile));
+
+            return ResponseEntity.ok(new IdApi(fileId));
+        }
+    }
+
+    /**
+     * @return the caller's identity, as its type and id, which is empty for a caller the API gateway gave neither
+     */
+    private static String callerIdentity(final String identityType, final String identity) {
+        return Objects.toString(identityType, "") + ":" + Objects.toString(identity, "");
+    }
+
+    /**
+     * @return the SHA-256 of the uploaded file, in hex, read from the copy the multipart request was stored in
+     */
+    private static String contentHash(final MultipartFile uploadedFile) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+
+        try (InputStream inputStream = uploadedFile.getInputStream();
+                OutputStream outputStream = new DigestOutputStream(OutputStream.nullOutputStream(), digest)) {
+            inputStream.transferTo(outputStream);
+        }
+        return HexFormat.of().formatHex(digest.digest());
     }
 
     /**
@@ -126,7 +212,7 @@ public class FileTransferController {
     @GetMapping(path = "/{fileId}")
     public ResponseEntity<FileDetailsApi> get(@PathVariable String fileId)
             throws FileNotFoundException, FileNotCleanException {
-        logger.trace(format("getFileDetails(fileId=%s) method called.", fileId));
+        logger.trace("getFileDetails() method called.");
 
         FileDetailsApi fileDetails = fileStorageStrategy.getFileDetails(fileId)
                 .orElseThrow(() -> new FileNotFoundException(fileId));
@@ -134,65 +220,134 @@ public class FileTransferController {
         return ResponseEntity.ok(fileDetails);
     }
 
+    /**
+     * Gets the file details once the file has been scanned, so a client waiting for its AV status can hold one request
+     * open rather than polling. The request is held for up to {@code wait} seconds, capped by {@code av-status.max-wait}
+     * and by the request's deadline, and completes as soon as the file has been scanned. If the wait expires first, the
+     * details are returned with the file still not scanned, and the client can ask again.
+     *
+     * @param fileId The fileId of the resource to be retrieved.
+     * @param waitSeconds How long to wait for the file to be scanned, in seconds.
+     * @return The details of the file resource, once scanned or when the wait expires.
+     */
+    @GetMapping(path = "/{fileId}/av-status", produces = APPLICATION_JSON_VALUE)
+    public DeferredResult<ResponseEntity<FileDetailsApi>> getAvStatus(@PathVariable String fileId,
+            @RequestParam(name = "wait", defaultValue = "0") long waitSeconds) throws FileNotFoundException {
+        logger.trace("getAvStatus() method called.");
+
+        FileDetailsApi fileDetails = fileStorageStrategy.getFileDetails(fileId)
+                .orElseThrow(() -> new FileNotFoundException(fileId));
+
+        Duration wait = Duration.ofSeconds(Math.max(0, waitSeconds));
+        if (wait.compareTo(maxAvStatusWait) > 0) {
+            wait = maxAvStatusWait;
+        }
+        Optional<Duration> deadlineRemaining = RequestDeadline.current().map(RequestDeadline::remaining);
+        if (deadlineRemaining.isPresent() && wait.compareTo(deadlineRemaining.get()) > 0) {
+            wait = deadlineRemaining.get();
+        }
+
+        // The watcher completes the wait itself, so the async timeout only guards against it never doing so
+        DeferredResult<ResponseEntity<FileDetailsApi>> result = new DeferredResult<>(
+                wait.plusSeconds(5).toMillis(), avStatusResponse(fileDetails));
+
+        CompletableFuture<Optional<FileDetailsApi>> scanned = avStatusWatcher.await(fileDetails, wait);
+        scanned.whenComplete((details, failure) -> {
+            if (failure != null) {
+                result.setResult(avStatusResponse(fileDetails));
+            } else if (details.isPresent()) {
+                result.setResult(avStatusResponse(details.get()));
+            } else {
+                result.setErrorResult(new FileNotFoundException(fileId));
+            }
+        });
+        // Stops waiting when the client goes away or the request times out
+        result.onCompletion(() -> scanned.cancel(false));
+
+        return result;
+    }
+
+    private static ResponseEntity<FileDetailsApi> avStatusResponse(final FileDetailsApi fileDetails) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(fileDetails);
+    }
+
+    /**
+     * Downloads the file as the legacy JSON payload. The response is streamed, with the file content base64 encoded
+     * as it is read from S3 rather than being loaded into memory first. It is written on the request thread rather
+     * than as an async response, so a large download is not cut off by the async request timeout.
+     *
+     * @param fileId The fileId of the resource to be downloaded.
+     * @param bypassAv Whether the AV status check should be skipped.
+     * @param response The response the legacy JSON representation of the file is written to as it is read.
+     */
     @GetMapping(path = "/{fileId}/download", produces = APPLICATION_JSON_VALUE)
     @Deprecated(since = "0.2.16", forRemoval = true)
-    public ResponseEntity<uk.gov.companieshouse.filetransferservice.model.legacy.FileApi> downloadAsJson(
-            @PathVariable String fileId, @RequestParam(name = "bypassAv", defaultValue = "false") boolean bypassAv)
-            throws FileNotFoundException, FileNotCleanException, IOException {
-        logger.trace(format("downloadAsJson(fileId=%s, bypassAv=%s) method called.", fileId, bypassAv));
+    public void downloadAsJson(@PathVariable String fileId,
+            @RequestParam(name = "bypassAv", defaultValue = "false") boolean bypassAv,
+            HttpServletResponse response) throws FileNotFoundException, FileNotCleanException, IOException {
+        logger.trace("downloadAsJson() method called.");
 
-        FileDetailsApi fileDetailsApi = get(fileId).getBody();
-        Resource fileResource = download(fileId, bypassAv).getBody();
+        FileDetailsApi fileDetailsApi = fileStorageStrategy.getFileDetails(fileId)
+                .orElseThrow(() -> new FileNotFoundException(fileId));
 
-        if (fileDetailsApi == null || fileResource == null) {
-            throw new FileNotFoundException(fileId);
-        }
+        checkAntiVirusStatus(fileDetailsApi, bypassAv);
 
-        FileApi fileApi = getFileApi(fileDetailsApi, fileResource);
+        FileDownloadApi fileDownload = loadAdmitted(fileDetailsApi);
 
-        return ResponseEntity.ok(fileApi);
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(APPLICATION_JSON_VALUE);
+        legacyDownloadConverter.write(fileDetailsApi, fileDownload, response.getOutputStream());
     }
 
+    /**
+     * Downloads the file as raw binary content. As for {@link #download}, the download is admitted before its content
+     * is fetched from S3, and the content is streamed to the client with the Content-Length of the stored object. It is
+     * written on the request thread, so a long download is not cut off by the async request timeout.
+     *
+     * @param fileId The fileId of the resource to be downloaded.
+     * @param bypassAv Whether the AV status check should be skipped.
+     * @return the file content, written as it is read
+     */
     @GetMapping(path = "/{fileId}/downloadbinary")
     @Deprecated(since = "0.2.16", forRemoval = true)
-    public ResponseEntity<byte[]> downloadAsBinary(@PathVariable String fileId,
-            @RequestParam(name = "bypassAv", defaultValue = "false") boolean bypassAv) throws FileNotFoundException, FileNotCleanException, IOException {
-        logger.trace(format("downloadAsBinary(fileId=%s, bypassAv=%s) method called.", fileId, bypassAv));
+    public ResponseEntity<Resource> downloadAsBinary(@PathVariable String fileId,
+            @RequestParam(name = "bypassAv", defaultValue = "false") boolean bypassAv) throws FileNotFoundException, FileNotCleanException {
+        logger.trace("downloadAsBinary() method called.");
 
-        FileDetailsApi fileDetailsApi = get(fileId).getBody();
-        logger.info(format("Download binary file with details: %s", fileDetailsApi));
+        FileDetailsApi fileDetailsApi = fileStorageStrategy.getFileDetails(fileId)
+                .orElseThrow(() -> new FileNotFoundException(fileId));
 
         checkAntiVirusStatus(fileDetailsApi, bypassAv);
 
-        var file = downloadAsJson(fileId, bypassAv).getBody();
-        var data = file.getBody();
+        FileDownloadApi fileDownload = loadAdmitted(fileDetailsApi);
 
         var headers = new HttpHeaders();
-        headers.setContentType(MediaType.parseMediaType(file.getMimeType()));
+        headers.setContentType(MediaType.parseMediaType(fileDownload.getMimeType()));
         headers.setContentDisposition(ContentDisposition.builder("attachment")
-                .filename(file.getFileName())
+                .filename(fileDownload.getFileName())
                 .build());
-        headers.setContentLength(data.length);
-
-        logger.info(format("Generating response for file download with headers: %s", headers));
+        if (fileDetailsApi.getSize() != null) {
+            headers.setContentLength(fileDetailsApi.getSize());
+        }
 
         return ResponseEntity.ok()
                 .headers(headers)
-                .body(data);
+                .body(new InputStreamResource(fileDownload.getBody()));
     }
 
     @GetMapping(path = "/{fileId}/download")
     public ResponseEntity<Resource> download(@PathVariable String fileId,
             @RequestParam(name = "bypassAv", defaultValue = "false") boolean bypassAv) throws FileNotFoundException, FileNotCleanException {
-        logger.trace(format("download(fileId=%s, bypassAv=%s) method called.", fileId, bypassAv));
+        logger.trace("download() method called.");
 
         FileDetailsApi fileDetailsApi = fileStorageStrategy.getFileDetails(fileId)
                 .orElseThrow(() -> new FileNotFoundException(fileId));
 
         checkAntiVirusStatus(fileDetailsApi, bypassAv);
 
-        FileDownloadApi fileDownload = fileStorageStrategy.load(fileDetailsApi)
-                .orElseThrow(() -> new FileNotFoundException(fileId));
+        FileDownloadApi fileDownload = loadAdmitted(fileDetailsApi);
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.parseMediaType(fileDownload.getMimeType()));
@@ -203,6 +358,45 @@ public class FileTransferController {
                 .body(new InputStreamResource(new BufferedInputStream(fileDownload.getBody())));
     }
 
+    /**
+     * Redirects the client to a short-lived presigned URL, so the file content is fetched directly from S3 instead of
+     * being streamed through the service. The file details and AV status are checked exactly as for a download.
+     *
+     * @param fileId The fileId of the resource to be downloaded.
+     * @param bypassAv Whether the AV status check should be skipped.
+     * @return a 302 response whose Location is the presigned URL
+     */
+    @GetMapping(path = "/{fileId}/download", params = "redirect=true")
+    public ResponseEntity<Void> downloadRedirect(@PathVariable String fileId,
+            @RequestParam(name = "bypassAv", defaultValue = "false") boolean bypassAv) throws FileNotFoundException, FileNotCleanException {
+        logger.trace("downloadRedirect() method called.");
+
+        FileDownloadLinkApi downloadLink = getDownloadLink(fileId, bypassAv);
+
+        return ResponseEntity.status(HttpStatus.FOUND)
+                .location(URI.create(downloadLink.getUrl()))
+                .cacheControl(CacheControl.noStore())
+                .build();
+    }
+
+    /**
+     * Returns a short-lived presigned URL from which the file content can be fetched directly from S3. The file
+     * details and AV status are checked exactly as for a download.
+     *
+     * @param fileId The fileId of the resource to be downloaded.
+     * @param bypassAv Whether the AV status check should be skipped.
+     * @return The presigned URL and the time at which it expires.
+     */
+    @GetMapping(path = "/{fileId}/download/link", produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<FileDownloadLinkApi> downloadLink(@PathVariable String fileId,
+            @RequestParam(name = "bypassAv", defaultValue = "false") boolean bypassAv) throws FileNotFoundException, FileNotCleanException {
+        logger.trace("downloadLink() method called.");
+
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(getDownloadLink(fileId, bypassAv));
+    }
+
     /**
      * Handles the request to delete a file from S3
      *
@@ -210,7 +404,7 @@ public class FileTransferController {
      */
     @DeleteMapping(path = "/{fileId}")
     public ResponseEntity<Void> delete(@PathVariable String fileId) throws FileNotFoundException{
-        logger.trace(format("deletedFile(fileId=%s) method called.", fileId));
+        logger.trace("deletedFile() method called.");
 
         FileDetailsApi fileDetails = fileStorageStrategy.getFileDetails(fileId)
                 .orElseThrow(() -> new FileNotFoundException(fileId));
@@ -222,25 +416,44 @@ public class FileTransferController {
         return ResponseEntity.noContent().build();
     }
 
-    @SuppressWarnings("deprecation")
-    private FileApi getFileApi(final FileDetailsApi fileDetailsApi, final Resource fileResource) throws IOException {
-        logger.trace(format("getFileApi(fileId=%s) method called.", fileDetailsApi.getId()));
+    /**
+     * Admits the download by the file's size before it is loaded from S3, so a download which is not admitted does not
+     * hold an S3 connection. The admission is released when the download content is closed.
+     */
+    private FileDownloadApi loadAdmitted(final FileDetailsApi fileDetails) {
+        Permit permit = transferAdmission.admitDownload(fileDetails.getSize() == null ? 0 : fileDetails.getSize());
+        try {
+            FileDownloadApi fileDownload = fileStorageStrategy.load(fileDetails)
+                    .orElseThrow(() -> new FileNotFoundException(fileDetails.getId()));
+            return withBody(fileDownload, permit.releaseOnClose(fileDownload.getBody()));
+
+        } catch (RuntimeException e) {
+            permit.close();
+            throw e;
+        }
+    }
 
-        String originalFilename = fileDetailsApi.getName();
-        String fileExtension = originalFilename.substring(originalFilename.lastIndexOf(".") + 1);
+    private static FileDownloadApi withBody(final FileDownloadApi fileDownload, final InputStream body) {
+        return new FileDownloadApi(fileDownload.getFileName(), body, fileDownload.getMimeType(),
+                fileDownload.getSize(), fileDownload.getExtension());
+    }
 
-        return new FileApi(originalFilename, fileResource.getContentAsByteArray(), fileDetailsApi.getContentType(),
-                fileDetailsApi.getSize().intValue(), fileExtension);
+    private FileDownloadLinkApi getDownloadLink(final String fileId, boolean bypassAv) {
+        FileDetailsApi fileDetailsApi = fileStorageStrategy.getFileDetails(fileId)
+                .orElseThrow(() -> new FileNotFoundException(fileId));
+
+        checkAntiVirusStatus(fileDetailsApi, bypassAv);
+
+        return fileStorageStrategy.getDownloadLink(fileDetailsApi);
     }
 
     private void checkAntiVirusStatus(final FileDetailsApi fileDetails, boolean bypassAv) throws FileNotCleanException {
-        logger.trace(format("checkAntiVirusStatus(fileId=%s, bypassAv=%s) method called.", fileDetails.getId(), bypassAv));
-
-        logger.info(format("AV Checking Enabled: %s (AV Status: %s)", antiVirusCheckingEnabled, fileDetails.getAvStatus()));
+        logger.trace("checkAntiVirusStatus() method called.");
 
         // If AV checking is disabled (for integration testing), or the file is being bypassed, skip the AV check
         if(!antiVirusCheckingEnabled || bypassAv) {
-            logger.info(format("> Bypassing AV check for fileId: %s", fileDetails.getId()));
+            logger.infoContext(fileDetails.getId(), "Bypassing AV check",
+                    new HashMap<>(Map.of(FILE_ID_KEY, fileDetails.getId())));
             return;
         }
 
@@ -0,0 +1,127 @@
+package uk.gov.companieshouse.filetransferservice.controller;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static uk.gov.companieshouse.filetransferservice.controller.FileTransferController.FILE_ID_KEY;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
+import uk.gov.companieshouse.api.filetransfer.IdApi;
+import uk.gov.companieshouse.filetransferservice.exception.FileNotFoundException;
+import uk.gov.companieshouse.filetransferservice.exception.InvalidMimeTypeException;
+import uk.gov.companieshouse.filetransferservice.exception.InvalidUploadException;
+import uk.gov.companieshouse.filetransferservice.model.PresignedUploadApi;
+import uk.gov.companieshouse.filetransferservice.model.UploadInitiationApi;
+import uk.gov.companieshouse.filetransferservice.service.storage.FileStorageStrategy;
+import uk.gov.companieshouse.filetransferservice.validation.MimeTypeValidator;
+import uk.gov.companieshouse.logging.Logger;
+
+/**
+ * Lets clients upload files directly to S3, so large uploads do not pass through the service. A client first
+ * initiates an upload to receive presigned URLs for a new file id, uploads the content to those URLs, and then
+ * completes the upload so the stored object can be verified before its id is used.
+ */
+@Controller
+@RequestMapping(path = "${service.path.prefix}/uploads")
+public class PresignedUploadController {
+
+    private final FileStorageStrategy fileStorageStrategy;
+    private final MimeTypeValidator mimeTypeValidator;
+    private final Logger logger;
+    private final long maxFileSize;
+
+    public PresignedUploadController(FileStorageStrategy fileStorageStrategy,
+            MimeTypeValidator mimeTypeValidator,
+            Logger logger,
+            @Value("${spring.servlet.multipart.max-file-size}") DataSize maxFileSize) {
+        this.fileStorageStrategy = fileStorageStrategy;
+        this.mimeTypeValidator = mimeTypeValidator;
+        this.logger = logger;
+        this.maxFileSize = maxFileSize.toBytes();
+    }
+
+    /**
+     * Initiates an upload directly to S3. The file name, MIME type and size are validated as they would be for an
+     * upload through the service, and presigned URLs are returned for a new file id.
+     *
+     * @param upload the name, MIME type and size of the file to be uploaded
+     * @return a ResponseEntity containing the file id and the presigned URLs to upload the content to
+     * @throws InvalidMimeTypeException if the MIME type of the file is unsupported
+     */
+    @PostMapping(consumes = APPLICATION_JSON_VALUE, produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<PresignedUploadApi> initiate(@RequestBody UploadInitiationApi upload)
+            throws InvalidMimeTypeException {
+        logger.trace("initiate() method called.");
+
+        mimeTypeValidator.validate(upload.getMimeType());
+
+        if (isBlank(upload.getFileName())) {
+            throw new InvalidUploadException(null, "Uploaded file has no filename");
+        }
+
+        validateSize(null, upload.getSize());
+
+        PresignedUploadApi presignedUpload = fileStorageStrategy.initiateUpload(upload);
+        logger.infoContext(presignedUpload.getId(), "Presigned upload initiated",
+                new HashMap<>(Map.of(FILE_ID_KEY, presignedUpload.getId())));
+
+        return ResponseEntity.ok(presignedUpload);
+    }
+
+    /**
+     * Completes an upload made directly to S3. The stored object is checked to exist, to have been initiated as a
+     * presigned upload, and to carry valid metadata and size; a file that fails verification is deleted. Any other
+     * file is not found, so a file stored some other way is never deleted here.
+     *
+     * @param fileId the file id returned when the upload was initiated
+     * @param uploadId the multipart upload id returned when the upload was initiated, if any
+     * @return a ResponseEntity containing the ID of the uploaded file
+     */
+    @PostMapping(path = "/{fileId}/complete", produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<IdApi> complete(@PathVariable String fileId,
+            @RequestParam(name = "uploadId", required = false) String uploadId) throws FileNotFoundException {
+        logger.trace("complete() method called.");
+
+        FileDetailsApi fileDetails = fileStorageStrategy.completeUpload(fileId, uploadId)
+                .orElseThrow(() -> new FileNotFoundException(fileId));
+
+        try {
+            mimeTypeValidator.validate(fileDetails.getContentType());
+
+            if (isBlank(fileDetails.getName())) {
+                throw new InvalidUploadException(fileId, "Uploaded file has no filename");
+            }
+
+            validateSize(fileId, fileDetails.getSize());
+
+        } catch (RuntimeException e) {
+            fileStorageStrategy.delete(fileId);
+            throw e;
+        }
+
+        logger.infoContext(fileId, "File uploaded successfully", new HashMap<>(Map.of(FILE_ID_KEY, fileId)));
+
+        return ResponseEntity.ok(new IdApi(fileId));
+    }
+
+    private void validateSize(final String fileId, final Long size) {
+        if (size == null || size <= 0) {
+            throw new InvalidUploadException(fileId, "Uploaded file is empty");
+        }
+
+        if (size > maxFileSize) {
+            throw new MaxUploadSizeExceededException(maxFileSize);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package uk.gov.companieshouse.filetransferservice.controller;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static uk.gov.companieshouse.filetransferservice.controller.FileTransferController.FILE_ID_KEY;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
+import uk.gov.companieshouse.api.filetransfer.IdApi;
+import uk.gov.companieshouse.filetransferservice.admission.TransferAdmission;
+import uk.gov.companieshouse.filetransferservice.admission.TransferAdmission.Permit;
+import uk.gov.companieshouse.filetransferservice.exception.FileNotFoundException;
+import uk.gov.companieshouse.filetransferservice.exception.InvalidMimeTypeException;
+import uk.gov.companieshouse.filetransferservice.exception.InvalidUploadException;
+import uk.gov.companieshouse.filetransferservice.model.ResumableUploadApi;
+import uk.gov.companieshouse.filetransferservice.model.ResumableUploadPartApi;
+import uk.gov.companieshouse.filetransferservice.model.UploadInitiationApi;
+import uk.gov.companieshouse.filetransferservice.service.storage.FileStorageStrategy;
+import uk.gov.companieshouse.filetransferservice.service.storage.ResumableUploadSession;
+import uk.gov.companieshouse.filetransferservice.validation.MimeTypeValidator;
+import uk.gov.companieshouse.logging.Logger;
+
+/**
+ * Lets clients upload files through the service in parts, so an upload which is interrupted can be resumed by sending
+ * only the parts not yet uploaded, rather than starting again. A client creates a session, uploads each part with a
+ * PUT, asks for the session to learn which parts have been uploaded, and then completes the upload so the stored
+ * object can be verified before its id is used. Each session is an S3 multipart upload, and one left incomplete is
+ * aborted by the {@code AbandonedUploadSweeper}.
+ */
+@Controller
+@RequestMapping(path = "${service.path.prefix}/uploads/sessions")
+public class ResumableUploadController {
+
+    private final FileStorageStrategy fileStorageStrategy;
+    private final MimeTypeValidator mimeTypeValidator;
+    private final TransferAdmission transferAdmission;
+    private final Logger logger;
+    private final long maxFileSize;
+    private final long partSize;
+
+    public ResumableUploadController(FileStorageStrategy fileStorageStrategy,
+            MimeTypeValidator mimeTypeValidator,
+            TransferAdmission transferAdmission,
+            Logger logger,
+            @Value("${spring.servlet.multipart.max-file-size}") DataSize maxFileSize,
+            @Value("${upload.resumable.part-size:8MB}") DataSize partSize) {
+        this.fileStorageStrategy = fileStorageStrategy;
+        this.mimeTypeValidator = mimeTypeValidator;
+        this.transferAdmission = transferAdmission;
+        this.logger = logger;
+        this.maxFileSize = maxFileSize.toBytes();
+        this.partSize = partSize.toBytes();
+    }
+
+    /**
+     * Creates a resumable upload. The file name, MIME type and size are validated as they would be for an upload
+     * through the service, and a session is returned for a new file id.
+     *
+     * @param upload the name, MIME type and size of the file to be uploaded
+     * @return a ResponseEntity containing the upload session and the size of its parts
+     * @throws InvalidMimeTypeException if the MIME type of the file is unsupported
+     */
+    @PostMapping(consumes = APPLICATION_JSON_VALUE, produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<ResumableUploadApi> create(@RequestBody UploadInitiationApi upload)
+            throws InvalidMimeTypeException {
+        logger.trace("create() method called.");
+
+        mimeTypeValidator.validate(upload.getMimeType());
+
+        if (isBlank(upload.getFileName())) {
+            throw new InvalidUploadException(null, "Uploaded file has no filename");
+        }
+
+        validateSize(null, upload.getSize());
+
+        ResumableUploadApi resumableUpload = fileStorageStrategy.createResumableUpload(upload);
+        logger.infoContext(resumableUpload.getId(), "Resumable upload created",
+                new HashMap<>(Map.of(FILE_ID_KEY, resumableUpload.getId())));
+
+        return ResponseEntity.ok(resumableUpload);
+    }
+
+    /**
+     * Gets a resumable upload, listing the parts uploaded so far, so a client can resume it
+     *
+     * @param session the session returned when the upload was created
+     * @return a ResponseEntity containing the upload
+     */
+    @GetMapping(path = "/{session}", produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<ResumableUploadApi> get(@PathVariable String session) throws FileNotFoundException {
+        logger.trace("get() method called.");
+
+        ResumableUploadSession uploadSession = decode(session);
+
+        return fileStorageStrategy.getResumableUpload(uploadSession)
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new FileNotFoundException(uploadSession.fileId()));
+    }
+
+    /**
+     * Uploads a part of a resumable upload, streaming the request body to S3. A part may be sent again, e.g. after a
+     * connection drops, and replaces the part sent before. The part is admitted by its {@code Content-Length} as any
+     * other upload is.
+     *
+     * @param session the session returned when the upload was created
+     * @param partNumber the part number, from 1, of the part starting at byte {@code (partNumber - 1) * part_size}
+     * @param contentLength the size of the part, which must be the upload's part size for all but the last part
+     * @param body the content of the part
+     * @return a ResponseEntity containing the part uploaded
+     */
+    @PutMapping(path = "/{session}/parts/{partNumber}", produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<ResumableUploadPartApi> uploadPart(@PathVariable String session,
+            @PathVariable int partNumber,
+            @RequestHeader(HttpHeaders.CONTENT_LENGTH) long contentLength,
+            InputStream body) throws FileNotFoundException {
+        logger.trace("uploadPart() method called.");
+
+        ResumableUploadSession uploadSession = decode(session);
+
+        try (Permit permit = transferAdmission.admitUpload(contentLength)) {
+            return fileStorageStrategy.uploadPart(uploadSession, partNumber, body, contentLength)
+                    .map(ResponseEntity::ok)
+                    .orElseThrow(() -> new FileNotFoundException(uploadSession.fileId()));
+        }
+    }
+
+    /**
+     * Completes a resumable upload once all its parts have been uploaded. The stored object is checked to carry valid
+     * metadata and size; a file that fails verification is deleted.
+     *
+     * @param session the session returned when the upload was created
+     * @return a ResponseEntity containing the ID of the uploaded file
+     */
+    @PostMapping(path = "/{session}/complete", produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<IdApi> complete(@PathVariable String session) throws FileNotFoundException {
+        logger.trace("complete() method called.");
+
+        ResumableUploadSession uploadSession = decode(session);
+        String fileId = uploadSession.fileId();
+
+        FileDetailsApi fileDetails = fileStorageStrategy.completeResumableUpload(uploadSession)
+                .orElseThrow(() -> new FileNotFoundException(fileId));
+
+        try {
+            mimeTypeValidator.validate(fileDetails.getContentType());
+
+            if (isBlank(fileDetails.getName())) {
+                throw new InvalidUploadException(fileId, "Uploaded file has no filename");
+            }
+
+            validateSize(fileId, fileDetails.getSize());
+
+        } catch (RuntimeException e) {
+            fileStorageStrategy.delete(fileId);
+            throw e;
+        }
+
+        logger.infoContext(fileId, "File uploaded successfully", new HashMap<>(Map.of(FILE_ID_KEY, fileId)));
+
+        return ResponseEntity.ok(new IdApi(fileId));
+    }
+
+    /**
+     * Aborts a resumable upload, discarding the parts uploaded so far
+     *
+     * @param session the session returned when the upload was created
+     * @return an empty ResponseEntity, whether or not the upload was still in progress
+     */
+    @DeleteMapping(path = "/{session}")
+    public ResponseEntity<Void> abort(@PathVariable String session) {
+        logger.trace("abort() method called.");
+
+        ResumableUploadSession uploadSession = decode(session);
+        fileStorageStrategy.abortResumableUpload(uploadSession);
+
+        logger.infoContext(uploadSession.fileId(), "Resumable upload aborted",
+                new HashMap<>(Map.of(FILE_ID_KEY, uploadSession.fileId())));
+
+        return ResponseEntity.noContent().build();
+    }
+
+    private ResumableUploadSession decode(final String session) {
+        return ResumableUploadSession.decode(session, partSize, maxFileSize);
+    }
+
+    private void validateSize(final String fileId, final Long size) {
+        if (size == null || size <= 0) {
+            throw new InvalidUploadException(fileId, "Uploaded file is empty");
+        }
+
+        if (size > maxFileSize) {
+            throw new MaxUploadSizeExceededException(maxFileSize);
+        }
+    }
+}
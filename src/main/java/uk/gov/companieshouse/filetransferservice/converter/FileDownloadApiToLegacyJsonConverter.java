@@ -0,0 +1,49 @@
+package uk.gov.companieshouse.filetransferservice.converter;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
+import uk.gov.companieshouse.filetransferservice.model.FileDownloadApi;
+
+/**
+ * Writes a download as the legacy {@link uk.gov.companieshouse.filetransferservice.model.legacy.FileApi} JSON payload.
+ * The envelope fields are written directly to the response and the file content is base64 encoded from the S3 stream
+ * a chunk at a time, so memory use per download is constant and the first bytes are sent straight away. The payload is
+ * written by the calling thread, so a download is not cut short by an async request timeout however long it takes.
+ *
+ * @deprecated Only used by the deprecated JSON download endpoint, and will be removed along with it.
+ */
+@Component
+@Deprecated(since = "0.2.16")
+public class FileDownloadApiToLegacyJsonConverter {
+
+    private final JsonFactory jsonFactory;
+
+    public FileDownloadApiToLegacyJsonConverter(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    public void write(final FileDetailsApi fileDetails, final FileDownloadApi fileDownload,
+            final OutputStream outputStream) throws IOException {
+        String fileName = fileDetails.getName();
+        String extension = fileName.substring(fileName.lastIndexOf(".") + 1);
+
+        try (InputStream body = fileDownload.getBody();
+                JsonGenerator generator = jsonFactory.createGenerator(StreamUtils.nonClosing(outputStream))) {
+            generator.writeStartObject();
+            generator.writeStringField("file_name", fileName);
+            generator.writeFieldName("body");
+            generator.writeBinary(body, -1);
+            generator.writeStringField("mime_type", fileDetails.getContentType());
+            generator.writeNumberField("size", fileDetails.getSize().intValue());
+            generator.writeStringField("extension", extension);
+            generator.writeEndObject();
+        }
+    }
+}
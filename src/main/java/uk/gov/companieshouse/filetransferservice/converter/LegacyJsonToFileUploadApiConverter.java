@@ -0,0 +1,124 @@
+package uk.gov.companieshouse.filetransferservice.converter;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import uk.gov.companieshouse.filetransferservice.exception.InvalidUploadException;
+import uk.gov.companieshouse.filetransferservice.model.FileUploadApi;
+
+/**
+ * Reads the legacy {@link uk.gov.companieshouse.filetransferservice.model.legacy.FileApi} JSON payload without
+ * holding the file content in memory. The JSON is parsed token by token and the base64 {@code body} field is decoded
+ * incrementally into a temporary file, which is deleted once the returned body stream is closed. Heap use therefore
+ * stays bounded regardless of the size of the upload.
+ *
+ * @deprecated Only used by the deprecated JSON upload endpoint, and will be removed along with it.
+ */
+@Component
+@Deprecated(since = "0.2.16")
+public class LegacyJsonToFileUploadApiConverter {
+
+    private static final String FILE_NAME_FIELD = "file_name";
+    private static final String BODY_FIELD = "body";
+    private static final String MIME_TYPE_FIELD = "mime_type";
+    private static final String EXTENSION_FIELD = "extension";
+
+    private final JsonFactory jsonFactory;
+    private final long maxFileSize;
+
+    public LegacyJsonToFileUploadApiConverter(ObjectMapper objectMapper,
+            @Value("${spring.servlet.multipart.max-file-size}") DataSize maxFileSize) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.maxFileSize = maxFileSize.toBytes();
+    }
+
+    public FileUploadApi convert(final InputStream json) throws IOException {
+        Path bodyFile = Files.createTempFile("legacy-upload-", ".tmp");
+
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a JSON object");
+            }
+
+            FileUploadApi fileUploadApi = new FileUploadApi();
+            long bodySize = 0;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                JsonToken valueToken = parser.nextToken();
+
+                switch (fieldName) {
+                    case FILE_NAME_FIELD -> fileUploadApi.setFileName(parser.getValueAsString());
+                    case MIME_TYPE_FIELD -> fileUploadApi.setMimeType(parser.getValueAsString());
+                    case EXTENSION_FIELD -> fileUploadApi.setExtension(parser.getValueAsString());
+                    case BODY_FIELD -> bodySize = valueToken == JsonToken.VALUE_NULL ? 0 : readBody(parser, bodyFile);
+                    default -> parser.skipChildren();
+                }
+            }
+
+            // The declared size is ignored in favour of the number of bytes actually decoded.
+            fileUploadApi.setSize((int) bodySize);
+            fileUploadApi.setBody(Files.newInputStream(bodyFile, StandardOpenOption.DELETE_ON_CLOSE));
+
+            return fileUploadApi;
+
+        } catch (JsonProcessingException e) {
+            Files.deleteIfExists(bodyFile);
+            throw new InvalidUploadException(null, "Malformed JSON payload");
+
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(bodyFile);
+            throw e;
+        }
+    }
+
+    private long readBody(final JsonParser parser, final Path bodyFile) throws IOException {
+        try (OutputStream outputStream = new SizeLimitedOutputStream(Files.newOutputStream(bodyFile), maxFileSize)) {
+            return parser.readBinaryValue(outputStream);
+        }
+    }
+
+    private static class SizeLimitedOutputStream extends FilterOutputStream {
+
+        private final long maxSize;
+        private long size;
+
+        SizeLimitedOutputStream(final OutputStream out, final long maxSize) {
+            super(out);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            checkSize(1);
+            out.write(b);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            checkSize(len);
+            out.write(b, off, len);
+        }
+
+        private void checkSize(final int len) {
+            size += len;
+            if (size > maxSize) {
+                throw new MaxUploadSizeExceededException(maxSize);
+            }
+        }
+    }
+}
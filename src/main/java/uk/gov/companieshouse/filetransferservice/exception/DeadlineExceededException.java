@@ -0,0 +1,16 @@
+package uk.gov.companieshouse.filetransferservice.exception;
+
+/**
+ * Thrown when work for a request is stopped because the deadline its caller gave has passed, so the caller is no
+ * longer waiting for the response.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+
+    public DeadlineExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,18 @@
+package uk.gov.companieshouse.filetransferservice.exception;
+
+/**
+ * Thrown when an upload is sent with an idempotency key which was already used for a file with different content.
+ */
+public class IdempotencyConflictException extends RuntimeException {
+
+    private final String fileId;
+
+    public IdempotencyConflictException(String fileId) {
+        super("Idempotency-Key was already used for a different file");
+        this.fileId = fileId;
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+}
@@ -0,0 +1,17 @@
+package uk.gov.companieshouse.filetransferservice.exception;
+
+/**
+ * Thrown when a request's query parameters are not valid.
+ */
+public class InvalidRequestException extends RuntimeException {
+    private final String parameter;
+
+    public InvalidRequestException(String parameter, String message) {
+        super(message);
+        this.parameter = parameter;
+    }
+
+    public String getParameter() {
+        return parameter;
+    }
+}
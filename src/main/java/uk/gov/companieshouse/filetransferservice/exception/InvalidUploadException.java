@@ -0,0 +1,14 @@
+package uk.gov.companieshouse.filetransferservice.exception;
+
+public class InvalidUploadException extends RuntimeException {
+    private final String fileId;
+
+    public InvalidUploadException(String fileId, String message) {
+        super(message);
+        this.fileId = fileId;
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+}
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -51,6 +52,49 @@ public class RestExceptionHandler {
                 .build();
     }
 
+    @ExceptionHandler({InvalidUploadException.class})
+    public ResponseEntity<ApiErrorResponse> handleInvalidUpload(InvalidUploadException e) {
+        Map<String, Object> loggedVars = new HashMap<>();
+        loggedVars.put(FILE_ID_KEY, e.getFileId());
+        logger.error("File upload failed validation", e, loggedVars);
+
+        return ErrorResponseBuilder
+                .status(HttpStatus.BAD_REQUEST)
+                .withError(e.getMessage(),
+                        "file",
+                        "body_parameter",
+                        "validation")
+                .build();
+    }
+
+    @ExceptionHandler({UploadAbortedException.class})
+    public ResponseEntity<ApiErrorResponse> handleUploadAborted(UploadAbortedException e) {
+        Map<String, Object> loggedVars = new HashMap<>();
+        loggedVars.put(FILE_ID_KEY, e.getFileId());
+        logger.infoContext(e.getFileId(), e.getMessage(), loggedVars);
+
+        return ErrorResponseBuilder
+                .status(HttpStatus.BAD_REQUEST)
+                .withError("Upload content could not be read",
+                        "file",
+                        "body_parameter",
+                        "upload")
+                .build();
+    }
+
+    @ExceptionHandler({InvalidRequestException.class})
+    public ResponseEntity<ApiErrorResponse> handleInvalidRequest(InvalidRequestException e) {
+        logger.info(e.getMessage());
+
+        return ErrorResponseBuilder
+                .status(HttpStatus.BAD_REQUEST)
+                .withError(e.getMessage(),
+                        e.getParameter(),
+                        "query_parameter",
+                        "validation")
+                .build();
+    }
+
     @ExceptionHandler({FileNotCleanException.class})
     public ResponseEntity<ApiErrorResponse> handleFileNotCleanException(FileNotCleanException e) {
         String fileId = e.getFileId();
@@ -85,6 +129,66 @@ public class RestExceptionHandler {
                 .build();
     }
 
+    @ExceptionHandler({TransferRejectedException.class})
+    public ResponseEntity<ApiErrorResponse> handleTransferRejected(TransferRejectedException e) {
+        logger.info(e.getMessage());
+
+        ResponseEntity<ApiErrorResponse> response = ErrorResponseBuilder
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .withError("Service is busy, retry later",
+                        "transfer",
+                        "resource",
+                        "admission")
+                .build();
+        return ResponseEntity.status(response.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfter().toSeconds()))
+                .body(response.getBody());
+    }
+
+    @ExceptionHandler({S3UnavailableException.class})
+    public ResponseEntity<ApiErrorResponse> handleS3Unavailable(S3UnavailableException e) {
+        logger.info(e.getMessage());
+
+        ResponseEntity<ApiErrorResponse> response = ErrorResponseBuilder
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .withError("Storage is unavailable, retry later",
+                        "storage",
+                        "resource",
+                        "circuit_breaker")
+                .build();
+        return ResponseEntity.status(response.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfter().toSeconds()))
+                .body(response.getBody());
+    }
+
+    @ExceptionHandler({DeadlineExceededException.class})
+    public ResponseEntity<ApiErrorResponse> handleDeadlineExceeded(DeadlineExceededException e) {
+        logger.info(e.getMessage());
+
+        return ErrorResponseBuilder
+                .status(HttpStatus.GATEWAY_TIMEOUT)
+                .withError("Request deadline passed before the request completed",
+                        "X-Request-Timeout",
+                        "header",
+                        "deadline")
+                .build();
+    }
+
+    @ExceptionHandler({IdempotencyConflictException.class})
+    public ResponseEntity<ApiErrorResponse> handleIdempotencyConflict(IdempotencyConflictException e) {
+        Map<String, Object> loggedVars = new HashMap<>();
+        loggedVars.put(FILE_ID_KEY, e.getFileId());
+        logger.infoContext(e.getFileId(), e.getMessage(), loggedVars);
+
+        return ErrorResponseBuilder
+                .status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .withError(e.getMessage(),
+                        "Idempotency-Key",
+                        "header",
+                        "idempotency")
+                .build();
+    }
+
     /**
      * Handles {@link MaxUploadSizeExceededException} exceptions by logging an error message and returning a
      * {@code ResponseEntity} with an HTTP status code of {@link HttpStatus#PAYLOAD_TOO_LARGE} and a message
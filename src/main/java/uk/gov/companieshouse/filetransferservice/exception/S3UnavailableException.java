@@ -0,0 +1,21 @@
+package uk.gov.companieshouse.filetransferservice.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when an S3 call is not made because S3 has been failing, so the client should retry once it may have
+ * recovered.
+ */
+public class S3UnavailableException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public S3UnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,20 @@
+package uk.gov.companieshouse.filetransferservice.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a transfer is not admitted because the service is already busy, so the client should retry later.
+ */
+public class TransferRejectedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public TransferRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
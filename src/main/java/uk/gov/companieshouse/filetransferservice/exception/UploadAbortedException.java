@@ -0,0 +1,19 @@
+package uk.gov.companieshouse.filetransferservice.exception;
+
+/**
+ * Thrown when the content of an upload could not be read from the client, such as when it drops its connection part
+ * way through, so the upload failed because of the client rather than S3.
+ */
+public class UploadAbortedException extends RuntimeException {
+
+    private final String fileId;
+
+    public UploadAbortedException(String fileId, String message, Throwable cause) {
+        super(message, cause);
+        this.fileId = fileId;
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+}
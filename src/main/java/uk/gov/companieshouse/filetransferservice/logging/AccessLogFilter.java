@@ -0,0 +1,199 @@
+package uk.gov.companieshouse.filetransferservice.logging;
+
+import static org.springframework.core.Ordered.HIGHEST_PRECEDENCE;
+
+import jakarta.annotation.Nonnull;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import uk.gov.companieshouse.filetransferservice.metrics.S3CallAccounting;
+import uk.gov.companieshouse.logging.Logger;
+
+/**
+ * Writes a single access log entry for each request once it completes, including any content streamed asynchronously.
+ * <p>
+ * Successful requests are sampled at {@code log.access.sample-rate}, while requests which fail or respond with an error
+ * status are always logged. The entry's data is only built for requests which are logged, and is written by a
+ * background thread, so a request does not wait for its log entry. If the background thread falls behind, entries are
+ * written by the request's thread instead of being dropped.
+ */
+@Component
+@Order(value = HIGHEST_PRECEDENCE)
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    static final String REQUEST_ID_HEADER = "X-Request-Id";
+
+    private static final String MESSAGE = "Request completed";
+    private static final int QUEUE_CAPACITY = 1024;
+
+    private final Logger logger;
+    private final double sampleRate;
+    private final String healthCheckPath;
+    private final String prometheusPath;
+    private final ExecutorService writer;
+
+    public AccessLogFilter(final Logger logger,
+            @Value("${log.access.sample-rate:1.0}") final double sampleRate,
+            @Value("${management.endpoints.web.path-mapping.health}") final String healthCheckPath,
+            @Value("${management.endpoints.web.path-mapping.prometheus}") final String prometheusPath) {
+        this.logger = logger;
+        this.sampleRate = sampleRate;
+        this.healthCheckPath = healthCheckPath;
+        this.prometheusPath = prometheusPath;
+        this.writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "access-log");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@Nonnull HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return path.equals(healthCheckPath) || path.equals(prometheusPath);
+    }
+
+    @Override
+    protected void doFilterInternal(@Nonnull HttpServletRequest request,
+            @Nonnull HttpServletResponse response,
+            @Nonnull FilterChain filterChain) throws ServletException, IOException {
+        long startNanos = System.nanoTime();
+        Exception failure = null;
+        try {
+            filterChain.doFilter(request, response);
+
+        } catch (ServletException | IOException | RuntimeException e) {
+            failure = e;
+            throw e;
+
+        } finally {
+            if (failure == null && request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new LogOnCompleteListener(request, response, startNanos));
+            } else {
+                log(request, response, startNanos, failure);
+            }
+        }
+    }
+
+    void log(final HttpServletRequest request, final HttpServletResponse response, final long startNanos,
+            final Exception failure) {
+        long durationNanos = System.nanoTime() - startNanos;
+        int status = failure == null ? response.getStatus() : HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        if (failure == null && status < HttpServletResponse.SC_BAD_REQUEST && !sampled()) {
+            return;
+        }
+
+        // The request can be recycled once it completes, so everything is read from it before handing over
+        String requestId = request.getHeader(REQUEST_ID_HEADER);
+        Map<String, Object> data = logData(request, status, durationNanos);
+        if (failure == null) {
+            writer.execute(() -> write(requestId, data));
+        } else {
+            writer.execute(() -> logger.error(MESSAGE, failure, data));
+        }
+    }
+
+    private boolean sampled() {
+        return sampleRate >= 1.0 || (sampleRate > 0.0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    private Map<String, Object> logData(final HttpServletRequest request, final int status, final long durationNanos) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("method", request.getMethod());
+        data.put("path", request.getRequestURI());
+        data.put("status", status);
+        data.put("duration_ms", TimeUnit.NANOSECONDS.toMillis(durationNanos));
+
+        Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (route != null) {
+            data.put("route", route.toString());
+        }
+        // Legacy clients may not send these headers
+        putIfPresent(data, "content_type", request.getContentType());
+        putIfPresent(data, "accept", request.getHeader("Accept"));
+
+        S3CallAccounting.of(request).ifPresent(accounting -> data.putAll(accounting.toLogData()));
+        return data;
+    }
+
+    private static void putIfPresent(final Map<String, Object> data, final String key, final String value) {
+        if (value != null && !value.isBlank()) {
+            data.put(key, value);
+        }
+    }
+
+    private void write(final String requestId, final Map<String, Object> data) {
+        if (requestId == null) {
+            logger.info(MESSAGE, data);
+        } else {
+            logger.infoContext(requestId, MESSAGE, data);
+        }
+    }
+
+    /**
+     * Writes any queued entries before the application stops.
+     */
+    @Override
+    public void destroy() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        super.destroy();
+    }
+
+    private class LogOnCompleteListener implements AsyncListener {
+
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+        private final long startNanos;
+
+        LogOnCompleteListener(final HttpServletRequest request, final HttpServletResponse response,
+                final long startNanos) {
+            this.request = request;
+            this.response = response;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void onComplete(final AsyncEvent event) {
+            log(request, response, startNanos, null);
+        }
+
+        @Override
+        public void onTimeout(final AsyncEvent event) {
+            // Logged when the request completes
+        }
+
+        @Override
+        public void onError(final AsyncEvent event) {
+            // Logged when the request completes
+        }
+
+        @Override
+        public void onStartAsync(final AsyncEvent event) {
+            // Logged when the request completes
+        }
+    }
+}
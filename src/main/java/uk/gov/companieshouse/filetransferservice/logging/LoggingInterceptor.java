@@ -1,45 +0,0 @@
-package uk.gov.companieshouse.filetransferservice.logging;
-
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.lang.NonNull;
-import org.springframework.stereotype.Component;
-import org.springframework.web.servlet.HandlerInterceptor;
-import org.springframework.web.servlet.ModelAndView;
-import uk.gov.companieshouse.logging.Logger;
-import uk.gov.companieshouse.logging.util.RequestLogger;
-
-/**
- * This class manages the logging of the start request and end request.
- */
-@Component
-public class LoggingInterceptor implements RequestLogger, HandlerInterceptor {
-    private final Logger logger;
-
-    /**
-     * Sets the logger used to log out request information.
-     *
-     * @param logger the configured logger
-     */
-    public LoggingInterceptor(Logger logger) {
-        this.logger = logger;
-    }
-
-    @Override
-    public boolean preHandle(@NonNull HttpServletRequest request,
-                             @NonNull HttpServletResponse response,
-                             @NonNull Object handler) {
-
-        logStartRequestProcessing(request, logger);
-        return true;
-    }
-
-    @Override
-    public void postHandle(@NonNull HttpServletRequest request,
-                           @NonNull HttpServletResponse response,
-                           @NonNull Object handler,
-                           ModelAndView modelAndView) {
-        logEndRequestProcessing(request, response, logger);
-    }
-
-}
\ No newline at end of file
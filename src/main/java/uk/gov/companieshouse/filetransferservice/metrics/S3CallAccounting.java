@@ -0,0 +1,113 @@
+package uk.gov.companieshouse.filetransferservice.metrics;
+
+import jakarta.servlet.ServletRequest;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * The S3 calls made for one request to the service: how many, the time spent in them and the bytes of file content
+ * transferred. It is held as a request attribute by {@link S3CallAccountingFilter}, and added to as calls are made,
+ * so an endpoint which starts making more S3 calls than it should is visible at once.
+ */
+public final class S3CallAccounting {
+
+    static final String ATTRIBUTE = S3CallAccounting.class.getName();
+
+    private static final ThreadLocal<S3CallAccounting> BOUND = new ThreadLocal<>();
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+
+    S3CallAccounting() {
+    }
+
+    /**
+     * Makes a call for a request on a thread other than the one handling it, so its S3 calls are accounted to the
+     * request. The accounting is taken from the request's own thread, as the request may have completed, and its
+     * attributes be unusable, before the call is made.
+     *
+     * @param accounting the request's accounting, or null if it has none
+     * @param call the call to make
+     * @return the result of the call
+     */
+    public static <T> T callWith(final S3CallAccounting accounting, final Supplier<T> call) {
+        S3CallAccounting previous = BOUND.get();
+        BOUND.set(accounting);
+        try {
+            return call.get();
+        } finally {
+            BOUND.set(previous);
+        }
+    }
+
+    /**
+     * @return the accounting for the request being handled by the current thread, if any
+     */
+    public static Optional<S3CallAccounting> current() {
+        S3CallAccounting bound = BOUND.get();
+        if (bound != null) {
+            return Optional.of(bound);
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable((S3CallAccounting) attributes.getAttribute(ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST));
+    }
+
+    /**
+     * @return the accounting for the given request, if any
+     */
+    public static Optional<S3CallAccounting> of(final ServletRequest request) {
+        return Optional.ofNullable((S3CallAccounting) request.getAttribute(ATTRIBUTE));
+    }
+
+    void recordCall(final long durationNanos) {
+        calls.incrementAndGet();
+        nanos.addAndGet(durationNanos);
+    }
+
+    void recordBytes(final long transferred) {
+        bytes.addAndGet(transferred);
+    }
+
+    public int getCalls() {
+        return calls.get();
+    }
+
+    public Duration getTime() {
+        return Duration.ofNanos(nanos.get());
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    /**
+     * @return a Server-Timing header value, e.g. {@code s3;desc="2 calls";dur=14.2}, with the time in milliseconds
+     */
+    public String toServerTiming() {
+        return String.format(Locale.ROOT, "s3;desc=\"%d calls\";dur=%.1f", getCalls(), nanos.get() / 1e6);
+    }
+
+    /**
+     * @return the calls, time in milliseconds and bytes, to be added to a request log entry
+     */
+    public Map<String, Object> toLogData() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("s3_calls", getCalls());
+        data.put("s3_time_ms", getTime().toMillis());
+        data.put("s3_bytes", getBytes());
+        return data;
+    }
+}
@@ -0,0 +1,144 @@
+package uk.gov.companieshouse.filetransferservice.metrics;
+
+import jakarta.annotation.Nonnull;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Accounts for the S3 calls made for each request. The calls made before the response body is written are reported
+ * in a {@code Server-Timing} header, and once the request completes, including any content streamed asynchronously,
+ * the totals are recorded against the endpoint by {@link TransferMetrics}.
+ */
+@Component
+public class S3CallAccountingFilter extends OncePerRequestFilter {
+
+    static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private final TransferMetrics transferMetrics;
+
+    public S3CallAccountingFilter(final TransferMetrics transferMetrics) {
+        this.transferMetrics = transferMetrics;
+    }
+
+    @Override
+    protected void doFilterInternal(@Nonnull HttpServletRequest request,
+            @Nonnull HttpServletResponse response,
+            @Nonnull FilterChain filterChain) throws ServletException, IOException {
+        S3CallAccounting accounting = new S3CallAccounting();
+        request.setAttribute(S3CallAccounting.ATTRIBUTE, accounting);
+
+        ServerTimingResponseWrapper responseWrapper = new ServerTimingResponseWrapper(response, accounting);
+        try {
+            filterChain.doFilter(request, responseWrapper);
+
+        } finally {
+            // A response without a body, such as a 204, has not had the header added yet
+            responseWrapper.addServerTiming();
+
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new RecordOnCompleteListener(request, accounting));
+            } else {
+                transferMetrics.recordRequest(request, accounting);
+            }
+        }
+    }
+
+    /**
+     * Adds the Server-Timing header just before the response body is first written, when the S3 calls needed to
+     * produce the response have been made, but the headers can still be changed.
+     */
+    private static class ServerTimingResponseWrapper extends HttpServletResponseWrapper {
+
+        private final S3CallAccounting accounting;
+        private boolean added;
+
+        ServerTimingResponseWrapper(final HttpServletResponse response, final S3CallAccounting accounting) {
+            super(response);
+            this.accounting = accounting;
+        }
+
+        void addServerTiming() {
+            if (!added && !isCommitted()) {
+                added = true;
+                addHeader(SERVER_TIMING_HEADER, accounting.toServerTiming());
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addServerTiming();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addServerTiming();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addServerTiming();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(final int sc) throws IOException {
+            addServerTiming();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(final int sc, final String msg) throws IOException {
+            addServerTiming();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(final String location) throws IOException {
+            addServerTiming();
+            super.sendRedirect(location);
+        }
+    }
+
+    private class RecordOnCompleteListener implements AsyncListener {
+
+        private final HttpServletRequest request;
+        private final S3CallAccounting accounting;
+
+        RecordOnCompleteListener(final HttpServletRequest request, final S3CallAccounting accounting) {
+            this.request = request;
+            this.accounting = accounting;
+        }
+
+        @Override
+        public void onComplete(final AsyncEvent event) {
+            transferMetrics.recordRequest(request, accounting);
+        }
+
+        @Override
+        public void onTimeout(final AsyncEvent event) {
+            // Recorded when the request completes
+        }
+
+        @Override
+        public void onError(final AsyncEvent event) {
+            // Recorded when the request completes
+        }
+
+        @Override
+        public void onStartAsync(final AsyncEvent event) {
+            // Recorded when the request completes
+        }
+    }
+}
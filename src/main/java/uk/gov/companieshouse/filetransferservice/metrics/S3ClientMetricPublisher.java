@@ -0,0 +1,194 @@
+package uk.gov.companieshouse.filetransferservice.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.metrics.CoreMetric;
+import software.amazon.awssdk.http.HttpMetric;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricPublisher;
+import software.amazon.awssdk.metrics.SdkMetric;
+import uk.gov.companieshouse.filetransferservice.admission.S3Lane;
+
+/**
+ * Publishes the AWS SDK's own metrics for each S3 call as application metrics, showing what happens inside the client:
+ * waiting for a pooled HTTP connection, retries and throttling. Each {@link S3Lane} has its own client, so each has
+ * its own publisher, and every meter is tagged by {@code lane}. The meters are:
+ * <ul>
+ *     <li>{@code file.transfer.s3.client.concurrency}, gauges of the HTTP connection pool's maximum, leased and
+ *     available connections and pending acquires, as seen by the lane's most recent request</li>
+ *     <li>{@code file.transfer.s3.client.acquire}, a timer of the wait for a connection</li>
+ *     <li>{@code file.transfer.s3.client.calls}, a timer per operation of each call, including any retries</li>
+ *     <li>{@code file.transfer.s3.client.attempts}, a timer per operation of each attempt at a call</li>
+ *     <li>{@code file.transfer.s3.client.retries}, a counter per operation of retried attempts</li>
+ *     <li>{@code file.transfer.s3.client.errors}, a counter per operation and SDK error type of failed attempts, where
+ *     throttling has the type {@code Throttling}</li>
+ * </ul>
+ * The SDK calls {@link MetricPublisher#publish} on the request thread once a call completes, so it only updates meters.
+ */
+@Component
+public class S3ClientMetricPublisher {
+
+    static final String CONCURRENCY = "file.transfer.s3.client.concurrency";
+    static final String ACQUIRE = "file.transfer.s3.client.acquire";
+    static final String CALLS = "file.transfer.s3.client.calls";
+    static final String ATTEMPTS = "file.transfer.s3.client.attempts";
+    static final String RETRIES = "file.transfer.s3.client.retries";
+    static final String ERRORS = "file.transfer.s3.client.errors";
+
+    static final String LANE_TAG = "lane";
+    static final String STATE_TAG = "state";
+    static final String OPERATION_TAG = "operation";
+    static final String SUCCESSFUL_TAG = "successful";
+    static final String TYPE_TAG = "type";
+
+    private static final String UNKNOWN = "unknown";
+
+    private final Map<S3Lane, MetricPublisher> publishers = new EnumMap<>(S3Lane.class);
+
+    public S3ClientMetricPublisher(final MeterRegistry registry) {
+        for (S3Lane lane : S3Lane.values()) {
+            publishers.put(lane, new LanePublisher(registry, lane.getTagValue()));
+        }
+    }
+
+    /**
+     * @param lane the lane of the client the publisher is for
+     * @return the publisher for the lane's S3 client
+     */
+    public MetricPublisher forLane(final S3Lane lane) {
+        return publishers.get(lane);
+    }
+
+    private static class LanePublisher implements MetricPublisher {
+
+        private final MeterRegistry registry;
+        private final String lane;
+        private final AtomicInteger maxConcurrency = new AtomicInteger();
+        private final AtomicInteger leasedConcurrency = new AtomicInteger();
+        private final AtomicInteger availableConcurrency = new AtomicInteger();
+        private final AtomicInteger pendingAcquires = new AtomicInteger();
+        private final Timer acquireTimer;
+
+        LanePublisher(final MeterRegistry registry, final String lane) {
+            this.registry = registry;
+            this.lane = lane;
+
+            concurrencyGauge("max", maxConcurrency);
+            concurrencyGauge("leased", leasedConcurrency);
+            concurrencyGauge("available", availableConcurrency);
+            concurrencyGauge("pending", pendingAcquires);
+
+            this.acquireTimer = Timer.builder(ACQUIRE)
+                    .description("Time S3 requests waited for a pooled HTTP connection")
+                    .tag(LANE_TAG, lane)
+                    .register(registry);
+        }
+
+        /**
+         * Records the metrics of one API call. Its collection holds a child for each attempt, which in turn holds the
+         * HTTP client's metrics for that attempt.
+         */
+        @Override
+        public void publish(final MetricCollection apiCall) {
+            String operation = first(apiCall, CoreMetric.OPERATION_NAME, UNKNOWN);
+
+            Duration callDuration = first(apiCall, CoreMetric.API_CALL_DURATION, null);
+            if (callDuration != null) {
+                Timer.builder(CALLS)
+                        .description("S3 calls made by the SDK, including retries")
+                        .tag(LANE_TAG, lane)
+                        .tag(OPERATION_TAG, operation)
+                        .tag(SUCCESSFUL_TAG, String.valueOf(first(apiCall, CoreMetric.API_CALL_SUCCESSFUL, false)))
+                        .register(registry)
+                        .record(callDuration);
+            }
+
+            int retries = first(apiCall, CoreMetric.RETRY_COUNT, 0);
+            if (retries > 0) {
+                Counter.builder(RETRIES)
+                        .description("S3 call attempts retried by the SDK")
+                        .tag(LANE_TAG, lane)
+                        .tag(OPERATION_TAG, operation)
+                        .register(registry)
+                        .increment(retries);
+            }
+
+            for (MetricCollection attempt : apiCall.children()) {
+                publishAttempt(operation, attempt);
+            }
+        }
+
+        private void publishAttempt(final String operation, final MetricCollection attempt) {
+            Duration serviceCallDuration = first(attempt, CoreMetric.SERVICE_CALL_DURATION, null);
+            if (serviceCallDuration != null) {
+                Timer.builder(ATTEMPTS)
+                        .description("Individual attempts at S3 calls")
+                        .tag(LANE_TAG, lane)
+                        .tag(OPERATION_TAG, operation)
+                        .register(registry)
+                        .record(serviceCallDuration);
+            }
+
+            String errorType = first(attempt, CoreMetric.ERROR_TYPE, null);
+            if (errorType != null) {
+                Counter.builder(ERRORS)
+                        .description("Failed attempts at S3 calls, by SDK error type")
+                        .tag(LANE_TAG, lane)
+                        .tag(OPERATION_TAG, operation)
+                        .tag(TYPE_TAG, errorType)
+                        .register(registry)
+                        .increment();
+            }
+
+            for (MetricCollection httpClient : attempt.children()) {
+                publishHttpClient(httpClient);
+            }
+        }
+
+        private void publishHttpClient(final MetricCollection httpClient) {
+            Duration acquireDuration = first(httpClient, HttpMetric.CONCURRENCY_ACQUIRE_DURATION, null);
+            if (acquireDuration != null) {
+                acquireTimer.record(acquireDuration);
+            }
+
+            update(httpClient, HttpMetric.MAX_CONCURRENCY, maxConcurrency);
+            update(httpClient, HttpMetric.LEASED_CONCURRENCY, leasedConcurrency);
+            update(httpClient, HttpMetric.AVAILABLE_CONCURRENCY, availableConcurrency);
+            update(httpClient, HttpMetric.PENDING_CONCURRENCY_ACQUIRES, pendingAcquires);
+        }
+
+        private void concurrencyGauge(final String state, final AtomicInteger value) {
+            Gauge.builder(CONCURRENCY, value, AtomicInteger::get)
+                    .description("The S3 client's HTTP connection pool, as seen by the most recent request")
+                    .tag(LANE_TAG, lane)
+                    .tag(STATE_TAG, state)
+                    .register(registry);
+        }
+
+        @Override
+        public void close() {
+            // Nothing to flush, as meters are updated as each call is published
+        }
+    }
+
+    private static void update(final MetricCollection collection, final SdkMetric<Integer> metric,
+            final AtomicInteger value) {
+        List<Integer> values = collection.metricValues(metric);
+        if (!values.isEmpty()) {
+            value.set(values.getFirst());
+        }
+    }
+
+    private static <T> T first(final MetricCollection collection, final SdkMetric<T> metric, final T defaultValue) {
+        List<T> values = collection.metricValues(metric);
+        return values.isEmpty() ? defaultValue : values.getFirst();
+    }
+}
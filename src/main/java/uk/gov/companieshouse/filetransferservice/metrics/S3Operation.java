@@ -0,0 +1,27 @@
+package uk.gov.companieshouse.filetransferservice.metrics;
+
+import java.util.Locale;
+
+/**
+ * The S3 API calls made by the service, used to tag their metrics.
+ */
+public enum S3Operation {
+    PUT,
+    GET,
+    HEAD,
+    TAGGING,
+    DELETE,
+    CREATE_MULTIPART_UPLOAD,
+    UPLOAD_PART,
+    LIST_PARTS,
+    COMPLETE_MULTIPART_UPLOAD,
+    ABORT_MULTIPART_UPLOAD,
+    LIST_MULTIPART_UPLOADS,
+    LIST_OBJECTS;
+
+    private final String tagValue = name().toLowerCase(Locale.ROOT);
+
+    public String getTagValue() {
+        return tagValue;
+    }
+}
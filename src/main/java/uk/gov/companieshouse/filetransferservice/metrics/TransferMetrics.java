@@ -0,0 +1,279 @@
+package uk.gov.companieshouse.filetransferservice.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerMapping;
+import software.amazon.awssdk.core.exception.AbortedException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
+import uk.gov.companieshouse.filetransferservice.exception.UploadAbortedException;
+
+/**
+ * Records the time taken by each S3 call, and the bytes, sizes and number in progress of the file transfers through
+ * the service, so latency can be attributed to S3 or to the service.
+ * <p>
+ * The meters are:
+ * <ul>
+ *     <li>{@code file.transfer.s3.requests}, a timer per S3 operation and outcome</li>
+ *     <li>{@code file.transfer.bytes}, a counter of bytes uploaded and downloaded</li>
+ *     <li>{@code file.transfer.size}, a distribution of the size of each upload and download</li>
+ *     <li>{@code file.transfer.inflight}, a gauge of the uploads and downloads in progress</li>
+ *     <li>{@code file.transfer.request.s3.calls} and {@code file.transfer.request.s3.time}, the number of S3 calls
+ *     made for each request to an endpoint and the time spent in them</li>
+ * </ul>
+ * S3 calls and transferred bytes are also added to the {@link S3CallAccounting} of the current request.
+ */
+@Component
+public class TransferMetrics {
+
+    static final String S3_REQUESTS = "file.transfer.s3.requests";
+    static final String BYTES = "file.transfer.bytes";
+    static final String SIZE = "file.transfer.size";
+    static final String IN_FLIGHT = "file.transfer.inflight";
+    static final String REQUEST_S3_CALLS = "file.transfer.request.s3.calls";
+    static final String REQUEST_S3_TIME = "file.transfer.request.s3.time";
+
+    static final String OPERATION_TAG = "operation";
+    static final String OUTCOME_TAG = "outcome";
+    static final String DIRECTION_TAG = "direction";
+    static final String METHOD_TAG = "method";
+    static final String URI_TAG = "uri";
+    static final String UPLOAD = "upload";
+    static final String DOWNLOAD = "download";
+
+    private final MeterRegistry registry;
+    private final AtomicInteger uploadsInFlight = new AtomicInteger();
+    private final AtomicInteger downloadsInFlight = new AtomicInteger();
+    private final Counter uploadedBytes;
+    private final Counter downloadedBytes;
+    private final DistributionSummary uploadSize;
+    private final DistributionSummary downloadSize;
+
+    public TransferMetrics(final MeterRegistry registry) {
+        this.registry = registry;
+        this.uploadedBytes = bytesCounter(UPLOAD);
+        this.downloadedBytes = bytesCounter(DOWNLOAD);
+        this.uploadSize = sizeSummary(UPLOAD);
+        this.downloadSize = sizeSummary(DOWNLOAD);
+
+        inFlightGauge(UPLOAD, uploadsInFlight);
+        inFlightGauge(DOWNLOAD, downloadsInFlight);
+    }
+
+    /**
+     * Times an S3 call, tagged with its operation and outcome. For a GetObject, this is the time until the response
+     * headers arrive, as the content is streamed afterwards.
+     *
+     * @param operation the S3 operation being called
+     * @param call      the call to make
+     * @return the call's result
+     */
+    public <T> T recordS3Call(final S3Operation operation, final Supplier<T> call) {
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "UNKNOWN";
+        try {
+            T result = call.get();
+            outcome = "SUCCESS";
+            return result;
+
+        } catch (RuntimeException e) {
+            outcome = outcome(e);
+            throw e;
+
+        } finally {
+            long durationNanos = sample.stop(Timer.builder(S3_REQUESTS)
+                    .description("S3 API calls")
+                    .tag(OPERATION_TAG, operation.getTagValue())
+                    .tag(OUTCOME_TAG, outcome)
+                    .register(registry));
+            S3CallAccounting.current().ifPresent(accounting -> accounting.recordCall(durationNanos));
+        }
+    }
+
+    /**
+     * Times the PutObject call for an upload, counting it as in progress while it runs and recording its size if it
+     * succeeds.
+     *
+     * @param contentLength the size of the upload
+     * @param upload        the PutObject call
+     * @return the call's result
+     */
+    public <T> T recordUpload(final long contentLength, final Supplier<T> upload) {
+        uploadsInFlight.incrementAndGet();
+        try {
+            T result = recordS3Call(S3Operation.PUT, upload);
+            uploadedBytes.increment(contentLength);
+            uploadSize.record(contentLength);
+            S3CallAccounting.current().ifPresent(accounting -> accounting.recordBytes(contentLength));
+            return result;
+
+        } finally {
+            uploadsInFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Times the UploadPart call for one part of a multipart upload, counting it as in progress while it runs and its
+     * bytes if it succeeds. A part is not a whole file, so its size is not recorded.
+     *
+     * @param contentLength the size of the part
+     * @param upload        the UploadPart call
+     * @return the call's result
+     */
+    public <T> T recordUploadPart(final long contentLength, final Supplier<T> upload) {
+        uploadsInFlight.incrementAndGet();
+        try {
+            T result = recordS3Call(S3Operation.UPLOAD_PART, upload);
+            uploadedBytes.increment(contentLength);
+            S3CallAccounting.current().ifPresent(accounting -> accounting.recordBytes(contentLength));
+            return result;
+
+        } finally {
+            uploadsInFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Wraps download content so it is counted as in progress until it is closed, and the bytes read from it are
+     * recorded. The bytes are also added to the current request's accounting, even when the content is streamed to
+     * the client from another thread.
+     *
+     * @param content the content being downloaded
+     * @return the metered content
+     */
+    public InputStream meterDownload(final InputStream content) {
+        return new MeteredDownloadInputStream(content, S3CallAccounting.current().orElse(null));
+    }
+
+    /**
+     * Records the S3 calls made for a completed request, tagged with its method and endpoint.
+     *
+     * @param request    the completed request
+     * @param accounting the request's S3 calls
+     */
+    public void recordRequest(final HttpServletRequest request, final S3CallAccounting accounting) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+
+        DistributionSummary.builder(REQUEST_S3_CALLS)
+                .description("S3 calls made for each request")
+                .tag(METHOD_TAG, request.getMethod())
+                .tag(URI_TAG, uri)
+                .register(registry)
+                .record(accounting.getCalls());
+
+        Timer.builder(REQUEST_S3_TIME)
+                .description("Time spent in S3 calls for each request")
+                .tag(METHOD_TAG, request.getMethod())
+                .tag(URI_TAG, uri)
+                .register(registry)
+                .record(accounting.getTime());
+    }
+
+    private static String outcome(final RuntimeException e) {
+        // A call interrupted as it was no longer needed, such as the slower of a hedged pair, did not fail to connect
+        if (e instanceof AbortedException || Thread.currentThread().isInterrupted()) {
+            return "CANCELLED";
+        }
+        if (e instanceof UploadAbortedException) {
+            return "CLIENT_ABORTED";
+        }
+        if (e instanceof NoSuchKeyException || e instanceof NoSuchUploadException) {
+            return "NOT_FOUND";
+        }
+        if (e instanceof SdkServiceException serviceException) {
+            if (serviceException.isThrottlingException()) {
+                return "THROTTLED";
+            }
+            return serviceException.statusCode() >= 500 ? "SERVER_ERROR" : "CLIENT_ERROR";
+        }
+        if (e instanceof SdkClientException) {
+            return "CONNECTION_ERROR";
+        }
+        return "UNKNOWN";
+    }
+
+    private Counter bytesCounter(final String direction) {
+        return Counter.builder(BYTES)
+                .description("Bytes transferred through the service")
+                .baseUnit("bytes")
+                .tag(DIRECTION_TAG, direction)
+                .register(registry);
+    }
+
+    private DistributionSummary sizeSummary(final String direction) {
+        return DistributionSummary.builder(SIZE)
+                .description("Size of each file transferred through the service")
+                .baseUnit("bytes")
+                .tag(DIRECTION_TAG, direction)
+                .register(registry);
+    }
+
+    private void inFlightGauge(final String direction, final AtomicInteger inFlight) {
+        Gauge.builder(IN_FLIGHT, inFlight, AtomicInteger::get)
+                .description("File transfers in progress")
+                .tag(DIRECTION_TAG, direction)
+                .register(registry);
+    }
+
+    private class MeteredDownloadInputStream extends FilterInputStream {
+
+        private final S3CallAccounting accounting;
+        private long bytesRead;
+        private boolean closed;
+
+        MeteredDownloadInputStream(final InputStream in, final S3CallAccounting accounting) {
+            super(in);
+            this.accounting = accounting;
+            downloadsInFlight.incrementAndGet();
+        }
+
+        @Override
+        public int read() throws IOException {
+            int result = super.read();
+            if (result >= 0) {
+                count(1);
+            }
+            return result;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            int result = super.read(b, off, len);
+            if (result > 0) {
+                count(result);
+            }
+            return result;
+        }
+
+        private void count(final int bytes) {
+            bytesRead += bytes;
+            downloadedBytes.increment(bytes);
+            if (accounting != null) {
+                accounting.recordBytes(bytes);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                downloadsInFlight.decrementAndGet();
+                downloadSize.record(bytesRead);
+            }
+            super.close();
+        }
+    }
+}
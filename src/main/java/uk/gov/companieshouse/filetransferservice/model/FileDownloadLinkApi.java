@@ -0,0 +1,48 @@
+package uk.gov.companieshouse.filetransferservice.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Objects;
+
+public class FileDownloadLinkApi {
+
+    @JsonProperty("url")
+    private String url;
+
+    @JsonProperty("expires_at")
+    private String expiresAt;
+
+    public FileDownloadLinkApi() {
+    }
+
+    public FileDownloadLinkApi(String url, String expiresAt) {
+        this.url = url;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getUrl() {
+        return this.url;
+    }
+
+    public String getExpiresAt() {
+        return this.expiresAt;
+    }
+
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        } else if (o != null && this.getClass() == o.getClass()) {
+            FileDownloadLinkApi that = (FileDownloadLinkApi)o;
+            return Objects.equals(this.url, that.url) && Objects.equals(this.expiresAt, that.expiresAt);
+        } else {
+            return false;
+        }
+    }
+
+    public int hashCode() {
+        return Objects.hash(this.url, this.expiresAt);
+    }
+
+    public String toString() {
+        return "FileDownloadLinkApi{expiresAt='" + this.expiresAt + '\'' + '}';
+    }
+}
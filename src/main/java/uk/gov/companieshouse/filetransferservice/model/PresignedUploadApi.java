@@ -0,0 +1,107 @@
+package uk.gov.companieshouse.filetransferservice.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The details a client needs to upload a file directly to S3. Small files are uploaded with a single PUT to
+ * {@code url}, sending every header in {@code headers}. Larger files are uploaded as a multipart upload, with one PUT
+ * per entry in {@code parts}, each part being {@code part_size} bytes apart from the last.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PresignedUploadApi {
+
+    @JsonProperty("id")
+    private String id;
+
+    @JsonProperty("upload_id")
+    private String uploadId;
+
+    @JsonProperty("url")
+    private String url;
+
+    @JsonProperty("headers")
+    private Map<String, String> headers;
+
+    @JsonProperty("part_size")
+    private Long partSize;
+
+    @JsonProperty("parts")
+    private List<PresignedUploadPartApi> parts;
+
+    @JsonProperty("expires_at")
+    private String expiresAt;
+
+    public PresignedUploadApi() {
+    }
+
+    public static PresignedUploadApi singlePart(String id, String url, Map<String, String> headers, String expiresAt) {
+        PresignedUploadApi presignedUpload = new PresignedUploadApi();
+        presignedUpload.id = id;
+        presignedUpload.url = url;
+        presignedUpload.headers = headers;
+        presignedUpload.expiresAt = expiresAt;
+        return presignedUpload;
+    }
+
+    public static PresignedUploadApi multipart(String id, String uploadId, long partSize,
+            List<PresignedUploadPartApi> parts, String expiresAt) {
+        PresignedUploadApi presignedUpload = new PresignedUploadApi();
+        presignedUpload.id = id;
+        presignedUpload.uploadId = uploadId;
+        presignedUpload.partSize = partSize;
+        presignedUpload.parts = parts;
+        presignedUpload.expiresAt = expiresAt;
+        return presignedUpload;
+    }
+
+    public String getId() {
+        return this.id;
+    }
+
+    public String getUploadId() {
+        return this.uploadId;
+    }
+
+    public String getUrl() {
+        return this.url;
+    }
+
+    public Map<String, String> getHeaders() {
+        return this.headers;
+    }
+
+    public Long getPartSize() {
+        return this.partSize;
+    }
+
+    public List<PresignedUploadPartApi> getParts() {
+        return this.parts;
+    }
+
+    public String getExpiresAt() {
+        return this.expiresAt;
+    }
+
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        } else if (o != null && this.getClass() == o.getClass()) {
+            PresignedUploadApi that = (PresignedUploadApi)o;
+            return Objects.equals(this.id, that.id) && Objects.equals(this.uploadId, that.uploadId) && Objects.equals(this.url, that.url) && Objects.equals(this.headers, that.headers) && Objects.equals(this.partSize, that.partSize) && Objects.equals(this.parts, that.parts) && Objects.equals(this.expiresAt, that.expiresAt);
+        } else {
+            return false;
+        }
+    }
+
+    public int hashCode() {
+        return Objects.hash(this.id, this.uploadId, this.url, this.headers, this.partSize, this.parts, this.expiresAt);
+    }
+
+    public String toString() {
+        return "PresignedUploadApi{id='" + this.id + '\'' + ", uploadId='" + this.uploadId + '\'' + ", partSize=" + this.partSize + ", expiresAt='" + this.expiresAt + '\'' + '}';
+    }
+}
@@ -0,0 +1,48 @@
+package uk.gov.companieshouse.filetransferservice.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Objects;
+
+public class PresignedUploadPartApi {
+
+    @JsonProperty("part_number")
+    private int partNumber;
+
+    @JsonProperty("url")
+    private String url;
+
+    public PresignedUploadPartApi() {
+    }
+
+    public PresignedUploadPartApi(int partNumber, String url) {
+        this.partNumber = partNumber;
+        this.url = url;
+    }
+
+    public int getPartNumber() {
+        return this.partNumber;
+    }
+
+    public String getUrl() {
+        return this.url;
+    }
+
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        } else if (o != null && this.getClass() == o.getClass()) {
+            PresignedUploadPartApi that = (PresignedUploadPartApi)o;
+            return this.partNumber == that.partNumber && Objects.equals(this.url, that.url);
+        } else {
+            return false;
+        }
+    }
+
+    public int hashCode() {
+        return Objects.hash(this.partNumber, this.url);
+    }
+
+    public String toString() {
+        return "PresignedUploadPartApi{partNumber=" + this.partNumber + '}';
+    }
+}
@@ -0,0 +1,96 @@
+package uk.gov.companieshouse.filetransferservice.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The state of a resumable upload session. The file is uploaded through the service in {@code part_count} parts, each
+ * {@code part_size} bytes apart from the last, with part {@code n} starting at byte {@code (n - 1) * part_size}.
+ * {@code parts} lists the parts already uploaded, so a client resuming an upload only sends the others. Every later
+ * request for the upload is made with {@code session}; an upload not completed by {@code expires_at} is aborted.
+ */
+public class ResumableUploadApi {
+
+    @JsonProperty("id")
+    private String id;
+
+    @JsonProperty("session")
+    private String session;
+
+    @JsonProperty("size")
+    private long size;
+
+    @JsonProperty("part_size")
+    private long partSize;
+
+    @JsonProperty("part_count")
+    private int partCount;
+
+    @JsonProperty("parts")
+    private List<ResumableUploadPartApi> parts;
+
+    @JsonProperty("expires_at")
+    private String expiresAt;
+
+    public ResumableUploadApi() {
+    }
+
+    public ResumableUploadApi(String id, String session, long size, long partSize, int partCount,
+            List<ResumableUploadPartApi> parts, String expiresAt) {
+        this.id = id;
+        this.session = session;
+        this.size = size;
+        this.partSize = partSize;
+        this.partCount = partCount;
+        this.parts = parts;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getId() {
+        return this.id;
+    }
+
+    public String getSession() {
+        return this.session;
+    }
+
+    public long getSize() {
+        return this.size;
+    }
+
+    public long getPartSize() {
+        return this.partSize;
+    }
+
+    public int getPartCount() {
+        return this.partCount;
+    }
+
+    public List<ResumableUploadPartApi> getParts() {
+        return this.parts;
+    }
+
+    public String getExpiresAt() {
+        return this.expiresAt;
+    }
+
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        } else if (o != null && this.getClass() == o.getClass()) {
+            ResumableUploadApi that = (ResumableUploadApi)o;
+            return Objects.equals(this.id, that.id) && Objects.equals(this.session, that.session) && this.size == that.size && this.partSize == that.partSize && this.partCount == that.partCount && Objects.equals(this.parts, that.parts) && Objects.equals(this.expiresAt, that.expiresAt);
+        } else {
+            return false;
+        }
+    }
+
+    public int hashCode() {
+        return Objects.hash(this.id, this.session, this.size, this.partSize, this.partCount, this.parts, this.expiresAt);
+    }
+
+    public String toString() {
+        return "ResumableUploadApi{id='" + this.id + '\'' + ", size=" + this.size + ", partSize=" + this.partSize + ", partCount=" + this.partCount + ", parts=" + this.parts + ", expiresAt='" + this.expiresAt + '\'' + '}';
+    }
+}
@@ -0,0 +1,48 @@
+package uk.gov.companieshouse.filetransferservice.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Objects;
+
+public class ResumableUploadPartApi {
+
+    @JsonProperty("part_number")
+    private int partNumber;
+
+    @JsonProperty("size")
+    private long size;
+
+    public ResumableUploadPartApi() {
+    }
+
+    public ResumableUploadPartApi(int partNumber, long size) {
+        this.partNumber = partNumber;
+        this.size = size;
+    }
+
+    public int getPartNumber() {
+        return this.partNumber;
+    }
+
+    public long getSize() {
+        return this.size;
+    }
+
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        } else if (o != null && this.getClass() == o.getClass()) {
+            ResumableUploadPartApi that = (ResumableUploadPartApi)o;
+            return this.partNumber == that.partNumber && this.size == that.size;
+        } else {
+            return false;
+        }
+    }
+
+    public int hashCode() {
+        return Objects.hash(this.partNumber, this.size);
+    }
+
+    public String toString() {
+        return "ResumableUploadPartApi{partNumber=" + this.partNumber + ", size=" + this.size + '}';
+    }
+}
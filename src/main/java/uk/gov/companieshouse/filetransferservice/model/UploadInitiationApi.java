@@ -0,0 +1,68 @@
+package uk.gov.companieshouse.filetransferservice.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Objects;
+
+public class UploadInitiationApi {
+
+    @JsonProperty("file_name")
+    private String fileName;
+
+    @JsonProperty("mime_type")
+    private String mimeType;
+
+    @JsonProperty("size")
+    private long size;
+
+    public UploadInitiationApi() {
+    }
+
+    public UploadInitiationApi(String fileName, String mimeType, long size) {
+        this.fileName = fileName;
+        this.mimeType = mimeType;
+        this.size = size;
+    }
+
+    public String getFileName() {
+        return this.fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getMimeType() {
+        return this.mimeType;
+    }
+
+    public void setMimeType(String mimeType) {
+        this.mimeType = mimeType;
+    }
+
+    public long getSize() {
+        return this.size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        } else if (o != null && this.getClass() == o.getClass()) {
+            UploadInitiationApi that = (UploadInitiationApi)o;
+            return this.size == that.size && Objects.equals(this.fileName, that.fileName) && Objects.equals(this.mimeType, that.mimeType);
+        } else {
+            return false;
+        }
+    }
+
+    public int hashCode() {
+        return Objects.hash(this.fileName, this.mimeType, this.size);
+    }
+
+    public String toString() {
+        return "UploadInitiationApi{fileName='" + this.fileName + '\'' + ", mimeType='" + this.mimeType + '\'' + ", size=" + this.size + '}';
+    }
+}
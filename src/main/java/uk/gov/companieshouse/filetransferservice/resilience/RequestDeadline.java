@@ -0,0 +1,87 @@
+package uk.gov.companieshouse.filetransferservice.resilience;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * The time by which a request's caller needs its response, after which the caller has given up and any further work
+ * for the request is wasted. It is held as a request attribute by {@link RequestDeadlineFilter}, for requests whose
+ * caller gave a timeout.
+ */
+public final class RequestDeadline {
+
+    static final String ATTRIBUTE = RequestDeadline.class.getName();
+    static final Duration MAX_TIMEOUT = Duration.ofDays(1);
+
+    private static final ThreadLocal<RequestDeadline> BOUND = new ThreadLocal<>();
+
+    private final long deadlineNanos;
+
+    private RequestDeadline(final long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * @param timeout the time from now to the deadline, which is cut to {@link #MAX_TIMEOUT} either way, as no caller
+     *                waits longer and the deadline must be representable in nanoseconds
+     * @return the deadline
+     */
+    public static RequestDeadline after(final Duration timeout) {
+        Duration clamped = timeout;
+        if (timeout.compareTo(MAX_TIMEOUT) > 0) {
+            clamped = MAX_TIMEOUT;
+        } else if (timeout.compareTo(MAX_TIMEOUT.negated()) < 0) {
+            clamped = MAX_TIMEOUT.negated();
+        }
+        return new RequestDeadline(System.nanoTime() + clamped.toNanos());
+    }
+
+    /**
+     * Makes a call for a request on a thread other than the one handling it, with the request's deadline as the
+     * current one. The deadline is taken from the request's own thread, as the request may have completed, and its
+     * attributes be unusable, before the call is made.
+     *
+     * @param deadline the request's deadline, or null if it has none
+     * @param call the call to make
+     * @return the result of the call
+     */
+    public static <T> T callWith(final RequestDeadline deadline, final Supplier<T> call) {
+        RequestDeadline previous = BOUND.get();
+        BOUND.set(deadline);
+        try {
+            return call.get();
+        } finally {
+            BOUND.set(previous);
+        }
+    }
+
+    /**
+     * @return the deadline of the request being handled by the current thread, if it has one
+     */
+    public static Optional<RequestDeadline> current() {
+        RequestDeadline bound = BOUND.get();
+        if (bound != null) {
+            return Optional.of(bound);
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable((RequestDeadline) attributes.getAttribute(ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST));
+    }
+
+    /**
+     * @return the time left until the deadline, which is negative once it has passed
+     */
+    public Duration remaining() {
+        return Duration.ofNanos(deadlineNanos - System.nanoTime());
+    }
+
+    public boolean isExpired() {
+        return deadlineNanos - System.nanoTime() <= 0;
+    }
+}
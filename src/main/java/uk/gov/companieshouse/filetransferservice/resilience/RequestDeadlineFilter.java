@@ -0,0 +1,50 @@
+package uk.gov.companieshouse.filetransferservice.resilience;
+
+import static org.springframework.core.Ordered.HIGHEST_PRECEDENCE;
+
+import jakarta.annotation.Nonnull;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Gives a request a {@link RequestDeadline} when its caller sends an {@code X-Request-Timeout} header, the
+ * milliseconds the caller will wait for the response. The deadline is counted from when the request arrives, so this
+ * filter runs as early as it can. A header which is not a positive number of milliseconds, or is too large to be a
+ * number, is ignored, and one longer than {@link RequestDeadline#MAX_TIMEOUT} is cut to it.
+ */
+@Component
+@Order(value = HIGHEST_PRECEDENCE + 1)
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+
+    static final String TIMEOUT_HEADER = "X-Request-Timeout";
+
+    @Override
+    protected void doFilterInternal(@Nonnull HttpServletRequest request,
+            @Nonnull HttpServletResponse response,
+            @Nonnull FilterChain filterChain) throws ServletException, IOException {
+        long timeoutMillis = parseTimeout(request.getHeader(TIMEOUT_HEADER));
+        if (timeoutMillis > 0) {
+            request.setAttribute(RequestDeadline.ATTRIBUTE, RequestDeadline.after(Duration.ofMillis(timeoutMillis)));
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private static long parseTimeout(final String header) {
+        if (header == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
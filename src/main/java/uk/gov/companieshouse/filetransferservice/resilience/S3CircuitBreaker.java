@@ -0,0 +1,266 @@
+package uk.gov.companieshouse.filetransferservice.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import uk.gov.companieshouse.filetransferservice.exception.S3UnavailableException;
+import uk.gov.companieshouse.filetransferservice.metrics.S3Operation;
+
+/**
+ * Fails S3 calls fast while S3 is failing, rather than holding a request thread until each call times out. Each
+ * {@link S3Operation} has its own circuit, so a failing operation does not stop the others.
+ * <ul>
+ *     <li>A closed circuit makes every call, and records the outcome of the last
+ *     {@code s3.circuit-breaker.window-size} calls. Once at least {@code s3.circuit-breaker.minimum-calls} are
+ *     recorded, it opens when the share which failed reaches {@code s3.circuit-breaker.failure-rate-threshold}, or the
+ *     share slower than {@code s3.circuit-breaker.slow-call-duration} reaches
+ *     {@code s3.circuit-breaker.slow-call-rate-threshold}. A call fails if it is throttled, fails with a server error,
+ *     times out or fails to connect.</li>
+ *     <li>An open circuit rejects every call with an {@link S3UnavailableException} for
+ *     {@code s3.circuit-breaker.open-duration}, then half opens.</li>
+ *     <li>A half-open circuit makes {@code s3.circuit-breaker.half-open-calls} calls to probe S3 and rejects the rest. It
+ *     closes if all the probes succeed in time, and opens again if any fails or is slow.</li>
+ * </ul>
+ * Uploads and multipart completions take as long as their content needs, so they are never counted as slow.
+ * <p>
+ * The meters are {@code file.transfer.s3.circuit.state}, a gauge of each operation's circuit, which is {@code 0} when
+ * closed, {@code 1} when half open and {@code 2} when open, and {@code file.transfer.s3.circuit.rejected}, a counter of
+ * the calls rejected, both tagged by {@code operation}.
+ */
+@Component
+public class S3CircuitBreaker {
+
+    static final String STATE = "file.transfer.s3.circuit.state";
+    static final String REJECTED = "file.transfer.s3.circuit.rejected";
+    static final String OPERATION_TAG = "operation";
+
+    private static final Set<S3Operation> SIZE_DEPENDENT_OPERATIONS =
+            EnumSet.of(S3Operation.PUT, S3Operation.UPLOAD_PART, S3Operation.COMPLETE_MULTIPART_UPLOAD);
+
+    /**
+     * The states of a circuit, in the order of their gauge values.
+     */
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long slowCallNanos;
+    private final double slowCallRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final Map<S3Operation, Circuit> circuits = new EnumMap<>(S3Operation.class);
+
+    public S3CircuitBreaker(final MeterRegistry registry,
+            @Value("${s3.circuit-breaker.window-size}") final int windowSize,
+            @Value("${s3.circuit-breaker.minimum-calls}") final int minimumCalls,
+            @Value("${s3.circuit-breaker.failure-rate-threshold}") final double failureRateThreshold,
+            @Value("${s3.circuit-breaker.slow-call-duration}") final Duration slowCallDuration,
+            @Value("${s3.circuit-breaker.slow-call-rate-threshold}") final double slowCallRateThreshold,
+            @Value("${s3.circuit-breaker.open-duration}") final Duration openDuration,
+            @Value("${s3.circuit-breaker.half-open-calls}") final int halfOpenCalls) {
+        this.windowSize = Math.max(1, windowSize);
+        this.minimumCalls = Math.clamp(minimumCalls, 1, this.windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = slowCallDuration.toNanos();
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+
+        for (S3Operation operation : S3Operation.values()) {
+            circuits.put(operation, new Circuit(registry, operation));
+        }
+    }
+
+    /**
+     * Makes an S3 call unless its operation's circuit is open, and records how the call went.
+     *
+     * @param operation the S3 operation being called
+     * @param call      the call to make
+     * @return the call's result
+     * @throws S3UnavailableException if the operation's circuit is open
+     */
+    public <T> T call(final S3Operation operation, final Supplier<T> call) {
+        return circuits.get(operation).call(call);
+    }
+
+    public State getState(final S3Operation operation) {
+        return circuits.get(operation).getState();
+    }
+
+    /**
+     * @return the operations whose circuits are not closed
+     */
+    public Set<S3Operation> getUnavailableOperations() {
+        Set<S3Operation> unavailable = EnumSet.noneOf(S3Operation.class);
+        circuits.forEach((operation, circuit) -> {
+            if (circuit.getState() != State.CLOSED) {
+                unavailable.add(operation);
+            }
+        });
+        return unavailable;
+    }
+
+    private static boolean isFailure(final RuntimeException e) {
+        if (e instanceof SdkServiceException serviceException) {
+            return serviceException.isThrottlingException() || serviceException.statusCode() >= 500;
+        }
+        return e instanceof SdkClientException;
+    }
+
+    private class Circuit {
+
+        private final S3Operation operation;
+        private final Counter rejected;
+        private final boolean[] failed = new boolean[windowSize];
+        private final boolean[] slow = new boolean[windowSize];
+
+        private State state = State.CLOSED;
+        private int recorded;
+        private int next;
+        private int failures;
+        private int slowCalls;
+        private long openedAtNanos;
+        private int probesStarted;
+        private int probesSucceeded;
+
+        Circuit(final MeterRegistry registry, final S3Operation operation) {
+            this.operation = operation;
+            this.rejected = Counter.builder(REJECTED)
+                    .description("S3 calls rejected as their circuit was open")
+                    .tag(OPERATION_TAG, operation.getTagValue())
+                    .register(registry);
+
+            Gauge.builder(STATE, this, circuit -> circuit.getState().ordinal())
+                    .description("The state of the S3 circuit: 0 closed, 1 half open, 2 open")
+                    .tag(OPERATION_TAG, operation.getTagValue())
+                    .register(registry);
+        }
+
+        <T> T call(final Supplier<T> call) {
+            State permittedIn = tryAcquire();
+            if (permittedIn == null) {
+                rejected.increment();
+                throw new S3UnavailableException(String.format("S3 %s calls are failing, so are not being made",
+                        operation.getTagValue()), getRetryAfter());
+            }
+
+            long startNanos = System.nanoTime();
+            try {
+                T result = call.get();
+                record(permittedIn, false, !SIZE_DEPENDENT_OPERATIONS.contains(operation)
+                        && System.nanoTime() - startNanos > slowCallNanos);
+                return result;
+
+            } catch (RuntimeException e) {
+                if (isFailure(e)) {
+                    record(permittedIn, true, false);
+                } else {
+                    // Not a sign of S3's health, such as a missing key or a call shed by the concurrency limit
+                    release(permittedIn);
+                }
+                throw e;
+            }
+        }
+
+        synchronized State getState() {
+            if (state == State.OPEN && System.nanoTime() - openedAtNanos >= openNanos) {
+                state = State.HALF_OPEN;
+                probesStarted = 0;
+                probesSucceeded = 0;
+            }
+            return state;
+        }
+
+        /**
+         * @return the state the call was permitted in, or null if it is not permitted
+         */
+        private synchronized State tryAcquire() {
+            State current = getState();
+            if (current == State.CLOSED) {
+                return current;
+            }
+            if (current == State.HALF_OPEN && probesStarted < halfOpenCalls) {
+                probesStarted++;
+                return current;
+            }
+            return null;
+        }
+
+        private synchronized void record(final State permittedIn, final boolean callFailed, final boolean callSlow) {
+            if (permittedIn != state) {
+                // The circuit has changed since the call started, so its outcome describes S3 as it was before
+                return;
+            }
+
+            if (state == State.HALF_OPEN) {
+                if (callFailed || callSlow) {
+                    open();
+                } else if (++probesSucceeded >= halfOpenCalls) {
+                    close();
+                }
+                return;
+            }
+
+            if (recorded == windowSize) {
+                failures -= failed[next] ? 1 : 0;
+                slowCalls -= slow[next] ? 1 : 0;
+            } else {
+                recorded++;
+            }
+            failed[next] = callFailed;
+            slow[next] = callSlow;
+            failures += callFailed ? 1 : 0;
+            slowCalls += callSlow ? 1 : 0;
+            next = (next + 1) % windowSize;
+
+            if (recorded >= minimumCalls && ((double) failures / recorded >= failureRateThreshold
+                    || (double) slowCalls / recorded >= slowCallRateThreshold)) {
+                open();
+            }
+        }
+
+        private synchronized void release(final State permittedIn) {
+            if (permittedIn == State.HALF_OPEN && state == State.HALF_OPEN) {
+                probesStarted--;
+            }
+        }
+
+        private synchronized Duration getRetryAfter() {
+            long remainingNanos = openNanos - (System.nanoTime() - openedAtNanos);
+            return Duration.ofSeconds(Math.max(1, Duration.ofNanos(remainingNanos).toSeconds() + 1));
+        }
+
+        private void open() {
+            state = State.OPEN;
+            openedAtNanos = System.nanoTime();
+            resetWindow();
+        }
+
+        private void close() {
+            state = State.CLOSED;
+            resetWindow();
+        }
+
+        private void resetWindow() {
+            recorded = 0;
+            next = 0;
+            failures = 0;
+            slowCalls = 0;
+        }
+    }
+}
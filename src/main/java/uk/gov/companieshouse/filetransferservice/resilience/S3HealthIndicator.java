@@ -0,0 +1,38 @@
+package uk.gov.companieshouse.filetransferservice.resilience;
+
+import java.util.Set;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.filetransferservice.metrics.S3Operation;
+
+/**
+ * Reports S3 as {@code DEGRADED} while any of the {@link S3CircuitBreaker}'s circuits is not closed. The health is
+ * read from the circuits' recent calls rather than by calling S3, so the health check stays fast while S3 is slow.
+ * A {@code DEGRADED} service still answers the health check with a {@code 200}, as replacing tasks cannot fix S3 and
+ * would only add cold starts to the outage.
+ */
+@Component
+public class S3HealthIndicator implements HealthIndicator {
+
+    public static final Status DEGRADED = new Status("DEGRADED", "S3 calls are failing");
+
+    private final S3CircuitBreaker circuitBreaker;
+
+    public S3HealthIndicator(final S3CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public Health health() {
+        Set<S3Operation> unavailable = circuitBreaker.getUnavailableOperations();
+        if (unavailable.isEmpty()) {
+            return Health.up().build();
+        }
+
+        return Health.status(DEGRADED)
+                .withDetail("unavailableOperations", unavailable.stream().map(S3Operation::getTagValue).toList())
+                .build();
+    }
+}
@@ -0,0 +1,383 @@
+package uk.gov.companieshouse.filetransferservice.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import uk.gov.companieshouse.filetransferservice.metrics.S3CallAccounting;
+import uk.gov.companieshouse.filetransferservice.metrics.S3Operation;
+
+/**
+ * Retries and hedges the S3 calls in the metadata lane, whose client makes a single attempt at each call.
+ * <ul>
+ *     <li>A call which is throttled, fails with a server error or fails to connect is retried up to
+ *     {@code s3.resilience.max-attempts} in all, after a full-jitter exponential backoff: a random delay of up to
+ *     {@code s3.resilience.backoff.base-delay} doubled for each attempt, and at most
+ *     {@code s3.resilience.backoff.max-delay}.</li>
+ *     <li>A HeadObject or GetObjectTagging call which has not completed by the {@code s3.resilience.hedge.percentile}
+ *     of that call's recent latencies is hedged with a duplicate call, and whichever completes first is used. The
+ *     slower call is cancelled, so it does not outlive the request, and the time it had run is sampled as its latency,
+ *     so the latencies are not only those of the calls fast enough to finish.</li>
+ *     <li>A call is not retried if the backoff would run past the request's {@link RequestDeadline}.</li>
+ *     <li>Retries and hedges both draw from a retry budget, which each call adds {@code s3.resilience.retry-budget.ratio}
+ *     of a token to, up to {@code s3.resilience.retry-budget.max-tokens}. A struggling S3 therefore sees at most that
+ *     ratio of extra calls, rather than every call made several times over.</li>
+ * </ul>
+ * The meters are {@code file.transfer.s3.retries}, a counter of retries by operation, {@code file.transfer.s3.hedges},
+ * a counter of hedges by operation and which call won, {@code file.transfer.s3.retry.budget}, a gauge of the tokens in
+ * the budget, and {@code file.transfer.s3.retry.budget.exhausted}, a counter of the retries and hedges not made as the
+ * budget was empty.
+ */
+@Component
+public class S3Resilience implements DisposableBean {
+
+    static final String RETRIES = "file.transfer.s3.retries";
+    static final String HEDGES = "file.transfer.s3.hedges";
+    static final String BUDGET = "file.transfer.s3.retry.budget";
+    static final String BUDGET_EXHAUSTED = "file.transfer.s3.retry.budget.exhausted";
+    static final String OPERATION_TAG = "operation";
+    static final String WINNER_TAG = "winner";
+
+    private static final Set<S3Operation> HEDGED_OPERATIONS = EnumSet.of(S3Operation.HEAD, S3Operation.TAGGING);
+
+    private final MeterRegistry registry;
+    private final int maxAttempts;
+    private final long baseDelayNanos;
+    private final long maxDelayNanos;
+    private final boolean hedgingEnabled;
+    private final RetryBudget budget;
+    private final Counter budgetExhausted;
+    private final Map<S3Operation, LatencyPercentile> latencies = new EnumMap<>(S3Operation.class);
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public S3Resilience(final MeterRegistry registry,
+            @Value("${s3.resilience.max-attempts}") final int maxAttempts,
+            @Value("${s3.resilience.backoff.base-delay}") final Duration baseDelay,
+            @Value("${s3.resilience.backoff.max-delay}") final Duration maxDelay,
+            @Value("${s3.resilience.retry-budget.ratio}") final double budgetRatio,
+            @Value("${s3.resilience.retry-budget.max-tokens}") final int budgetMaxTokens,
+            @Value("${s3.resilience.hedge.enabled}") final boolean hedgingEnabled,
+            @Value("${s3.resilience.hedge.percentile}") final double hedgePercentile,
+            @Value("${s3.resilience.hedge.min-delay}") final Duration hedgeMinDelay) {
+        this.registry = registry;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayNanos = baseDelay.toNanos();
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.hedgingEnabled = hedgingEnabled;
+        this.budget = new RetryBudget(budgetRatio, budgetMaxTokens);
+
+        for (S3Operation operation : HEDGED_OPERATIONS) {
+            latencies.put(operation, new LatencyPercentile(hedgePercentile, hedgeMinDelay.toNanos()));
+        }
+
+        Gauge.builder(BUDGET, budget, RetryBudget::getTokens)
+                .description("Tokens available for S3 retries and hedges")
+                .register(registry);
+        this.budgetExhausted = Counter.builder(BUDGET_EXHAUSTED)
+                .description("S3 retries and hedges not made as the retry budget was empty")
+                .register(registry);
+    }
+
+    /**
+     * Makes an S3 call, hedging it if it is a metadata read and retrying it if it fails with an error which may not
+     * happen again.
+     *
+     * @param operation the S3 operation being called
+     * @param attempt   makes one attempt at the call
+     * @return the result of the first successful attempt
+     */
+    public <T> T call(final S3Operation operation, final Supplier<T> attempt) {
+        budget.deposit();
+
+        LatencyPercentile latency = latencies.get(operation);
+        Supplier<T> hedgedAttempt = latency == null || !hedgingEnabled
+                ? attempt
+                : () -> hedge(operation, latency, attempt);
+
+        for (int attemptNumber = 1; ; attemptNumber++) {
+            try {
+                return hedgedAttempt.get();
+
+            } catch (RuntimeException e) {
+                long delayNanos = backoffNanos(attemptNumber);
+                if (attemptNumber >= maxAttempts || !isRetryable(e) || !beforeDeadline(delayNanos) || !withdraw()) {
+                    throw e;
+                }
+                Counter.builder(RETRIES)
+                        .description("S3 calls retried after a throttling, server or connection error")
+                        .tag(OPERATION_TAG, operation.getTagValue())
+                        .register(registry)
+                        .increment();
+                backoff(delayNanos, e);
+            }
+        }
+    }
+
+    private <T> T hedge(final S3Operation operation, final LatencyPercentile latency, final Supplier<T> attempt) {
+        long hedgeDelayNanos = latency.getNanos();
+        if (hedgeDelayNanos < 0) {
+            // Too few calls have been timed to know when one is slow
+            return latency.time(attempt);
+        }
+
+        // The attempts are given the request's deadline and accounting rather than its attributes, as the losing
+        // attempt can finish after the request has completed, when its attributes can no longer be read
+        Supplier<T> requestAttempt = withRequest(RequestDeadline.current().orElse(null),
+                S3CallAccounting.current().orElse(null), () -> latency.time(attempt));
+        long startNanos = System.nanoTime();
+        CompletableFuture<T> primary = submit(requestAttempt);
+        CompletableFuture<T> hedge = null;
+        try {
+            try {
+                return primary.get(hedgeDelayNanos, TimeUnit.NANOSECONDS);
+
+            } catch (TimeoutException e) {
+                if (!withdraw()) {
+                    return join(primary);
+                }
+
+            } catch (ExecutionException e) {
+                throw unwrap(e.getCause());
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw SdkClientException.create("Interrupted waiting for S3", e);
+            }
+
+            hedge = submit(requestAttempt);
+            HedgeResult<T> result = join(firstSuccessful(
+                    primary.thenApply(value -> new HedgeResult<>("primary", value)),
+                    hedge.thenApply(value -> new HedgeResult<>("hedge", value))));
+
+            Counter.builder(HEDGES)
+                    .description("S3 calls hedged with a duplicate call, by which call completed first")
+                    .tag(OPERATION_TAG, operation.getTagValue())
+                    .tag(WINNER_TAG, result.winner())
+                    .register(registry)
+                    .increment();
+            return result.value();
+
+        } finally {
+            // Whichever attempt is still running has lost, or is no longer waited for, so is aborted
+            if (primary.cancel(true)) {
+                // The slow primary took at least this long, which is sampled as only finished attempts time themselves
+                latency.record(System.nanoTime() - startNanos);
+            }
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    private static <T> Supplier<T> withRequest(final RequestDeadline deadline, final S3CallAccounting accounting,
+            final Supplier<T> attempt) {
+        return () -> RequestDeadline.callWith(deadline, () -> S3CallAccounting.callWith(accounting, attempt));
+    }
+
+    /**
+     * @return a future for the attempt, which interrupts the attempt's thread if it is cancelled before it completes
+     */
+    private <T> CompletableFuture<T> submit(final Supplier<T> attempt) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = executor.submit(() -> {
+            try {
+                result.complete(attempt.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        result.whenComplete((value, failure) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @return a future which completes with the first of the two to succeed, or fails if both fail
+     */
+    private static <T> CompletableFuture<T> firstSuccessful(final CompletableFuture<T> first,
+            final CompletableFuture<T> second) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicBoolean otherFailed = new AtomicBoolean();
+        for (CompletableFuture<T> future : Arrays.asList(first, second)) {
+            future.whenComplete((value, failure) -> {
+                if (failure == null) {
+                    result.complete(value);
+                } else if (otherFailed.getAndSet(true)) {
+                    result.completeExceptionally(failure);
+                }
+            });
+        }
+        return result;
+    }
+
+    private static <T> T join(final CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(final Throwable cause) {
+        if (cause instanceof CompletionException completionException) {
+            return unwrap(completionException.getCause());
+        }
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return SdkClientException.create("S3 call failed", cause);
+    }
+
+    private boolean withdraw() {
+        if (budget.tryWithdraw()) {
+            return true;
+        }
+        budgetExhausted.increment();
+        return false;
+    }
+
+    private long backoffNanos(final int attemptNumber) {
+        long ceiling = Math.min(maxDelayNanos, baseDelayNanos << Math.min(attemptNumber - 1, 30));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * @return whether a retry after the delay would start before the request's deadline, if it has one
+     */
+    private static boolean beforeDeadline(final long delayNanos) {
+        return RequestDeadline.current()
+                .map(deadline -> deadline.remaining().toNanos() > delayNanos)
+                .orElse(true);
+    }
+
+    private void backoff(final long delayNanos, final RuntimeException failure) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(delayNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw failure;
+        }
+    }
+
+    private static boolean isRetryable(final RuntimeException e) {
+        if (e instanceof SdkServiceException serviceException) {
+            return serviceException.isThrottlingException() || serviceException.statusCode() >= 500;
+        }
+        return e instanceof SdkClientException;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private record HedgeResult<T>(String winner, T value) {
+    }
+
+    /**
+     * Tokens for retries and hedges, earned as a fraction of a token per call.
+     */
+    private static final class RetryBudget {
+
+        private final double ratio;
+        private final double maxTokens;
+        private double tokens;
+
+        RetryBudget(final double ratio, final int maxTokens) {
+            this.ratio = ratio;
+            this.maxTokens = maxTokens;
+            this.tokens = maxTokens;
+        }
+
+        synchronized void deposit() {
+            tokens = Math.min(maxTokens, tokens + ratio);
+        }
+
+        synchronized boolean tryWithdraw() {
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+
+        synchronized double getTokens() {
+            return tokens;
+        }
+    }
+
+    /**
+     * A percentile of the latencies of an operation's most recent calls, recalculated every few calls.
+     */
+    static final class LatencyPercentile {
+
+        static final int MIN_SAMPLES = 100;
+
+        private static final int SAMPLES = 1024;
+        private static final int RECALCULATE_EVERY = 32;
+
+        private final double percentile;
+        private final long minNanos;
+        private final long[] samples = new long[SAMPLES];
+        private long recorded;
+        private volatile long nanos = -1;
+
+        LatencyPercentile(final double percentile, final long minNanos) {
+            this.percentile = percentile;
+            this.minNanos = minNanos;
+        }
+
+        <T> T time(final Supplier<T> attempt) {
+            long startNanos = System.nanoTime();
+            T result = attempt.get();
+            record(System.nanoTime() - startNanos);
+            return result;
+        }
+
+        /**
+         * @return the percentile, but at least the minimum, or -1 if too few calls have been timed
+         */
+        long getNanos() {
+            return nanos;
+        }
+
+        synchronized void record(final long durationNanos) {
+            samples[(int) (recorded % SAMPLES)] = durationNanos;
+            recorded++;
+
+            if (recorded >= MIN_SAMPLES && recorded % RECALCULATE_EVERY == 0) {
+                long[] sorted = Arrays.copyOf(samples, (int) Math.min(recorded, SAMPLES));
+                Arrays.sort(sorted);
+                int index = (int) Math.ceil(percentile * sorted.length) - 1;
+                nanos = Math.max(minNanos, sorted[Math.clamp(index, 0, sorted.length - 1)]);
+            }
+        }
+    }
+}
@@ -1,18 +1,39 @@
 package uk.gov.companieshouse.filetransferservice.service;
 
 import java.io.InputStream;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.MultipartUpload;
+import software.amazon.awssdk.services.s3.model.Part;
 import software.amazon.awssdk.services.s3.model.Tag;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedUploadPartRequest;
 
 public interface AmazonFileTransfer {
 
     void uploadFile(String fileId, Map<String, String> metaData, InputStream inputStream);
-    Optional<InputStream> downloadStream(String fileId);
-    Optional<ResponseInputStream<GetObjectResponse>> getFileObject(String fileId);
+    boolean uploadFileIfAbsent(String fileId, Map<String, String> metaData, InputStream inputStream);
+    Optional<InputStream> downloadStream(String fileId, long size);
+    Optional<ResponseInputStream<GetObjectResponse>> getFileObject(String fileId, long size);
+    Optional<HeadObjectResponse> getFileMetadata(String fileId);
     Optional<List<Tag>> getFileTags(String fileId);
     void deleteFile(String fileId);
+    PresignedGetObjectRequest presignDownload(String fileId, String contentDisposition, String contentType, Duration expiry);
+    PresignedPutObjectRequest presignUpload(String fileId, Map<String, String> metaData, long size, Duration expiry);
+    String createMultipartUpload(String fileId, Map<String, String> metaData);
+    PresignedUploadPartRequest presignUploadPart(String fileId, String uploadId, int partNumber, Duration expiry);
+    void uploadPart(String fileId, String uploadId, int partNumber, InputStream inputStream, long contentLength);
+    List<Part> listParts(String fileId, String uploadId);
+    void completeMultipartUpload(String fileId, String uploadId);
+    void completeMultipartUpload(String fileId, String uploadId, List<Part> parts);
+    void abortMultipartUpload(String fileId, String uploadId);
+    List<MultipartUpload> listMultipartUploads();
+    ListObjectsV2Response listFiles(String prefix, String startAfter, String continuationToken, int maxKeys);
 }
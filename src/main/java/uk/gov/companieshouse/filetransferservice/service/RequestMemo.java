@@ -0,0 +1,82 @@
+package uk.gov.companieshouse.filetransferservice.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Remembers values looked up while handling a request, such as a file's details, so they are looked up at most once
+ * per request. Values are held in request attributes, so they are discarded when the request completes and are never
+ * shared between requests. Outside a request, e.g. on a thread streaming a response, every lookup is made.
+ * <p>
+ * A request is handled by one thread at a time, so the values are not synchronized.
+ */
+public final class RequestMemo {
+
+    private static final String ATTRIBUTE_PREFIX = RequestMemo.class.getName() + ".";
+
+    private RequestMemo() {
+    }
+
+    /**
+     * Returns the value remembered for the key in the current request, or looks it up and remembers it. A lookup
+     * which throws is not remembered.
+     *
+     * @param name   the kind of value, which keeps keys for different lookups apart
+     * @param key    the key, such as a file ID
+     * @param lookup the lookup to make if there is no value for the key
+     * @return the remembered or looked up value
+     */
+    public static <T> T computeIfAbsent(final String name, final String key, final Supplier<T> lookup) {
+        Map<String, T> values = values(name, true);
+        if (values == null) {
+            return lookup.get();
+        }
+        if (values.containsKey(key)) {
+            return values.get(key);
+        }
+
+        T value = lookup.get();
+        values.put(key, value);
+        return value;
+    }
+
+    /**
+     * Remembers a value for the key in the current request, if there is one.
+     */
+    public static <T> void put(final String name, final String key, final T value) {
+        Map<String, T> values = values(name, true);
+        if (values != null) {
+            values.put(key, value);
+        }
+    }
+
+    /**
+     * Forgets the value for the key in the current request, e.g. when the file it describes is deleted.
+     */
+    public static void evict(final String name, final String key) {
+        Map<String, Object> values = values(name, false);
+        if (values != null) {
+            values.remove(key);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Map<String, T> values(final String name, final boolean create) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+
+        String attributeName = ATTRIBUTE_PREFIX + name;
+        Map<String, T> values = (Map<String, T>) attributes.getAttribute(attributeName,
+                RequestAttributes.SCOPE_REQUEST);
+        if (values == null && create) {
+            values = new HashMap<>();
+            attributes.setAttribute(attributeName, values, RequestAttributes.SCOPE_REQUEST);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,33 @@
+package uk.gov.companieshouse.filetransferservice.service.avstatus;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
+
+/**
+ * Tells listeners when files waiting to be scanned have been scanned. The implementation can be swapped out, with
+ * {@code av-status.source}, to change how scans are noticed: by polling the files' tags, or from events published as
+ * each scan completes.
+ */
+public interface AvStatusSource {
+
+    /**
+     * Listens for a file to be scanned. The listener is called at most once, with the file's details once it has been
+     * scanned, or empty if the file is deleted first, and may be called on any thread, including the caller's.
+     *
+     * @param fileDetails the file's details, which are not scanned
+     * @param listener    called when the file has been scanned or deleted
+     * @return a subscription which stops listening when closed
+     */
+    Subscription subscribe(FileDetailsApi fileDetails, Consumer<Optional<FileDetailsApi>> listener);
+
+    /**
+     * A listener's subscription to a file. Closing it more than once, or after the listener has been called, does
+     * nothing.
+     */
+    interface Subscription extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,86 @@
+package uk.gov.companieshouse.filetransferservice.service.avstatus;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.api.filetransfer.AvStatus;
+import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
+import uk.gov.companieshouse.filetransferservice.service.avstatus.AvStatusSource.Subscription;
+
+/**
+ * Waits for files to be scanned, so a client can hold one request open until a file's AV status changes rather than
+ * polling for it. Each request listens to the {@link AvStatusSource}, so however many requests are waiting for a file,
+ * they share one check of its AV status, and every request waiting for it completes as soon as it has been scanned. A
+ * request which is still waiting when its wait expires completes with the file's details unscanned.
+ * <p>
+ * At most {@code av-status.max-waiting} requests wait at once; beyond that, requests complete at once, and their
+ * clients poll as before.
+ * <p>
+ * The meter is {@code file.transfer.av.waiting}, a gauge of the requests waiting.
+ */
+@Component
+public class AvStatusWatcher implements DisposableBean {
+
+    static final String WAITING = "file.transfer.av.waiting";
+
+    private final AvStatusSource avStatusSource;
+    private final int maxWaiting;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("av-status-watcher").daemon().factory());
+
+    public AvStatusWatcher(final AvStatusSource avStatusSource,
+            final MeterRegistry registry,
+            @Value("${av-status.max-waiting}") final int maxWaiting) {
+        this.avStatusSource = avStatusSource;
+        this.maxWaiting = maxWaiting;
+
+        Gauge.builder(WAITING, waiting, AtomicInteger::get)
+                .description("Requests waiting for files to be scanned")
+                .register(registry);
+    }
+
+    /**
+     * Waits for a file to be scanned. Cancelling the future, e.g. when the client disconnects, stops the wait.
+     *
+     * @param fileDetails the file's details, which are not scanned
+     * @param wait        how long to wait for the file to be scanned
+     * @return a future which completes with the file's details once it has been scanned, with the details given if the
+     * wait expires first, or empty if the file is deleted while waiting
+     */
+    public CompletableFuture<Optional<FileDetailsApi>> await(final FileDetailsApi fileDetails, final Duration wait) {
+        if (fileDetails.getAvStatus() != AvStatus.NOT_SCANNED || !wait.isPositive()) {
+            return CompletableFuture.completedFuture(Optional.of(fileDetails));
+        }
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            return CompletableFuture.completedFuture(Optional.of(fileDetails));
+        }
+
+        CompletableFuture<Optional<FileDetailsApi>> waiter = new CompletableFuture<>();
+        Subscription subscription = avStatusSource.subscribe(fileDetails, waiter::complete);
+        ScheduledFuture<?> expiry = scheduler.schedule(() -> waiter.complete(Optional.of(fileDetails)),
+                wait.toNanos(), TimeUnit.NANOSECONDS);
+        waiter.whenComplete((result, failure) -> {
+            expiry.cancel(false);
+            waiting.decrementAndGet();
+            subscription.close();
+        });
+        return waiter;
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+}
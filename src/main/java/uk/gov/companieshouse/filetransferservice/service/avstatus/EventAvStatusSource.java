@@ -0,0 +1,132 @@
+package uk.gov.companieshouse.filetransferservice.service.avstatus;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.api.filetransfer.AvStatus;
+import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
+import uk.gov.companieshouse.filetransferservice.service.storage.FileStorageStrategy;
+import uk.gov.companieshouse.logging.Logger;
+
+/**
+ * Notices scans from the {@link FileScannedEvent}s published as files are scanned, rather than by polling. Each new
+ * listener's file is looked up once after it subscribes, so a file scanned between a request reading its details and
+ * subscribing, or deleted before subscribing, is not waited for until it times out.
+ * <p>
+ * The events come from outside the service, so it fails to start unless a {@link FileScannedEventPublisher} is wired
+ * in, rather than leaving every waiting request to time out.
+ */
+@Component
+@ConditionalOnProperty(name = "av-status.source", havingValue = "events")
+public class EventAvStatusSource implements AvStatusSource, DisposableBean {
+
+    private final FileStorageStrategy fileStorageStrategy;
+    private final Logger logger;
+    private final Map<String, Set<Listener>> listeners = new ConcurrentHashMap<>();
+    private final ExecutorService lookups = Executors.newVirtualThreadPerTaskExecutor();
+
+    public EventAvStatusSource(final FileStorageStrategy fileStorageStrategy,
+            final ObjectProvider<FileScannedEventPublisher> publishers,
+            final Logger logger) {
+        if (publishers.stream().findAny().isEmpty()) {
+            throw new IllegalStateException("av-status.source is events, but no FileScannedEventPublisher is set up "
+                    + "to publish the events");
+        }
+        this.fileStorageStrategy = fileStorageStrategy;
+        this.logger = logger;
+    }
+
+    @Override
+    public Subscription subscribe(final FileDetailsApi fileDetails,
+            final Consumer<Optional<FileDetailsApi>> listener) {
+        String fileId = fileDetails.getId();
+        Listener subscriber = new Listener(fileDetails, listener);
+        listeners.compute(fileId, (id, subscribed) -> {
+            Set<Listener> joined = subscribed == null ? ConcurrentHashMap.newKeySet() : subscribed;
+            joined.add(subscriber);
+            return joined;
+        });
+        lookups.execute(() -> lookUp(subscriber));
+
+        return () -> leave(fileId, subscriber);
+    }
+
+    @EventListener
+    public void onFileScanned(final FileScannedEvent event) {
+        if (event.avStatus() == AvStatus.NOT_SCANNED) {
+            return;
+        }
+
+        Set<Listener> scanned = listeners.remove(event.fileId());
+        if (scanned != null) {
+            scanned.forEach(listener -> listener.call(Optional.of(new FileDetailsApi(event.fileId(),
+                    event.avTimestamp(),
+                    event.avStatus(),
+                    listener.fileDetails.getContentType(),
+                    listener.fileDetails.getSize(),
+                    listener.fileDetails.getName(),
+                    listener.fileDetails.getCreatedOn(),
+                    listener.fileDetails.getLinks()))));
+        }
+    }
+
+    private void lookUp(final Listener listener) {
+        String fileId = listener.fileDetails.getId();
+        try {
+            Optional<FileDetailsApi> fileDetails = fileStorageStrategy.refreshAvStatus(listener.fileDetails);
+            if (fileDetails.isEmpty() || fileDetails.get().getAvStatus() != AvStatus.NOT_SCANNED) {
+                leave(fileId, listener);
+                listener.call(fileDetails);
+            }
+
+        } catch (RuntimeException e) {
+            // Left to wait for the file's event, as a failed lookup does not mean the file has been deleted
+            Map<String, Object> loggedVars = new HashMap<>();
+            loggedVars.put("fileId", fileId);
+            logger.errorContext(fileId, "Unable to look up AV status of subscribed file", e, loggedVars);
+        }
+    }
+
+    private void leave(final String fileId, final Listener listener) {
+        listeners.computeIfPresent(fileId, (id, subscribed) ->
+                subscribed.remove(listener) && subscribed.isEmpty() ? null : subscribed);
+    }
+
+    @Override
+    public void destroy() {
+        lookups.shutdownNow();
+    }
+
+    /**
+     * A listener and the details of the file it is listening for. It is called at most once, whether by the file's
+     * event or by the lookup made when it subscribed.
+     */
+    private static final class Listener {
+
+        private final FileDetailsApi fileDetails;
+        private final Consumer<Optional<FileDetailsApi>> listener;
+        private final AtomicBoolean called = new AtomicBoolean();
+
+        Listener(final FileDetailsApi fileDetails, final Consumer<Optional<FileDetailsApi>> listener) {
+            this.fileDetails = fileDetails;
+            this.listener = listener;
+        }
+
+        void call(final Optional<FileDetailsApi> fileDetails) {
+            if (called.compareAndSet(false, true)) {
+                listener.accept(fileDetails);
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package uk.gov.companieshouse.filetransferservice.service.avstatus;
+
+import uk.gov.companieshouse.api.filetransfer.AvStatus;
+
+/**
+ * Published when a file has been scanned, as the AV scanner tags it. A {@link FileScannedEventPublisher}, such as a
+ * consumer of the bucket's S3 event notifications, publishes these for the {@link EventAvStatusSource}.
+ *
+ * @param fileId      the id of the file scanned
+ * @param avStatus    the file's AV status
+ * @param avTimestamp when the file was scanned, as given in its {@code av-timestamp} tag
+ */
+public record FileScannedEvent(String fileId, AvStatus avStatus, String avTimestamp) {
+}
@@ -0,0 +1,9 @@
+package uk.gov.companieshouse.filetransferservice.service.avstatus;
+
+/**
+ * Publishes a {@link FileScannedEvent} as each file is scanned, such as by consuming the bucket's S3 event
+ * notifications. Nothing in the service itself knows when the AV scanner tags a file, so the
+ * {@link EventAvStatusSource} needs at least one of these beans to be told of any scan.
+ */
+public interface FileScannedEventPublisher {
+}
@@ -0,0 +1,158 @@
+package uk.gov.companieshouse.filetransferservice.service.avstatus;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.api.filetransfer.AvStatus;
+import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
+import uk.gov.companieshouse.filetransferservice.service.storage.FileStorageStrategy;
+import uk.gov.companieshouse.logging.Logger;
+
+/**
+ * Notices scans by polling the tags of every file being listened for. Every {@code av-status.poll-interval}, one sweep
+ * looks up the AV status of all of them, however many listeners each has, with at most
+ * {@code av-status.poll-concurrency} lookups in progress at once, so the sweep does not crowd requests out of the S3
+ * metadata lane. A file whose lookup from the last sweep is still in progress is skipped.
+ * <p>
+ * The meters are {@code file.transfer.av.watched}, a gauge of the files being polled, and
+ * {@code file.transfer.av.polls}, a counter of the AV status lookups made.
+ */
+@Component
+@ConditionalOnProperty(name = "av-status.source", havingValue = "polling", matchIfMissing = true)
+public class PollingAvStatusSource implements AvStatusSource, DisposableBean {
+
+    static final String WATCHED = "file.transfer.av.watched";
+    static final String POLLS = "file.transfer.av.polls";
+
+    private final FileStorageStrategy fileStorageStrategy;
+    private final Logger logger;
+    private final Counter polls;
+    private final Map<String, Watch> watches = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("av-status-sweep").daemon().factory());
+    private final ExecutorService pollers;
+
+    public PollingAvStatusSource(final FileStorageStrategy fileStorageStrategy,
+            final MeterRegistry registry,
+            final Logger logger,
+            @Value("${av-status.poll-interval}") final Duration pollInterval,
+            @Value("${av-status.poll-concurrency}") final int pollConcurrency) {
+        this.fileStorageStrategy = fileStorageStrategy;
+        this.logger = logger;
+        this.pollers = Executors.newFixedThreadPool(Math.max(1, pollConcurrency),
+                Thread.ofVirtual().name("av-status-poller-", 0).factory());
+        this.polls = Counter.builder(POLLS)
+                .description("AV status lookups made for files being listened for")
+                .register(registry);
+
+        Gauge.builder(WATCHED, watches, Map::size)
+                .description("Files being polled for their AV status")
+                .register(registry);
+
+        scheduler.scheduleWithFixedDelay(this::sweep, pollInterval.toNanos(), pollInterval.toNanos(),
+                TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public Subscription subscribe(final FileDetailsApi fileDetails,
+            final Consumer<Optional<FileDetailsApi>> listener) {
+        String fileId = fileDetails.getId();
+        Listener subscriber = new Listener(listener);
+        watches.compute(fileId, (id, watch) -> {
+            Watch joined = watch == null ? new Watch(fileDetails) : watch;
+            joined.listeners.add(subscriber);
+            return joined;
+        });
+
+        return () -> watches.computeIfPresent(fileId, (id, watch) ->
+                watch.listeners.remove(subscriber) && watch.listeners.isEmpty() ? null : watch);
+    }
+
+    private void sweep() {
+        for (Watch watch : watches.values()) {
+            if (watch.polling.compareAndSet(false, true)) {
+                pollers.execute(() -> poll(watch));
+            }
+        }
+    }
+
+    private void poll(final Watch watch) {
+        String fileId = watch.fileDetails.getId();
+        try {
+            if (watches.get(fileId) != watch) {
+                return;
+            }
+
+            polls.increment();
+            Optional<FileDetailsApi> fileDetails = fileStorageStrategy.refreshAvStatus(watch.fileDetails);
+            if (fileDetails.isEmpty() || fileDetails.get().getAvStatus() != AvStatus.NOT_SCANNED) {
+                finish(watch, fileDetails);
+            }
+
+        } catch (RuntimeException e) {
+            // Polled again in the next sweep
+            Map<String, Object> loggedVars = new HashMap<>();
+            loggedVars.put("fileId", fileId);
+            logger.errorContext(fileId, "Unable to look up AV status of watched file", e, loggedVars);
+
+        } finally {
+            watch.polling.set(false);
+        }
+    }
+
+    private void finish(final Watch watch, final Optional<FileDetailsApi> fileDetails) {
+        // Once removed, no more listeners can join the watch, so all of its listeners are called
+        if (watches.remove(watch.fileDetails.getId(), watch)) {
+            watch.listeners.forEach(listener -> listener.listener.accept(fileDetails));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        pollers.shutdownNow();
+    }
+
+    /**
+     * A listener, wrapped so the same listener subscribed twice is held twice.
+     */
+    private static final class Listener {
+
+        private final Consumer<Optional<FileDetailsApi>> listener;
+
+        Listener(final Consumer<Optional<FileDetailsApi>> listener) {
+            this.listener = listener;
+        }
+    }
+
+    /**
+     * The listeners for a file. Listeners only join and leave inside the map's compute methods, so a watch which has
+     * been removed from the map has no more listeners join it.
+     */
+    private static final class Watch {
+
+        private final FileDetailsApi fileDetails;
+        private final Set<Listener> listeners = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean polling = new AtomicBoolean();
+
+        Watch(final FileDetailsApi fileDetails) {
+            this.fileDetails = fileDetails;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package uk.gov.companieshouse.filetransferservice.service.converter;
+
+/**
+ * Single-pass percent-encoding of S3 metadata values, shared by {@link MetadataEncoder} and {@link MetadataDecoder}.
+ * <p>
+ * A value counts as already encoded when it is exactly what {@link java.net.URLEncoder} would produce for its decoded
+ * form, with spaces written as {@code %20} (or {@code +}): only the characters {@code A-Z a-z 0-9 . - * _} appear
+ * unescaped, escapes use upper case hex, no escape stands for one of those characters, and escaped bytes are valid
+ * UTF-8. A value containing a malformed escape (a {@code %} not followed by two hex digits) is left untouched by both
+ * the encoder and the decoder.
+ * <p>
+ * Classifying a value takes a single scan and allocates nothing, so values which need no conversion, such as most
+ * filenames, are returned as they are.
+ */
+final class MetadataCodec {
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private static final int ESCAPE_LENGTH = 3;
+    private static final int NOT_CANONICAL = 0;
+    private static final int MALFORMED = -1;
+
+    enum Form {
+        /** Only characters which never need encoding. */
+        PLAIN,
+        /** Canonically URL encoded, with at least one escape or {@code +}. */
+        ENCODED,
+        /** Contains characters which need encoding. */
+        NOT_ENCODED,
+        /** Contains a {@code %} which does not start a valid escape. */
+        MALFORMED
+    }
+
+    private MetadataCodec() {
+    }
+
+    static String encode(final String source) {
+        if (source == null || classify(source) != Form.NOT_ENCODED) {
+            return source;
+        }
+
+        StringBuilder encoded = new StringBuilder(source.length() + 16);
+        int length = source.length();
+
+        for (int i = 0; i < length; i++) {
+            char c = source.charAt(i);
+
+            if (isUnreserved(c)) {
+                encoded.append(c);
+            } else if (c < 0x80) {
+                appendEscape(encoded, c);
+            } else if (c < 0x800) {
+                appendEscape(encoded, 0xC0 | (c >> 6));
+                appendEscape(encoded, 0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(source.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, source.charAt(++i));
+                appendEscape(encoded, 0xF0 | (codePoint >> 18));
+                appendEscape(encoded, 0x80 | ((codePoint >> 12) & 0x3F));
+                appendEscape(encoded, 0x80 | ((codePoint >> 6) & 0x3F));
+                appendEscape(encoded, 0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // An unpaired surrogate cannot be represented in UTF-8, and is replaced by '?'
+                appendEscape(encoded, '?');
+            } else {
+                appendEscape(encoded, 0xE0 | (c >> 12));
+                appendEscape(encoded, 0x80 | ((c >> 6) & 0x3F));
+                appendEscape(encoded, 0x80 | (c & 0x3F));
+            }
+        }
+
+        return encoded.toString();
+    }
+
+    static String decode(final String source) {
+        if (source == null || classify(source) != Form.ENCODED) {
+            return source;
+        }
+
+        // The value is known to be canonical, so every escape is well-formed and escaped bytes are valid UTF-8.
+        StringBuilder decoded = new StringBuilder(source.length());
+        int length = source.length();
+        int i = 0;
+
+        while (i < length) {
+            char c = source.charAt(i);
+
+            if (c == '+') {
+                decoded.append(' ');
+                i++;
+            } else if (c == '%') {
+                int b0 = escapedByte(source, i);
+                int sequenceLength = utf8SequenceLength(b0);
+                int codePoint = sequenceLength == 1 ? b0 : b0 & (0xFF >> (sequenceLength + 1));
+
+                for (int k = 1; k < sequenceLength; k++) {
+                    codePoint = (codePoint << 6) | (escapedByte(source, i + k * ESCAPE_LENGTH) & 0x3F);
+                }
+
+                decoded.appendCodePoint(codePoint);
+                i += sequenceLength * ESCAPE_LENGTH;
+            } else {
+                decoded.append(c);
+                i++;
+            }
+        }
+
+        return decoded.toString();
+    }
+
+    static Form classify(final String source) {
+        boolean escaped = false;
+        int length = source.length();
+        int i = 0;
+
+        while (i < length) {
+            char c = source.charAt(i);
+
+            if (isUnreserved(c)) {
+                i++;
+                continue;
+            }
+
+            if (c == '+') {
+                escaped = true;
+                i++;
+                continue;
+            }
+
+            if (c == '%') {
+                int next = scanEscapedCodePoint(source, i);
+                if (next == MALFORMED) {
+                    return Form.MALFORMED;
+                }
+                if (next != NOT_CANONICAL) {
+                    escaped = true;
+                    i = next;
+                    continue;
+                }
+            }
+
+            // Not canonical, but a malformed escape anywhere still takes precedence
+            return hasMalformedEscape(source, i) ? Form.MALFORMED : Form.NOT_ENCODED;
+        }
+
+        return escaped ? Form.ENCODED : Form.PLAIN;
+    }
+
+    /**
+     * Scans the escaped UTF-8 sequence for one code point, starting at the {@code %} at the given index.
+     *
+     * @return the index following the sequence if it is canonical, {@link #NOT_CANONICAL} if it is well-formed but
+     *         not canonical, or {@link #MALFORMED} if the first escape is malformed
+     */
+    private static int scanEscapedCodePoint(final String source, final int start) {
+        int b0 = escapedByte(source, start);
+        if (b0 < 0) {
+            return MALFORMED;
+        }
+        if (!isUpperCaseEscape(source, start)) {
+            return NOT_CANONICAL;
+        }
+
+        int sequenceLength = utf8SequenceLength(b0);
+        if (sequenceLength == 0) {
+            return NOT_CANONICAL;
+        }
+        if (sequenceLength == 1) {
+            return isUnreserved((char) b0) ? NOT_CANONICAL : start + ESCAPE_LENGTH;
+        }
+
+        // Restrict the second byte to exclude overlong forms, UTF-16 surrogates, and code points above U+10FFFF
+        int min = 0x80;
+        int max = 0xBF;
+        if (b0 == 0xE0) {
+            min = 0xA0;
+        } else if (b0 == 0xED) {
+            max = 0x9F;
+        } else if (b0 == 0xF0) {
+            min = 0x90;
+        } else if (b0 == 0xF4) {
+            max = 0x8F;
+        }
+
+        int index = start + ESCAPE_LENGTH;
+        for (int k = 1; k < sequenceLength; k++, index += ESCAPE_LENGTH) {
+            if (index >= source.length() || source.charAt(index) != '%') {
+                return NOT_CANONICAL;
+            }
+
+            int b = escapedByte(source, index);
+            if (b < min || b > max || !isUpperCaseEscape(source, index)) {
+                return NOT_CANONICAL;
+            }
+
+            min = 0x80;
+            max = 0xBF;
+        }
+
+        return index;
+    }
+
+    private static boolean hasMalformedEscape(final String source, final int start) {
+        int length = source.length();
+        int i = start;
+
+        while (i < length) {
+            if (source.charAt(i) == '%') {
+                if (escapedByte(source, i) < 0) {
+                    return true;
+                }
+                i += ESCAPE_LENGTH;
+            } else {
+                i++;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return the number of bytes in the UTF-8 sequence starting with the given byte, or 0 if it cannot start one
+     */
+    private static int utf8SequenceLength(final int b0) {
+        if (b0 < 0x80) {
+            return 1;
+        } else if (b0 >= 0xC2 && b0 <= 0xDF) {
+            return 2;
+        } else if (b0 >= 0xE0 && b0 <= 0xEF) {
+            return 3;
+        } else if (b0 >= 0xF0 && b0 <= 0xF4) {
+            return 4;
+        }
+        return 0;
+    }
+
+    /**
+     * @return the byte value of the escape at the given index, or -1 if it is not followed by two hex digits
+     */
+    private static int escapedByte(final String source, final int index) {
+        if (index + 2 >= source.length()) {
+            return -1;
+        }
+
+        int high = Character.digit(source.charAt(index + 1), 16);
+        int low = Character.digit(source.charAt(index + 2), 16);
+
+        return high < 0 || low < 0 ? -1 : (high << 4) | low;
+    }
+
+    private static boolean isUpperCaseEscape(final String source, final int index) {
+        return isUpperCaseHexDigit(source.charAt(index + 1)) && isUpperCaseHexDigit(source.charAt(index + 2));
+    }
+
+    private static boolean isUpperCaseHexDigit(final char c) {
+        return (c >= '0' && c <= '9') || (c >= 'A' && c <= 'F');
+    }
+
+    private static boolean isUnreserved(final char c) {
+        return (c >= 'a' && c <= 'z')
+                || (c >= 'A' && c <= 'Z')
+                || (c >= '0' && c <= '9')
+                || c == '.' || c == '-' || c == '*' || c == '_';
+    }
+
+    private static void appendEscape(final StringBuilder builder, final int b) {
+        builder.append('%').append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
+    }
+}
@@ -1,42 +1,18 @@
 package uk.gov.companieshouse.filetransferservice.service.converter;
 
-import static org.apache.commons.lang3.StringUtils.isEmpty;
-
-import java.net.URLDecoder;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.stereotype.Component;
 
 @Component
 public class MetadataEncoder implements Converter<String, String> {
 
+    /**
+     * URL encodes the source, unless it is empty, already URL encoded, or contains a malformed escape, in which case
+     * it is returned as it is.
+     */
     @Override
     public String convert(final String source) {
-        try {
-            // Check if the input is empty, or already URL encoded?
-            if(isEmpty(source) || isUrlEncoded(source)) {
-                return source;
-            }
-
-            // Input is NOT URL encoded, so encode it.
-            return URLEncoder.encode(source, StandardCharsets.UTF_8).replace("+", "%20");
-
-        } catch (Exception e) {
-            // Something went wrong during encoding, return the original source.
-            return source;
-        }
-    }
-
-    private boolean isUrlEncoded(final String input) {
-        // Decode and re-encode, then compare
-        String decoded = URLDecoder.decode(input, StandardCharsets.UTF_8);
-        String encoded = URLEncoder.encode(decoded, StandardCharsets.UTF_8).replace("+", "%20");
-
-        // Normalize input for comparison
-        String normalizedInput = input.replace("+", "%20");
-
-        return normalizedInput.equals(encoded);
+        return MetadataCodec.encode(source);
     }
 
 }
@@ -4,41 +4,111 @@ import static java.lang.String.format;
 import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
 
 import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import org.springframework.stereotype.Component;
+import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
 import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.ApiCallTimeoutException;
 import software.amazon.awssdk.core.exception.SdkClientException;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 import software.amazon.awssdk.services.s3.model.GetObjectTaggingRequest;
 import software.amazon.awssdk.services.s3.model.HeadBucketRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListMultipartUploadsRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.ListPartsRequest;
+import software.amazon.awssdk.services.s3.model.MultipartUpload;
 import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.Part;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Request;
 import software.amazon.awssdk.services.s3.model.Tag;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedUploadPartRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.UploadPartPresignRequest;
 import software.amazon.awssdk.utils.StringUtils;
+import uk.gov.companieshouse.filetransferservice.admission.AdaptiveConcurrencyLimiter;
+import uk.gov.companieshouse.filetransferservice.admission.S3Lane;
+import uk.gov.companieshouse.filetransferservice.admission.S3LaneClients;
 import uk.gov.companieshouse.filetransferservice.config.properties.AWSServiceProperties;
+import uk.gov.companieshouse.filetransferservice.config.properties.S3LaneProperties;
+import uk.gov.companieshouse.filetransferservice.config.properties.S3TimeoutProperties;
+import uk.gov.companieshouse.filetransferservice.exception.DeadlineExceededException;
+import uk.gov.companieshouse.filetransferservice.exception.UploadAbortedException;
+import uk.gov.companieshouse.filetransferservice.metrics.S3Operation;
+import uk.gov.companieshouse.filetransferservice.metrics.TransferMetrics;
+import uk.gov.companieshouse.filetransferservice.resilience.RequestDeadline;
+import uk.gov.companieshouse.filetransferservice.resilience.S3CircuitBreaker;
+import uk.gov.companieshouse.filetransferservice.resilience.S3Resilience;
 import uk.gov.companieshouse.filetransferservice.service.AmazonFileTransfer;
+import uk.gov.companieshouse.filetransferservice.service.RequestMemo;
 import uk.gov.companieshouse.logging.Logger;
 
+/**
+ * Makes the service's S3 calls, each in an {@link S3Lane} chosen by what it transfers: calls without content in the
+ * metadata lane, and uploads and downloads in the small or large transfer lane by their size. Each call has its
+ * operation's API call timeout, or less if the request's {@link RequestDeadline} is sooner, and is made through the
+ * {@link S3CircuitBreaker}, so calls fail fast while S3 is failing.
+ */
 @Component
 public class AmazonFileTransferImpl implements AmazonFileTransfer {
 
-    private final S3Client s3Client;
+    private static final String FILE_TAGS_MEMO = "fileTags";
+    private static final int PRECONDITION_FAILED = 412;
+    private static final int CONFLICT = 409;
+
+    private final S3LaneClients s3Clients;
+    private final S3Presigner s3Presigner;
     private final AWSServiceProperties properties;
+    private final S3LaneProperties laneProperties;
+    private final S3TimeoutProperties timeoutProperties;
+    private final TransferMetrics transferMetrics;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final S3CircuitBreaker circuitBreaker;
+    private final S3Resilience s3Resilience;
     private final Logger logger;
 
-    public AmazonFileTransferImpl(S3Client s3Client, AWSServiceProperties properties, Logger logger) {
-        this.s3Client = s3Client;
+    public AmazonFileTransferImpl(S3LaneClients s3Clients, S3Presigner s3Presigner, AWSServiceProperties properties,
+            S3LaneProperties laneProperties, S3TimeoutProperties timeoutProperties, TransferMetrics transferMetrics,
+            AdaptiveConcurrencyLimiter concurrencyLimiter, S3CircuitBreaker circuitBreaker, S3Resilience s3Resilience,
+            Logger logger) {
+        this.s3Clients = s3Clients;
+        this.s3Presigner = s3Presigner;
         this.logger = logger;
         this.properties = properties;
+        this.laneProperties = laneProperties;
+        this.timeoutProperties = timeoutProperties;
+        this.transferMetrics = transferMetrics;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.circuitBreaker = circuitBreaker;
+        this.s3Resilience = s3Resilience;
 
         validateS3Details();
     }
@@ -48,10 +118,39 @@ public class AmazonFileTransferImpl implements AmazonFileTransfer {
      */
     @Override
     public void uploadFile(final String fileId, final Map<String, String> metadata, final InputStream inputStream) {
-        logger.trace(format("uploadFile(fileId=%s, metaData=%s) method called.", fileId, metadata));
+        logger.trace("uploadFile() method called.");
+
+        putObject(fileId, metadata, inputStream, false);
+    }
+
+    /**
+     * Upload a file to S3 only if there is no object with its key, with a conditional write, so of two concurrent
+     * uploads to the same key exactly one is stored
+     *
+     * @return true if the file was uploaded, or false if there was already an object with its key
+     */
+    @Override
+    public boolean uploadFileIfAbsent(final String fileId, final Map<String, String> metadata,
+            final InputStream inputStream) {
+        logger.trace("uploadFileIfAbsent() method called.");
 
         try {
-            logger.debug(format("Uploading file '%s' to '%s'...", fileId, properties.getS3PathPrefix()));
+            putObject(fileId, metadata, inputStream, true);
+            return true;
+
+        } catch (S3Exception e) {
+            // S3 responds 412 if the object exists, or 409 if a concurrent conditional write to the same key won
+            if (e.statusCode() == PRECONDITION_FAILED || e.statusCode() == CONFLICT) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private void putObject(final String fileId, final Map<String, String> metadata, final InputStream inputStream,
+            final boolean ifAbsent) {
+        try {
+            logger.debug("Uploading file to S3...");
 
             if (!metadata.containsKey(CONTENT_TYPE)) {
                 logger.error("Missing content-type");
@@ -62,9 +161,17 @@ public class AmazonFileTransferImpl implements AmazonFileTransfer {
                     .bucket(properties.getBucketName())
                     .key(fileId)
                     .metadata(metadata)
+                    .ifNoneMatch(ifAbsent ? "*" : null)
                     .build();
 
-            s3Client.putObject(putObjectRequest, RequestBody.fromInputStream(inputStream, inputStream.available()));
+            long contentLength = inputStream.available();
+
+            RequestBody requestBody = RequestBody.fromInputStream(inputStream, contentLength);
+
+            S3Lane lane = laneProperties.transferLane(contentLength);
+            circuitBreaker.call(S3Operation.PUT, () -> concurrencyLimiter.call(lane, S3Operation.PUT,
+                    () -> transferMetrics.recordUpload(contentLength, () -> withinDeadline(S3Operation.PUT,
+                            putObjectRequest, request -> s3Clients.get(lane).putObject(request, requestBody)))));
 
         } catch (IOException ex) {
             logger.error("An IOException occurred writing to bucket", ex);
@@ -72,27 +179,35 @@ public class AmazonFileTransferImpl implements AmazonFileTransfer {
         }
     }
 
+    /**
+     * Download an object from S3 in the transfer lane for its size
+     */
     @Override
-    public Optional<InputStream> downloadStream(final String fileId) {
-        logger.trace(format("downloadStream(fileId=%s) method called.", fileId));
+    public Optional<InputStream> downloadStream(final String fileId, final long size) {
+        logger.trace("downloadStream() method called.");
 
-        return getFileObject(fileId).map(BufferedInputStream::new);
+        return getFileObject(fileId, laneProperties.transferLane(size)).map(BufferedInputStream::new);
     }
 
     /**
-     * Get an object from S3
+     * Get an object from S3 in the transfer lane for its size, as looked up before it is fetched
      */
     @Override
-    public Optional<ResponseInputStream<GetObjectResponse>> getFileObject(final String fileId) {
-        logger.trace(format("getFileObject(fileId=%s) method called.", fileId));
+    public Optional<ResponseInputStream<GetObjectResponse>> getFileObject(final String fileId, final long size) {
+        logger.trace("getFileObject() method called.");
+
+        return getFileObject(fileId, laneProperties.transferLane(size));
+    }
 
+    private Optional<ResponseInputStream<GetObjectResponse>> getFileObject(final String fileId, final S3Lane lane) {
         try {
             GetObjectRequest getObjectRequest = GetObjectRequest.builder()
                     .bucket(properties.getBucketName())
                     .key(fileId)
                     .build();
 
-            ResponseInputStream<GetObjectResponse> responseInputStream = s3Client.getObject(getObjectRequest);
+            ResponseInputStream<GetObjectResponse> responseInputStream = s3Call(lane, S3Operation.GET,
+                    getObjectRequest, S3Client::getObject);
 
             return Optional.ofNullable(responseInputStream);
 
@@ -103,11 +218,39 @@ public class AmazonFileTransferImpl implements AmazonFileTransfer {
     }
 
     /**
-     * Get file meta tags
+     * Get an object's metadata from S3, without fetching its content
+     */
+    @Override
+    public Optional<HeadObjectResponse> getFileMetadata(final String fileId) {
+        logger.trace("getFileMetadata() method called.");
+
+        try {
+            HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
+                    .bucket(properties.getBucketName())
+                    .key(fileId)
+                    .build();
+
+            return Optional.ofNullable(s3Call(S3Lane.METADATA, S3Operation.HEAD,
+                    headObjectRequest, S3Client::headObject));
+
+        } catch (NoSuchKeyException ex) {
+            logger.errorContext(fileId, "Unable to fetch object metadata from S3", ex, loggedFileIdMap(fileId));
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Get file meta tags, which are looked up at most once per request. Only a missing object is empty; a lookup
+     * which fails, such as by timing out, throws, so an existing file is never taken to be missing.
      */
     @Override
     public Optional<List<Tag>> getFileTags(final String fileId) {
-        logger.trace(format("getFileTags(fileId=%s) method called.", fileId));
+        logger.trace("getFileTags() method called.");
+
+        return RequestMemo.computeIfAbsent(FILE_TAGS_MEMO, fileId, () -> lookupFileTags(fileId));
+    }
+
+    private Optional<List<Tag>> lookupFileTags(final String fileId) {
 
         try {
             GetObjectTaggingRequest getObjectTaggingRequest = GetObjectTaggingRequest.builder()
@@ -115,11 +258,12 @@ public class AmazonFileTransferImpl implements AmazonFileTransfer {
                     .key(fileId)
                     .build();
 
-            List<Tag> tagSet = s3Client.getObjectTagging(getObjectTaggingRequest).tagSet();
+            List<Tag> tagSet = s3Call(S3Lane.METADATA, S3Operation.TAGGING,
+                    getObjectTaggingRequest, S3Client::getObjectTagging).tagSet();
 
             return Optional.ofNullable(tagSet);
 
-        } catch (SdkClientException e) {
+        } catch (NoSuchKeyException e) {
             logger.errorContext(fileId, "Unable to fetch file tags from S3", e, loggedFileIdMap(fileId));
             return Optional.empty();
         }
@@ -130,14 +274,261 @@ public class AmazonFileTransferImpl implements AmazonFileTransfer {
      */
     @Override
     public void deleteFile(final String fileId) {
-        logger.trace(format("deleteFile(fileId=%s) method called.", fileId));
+        logger.trace("deleteFile() method called.");
 
         DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
                 .bucket(properties.getBucketName())
                 .key(fileId)
                 .build();
 
-        s3Client.deleteObject(deleteObjectRequest);
+        s3Call(S3Lane.METADATA, S3Operation.DELETE, deleteObjectRequest, S3Client::deleteObject);
+        RequestMemo.evict(FILE_TAGS_MEMO, fileId);
+    }
+
+    /**
+     * Create a short-lived presigned GET URL for an object, so the content can be fetched directly from S3. The
+     * response headers S3 returns are overridden so the client receives the same headers as a streamed download.
+     */
+    @Override
+    public PresignedGetObjectRequest presignDownload(final String fileId, final String contentDisposition,
+            final String contentType, final Duration expiry) {
+        logger.trace("presignDownload() method called.");
+
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                .bucket(properties.getBucketName())
+                .key(fileId)
+                .responseContentDisposition(contentDisposition)
+                .responseContentType(contentType)
+                .build();
+
+        GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
+                .signatureDuration(expiry)
+                .getObjectRequest(getObjectRequest)
+                .build();
+
+        return s3Presigner.presignGetObject(presignRequest);
+    }
+
+    /**
+     * Create a short-lived presigned PUT URL for a new object. The metadata, the size and a condition that no object
+     * exists with the key are signed into the request, so the client must send the returned signed headers unchanged
+     * for the upload to be accepted, and the URL can neither upload a file of another size nor, once used, replace
+     * the file it uploaded.
+     */
+    @Override
+    public PresignedPutObjectRequest presignUpload(final String fileId, final Map<String, String> metadata,
+            final long size, final Duration expiry) {
+        logger.trace("presignUpload() method called.");
+
+        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                .bucket(properties.getBucketName())
+                .key(fileId)
+                .metadata(metadata)
+                .contentLength(size)
+                .ifNoneMatch("*")
+                .build();
+
+        PutObjectPresignRequest presignRequest = PutObjectPresignRequest.builder()
+                .signatureDuration(expiry)
+                .putObjectRequest(putObjectRequest)
+                .build();
+
+        return s3Presigner.presignPutObject(presignRequest);
+    }
+
+    /**
+     * Start a multipart upload for a new object, returning the S3 upload ID
+     */
+    @Override
+    public String createMultipartUpload(final String fileId, final Map<String, String> metadata) {
+        logger.trace("createMultipartUpload() method called.");
+
+        CreateMultipartUploadRequest createMultipartUploadRequest = CreateMultipartUploadRequest.builder()
+                .bucket(properties.getBucketName())
+                .key(fileId)
+                .metadata(metadata)
+                .build();
+
+        return s3Call(S3Lane.METADATA, S3Operation.CREATE_MULTIPART_UPLOAD,
+                createMultipartUploadRequest, S3Client::createMultipartUpload).uploadId();
+    }
+
+    /**
+     * Create a short-lived presigned PUT URL for one part of a multipart upload
+     */
+    @Override
+    public PresignedUploadPartRequest presignUploadPart(final String fileId, final String uploadId,
+            final int partNumber, final Duration expiry) {
+        logger.trace("presignUploadPart() method called.");
+
+        UploadPartRequest uploadPartRequest = UploadPartRequest.builder()
+                .bucket(properties.getBucketName())
+                .key(fileId)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .build();
+
+        UploadPartPresignRequest presignRequest = UploadPartPresignRequest.builder()
+                .signatureDuration(expiry)
+                .uploadPartRequest(uploadPartRequest)
+                .build();
+
+        return s3Presigner.presignUploadPart(presignRequest);
+    }
+
+    /**
+     * Upload one part of a multipart upload, in the transfer lane for its size. The part is streamed from the client,
+     * so a part which fails as the client's content could not be read, e.g. as it dropped its connection, fails with
+     * an {@link UploadAbortedException}, and counts neither against S3 in the circuit breaker nor as overload in the
+     * concurrency limit.
+     */
+    @Override
+    public void uploadPart(final String fileId, final String uploadId, final int partNumber,
+            final InputStream inputStream, final long contentLength) {
+        logger.trace("uploadPart() method called.");
+
+        UploadPartRequest uploadPartRequest = UploadPartRequest.builder()
+                .bucket(properties.getBucketName())
+                .key(fileId)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .contentLength(contentLength)
+                .build();
+
+        ReadFailureRecordingInputStream content = new ReadFailureRecordingInputStream(inputStream);
+        RequestBody requestBody = RequestBody.fromInputStream(content, contentLength);
+
+        S3Lane lane = laneProperties.transferLane(contentLength);
+        circuitBreaker.call(S3Operation.UPLOAD_PART, () -> concurrencyLimiter.call(lane, S3Operation.UPLOAD_PART,
+                () -> transferMetrics.recordUploadPart(contentLength, () -> withinDeadline(S3Operation.UPLOAD_PART,
+                        uploadPartRequest, request -> {
+                            try {
+                                return s3Clients.get(lane).uploadPart(request, requestBody);
+
+                            } catch (SdkClientException e) {
+                                if (content.failure != null) {
+                                    throw new UploadAbortedException(fileId, format(
+                                            "Part %d could not be read from the client", partNumber), e);
+                                }
+                                throw e;
+                            }
+                        }))));
+    }
+
+    /**
+     * List the parts S3 holds for a multipart upload, in part number order
+     */
+    @Override
+    public List<Part> listParts(final String fileId, final String uploadId) {
+        logger.trace("listParts() method called.");
+
+        ListPartsRequest listPartsRequest = ListPartsRequest.builder()
+                .bucket(properties.getBucketName())
+                .key(fileId)
+                .uploadId(uploadId)
+                .build();
+
+        return s3Call(S3Lane.METADATA, S3Operation.LIST_PARTS,
+                listPartsRequest, (s3Client, request) -> s3Client.listPartsPaginator(request)
+                        .parts()
+                        .stream()
+                        .toList());
+    }
+
+    /**
+     * Complete a multipart upload from the parts S3 holds for it, so the client does not need to report part ETags
+     */
+    @Override
+    public void completeMultipartUpload(final String fileId, final String uploadId) {
+        completeMultipartUpload(fileId, uploadId, listParts(fileId, uploadId));
+    }
+
+    /**
+     * Complete a multipart upload from the given parts, as listed by {@link #listParts(String, String)}
+     */
+    @Override
+    public void completeMultipartUpload(final String fileId, final String uploadId, final List<Part> parts) {
+        logger.trace("completeMultipartUpload() method called.");
+
+        List<CompletedPart> completedParts = parts
+                .stream()
+                .map(part -> CompletedPart.builder()
+                        .partNumber(part.partNumber())
+                        .eTag(part.eTag())
+                        .build())
+                .toList();
+
+        CompleteMultipartUploadRequest completeMultipartUploadRequest = CompleteMultipartUploadRequest.builder()
+                .bucket(properties.getBucketName())
+                .key(fileId)
+                .uploadId(uploadId)
+                .multipartUpload(CompletedMultipartUpload.builder()
+                        .parts(completedParts)
+                        .build())
+                .build();
+
+        s3Call(S3Lane.METADATA, S3Operation.COMPLETE_MULTIPART_UPLOAD,
+                completeMultipartUploadRequest, S3Client::completeMultipartUpload);
+    }
+
+    /**
+     * Abort a multipart upload, so S3 discards the parts uploaded for it
+     */
+    @Override
+    public void abortMultipartUpload(final String fileId, final String uploadId) {
+        logger.trace("abortMultipartUpload() method called.");
+
+        AbortMultipartUploadRequest abortMultipartUploadRequest = AbortMultipartUploadRequest.builder()
+                .bucket(properties.getBucketName())
+                .key(fileId)
+                .uploadId(uploadId)
+                .build();
+
+        s3Call(S3Lane.METADATA, S3Operation.ABORT_MULTIPART_UPLOAD,
+                abortMultipartUploadRequest, S3Client::abortMultipartUpload);
+    }
+
+    /**
+     * List the multipart uploads in the bucket which have been started but neither completed nor aborted
+     */
+    @Override
+    public List<MultipartUpload> listMultipartUploads() {
+        logger.trace("listMultipartUploads() method called.");
+
+        ListMultipartUploadsRequest listMultipartUploadsRequest = ListMultipartUploadsRequest.builder()
+                .bucket(properties.getBucketName())
+                .build();
+
+        return s3Call(S3Lane.METADATA, S3Operation.LIST_MULTIPART_UPLOADS,
+                listMultipartUploadsRequest, (s3Client, request) -> s3Client.listMultipartUploadsPaginator(request)
+                        .uploads()
+                        .stream()
+                        .toList());
+    }
+
+    /**
+     * List one page of the files in the bucket, in key order. Each page is a call of its own, so a long listing is
+     * fetched a page at a time as it is read, with each call limited, timed and retried like any other metadata call.
+     *
+     * @param prefix of the keys to list, or null for all
+     * @param startAfter the key to list from, exclusive, or null to start at the beginning
+     * @param continuationToken from the previous page, or null for the first page
+     * @param maxKeys the most keys to list in the page, at most 1000
+     */
+    @Override
+    public ListObjectsV2Response listFiles(final String prefix, final String startAfter,
+            final String continuationToken, final int maxKeys) {
+        logger.trace("listFiles() method called.");
+
+        ListObjectsV2Request listObjectsRequest = ListObjectsV2Request.builder()
+                .bucket(properties.getBucketName())
+                .prefix(prefix)
+                .startAfter(startAfter)
+                .continuationToken(continuationToken)
+                .maxKeys(maxKeys)
+                .build();
+
+        return s3Call(S3Lane.METADATA, S3Operation.LIST_OBJECTS, listObjectsRequest, S3Client::listObjectsV2);
     }
 
     /**
@@ -167,7 +558,7 @@ public class AmazonFileTransferImpl implements AmazonFileTransfer {
                     .bucket(bucket)
                     .build();
 
-            s3Client.headBucket(headBucketRequest);
+            s3Clients.get(S3Lane.METADATA).headBucket(headBucketRequest);
 
             logger.debug(format("Bucket exists: [%s]", bucket));
 
@@ -179,6 +570,62 @@ public class AmazonFileTransferImpl implements AmazonFileTransfer {
         }
     }
 
+    /**
+     * Makes an S3 call with a lane's client, within the lane's concurrency limit, recording its metrics. Calls in the
+     * metadata lane are retried and hedged here, as its client makes a single attempt at each call. The circuit breaker
+     * sees the outcome of the call after any retries.
+     */
+    private <R extends S3Request, T> T s3Call(final S3Lane lane, final S3Operation operation, final R request,
+            final BiFunction<S3Client, R, T> call) {
+        S3Client s3Client = s3Clients.get(lane);
+        Supplier<T> attempt = () -> concurrencyLimiter.call(lane, operation, () -> transferMetrics.recordS3Call(
+                operation, () -> withinDeadline(operation, request, timedRequest -> call.apply(s3Client, timedRequest))));
+
+        return circuitBreaker.call(operation,
+                () -> lane == S3Lane.METADATA ? s3Resilience.call(operation, attempt) : attempt.get());
+    }
+
+    /**
+     * Makes one attempt at an S3 call with its operation's API call timeout, cut short to the request's deadline if it
+     * has one. An attempt is not made once the deadline has passed, and one which times out at the deadline fails as
+     * the deadline passing rather than as S3 being slow, so it is not retried and does not count against S3.
+     */
+    private <R extends S3Request, T> T withinDeadline(final S3Operation operation, final R request,
+            final Function<R, T> call) {
+        Duration timeout = timeoutProperties.apiCallTimeoutFor(operation);
+        Optional<RequestDeadline> deadline = RequestDeadline.current();
+        if (deadline.isPresent()) {
+            Duration remaining = deadline.get().remaining();
+            if (!remaining.isPositive()) {
+                throw new DeadlineExceededException(
+                        format("Request deadline passed before S3 %s call", operation.getTagValue()));
+            }
+            if (remaining.compareTo(timeout) < 0) {
+                timeout = remaining;
+            }
+        }
+
+        try {
+            return call.apply(withApiCallTimeout(request, timeout));
+
+        } catch (ApiCallTimeoutException e) {
+            if (deadline.isPresent() && deadline.get().isExpired()) {
+                throw new DeadlineExceededException(
+                        format("Request deadline passed during S3 %s call", operation.getTagValue()), e);
+            }
+            throw e;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R extends S3Request> R withApiCallTimeout(final R request, final Duration timeout) {
+        return (R) request.toBuilder()
+                .overrideConfiguration(AwsRequestOverrideConfiguration.builder()
+                        .apiCallTimeout(timeout)
+                        .build())
+                .build();
+    }
+
     private String getS3Path() {
         return format("%s%s", properties.getS3PathPrefix(), properties.getBucketName());
     }
@@ -196,4 +643,37 @@ public class AmazonFileTransferImpl implements AmazonFileTransfer {
         map.put("fileId", fileId);
         return map;
     }
+
+    /**
+     * Remembers a failure to read the content it wraps, so a call which fails reading it can be told apart from one
+     * which fails in S3, as the SDK reports both as an {@link SdkClientException}.
+     */
+    private static class ReadFailureRecordingInputStream extends FilterInputStream {
+
+        private volatile IOException failure;
+
+        ReadFailureRecordingInputStream(final InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                return super.read();
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            try {
+                return super.read(buffer, offset, length);
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+        }
+    }
 }
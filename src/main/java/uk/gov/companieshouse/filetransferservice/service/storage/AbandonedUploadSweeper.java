@@ -0,0 +1,99 @@
+package uk.gov.companieshouse.filetransferservice.service.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.s3.model.MultipartUpload;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
+import uk.gov.companieshouse.filetransferservice.service.AmazonFileTransfer;
+import uk.gov.companieshouse.logging.Logger;
+
+/**
+ * Aborts multipart uploads which were initiated more than {@code upload.abandoned-after} ago and never completed, so
+ * the parts of abandoned resumable and presigned uploads are not stored indefinitely. A sweep runs every
+ * {@code upload.sweep-interval}; as a sweep only aborts uploads which are already abandoned, it does no harm for
+ * several instances to sweep at once.
+ * <p>
+ * The meter is {@code file.transfer.uploads.abandoned}, a counter of the uploads aborted.
+ */
+@Component
+public class AbandonedUploadSweeper implements DisposableBean {
+
+    static final String ABANDONED = "file.transfer.uploads.abandoned";
+
+    private final AmazonFileTransfer amazonFileTransfer;
+    private final Logger logger;
+    private final Duration abandonedAfter;
+    private final Counter abandoned;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("abandoned-upload-sweep").daemon().factory());
+
+    public AbandonedUploadSweeper(final AmazonFileTransfer amazonFileTransfer,
+            final MeterRegistry registry,
+            final Logger logger,
+            @Value("${upload.abandoned-after}") final Duration abandonedAfter,
+            @Value("${upload.sweep-interval}") final Duration sweepInterval) {
+        this.amazonFileTransfer = amazonFileTransfer;
+        this.logger = logger;
+        this.abandonedAfter = abandonedAfter;
+        this.abandoned = Counter.builder(ABANDONED)
+                .description("Multipart uploads aborted after being abandoned")
+                .register(registry);
+
+        scheduler.scheduleWithFixedDelay(this::sweep, sweepInterval.toNanos(), sweepInterval.toNanos(),
+                TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Aborts every multipart upload initiated before the abandoned cutoff. A failure is logged and the upload is left
+     * for the next sweep.
+     */
+    void sweep() {
+        Instant cutoff = Instant.now().minus(abandonedAfter);
+        try {
+            for (MultipartUpload upload : amazonFileTransfer.listMultipartUploads()) {
+                if (upload.initiated() != null && upload.initiated().isBefore(cutoff)) {
+                    abort(upload);
+                }
+            }
+
+        } catch (RuntimeException e) {
+            logger.error("Unable to list multipart uploads to sweep", e);
+        }
+    }
+
+    private void abort(final MultipartUpload upload) {
+        String fileId = upload.key();
+        try {
+            amazonFileTransfer.abortMultipartUpload(fileId, upload.uploadId());
+            abandoned.increment();
+
+            Map<String, Object> loggedVars = new HashMap<>();
+            loggedVars.put("fileId", fileId);
+            loggedVars.put("initiated", upload.initiated().toString());
+            logger.infoContext(fileId, "Abandoned multipart upload aborted", loggedVars);
+
+        } catch (NoSuchUploadException e) {
+            // Completed or aborted since it was listed
+
+        } catch (RuntimeException e) {
+            Map<String, Object> loggedVars = new HashMap<>();
+            loggedVars.put("fileId", fileId);
+            logger.errorContext(fileId, "Unable to abort abandoned multipart upload", e, loggedVars);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+}
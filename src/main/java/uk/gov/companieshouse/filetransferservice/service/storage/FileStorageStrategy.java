@@ -1,9 +1,18 @@
 package uk.gov.companieshouse.filetransferservice.service.storage;
 
+import java.io.InputStream;
+import java.time.Instant;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
 import uk.gov.companieshouse.filetransferservice.model.FileDownloadApi;
+import uk.gov.companieshouse.filetransferservice.model.FileDownloadLinkApi;
 import uk.gov.companieshouse.filetransferservice.model.FileUploadApi;
+import uk.gov.companieshouse.filetransferservice.model.PresignedUploadApi;
+import uk.gov.companieshouse.filetransferservice.model.ResumableUploadApi;
+import uk.gov.companieshouse.filetransferservice.model.ResumableUploadPartApi;
+import uk.gov.companieshouse.filetransferservice.model.UploadInitiationApi;
 
 /**
  * An interface exposing the file storage needs of the application.
@@ -19,6 +28,79 @@ public interface FileStorageStrategy {
      */
     String save(FileUploadApi file);
 
+    /**
+     * Save a file to a remote repository once for a caller's idempotency key, so a save retried with the same key and
+     * content returns the id of the file saved first rather than saving another copy. The key stays in use for as long
+     * as the file saved with it exists.
+     *
+     * @param file to upload
+     * @param callerIdentity the identity of the caller the key belongs to, so callers' keys do not collide
+     * @param idempotencyKey chosen by the client for the file
+     * @param contentHash the SHA-256 of the file's content, in hex
+     * @return file id used in subsequent calls on the file resource
+     */
+    String save(FileUploadApi file, String callerIdentity, String idempotencyKey, String contentHash);
+
+    /**
+     * Prepare a file to be uploaded by the client directly to the remote repository
+     *
+     * @param upload details of the file to be uploaded
+     * @return the file id along with the presigned URLs to upload the file content to
+     */
+    PresignedUploadApi initiateUpload(UploadInitiationApi upload);
+
+    /**
+     * Complete a file uploaded by the client directly to the remote repository
+     *
+     * @param fileId of the uploaded file
+     * @param uploadId of the multipart upload, or null if the file was uploaded in a single request
+     * @return Empty, if there is no such file or upload, otherwise the uploaded file's details
+     */
+    Optional<FileDetailsApi> completeUpload(String fileId, String uploadId);
+
+    /**
+     * Start a resumable upload, whose content is uploaded through the service a part at a time
+     *
+     * @param upload details of the file to be uploaded
+     * @return the upload, including the session used in subsequent calls on it
+     */
+    ResumableUploadApi createResumableUpload(UploadInitiationApi upload);
+
+    /**
+     * Retrieve a resumable upload, along with the parts uploaded so far
+     *
+     * @param session of the upload
+     * @return Empty, if there is no such upload, otherwise the upload wrapped in an optional
+     */
+    Optional<ResumableUploadApi> getResumableUpload(ResumableUploadSession session);
+
+    /**
+     * Upload a part of a resumable upload, replacing any earlier upload of the same part
+     *
+     * @param session of the upload
+     * @param partNumber of the part, from 1
+     * @param body the content of the part
+     * @param contentLength the size of the part in bytes
+     * @return Empty, if there is no such upload, otherwise the part uploaded
+     */
+    Optional<ResumableUploadPartApi> uploadPart(ResumableUploadSession session, int partNumber, InputStream body,
+            long contentLength);
+
+    /**
+     * Complete a resumable upload whose parts have all been uploaded
+     *
+     * @param session of the upload
+     * @return Empty, if there is no such upload, otherwise the uploaded file's details
+     */
+    Optional<FileDetailsApi> completeResumableUpload(ResumableUploadSession session);
+
+    /**
+     * Abort a resumable upload, discarding the parts uploaded so far
+     *
+     * @param session of the upload
+     */
+    void abortResumableUpload(ResumableUploadSession session);
+
     /**
      * Loads a file stream from a remote repository
      *
@@ -27,6 +109,24 @@ public interface FileStorageStrategy {
      */
     Optional<FileDownloadApi> load(FileDetailsApi fileDetails);
 
+    /**
+     * Loads a file stream and its details from a remote repository. The details are passed to the given check before
+     * the content is fetched, and if the check throws, the content is not fetched.
+     *
+     * @param fileId of the file to load
+     * @param detailsCheck check to apply to the file details, such as its AV status
+     * @return Empty, if there is no such file, otherwise the File wrapped in an optional, with its exact size
+     */
+    Optional<FileDownloadApi> load(String fileId, Consumer<FileDetailsApi> detailsCheck);
+
+    /**
+     * Creates a short-lived link from which the file can be downloaded directly from the remote repository
+     *
+     * @param fileDetails file meta data
+     * @return the link and the time at which it expires
+     */
+    FileDownloadLinkApi getDownloadLink(FileDetailsApi fileDetails);
+
     /**
      * Retrieve a file's details from a remote repository
      *
@@ -35,6 +135,27 @@ public interface FileStorageStrategy {
      */
     Optional<FileDetailsApi> getFileDetails(String fileId);
 
+    /**
+     * Retrieve the current AV status of a file whose details have already been retrieved
+     *
+     * @param fileDetails of the file, as retrieved earlier
+     * @return Empty, only if the file has been deleted, otherwise its details with its current AV status. A lookup
+     * which fails throws, rather than the file being taken to be deleted.
+     */
+    Optional<FileDetailsApi> refreshAvStatus(FileDetailsApi fileDetails);
+
+    /**
+     * List the files in a remote repository in file id order, fetching them as the stream is read
+     *
+     * @param prefix of the file ids to list, or null for all files
+     * @param after the file id to list from, exclusive, or null to list from the first file
+     * @param createdFrom the earliest time the files were created, inclusive, or null for no earliest time
+     * @param createdTo the latest time the files were created, exclusive, or null for no latest time
+     * @param limit the most files to list
+     * @return the details of each file, without its name, content type or AV status
+     */
+    Stream<FileDetailsApi> list(String prefix, String after, Instant createdFrom, Instant createdTo, int limit);
+
     /**
      * Delete a file with the given file id from a remote repository
      *
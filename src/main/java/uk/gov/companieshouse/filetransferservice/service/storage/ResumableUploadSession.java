@@ -0,0 +1,77 @@
+package uk.gov.companieshouse.filetransferservice.service.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import uk.gov.companieshouse.filetransferservice.exception.InvalidUploadException;
+
+/**
+ * A resumable upload session, which is handed to the client as an opaque token rather than held by the service. The
+ * state of the upload, i.e. which parts have been uploaded, is the S3 multipart upload itself, so any instance can
+ * serve any request for the session, and a session needs nothing cleaning up beyond its multipart upload. The token is
+ * not signed, so one is only accepted with the part size the service gives every session and a size it would accept.
+ *
+ * @param fileId the id the file will have once the upload is completed
+ * @param uploadId the id of the S3 multipart upload
+ * @param size the size of the file in bytes
+ * @param partSize the size in bytes of every part but the last
+ * @param initiated when the upload was initiated
+ */
+public record ResumableUploadSession(String fileId, String uploadId, long size, long partSize, Instant initiated) {
+
+    private static final String SEPARATOR = ":";
+    private static final int FIELD_COUNT = 5;
+
+    /**
+     * @return the session as a URL safe token, with the upload id last as it is the only field that is not a number
+     * or a UUID
+     */
+    public String encode() {
+        String session = String.join(SEPARATOR, Long.toString(size), Long.toString(partSize),
+                Long.toString(initiated.getEpochSecond()), fileId, uploadId);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(session.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param token a session token, as returned by {@link #encode()}
+     * @param partSize the part size of every session
+     * @param maxSize the size of the largest file which can be uploaded
+     * @return the session
+     * @throws InvalidUploadException if the token is not a session token, or not one for a session this service
+     *                                could have created
+     */
+    public static ResumableUploadSession decode(final String token, final long partSize, final long maxSize) {
+        try {
+            String[] fields = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8)
+                    .split(SEPARATOR, FIELD_COUNT);
+            if (fields.length == FIELD_COUNT && !fields[3].isEmpty() && !fields[4].isEmpty()) {
+                ResumableUploadSession session = new ResumableUploadSession(fields[3], fields[4],
+                        Long.parseLong(fields[0]), Long.parseLong(fields[1]),
+                        Instant.ofEpochSecond(Long.parseLong(fields[2])));
+                if (session.size > 0 && session.size <= maxSize && session.partSize == partSize) {
+                    return session;
+                }
+            }
+
+        } catch (IllegalArgumentException e) {
+            // Not base64, or a field is not a number
+        }
+
+        throw new InvalidUploadException(null, "Upload session is invalid");
+    }
+
+    /**
+     * @return the number of parts the file is uploaded in
+     */
+    public int partCount() {
+        return Math.toIntExact((size - 1) / partSize + 1);
+    }
+
+    /**
+     * @param partNumber a part number, from 1 to {@link #partCount()}
+     * @return the size in bytes the part must be, which for the last part is whatever remains of the file
+     */
+    public long partSize(final int partNumber) {
+        return partNumber < partCount() ? partSize : size - (partCount() - 1) * partSize;
+    }
+}
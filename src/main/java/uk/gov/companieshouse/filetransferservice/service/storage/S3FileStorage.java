@@ -1,37 +1,71 @@
 package uk.gov.companieshouse.filetransferservice.service.storage;
 
-import static java.lang.String.format;
 import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
 
+import io.micrometer.core.annotation.Timed;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.util.unit.DataSize;
 import org.springframework.stereotype.Component;
 import software.amazon.awssdk.core.ResponseInputStream;
-import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
+import software.amazon.awssdk.services.s3.model.Part;
+import software.amazon.awssdk.services.s3.model.S3Object;
 import software.amazon.awssdk.services.s3.model.Tag;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
 import uk.gov.companieshouse.api.filetransfer.AvStatus;
 import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
 import uk.gov.companieshouse.api.filetransfer.FileLinksApi;
+import uk.gov.companieshouse.filetransferservice.exception.IdempotencyConflictException;
+import uk.gov.companieshouse.filetransferservice.exception.InvalidUploadException;
 import uk.gov.companieshouse.filetransferservice.model.FileDownloadApi;
+import uk.gov.companieshouse.filetransferservice.model.FileDownloadLinkApi;
 import uk.gov.companieshouse.filetransferservice.model.FileUploadApi;
+import uk.gov.companieshouse.filetransferservice.model.PresignedUploadApi;
+import uk.gov.companieshouse.filetransferservice.model.PresignedUploadPartApi;
+import uk.gov.companieshouse.filetransferservice.model.ResumableUploadApi;
+import uk.gov.companieshouse.filetransferservice.model.ResumableUploadPartApi;
+import uk.gov.companieshouse.filetransferservice.metrics.TransferMetrics;
+import uk.gov.companieshouse.filetransferservice.model.UploadInitiationApi;
 import uk.gov.companieshouse.filetransferservice.service.AmazonFileTransfer;
+import uk.gov.companieshouse.filetransferservice.service.RequestMemo;
 import uk.gov.companieshouse.filetransferservice.service.converter.MetadataDecoder;
 import uk.gov.companieshouse.filetransferservice.service.converter.MetadataEncoder;
 import uk.gov.companieshouse.logging.Logger;
 
 /**
- * An implementation of the FileStorageStrategy for S3
+ * An implementation of the FileStorageStrategy for S3. Each operation is timed as {@code file.transfer.storage}, tagged
+ * with its method name, and downloads are metered by {@link TransferMetrics}.
  */
 @Component
+@Timed(value = "file.transfer.storage", description = "File storage operations")
 public class S3FileStorage implements FileStorageStrategy {
 
     public static final String FILENAME_METADATA_KEY = "filename";
@@ -40,35 +74,61 @@ public class S3FileStorage implements FileStorageStrategy {
     private static final String AV_STATUS_KEY = "av-status";
     private static final int AV_KEY_COUNT = 2;
     private static final String EXTENSION_METADATA_KEY = "extension";
+    private static final String CONTENT_HASH_METADATA_KEY = "content-sha256";
+    private static final String PRESIGNED_UPLOAD_METADATA_KEY = "presigned-upload";
+    private static final String IDEMPOTENCY_KEY_NAMESPACE = "idempotency-key:";
+    private static final String HOST_HEADER = "host";
+    private static final String FILE_DETAILS_MEMO = "fileDetails";
+    private static final int MAX_LIST_PAGE_SIZE = 1000;
 
     private final AmazonFileTransfer amazonFileTransfer;
     private final MetadataEncoder metadataEncoder;
     private final MetadataDecoder metadataDecoder;
+    private final TransferMetrics transferMetrics;
     private final Logger logger;
     private final String servicePathPrefix;
+    private final Duration downloadLinkExpiry;
+    private final Duration uploadLinkExpiry;
+    private final DataSize uploadPartSize;
+    private final Map<String, IdempotentSave> idempotentSaves = new ConcurrentHashMap<>();
+    private final DataSize resumablePartSize;
+    private final Duration abandonedAfter;
 
     public S3FileStorage(AmazonFileTransfer amazonFileTransfer,
             MetadataEncoder metadataEncoder,
             MetadataDecoder metadataDecoder,
+            TransferMetrics transferMetrics,
             Logger logger,
-            @Value("${service.path.prefix}") String servicePathPrefix) {
+            @Value("${service.path.prefix}") String servicePathPrefix,
+            @Value("${download.presigned.expiry:5m}") Duration downloadLinkExpiry,
+            @Value("${upload.presigned.expiry:15m}") Duration uploadLinkExpiry,
+            @Value("${upload.presigned.part-size:64MB}") DataSize uploadPartSize,
+            @Value("${upload.resumable.part-size:8MB}") DataSize resumablePartSize,
+            @Value("${upload.abandoned-after:24h}") Duration abandonedAfter) {
         this.amazonFileTransfer = amazonFileTransfer;
         this.metadataEncoder = metadataEncoder;
         this.metadataDecoder = metadataDecoder;
+        this.transferMetrics = transferMetrics;
         this.logger = logger;
         this.servicePathPrefix = servicePathPrefix;
+        this.downloadLinkExpiry = downloadLinkExpiry;
+        this.uploadLinkExpiry = uploadLinkExpiry;
+        this.uploadPartSize = uploadPartSize;
+        this.resumablePartSize = resumablePartSize;
+        this.abandonedAfter = abandonedAfter;
     }
 
     private static String joinPathSegments(String... strings) {
         return String.join("/", strings).replaceAll("/{2,}", "/");
     }
 
+    private static String getExtension(String fileName) {
+        return fileName.substring(fileName.lastIndexOf(".") + 1);
+    }
+
     @Override
     public String save(final FileUploadApi file) {
-        Map<String, String> metaData = new HashMap<>();
-        metaData.put(CONTENT_TYPE, file.getMimeType());
-        metaData.put(FILENAME_METADATA_KEY, metadataEncoder.convert(file.getFileName()));
-        metaData.put(EXTENSION_METADATA_KEY, file.getExtension());
+        Map<String, String> metaData = createMetadata(file.getFileName(), file.getMimeType(), file.getExtension());
 
         String fileId = UUID.randomUUID().toString();
 
@@ -77,83 +137,500 @@ public class S3FileStorage implements FileStorageStrategy {
         return fileId;
     }
 
+    /**
+     * Saves a file once for a caller's idempotency key. The file id is derived from the caller and the key, so a
+     * retried save finds the file saved first with a single HeadObject and returns its id without storing the content
+     * again, and the same key from another caller is another file. Saves of the same key in progress in this instance
+     * at once are coalesced into one, and saves in different instances are settled by a conditional write, so only one
+     * copy is ever stored. Once the file is deleted, the key saves a new file.
+     *
+     * @param file to upload
+     * @param callerIdentity the identity of the caller the key belongs to
+     * @param idempotencyKey chosen by the client for the file
+     * @param contentHash the SHA-256 of the file's content, stored with it to tell a retry from a different file
+     * @return the id of the file saved with the key
+     * @throws IdempotencyConflictException if a file with different content was saved with the key
+     */
+    @Override
+    public String save(final FileUploadApi file, final String callerIdentity, final String idempotencyKey,
+            final String contentHash) {
+        // Header values cannot hold a newline, so no other caller and key give the same name
+        String fileId = UUID.nameUUIDFromBytes((IDEMPOTENCY_KEY_NAMESPACE + callerIdentity + "\n" + idempotencyKey)
+                .getBytes(StandardCharsets.UTF_8)).toString();
+
+        IdempotentSave save = new IdempotentSave(contentHash);
+        IdempotentSave inProgress = idempotentSaves.putIfAbsent(fileId, save);
+        if (inProgress != null) {
+            if (!inProgress.contentHash.equals(contentHash)) {
+                throw new IdempotencyConflictException(fileId);
+            }
+            try {
+                return inProgress.fileId.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        try {
+            if (!isSaved(fileId, contentHash)) {
+                Map<String, String> metaData = createMetadata(file.getFileName(), file.getMimeType(),
+                        file.getExtension());
+                metaData.put(CONTENT_HASH_METADATA_KEY, contentHash);
+
+                if (!amazonFileTransfer.uploadFileIfAbsent(fileId, metaData, file.getBody())) {
+                    // Saved by another instance since it was looked for
+                    isSaved(fileId, contentHash);
+                }
+            }
+            save.fileId.complete(fileId);
+            return fileId;
+
+        } catch (RuntimeException e) {
+            save.fileId.completeExceptionally(e);
+            throw e;
+
+        } finally {
+            idempotentSaves.remove(fileId, save);
+        }
+    }
+
+    /**
+     * @return true if the file is saved with the given content hash, or false if it is not saved
+     * @throws IdempotencyConflictException if the file is saved with different content
+     */
+    private boolean isSaved(final String fileId, final String contentHash) {
+        return amazonFileTransfer.getFileMetadata(fileId)
+                .map(objectResponse -> {
+                    if (!contentHash.equals(objectResponse.metadata().get(CONTENT_HASH_METADATA_KEY))) {
+                        throw new IdempotencyConflictException(fileId);
+                    }
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    /**
+     * Prepares a new file to be uploaded directly to S3 by the client. Files no larger than the configured part size
+     * are given a single presigned PUT URL; larger files are given a multipart upload with one presigned URL per part.
+     * Either way the file metadata is fixed here, so it matches files saved through the service.
+     *
+     * @param upload the name, MIME type and size of the file to be uploaded
+     * @return the new file id along with the presigned URLs to upload to
+     */
+    @Override
+    public PresignedUploadApi initiateUpload(final UploadInitiationApi upload) {
+        Map<String, String> metaData = createMetadata(upload.getFileName(), upload.getMimeType(),
+                getExtension(upload.getFileName()));
+        // Marks the file as one the client uploads itself, so only such a file can be completed, and deleted if
+        // it fails verification
+        metaData.put(PRESIGNED_UPLOAD_METADATA_KEY, Boolean.TRUE.toString());
+
+        String fileId = UUID.randomUUID().toString();
+        String expiresAt = Instant.now().plus(uploadLinkExpiry).toString();
+        long partSize = uploadPartSize.toBytes();
+
+        if (upload.getSize() <= partSize) {
+            PresignedPutObjectRequest presignedRequest = amazonFileTransfer.presignUpload(fileId, metaData,
+                    upload.getSize(), uploadLinkExpiry);
+
+            Map<String, String> headers = presignedRequest.signedHeaders()
+                    .entrySet()
+                    .stream()
+                    .filter(entry -> !HOST_HEADER.equalsIgnoreCase(entry.getKey()))
+                    .collect(Collectors.toMap(Entry::getKey, entry -> String.join(",", entry.getValue())));
+
+            return PresignedUploadApi.singlePart(fileId, presignedRequest.url().toString(), headers,
+                    presignedRequest.expiration().toString());
+        }
+
+        String uploadId = amazonFileTransfer.createMultipartUpload(fileId, metaData);
+        int partCount = (int) ((upload.getSize() + partSize - 1) / partSize);
+
+        List<PresignedUploadPartApi> parts = IntStream.rangeClosed(1, partCount)
+                .mapToObj(partNumber -> new PresignedUploadPartApi(partNumber, amazonFileTransfer
+                        .presignUploadPart(fileId, uploadId, partNumber, uploadLinkExpiry)
+                        .url()
+                        .toString()))
+                .toList();
+
+        return PresignedUploadApi.multipart(fileId, uploadId, partSize, parts, expiresAt);
+    }
+
+    /**
+     * Completes a file uploaded directly to S3, and reads back its details so they can be verified. Only a file
+     * initiated as a presigned upload is completed; any other file, such as one saved through the service, is treated
+     * as not found, so it is left as it is.
+     *
+     * @param fileId of the uploaded file
+     * @param uploadId of the multipart upload, or null if the file was uploaded with a single PUT
+     * @return Empty, if there is no such presigned file or upload, otherwise the uploaded file's details
+     */
+    @Override
+    public Optional<FileDetailsApi> completeUpload(final String fileId, final String uploadId) {
+        if (uploadId != null) {
+            try {
+                amazonFileTransfer.completeMultipartUpload(fileId, uploadId);
+
+            } catch (NoSuchUploadException e) {
+                logger.errorContext(fileId, "Unable to complete multipart upload", e, null);
+                return Optional.empty();
+            }
+        }
+
+        return amazonFileTransfer.getFileMetadata(fileId)
+                .filter(objectResponse -> objectResponse.metadata().containsKey(PRESIGNED_UPLOAD_METADATA_KEY))
+                .map(objectResponse -> createUploadedFileDetails(fileId, objectResponse));
+    }
+
+    /**
+     * Starts a resumable upload through the service, as an S3 multipart upload whose parts are uploaded one request
+     * at a time. The file metadata is fixed here, so it matches files saved through the service.
+     *
+     * @param upload the name, MIME type and size of the file to be uploaded
+     * @return the new upload, with no parts uploaded
+     */
+    @Override
+    public ResumableUploadApi createResumableUpload(final UploadInitiationApi upload) {
+        Map<String, String> metaData = createMetadata(upload.getFileName(), upload.getMimeType(),
+                getExtension(upload.getFileName()));
+
+        String fileId = UUID.randomUUID().toString();
+        String uploadId = amazonFileTransfer.createMultipartUpload(fileId, metaData);
+
+        ResumableUploadSession session = new ResumableUploadSession(fileId, uploadId, upload.getSize(),
+                resumablePartSize.toBytes(), Instant.now().truncatedTo(ChronoUnit.SECONDS));
+
+        return createResumableUpload(session, List.of());
+    }
+
+    /**
+     * Looks up a resumable upload, with the parts uploaded so far as S3 lists them
+     *
+     * @param session of the upload
+     * @return Empty, if the upload has been completed or aborted, otherwise the upload
+     */
+    @Override
+    public Optional<ResumableUploadApi> getResumableUpload(final ResumableUploadSession session) {
+        return listParts(session).map(parts -> createResumableUpload(session, parts));
+    }
+
+    /**
+     * Uploads one part of a resumable upload. Every part but the last must be exactly the session's part size, and the
+     * last whatever remains of the file, so a part sent again after a dropped connection simply replaces itself.
+     *
+     * @param session of the upload
+     * @param partNumber of the part, from 1
+     * @param body the content of the part
+     * @param contentLength the size of the part in bytes
+     * @return Empty, if the upload has been completed or aborted, otherwise the part uploaded
+     * @throws InvalidUploadException if there is no such part, or it is the wrong size
+     */
+    @Override
+    public Optional<ResumableUploadPartApi> uploadPart(final ResumableUploadSession session, final int partNumber,
+            final InputStream body, final long contentLength) {
+        if (partNumber < 1 || partNumber > session.partCount()) {
+            throw new InvalidUploadException(session.fileId(),
+                    String.format("Part number must be from 1 to %d", session.partCount()));
+        }
+
+        long partSize = session.partSize(partNumber);
+        if (contentLength != partSize) {
+            throw new InvalidUploadException(session.fileId(),
+                    String.format("Part %d must be %d bytes", partNumber, partSize));
+        }
+
+        try {
+            amazonFileTransfer.uploadPart(session.fileId(), session.uploadId(), partNumber, body, contentLength);
+
+        } catch (NoSuchUploadException e) {
+            logger.errorContext(session.fileId(), "Unable to upload part of resumable upload", e, null);
+            return Optional.empty();
+        }
+
+        return Optional.of(new ResumableUploadPartApi(partNumber, contentLength));
+    }
+
+    /**
+     * Completes a resumable upload once every part has been uploaded, and reads back its details so they can be
+     * verified. The parts are listed once, both to check none is missing and to complete the upload.
+     *
+     * @param session of the upload
+     * @return Empty, if the upload has been completed or aborted, otherwise the uploaded file's details
+     * @throws InvalidUploadException if any part has not been uploaded
+     */
+    @Override
+    public Optional<FileDetailsApi> completeResumableUpload(final ResumableUploadSession session) {
+        Optional<List<Part>> parts = listParts(session);
+        if (parts.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Set<Integer> uploaded = parts.get()
+                .stream()
+                .map(Part::partNumber)
+                .collect(Collectors.toSet());
+        List<Integer> missing = IntStream.rangeClosed(1, session.partCount())
+                .filter(partNumber -> !uploaded.contains(partNumber))
+                .boxed()
+                .toList();
+        if (!missing.isEmpty()) {
+            throw new InvalidUploadException(session.fileId(), "Upload is missing parts " + missing);
+        }
+
+        try {
+            amazonFileTransfer.completeMultipartUpload(session.fileId(), session.uploadId(), parts.get());
+
+        } catch (NoSuchUploadException e) {
+            logger.errorContext(session.fileId(), "Unable to complete resumable upload", e, null);
+            return Optional.empty();
+        }
+
+        return getUploadedFileDetails(session.fileId());
+    }
+
+    /**
+     * Aborts a resumable upload, discarding any parts uploaded. An upload which has already been completed or aborted
+     * is left as it is.
+     *
+     * @param session of the upload
+     */
+    @Override
+    public void abortResumableUpload(final ResumableUploadSession session) {
+        try {
+            amazonFileTransfer.abortMultipartUpload(session.fileId(), session.uploadId());
+
+        } catch (NoSuchUploadException e) {
+            logger.debug("Resumable upload already completed or aborted: " + session.fileId());
+        }
+    }
+
+    private Optional<List<Part>> listParts(final ResumableUploadSession session) {
+        try {
+            return Optional.of(amazonFileTransfer.listParts(session.fileId(), session.uploadId()));
+
+        } catch (NoSuchUploadException e) {
+            return Optional.empty();
+        }
+    }
+
+    private ResumableUploadApi createResumableUpload(final ResumableUploadSession session, final List<Part> parts) {
+        List<ResumableUploadPartApi> uploadedParts = parts.stream()
+                .map(part -> new ResumableUploadPartApi(part.partNumber(), part.size()))
+                .toList();
+
+        return new ResumableUploadApi(session.fileId(), session.encode(), session.size(), session.partSize(),
+                session.partCount(), uploadedParts, session.initiated().plus(abandonedAfter).toString());
+    }
+
+    private Optional<FileDetailsApi> getUploadedFileDetails(final String fileId) {
+        return amazonFileTransfer.getFileMetadata(fileId)
+                .map(objectResponse -> createUploadedFileDetails(fileId, objectResponse));
+    }
+
+    private FileDetailsApi createUploadedFileDetails(final String fileId, final HeadObjectResponse objectResponse) {
+        return createFileDetails(fileId, "", AvStatus.NOT_SCANNED, objectResponse.metadata(),
+                objectResponse.contentLength(), objectResponse.lastModified());
+    }
+
     @Override
     public Optional<FileDownloadApi> load(final FileDetailsApi fileDetailsApi) {
-        Optional<InputStream> inputStream = amazonFileTransfer.downloadStream(fileDetailsApi.getId());
+        long size = Optional.ofNullable(fileDetailsApi.getSize()).orElse(-1L);
+        Optional<InputStream> inputStream = amazonFileTransfer.downloadStream(fileDetailsApi.getId(), size);
 
         return inputStream.map(stream -> new FileDownloadApi(
                 fileDetailsApi.getName(),
-                stream,
+                transferMetrics.meterDownload(stream),
                 fileDetailsApi.getContentType(),
                 0,
                 null));
     }
 
     /**
-     * Retrieve a file's details from S3
+     * Creates a presigned S3 URL for the file, which carries the same Content-Type and Content-Disposition headers
+     * as a download streamed through the service
+     *
+     * @param fileDetailsApi file meta data
+     * @return the presigned URL and its expiry time
+     */
+    @Override
+    public FileDownloadLinkApi getDownloadLink(final FileDetailsApi fileDetailsApi) {
+        String contentDisposition = ContentDisposition.attachment()
+                .filename(fileDetailsApi.getName())
+                .build()
+                .toString();
+
+        PresignedGetObjectRequest presignedRequest = amazonFileTransfer.presignDownload(fileDetailsApi.getId(),
+                contentDisposition, fileDetailsApi.getContentType(), downloadLinkExpiry);
+
+        return new FileDownloadLinkApi(presignedRequest.url().toString(), presignedRequest.expiration().toString());
+    }
+
+    /**
+     * Loads a file from S3, checking its details before its content is fetched. The details come from the metadata
+     * lookup remembered for the request, so the content is fetched in the transfer lane for its size, and a file
+     * which fails the check never takes a transfer connection. The size is that of the fetched object, so it matches
+     * the content exactly. The returned stream aborts the connection if it is closed before the end of the content,
+     * rather than draining the rest of the object.
+     *
+     * @param fileId of the file to load
+     * @param detailsCheck check to apply to the file details before the content is returned
+     * @return Empty, if there is no such file, otherwise the File wrapped in an optional
+     */
+    @Override
+    public Optional<FileDownloadApi> load(final String fileId, final Consumer<FileDetailsApi> detailsCheck) {
+        Optional<FileDetailsApi> fileDetails = getFileDetails(fileId);
+
+        if (fileDetails.isEmpty()) {
+            return Optional.empty();
+        }
+
+        FileDetailsApi details = fileDetails.get();
+        detailsCheck.accept(details);
+
+        long size = Optional.ofNullable(details.getSize()).orElse(-1L);
+        return amazonFileTransfer.getFileObject(fileId, size)
+                .map(responseInputStream -> new FileDownloadApi(
+                        details.getName(),
+                        transferMetrics.meterDownload(new AbortOnCloseInputStream(responseInputStream)),
+                        details.getContentType(),
+                        responseInputStream.response().contentLength().intValue(),
+                        null));
+    }
+
+    /**
+     * Retrieve a file's details from S3, from its metadata and tags, so no connection for transferring content is
+     * used. The details are looked up at most once per request, however many times they are asked for.
      *
      * @param fileId of the file details to retrieve
      * @return Empty, if there is no such file, otherwise the File wrapped in an optional
      */
     @Override
     public Optional<FileDetailsApi> getFileDetails(final String fileId) {
-        Optional<ResponseInputStream<GetObjectResponse>> optionalResponse = amazonFileTransfer.getFileObject(fileId);
+        return RequestMemo.computeIfAbsent(FILE_DETAILS_MEMO, fileId, () -> lookupFileDetails(fileId));
+    }
+
+    private Optional<FileDetailsApi> lookupFileDetails(final String fileId) {
+        // A HeadObject response has no tag count, so the tags are always looked up
+        return amazonFileTransfer.getFileMetadata(fileId)
+                .flatMap(objectResponse -> amazonFileTransfer.getFileTags(fileId)
+                        .flatMap(tags -> getFileDetails(fileId, tags, objectResponse.metadata(),
+                                objectResponse.contentLength(), objectResponse.lastModified())));
+    }
+
+    private Optional<FileDetailsApi> getFileDetails(final String fileId, final List<Tag> tags,
+            final Map<String, String> objectMetadata, final Long contentLength, final Instant lastModified) {
+        return withAvStatus(createFileDetails(fileId, "", AvStatus.NOT_SCANNED, objectMetadata, contentLength,
+                lastModified), tags);
+    }
+
+    /**
+     * Looks up the AV status of a file whose details are already known, with a single tagging call rather than a
+     * full details lookup. A file whose tags are not AV tags is still not scanned, as it was found when its details
+     * were looked up, and a lookup which fails throws, so only a file which has been deleted is empty.
+     *
+     * @param fileDetails the file's details, as looked up earlier
+     * @return Empty, if the file no longer exists, otherwise its details with its current AV status
+     */
+    @Override
+    public Optional<FileDetailsApi> refreshAvStatus(final FileDetailsApi fileDetails) {
+        try {
+            return amazonFileTransfer.getFileTags(fileDetails.getId())
+                    .map(tags -> withAvStatus(fileDetails, tags).orElse(fileDetails));
 
-        if (optionalResponse.isEmpty()) {
+        } catch (NoSuchKeyException e) {
             return Optional.empty();
         }
+    }
 
-        try (ResponseInputStream<GetObjectResponse> responseInputStream = optionalResponse.get()) {
-            GetObjectResponse objectResponse = responseInputStream.response();
-
-            AvStatus avStatus = AvStatus.NOT_SCANNED;
-            String avCreatedOn = "";
+    /**
+     * @return the details with the AV status given by the tags, which is not scanned if there are none, or empty if
+     * the tags are not AV tags
+     */
+    private Optional<FileDetailsApi> withAvStatus(final FileDetailsApi fileDetails, final List<Tag> tags) {
+        if (tags.isEmpty()) {
+            return Optional.of(fileDetails);
+        }
 
-            Integer tagCount = objectResponse.tagCount();
-            if (tagCount != null && tagCount > 0) {
-                Optional<List<Tag>> allTags = amazonFileTransfer.getFileTags(fileId);
-                if (allTags.isEmpty()) {
-                    return Optional.empty();
-                }
+        Map<String, String> avTags = extractAVTags(tags);
+        if (avTags.size() != AV_KEY_COUNT) {
+            return Optional.empty();
+        }
 
-                Map<String, String> avTags = extractAVTags(allTags.get());
-                if (avTags.size() != AV_KEY_COUNT) {
-                    return Optional.empty();
-                }
+        return Optional.of(new FileDetailsApi(fileDetails.getId(),
+                avTags.get(AV_TIMESTAMP_KEY),
+                AvStatus.valueOf(avTags.get(AV_STATUS_KEY).toUpperCase()),
+                fileDetails.getContentType(),
+                fileDetails.getSize(),
+                fileDetails.getName(),
+                fileDetails.getCreatedOn(),
+                fileDetails.getLinks()));
+    }
 
-                avStatus = AvStatus.valueOf(avTags.get(AV_STATUS_KEY).toUpperCase());
-                avCreatedOn = avTags.get(AV_TIMESTAMP_KEY);
-            }
+    /**
+     * Lists files from the bucket listing alone, so each page of up to 1000 files costs a single call, and a page is
+     * only fetched once the stream has been read up to it. The listing has no metadata or tags, so the details have no
+     * name, content type or AV status. S3 cannot filter a listing by date, so every file after {@code after} is
+     * listed and filtered here until {@code limit} of them have been found.
+     */
+    @Override
+    public Stream<FileDetailsApi> list(final String prefix, final String after, final Instant createdFrom,
+            final Instant createdTo, final int limit) {
+        int pageSize = Math.min(limit, MAX_LIST_PAGE_SIZE);
 
-            // Decode metadata values as S3 restricts the values that can be stored as metadata.
-            Map<String, String> decodedMap = objectResponse.metadata()
-                    .entrySet()
-                    .stream()
-                    .collect(Collectors.toMap(
-                            Entry::getKey,entry -> metadataDecoder.convert(entry.getValue())
-                    ));
+        return Stream.iterate(amazonFileTransfer.listFiles(prefix, after, null, pageSize),
+                        Objects::nonNull,
+                        page -> Boolean.TRUE.equals(page.isTruncated())
+                                ? amazonFileTransfer.listFiles(prefix, after, page.nextContinuationToken(), pageSize)
+                                : null)
+                .map(ListObjectsV2Response::contents)
+                .flatMap(List::stream)
+                .filter(object -> createdFrom == null || !object.lastModified().isBefore(createdFrom))
+                .filter(object -> createdTo == null || object.lastModified().isBefore(createdTo))
+                .limit(limit)
+                .map(this::createFileDetails);
+    }
 
-            // Ensure metadata is case insensitive
-            Map<String, String> metadata = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
-            metadata.putAll(decodedMap);
+    private FileDetailsApi createFileDetails(final S3Object object) {
+        return new FileDetailsApi(object.key(),
+                null,
+                null,
+                null,
+                object.size(),
+                null,
+                object.lastModified().toString(),
+                getLinks(object.key()));
+    }
 
-            logger.info(format("Retrieved and decoded file metadata from S3: %s", metadata));
+    private Map<String, String> createMetadata(final String fileName, final String mimeType, final String extension) {
+        Map<String, String> metaData = new HashMap<>();
+        metaData.put(CONTENT_TYPE, mimeType);
+        metaData.put(FILENAME_METADATA_KEY, metadataEncoder.convert(fileName));
+        metaData.put(EXTENSION_METADATA_KEY, extension);
+        return metaData;
+    }
 
-            FileDetailsApi fileDetailsApi = new FileDetailsApi(fileId,
-                    avCreatedOn,
-                    avStatus,
-                    metadata.get(CONTENT_TYPE),
-                    objectResponse.contentLength(),
-                    metadata.get(FILENAME_METADATA_KEY),
-                    objectResponse.lastModified().toString(),
-                    getLinks(fileId));
+    private FileDetailsApi createFileDetails(final String fileId, final String avCreatedOn, final AvStatus avStatus,
+            final Map<String, String> objectMetadata, final Long contentLength, final Instant lastModified) {
+        // Decode metadata values as S3 restricts the values that can be stored as metadata.
+        Map<String, String> decodedMap = objectMetadata
+                .entrySet()
+                .stream()
+                .collect(Collectors.toMap(
+                        Entry::getKey,entry -> metadataDecoder.convert(entry.getValue())
+                ));
 
-            return Optional.of(fileDetailsApi);
+        // Ensure metadata is case insensitive
+        Map<String, String> metadata = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        metadata.putAll(decodedMap);
 
-        } catch (IOException e) {
-            logger.errorContext(fileId, "Error closing S3Object when getting file details", e, null);
-            return Optional.empty();
-        }
+        return new FileDetailsApi(fileId,
+                avCreatedOn,
+                avStatus,
+                metadata.get(CONTENT_TYPE),
+                contentLength,
+                metadata.get(FILENAME_METADATA_KEY),
+                lastModified.toString(),
+                getLinks(fileId));
     }
 
     private FileLinksApi getLinks(final String fileId) {
@@ -170,6 +647,7 @@ public class S3FileStorage implements FileStorageStrategy {
     @Override
     public void delete(final String fileId) {
         amazonFileTransfer.deleteFile(fileId);
+        RequestMemo.evict(FILE_DETAILS_MEMO, fileId);
     }
 
     private Map<String, String> extractAVTags(final List<Tag> tags) {
@@ -177,4 +655,54 @@ public class S3FileStorage implements FileStorageStrategy {
                 .filter(tag -> AV_TIMESTAMP_KEY.equals(tag.key()) || AV_STATUS_KEY.equals(tag.key()))
                 .collect((Collectors.toMap(Tag::key, Tag::value)));
     }
+
+    /**
+     * A save for an idempotency key in progress, which saves of the same key made meanwhile wait for.
+     */
+    private static final class IdempotentSave {
+
+        private final String contentHash;
+        private final CompletableFuture<String> fileId = new CompletableFuture<>();
+
+        IdempotentSave(final String contentHash) {
+            this.contentHash = contentHash;
+        }
+    }
+
+    /**
+     * Aborts the underlying S3 response if it is closed before all the content has been read, e.g. when the client
+     * disconnects, so the remainder of the object is not downloaded just to release the connection.
+     */
+    private static class AbortOnCloseInputStream extends FilterInputStream {
+
+        private final ResponseInputStream<?> responseInputStream;
+        private boolean endOfStream;
+
+        AbortOnCloseInputStream(final ResponseInputStream<?> responseInputStream) {
+            super(responseInputStream);
+            this.responseInputStream = responseInputStream;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int result = super.read();
+            endOfStream = result < 0;
+            return result;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            int result = super.read(b, off, len);
+            endOfStream = result < 0;
+            return result;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!endOfStream) {
+                responseInputStream.abort();
+            }
+            super.close();
+        }
+    }
 }
@@ -1,6 +1,13 @@
 package uk.gov.companieshouse.filetransferservice.validation;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Predicate;
 import org.springframework.stereotype.Component;
 import uk.gov.companieshouse.filetransferservice.exception.InvalidMimeTypeException;
 import uk.gov.companieshouse.logging.Logger;
@@ -41,6 +48,65 @@ public class MimeTypeValidator {
             "application/x-zip-compressed"
     );
 
+    /**
+     * The number of bytes at the start of a file which are inspected to check its content matches its MIME type.
+     */
+    static final int SNIFF_LENGTH = 8 * 1024;
+
+    private static final int PDF_HEADER_SEARCH_LENGTH = 1024;
+    private static final int TAR_MAGIC_OFFSET = 257;
+
+    private static final byte[] PNG_MAGIC = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] JPEG_MAGIC = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] PDF_MAGIC = "%PDF-".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] GIF87_MAGIC = "GIF87a".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] GIF89_MAGIC = "GIF89a".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ZIP_MAGIC = {'P', 'K', 0x03, 0x04};
+    private static final byte[] ZIP_EMPTY_MAGIC = {'P', 'K', 0x05, 0x06};
+    private static final byte[] ZIP_SPANNED_MAGIC = {'P', 'K', 0x07, 0x08};
+    private static final byte[] OLE_MAGIC = {(byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0,
+            (byte) 0xA1, (byte) 0xB1, 0x1A, (byte) 0xE1};
+    private static final byte[] RAR_MAGIC = {'R', 'a', 'r', '!', 0x1A, 0x07};
+    private static final byte[] SEVEN_ZIP_MAGIC = {'7', 'z', (byte) 0xBC, (byte) 0xAF, 0x27, 0x1C};
+    private static final byte[] TAR_MAGIC = "ustar".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] UTF16_BE_BOM = {(byte) 0xFE, (byte) 0xFF};
+    private static final byte[] UTF16_LE_BOM = {(byte) 0xFF, (byte) 0xFE};
+
+    private static final Predicate<byte[]> TEXT = MimeTypeValidator::isText;
+    private static final Predicate<byte[]> ZIP = startsWithAny(ZIP_MAGIC, ZIP_EMPTY_MAGIC, ZIP_SPANNED_MAGIC);
+    private static final Predicate<byte[]> OLE = startsWithAny(OLE_MAGIC);
+    private static final Predicate<byte[]> RAR = startsWithAny(RAR_MAGIC);
+
+    /**
+     * The content signature expected for each allowed MIME type. Types without an entry, such as
+     * application/octet-stream, are not checked.
+     */
+    private static final Map<String, Predicate<byte[]>> CONTENT_SIGNATURES = Map.ofEntries(
+            Map.entry("text/plain", TEXT),
+            Map.entry("text/csv", TEXT),
+            Map.entry("text/html", TEXT),
+            Map.entry("text/xml", TEXT),
+            Map.entry("application/xml", TEXT),
+            Map.entry("application/xhtml+xml", TEXT),
+            Map.entry("image/png", startsWithAny(PNG_MAGIC)),
+            Map.entry("image/jpeg", startsWithAny(JPEG_MAGIC)),
+            Map.entry("image/jpg", startsWithAny(JPEG_MAGIC)),
+            Map.entry("image/gif", startsWithAny(GIF87_MAGIC, GIF89_MAGIC)),
+            Map.entry("application/pdf", MimeTypeValidator::isPdf),
+            Map.entry("application/msword", OLE),
+            Map.entry("application/vnd.ms-excel", OLE),
+            Map.entry("application/vnd.openxmlformats-officedocument.wordprocessingml.document", ZIP),
+            Map.entry("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", ZIP),
+            Map.entry("application/zip", ZIP),
+            Map.entry("multipart/x-zip", ZIP),
+            Map.entry("application/zip-compressed", ZIP),
+            Map.entry("application/x-zip-compressed", ZIP),
+            Map.entry("application/x-rar-compressed", RAR),
+            Map.entry("application/vnd.rar", RAR),
+            Map.entry("application/x-7z-compressed", startsWithAny(SEVEN_ZIP_MAGIC)),
+            Map.entry("application/x-tar", MimeTypeValidator::isTar)
+    );
+
     public void validate(final String mimeType) throws InvalidMimeTypeException {
         logger.trace("Validating mime type " + mimeType);
 
@@ -50,4 +116,70 @@ public class MimeTypeValidator {
 
         logger.debug(String.format("Accepted file type submitted: %s", mimeType));
     }
+
+    /**
+     * Checks the start of the file content matches the declared MIME type. Only the first {@link #SNIFF_LENGTH} bytes
+     * are read, into a buffer which is then rewound, so the returned stream still yields the whole content and should
+     * be used in place of the one passed in. Empty content is not checked.
+     *
+     * @param mimeType the declared MIME type, which must already have been validated
+     * @param content the file content
+     * @return a stream of the complete file content
+     * @throws InvalidMimeTypeException if the content does not match the MIME type
+     * @throws IOException if the content cannot be read
+     */
+    public InputStream validate(final String mimeType, final InputStream content)
+            throws InvalidMimeTypeException, IOException {
+        logger.trace("Validating content of mime type " + mimeType);
+
+        BufferedInputStream bufferedContent = new BufferedInputStream(content, SNIFF_LENGTH);
+        bufferedContent.mark(SNIFF_LENGTH);
+        byte[] prefix = bufferedContent.readNBytes(SNIFF_LENGTH);
+        bufferedContent.reset();
+
+        Predicate<byte[]> signature = CONTENT_SIGNATURES.get(mimeType);
+        if (prefix.length > 0 && signature != null && !signature.test(prefix)) {
+            throw new InvalidMimeTypeException(mimeType);
+        }
+
+        logger.debug(String.format("Accepted file content for type: %s", mimeType));
+
+        return bufferedContent;
+    }
+
+    private static Predicate<byte[]> startsWithAny(final byte[]... magics) {
+        return prefix -> Arrays.stream(magics).anyMatch(magic -> regionMatches(prefix, 0, magic));
+    }
+
+    private static boolean isPdf(final byte[] prefix) {
+        // The PDF header is allowed to follow some leading bytes, as long as it is within the first 1024
+        int searchEnd = Math.min(prefix.length, PDF_HEADER_SEARCH_LENGTH) - PDF_MAGIC.length;
+        for (int offset = 0; offset <= searchEnd; offset++) {
+            if (regionMatches(prefix, offset, PDF_MAGIC)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isTar(final byte[] prefix) {
+        return regionMatches(prefix, TAR_MAGIC_OFFSET, TAR_MAGIC);
+    }
+
+    private static boolean isText(final byte[] prefix) {
+        if (regionMatches(prefix, 0, UTF16_BE_BOM) || regionMatches(prefix, 0, UTF16_LE_BOM)) {
+            return true;
+        }
+        for (byte b : prefix) {
+            if (b == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean regionMatches(final byte[] prefix, final int offset, final byte[] magic) {
+        return prefix.length >= offset + magic.length
+                && Arrays.equals(prefix, offset, offset + magic.length, magic, 0, magic.length);
+    }
 }
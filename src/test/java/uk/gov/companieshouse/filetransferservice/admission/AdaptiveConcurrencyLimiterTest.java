@@ -0,0 +1,221 @@
+package uk.gov.companieshouse.filetransferservice.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.exception.AbortedException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import uk.gov.companieshouse.filetransferservice.config.properties.S3LaneProperties;
+import uk.gov.companieshouse.filetransferservice.exception.TransferRejectedException;
+import uk.gov.companieshouse.filetransferservice.metrics.S3Operation;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private SimpleMeterRegistry registry;
+    private AdaptiveConcurrencyLimiter underTest;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        underTest = createLimiter(Duration.ofMillis(20));
+    }
+
+    @Test
+    @DisplayName("Test calls beyond the limit are rejected at once and the request is shed")
+    void testCallsBeyondLimitRejected() throws InterruptedException {
+        underTest = new AdaptiveConcurrencyLimiter(registry, createLanes(1), 1, 1, Duration.ofSeconds(1), 0.5,
+                Duration.ofSeconds(5));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Thread caller = Thread.ofVirtual().start(() -> underTest.call(S3Lane.METADATA, S3Operation.TAGGING, () -> {
+            started.countDown();
+            awaitQuietly(release);
+            return null;
+        }));
+        started.await();
+
+        TransferRejectedException e = assertThrows(TransferRejectedException.class,
+                () -> underTest.call(S3Lane.METADATA, S3Operation.HEAD, () -> null));
+        assertEquals(Duration.ofSeconds(5), e.getRetryAfter());
+        assertTrue(underTest.shouldShedRequest());
+
+        release.countDown();
+        caller.join();
+
+        assertFalse(underTest.shouldShedRequest());
+        assertEquals(1, shed("s3", S3Lane.METADATA));
+        assertEquals(1, shed("request", S3Lane.METADATA));
+    }
+
+    @Test
+    @DisplayName("Test a full transfer lane neither limits the metadata lane nor sheds requests")
+    void testLanesLimitedSeparately() throws InterruptedException {
+        underTest = new AdaptiveConcurrencyLimiter(registry, createLanes(1), 1, 1, Duration.ofSeconds(1), 0.5,
+                Duration.ofSeconds(5));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Thread caller = Thread.ofVirtual().start(() -> underTest.call(S3Lane.LARGE_TRANSFER, S3Operation.GET, () -> {
+            started.countDown();
+            awaitQuietly(release);
+            return null;
+        }));
+        started.await();
+
+        assertThrows(TransferRejectedException.class,
+                () -> underTest.call(S3Lane.LARGE_TRANSFER, S3Operation.GET, () -> null));
+        assertEquals("details", underTest.call(S3Lane.METADATA, S3Operation.HEAD, () -> "details"));
+        assertFalse(underTest.shouldShedRequest());
+
+        release.countDown();
+        caller.join();
+
+        assertEquals(1, shed("s3", S3Lane.LARGE_TRANSFER));
+        assertEquals(0, shed("s3", S3Lane.METADATA));
+    }
+
+    @Test
+    @DisplayName("Test throttling and connection failures cut the limit once per slowdown")
+    void testOverloadCutsLimit() throws InterruptedException {
+        assertThrows(S3Exception.class, () -> underTest.call(S3Lane.METADATA, S3Operation.HEAD, () -> {
+            throw S3Exception.builder().statusCode(503).build();
+        }));
+        assertEquals(8, underTest.getLimit(S3Lane.METADATA));
+
+        // A second failure in the same slowdown does not cut the limit again
+        assertThrows(SdkClientException.class, () -> underTest.call(S3Lane.METADATA, S3Operation.HEAD, () -> {
+            throw SdkClientException.create("Connection reset");
+        }));
+        assertEquals(8, underTest.getLimit(S3Lane.METADATA));
+
+        Thread.sleep(30);
+        assertThrows(SdkClientException.class, () -> underTest.call(S3Lane.METADATA, S3Operation.HEAD, () -> {
+            throw SdkClientException.create("Connection reset");
+        }));
+        assertEquals(6, underTest.getLimit(S3Lane.METADATA));
+
+        // The other lanes' limits are untouched
+        assertEquals(10, underTest.getLimit(S3Lane.SMALL_TRANSFER));
+    }
+
+    @Test
+    @DisplayName("Test a missing object does not cut the limit")
+    void testNotFoundKeepsLimit() {
+        assertThrows(NoSuchKeyException.class, () -> underTest.call(S3Lane.METADATA, S3Operation.HEAD, () -> {
+            throw NoSuchKeyException.builder().statusCode(404).build();
+        }));
+
+        assertEquals(10, underTest.getLimit(S3Lane.METADATA));
+    }
+
+    @Test
+    @DisplayName("Test a call cancelled by interrupting its thread does not cut the limit")
+    void testCancelledCallKeepsLimit() {
+        assertThrows(AbortedException.class, () -> underTest.call(S3Lane.METADATA, S3Operation.HEAD, () -> {
+            throw AbortedException.create("Thread was interrupted");
+        }));
+        assertEquals(10, underTest.getLimit(S3Lane.METADATA));
+
+        // An interrupt which closes the connection is reported as a connection failure
+        try {
+            assertThrows(SdkClientException.class, () -> underTest.call(S3Lane.METADATA, S3Operation.HEAD, () -> {
+                Thread.currentThread().interrupt();
+                throw SdkClientException.create("Connection closed");
+            }));
+        } finally {
+            Thread.interrupted();
+        }
+        assertEquals(10, underTest.getLimit(S3Lane.METADATA));
+        assertEquals(0, registry.get(AdaptiveConcurrencyLimiter.IN_FLIGHT)
+                .tag(AdaptiveConcurrencyLimiter.LANE_TAG, "metadata").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Test slow calls cut the limit, except for uploads")
+    void testSlowCallsCutLimit() {
+        underTest.call(S3Lane.LARGE_TRANSFER, S3Operation.PUT, () -> sleep(30));
+        assertEquals(10, underTest.getLimit(S3Lane.LARGE_TRANSFER));
+
+        underTest.call(S3Lane.LARGE_TRANSFER, S3Operation.GET, () -> sleep(30));
+        assertEquals(8, underTest.getLimit(S3Lane.LARGE_TRANSFER));
+    }
+
+    @Test
+    @DisplayName("Test the limit rises while S3 responds quickly, but only as far as it is used")
+    void testLimitRises() {
+        underTest = new AdaptiveConcurrencyLimiter(registry, createLanes(10), 1, 1, Duration.ofSeconds(1), 0.5,
+                Duration.ofSeconds(5));
+
+        // One call at a time uses a limit of 1 or 2, so the limit stops rising at 2.5
+        for (int i = 0; i < 10; i++) {
+            underTest.call(S3Lane.METADATA, S3Operation.HEAD, () -> null);
+        }
+
+        assertEquals(2, underTest.getLimit(S3Lane.METADATA));
+        assertEquals(2, registry.get(AdaptiveConcurrencyLimiter.LIMIT)
+                .tag(AdaptiveConcurrencyLimiter.LANE_TAG, "metadata").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Test a lane's limit starts no higher than its connection pool")
+    void testLimitCappedByConnections() {
+        S3LaneProperties lanes = createLanes(20);
+        lanes.getMaxConnections().put(S3Lane.LARGE_TRANSFER, 5);
+
+        underTest = new AdaptiveConcurrencyLimiter(registry, lanes, 10, 2, Duration.ofSeconds(1), 0.5,
+                Duration.ofSeconds(5));
+
+        assertEquals(10, underTest.getLimit(S3Lane.METADATA));
+        assertEquals(5, underTest.getLimit(S3Lane.LARGE_TRANSFER));
+    }
+
+    private AdaptiveConcurrencyLimiter createLimiter(final Duration latencyThreshold) {
+        return new AdaptiveConcurrencyLimiter(registry, createLanes(20), 10, 2, latencyThreshold, 0.8,
+                Duration.ofSeconds(5));
+    }
+
+    private static S3LaneProperties createLanes(final int maxConnections) {
+        S3LaneProperties lanes = new S3LaneProperties();
+        for (S3Lane lane : S3Lane.values()) {
+            lanes.getMaxConnections().put(lane, maxConnections);
+        }
+        lanes.setLargeTransferThreshold(DataSize.ofMegabytes(8));
+        return lanes;
+    }
+
+    private double shed(final String stage, final S3Lane lane) {
+        return registry.get(AdaptiveConcurrencyLimiter.SHED)
+                .tag(AdaptiveConcurrencyLimiter.STAGE_TAG, stage)
+                .tag(AdaptiveConcurrencyLimiter.LANE_TAG, lane.getTagValue())
+                .counter().count();
+    }
+
+    private static Object sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
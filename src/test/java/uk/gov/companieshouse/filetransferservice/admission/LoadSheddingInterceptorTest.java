@@ -0,0 +1,50 @@
+package uk.gov.companieshouse.filetransferservice.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.time.Duration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+@ExtendWith(MockitoExtension.class)
+class LoadSheddingInterceptorTest {
+
+    @Mock
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    @InjectMocks
+    private LoadSheddingInterceptor underTest;
+
+    @Test
+    @DisplayName("Test a request is handled while S3 calls are within the limit")
+    void testRequestHandled() throws IOException {
+        when(concurrencyLimiter.shouldShedRequest()).thenReturn(false);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(underTest.preHandle(new MockHttpServletRequest(), response, new Object()));
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    @DisplayName("Test a request is shed with a 503 and Retry-After while S3 calls are at the limit")
+    void testRequestShed() throws IOException {
+        when(concurrencyLimiter.shouldShedRequest()).thenReturn(true);
+        when(concurrencyLimiter.getRetryAfter()).thenReturn(Duration.ofSeconds(5));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertFalse(underTest.preHandle(new MockHttpServletRequest(), response, new Object()));
+        assertEquals(503, response.getStatus());
+        assertEquals("5", response.getHeader(HttpHeaders.RETRY_AFTER));
+    }
+}
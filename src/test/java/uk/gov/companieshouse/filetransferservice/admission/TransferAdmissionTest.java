@@ -0,0 +1,103 @@
+package uk.gov.companieshouse.filetransferservice.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import uk.gov.companieshouse.filetransferservice.admission.TransferAdmission.Permit;
+import uk.gov.companieshouse.filetransferservice.exception.TransferRejectedException;
+
+class TransferAdmissionTest {
+
+    private SimpleMeterRegistry registry;
+    private TransferAdmission underTest;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        underTest = new TransferAdmission(registry, DataSize.ofMegabytes(10), DataSize.ofMegabytes(20),
+                Duration.ofMillis(10), Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("Test transfers are admitted until their bytes exceed the budget")
+    void testAdmitWithinBudget() {
+        Permit first = underTest.admitUpload(DataSize.ofMegabytes(6).toBytes());
+
+        TransferRejectedException e = assertThrows(TransferRejectedException.class,
+                () -> underTest.admitUpload(DataSize.ofMegabytes(6).toBytes()));
+        assertEquals(Duration.ofSeconds(5), e.getRetryAfter());
+        assertEquals(1, rejected(TransferAdmission.UPLOAD));
+        assertEquals(DataSize.ofMegabytes(6).toBytes(), admittedBytes(TransferAdmission.UPLOAD));
+
+        // Downloads have their own budget
+        underTest.admitDownload(DataSize.ofMegabytes(6).toBytes()).close();
+
+        first.close();
+        first.close();
+        underTest.admitUpload(DataSize.ofMegabytes(10).toBytes()).close();
+        assertEquals(0, admittedBytes(TransferAdmission.UPLOAD));
+    }
+
+    @Test
+    @DisplayName("Test a transfer larger than the budget is admitted when nothing else is in progress")
+    void testAdmitLargerThanBudget() {
+        Permit small = underTest.admitUpload(1);
+
+        assertThrows(TransferRejectedException.class,
+                () -> underTest.admitUpload(DataSize.ofMegabytes(50).toBytes()));
+
+        small.close();
+        underTest.admitUpload(DataSize.ofMegabytes(50).toBytes()).close();
+    }
+
+    @Test
+    @DisplayName("Test a queued transfer is admitted when the budget becomes available")
+    void testQueuedTransferAdmitted() throws InterruptedException {
+        underTest = new TransferAdmission(registry, DataSize.ofMegabytes(10), DataSize.ofMegabytes(10),
+                Duration.ofSeconds(5), Duration.ofSeconds(5));
+        Permit first = underTest.admitDownload(DataSize.ofMegabytes(10).toBytes());
+
+        Thread releaser = Thread.ofVirtual().start(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            first.close();
+        });
+
+        underTest.admitDownload(DataSize.ofMegabytes(10).toBytes()).close();
+        releaser.join();
+    }
+
+    @Test
+    @DisplayName("Test the permit is released when the transferred content is closed")
+    void testReleaseOnClose() throws IOException {
+        Permit permit = underTest.admitDownload(DataSize.ofMegabytes(20).toBytes());
+        InputStream content = permit.releaseOnClose(new ByteArrayInputStream(new byte[10]));
+
+        assertEquals(10, content.readAllBytes().length);
+        assertEquals(DataSize.ofMegabytes(20).toBytes(), admittedBytes(TransferAdmission.DOWNLOAD));
+
+        content.close();
+        assertEquals(0, admittedBytes(TransferAdmission.DOWNLOAD));
+    }
+
+    private double rejected(final String direction) {
+        return registry.get(TransferAdmission.REJECTED).tag(TransferAdmission.DIRECTION_TAG, direction).counter().count();
+    }
+
+    private long admittedBytes(final String direction) {
+        return (long) registry.get(TransferAdmission.ADMITTED_BYTES)
+                .tag(TransferAdmission.DIRECTION_TAG, direction).gauge().value();
+    }
+}
@@ -0,0 +1,100 @@
+package uk.gov.companieshouse.filetransferservice.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+class UploadAdmissionFilterTest {
+
+    private TransferAdmission transferAdmission;
+    private UploadAdmissionFilter underTest;
+
+    @BeforeEach
+    void setUp() {
+        transferAdmission = new TransferAdmission(new SimpleMeterRegistry(), DataSize.ofMegabytes(10),
+                DataSize.ofMegabytes(10), Duration.ZERO, Duration.ofSeconds(5));
+        underTest = new UploadAdmissionFilter(transferAdmission, "/file-transfer-service", DataSize.ofMegabytes(300));
+    }
+
+    @Test
+    @DisplayName("Test an upload within budget is admitted and released once handled")
+    void testUploadAdmitted() throws ServletException, IOException {
+        MockHttpServletRequest request = createUpload(DataSize.ofMegabytes(10).toBytes());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicBoolean handled = new AtomicBoolean();
+
+        underTest.doFilter(request, response, (filterRequest, filterResponse) -> handled.set(true));
+
+        assertTrue(handled.get());
+        assertEquals(200, response.getStatus());
+        transferAdmission.admitUpload(DataSize.ofMegabytes(10).toBytes()).close();
+    }
+
+    @Test
+    @DisplayName("Test an upload over budget is rejected with a 503 and Retry-After before it is read")
+    void testUploadRejected() throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicBoolean handled = new AtomicBoolean();
+
+        try (var permit = transferAdmission.admitUpload(DataSize.ofMegabytes(5).toBytes())) {
+            underTest.doFilter(createUpload(DataSize.ofMegabytes(6).toBytes()), response,
+                    (filterRequest, filterResponse) -> handled.set(true));
+        }
+
+        assertEquals(503, response.getStatus());
+        assertEquals("5", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertFalse(handled.get());
+    }
+
+    @Test
+    @DisplayName("Test an upload without a Content-Length is admitted as the largest request allowed")
+    void testUploadWithoutContentLength() throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        try (var permit = transferAdmission.admitUpload(1)) {
+            underTest.doFilter(createUpload(-1), response, (filterRequest, filterResponse) -> {
+            });
+        }
+
+        assertEquals(503, response.getStatus());
+    }
+
+    @Test
+    @DisplayName("Test requests other than uploads are not admitted")
+    void testOtherRequestsNotFiltered() throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        try (var permit = transferAdmission.admitUpload(DataSize.ofMegabytes(10).toBytes())) {
+            underTest.doFilter(new MockHttpServletRequest("GET", "/file-transfer-service/123"), response,
+                    (filterRequest, filterResponse) -> {
+                    });
+        }
+
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader(HttpHeaders.RETRY_AFTER));
+    }
+
+    private static MockHttpServletRequest createUpload(final long contentLength) {
+        // The mock request's length is that of its content, which need not be allocated here
+        return new MockHttpServletRequest("POST", "/file-transfer-service/") {
+            @Override
+            public long getContentLengthLong() {
+                return contentLength;
+            }
+        };
+    }
+}
@@ -10,6 +10,8 @@ import org.springframework.core.env.Environment;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import uk.gov.companieshouse.filetransferservice.admission.S3LaneClients;
 
 @TestConfiguration
 public class  TestContainersConfiguration {
@@ -21,9 +23,19 @@ public class  TestContainersConfiguration {
     }
 
     @Primary
-    @Bean("localstack.s3.client")
-    public S3Client s3Client() throws URISyntaxException {
-        return S3Client.builder()
+    @Bean("localstack.s3.lane.clients")
+    public S3LaneClients s3LaneClients() throws URISyntaxException {
+        return S3LaneClients.shared(S3Client.builder()
+                .credentialsProvider(getCredentialsProvider())
+                .endpointOverride(new URI(Optional.ofNullable(env.getProperty("spring.cloud.aws.s3.endpoint"))
+                        .orElseThrow(() ->new IllegalArgumentException("Missing S3 endpoint"))))
+                .build());
+    }
+
+    @Primary
+    @Bean("localstack.s3.presigner")
+    public S3Presigner s3Presigner() throws URISyntaxException {
+        return S3Presigner.builder()
                 .credentialsProvider(getCredentialsProvider())
                 .endpointOverride(new URI(Optional.ofNullable(env.getProperty("spring.cloud.aws.s3.endpoint"))
                         .orElseThrow(() ->new IllegalArgumentException("Missing S3 endpoint"))))
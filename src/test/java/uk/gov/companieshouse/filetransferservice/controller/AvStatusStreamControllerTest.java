@@ -0,0 +1,132 @@
+package uk.gov.companieshouse.filetransferservice.controller;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import uk.gov.companieshouse.api.filetransfer.AvStatus;
+import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
+import uk.gov.companieshouse.filetransferservice.exception.InvalidRequestException;
+import uk.gov.companieshouse.filetransferservice.service.avstatus.AvStatusSource;
+import uk.gov.companieshouse.filetransferservice.service.avstatus.AvStatusSource.Subscription;
+import uk.gov.companieshouse.filetransferservice.service.storage.FileStorageStrategy;
+import uk.gov.companieshouse.logging.Logger;
+
+@ExtendWith(MockitoExtension.class)
+class AvStatusStreamControllerTest {
+
+    private static final String EVENTS_PATH = "/file-transfer-service/av-status/events";
+
+    @Mock
+    private FileStorageStrategy fileStorageStrategy;
+
+    @Mock
+    private AvStatusSource avStatusSource;
+
+    @Mock
+    private Subscription subscription;
+
+    @Mock
+    private Logger logger;
+
+    @Captor
+    private ArgumentCaptor<Consumer<Optional<FileDetailsApi>>> listener;
+
+    private AvStatusStreamController underTest;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new AvStatusStreamController(fileStorageStrategy, avStatusSource, logger, Duration.ofMinutes(1), 2);
+        mockMvc = MockMvcBuilders.standaloneSetup(underTest)
+                .addPlaceholderValue("service.path.prefix", "/file-transfer-service")
+                .build();
+    }
+
+    @Test
+    @DisplayName("Test the stream sends each file's status, then its scan, and ends once all are done with")
+    void testStreamSendsStatusAndScan() throws Exception {
+        FileDetailsApi unscanned = details("123", AvStatus.NOT_SCANNED);
+        when(fileStorageStrategy.getFileDetails("123")).thenReturn(Optional.of(unscanned));
+        when(fileStorageStrategy.getFileDetails("456")).thenReturn(Optional.empty());
+        when(avStatusSource.subscribe(eq(unscanned), listener.capture())).thenReturn(subscription);
+
+        MvcResult result = mockMvc.perform(get(EVENTS_PATH).param("fileIds", "123", "456"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String initial = result.getResponse().getContentAsString();
+        assertTrue(initial.contains("id:123\nevent:av-status\ndata:{"), initial);
+        assertTrue(initial.contains("id:456\nevent:not-found\n"), initial);
+
+        listener.getValue().accept(Optional.of(details("123", AvStatus.CLEAN)));
+
+        assertTrue(result.getResponse().getContentAsString().substring(initial.length())
+                .startsWith("id:123\nevent:av-status\n"));
+        // The stream has ended, as every file is done with
+        result.getAsyncResult(1000);
+    }
+
+    @Test
+    @DisplayName("Test the stream of files which are all scanned ends at once without listening")
+    void testStreamOfScannedFilesEndsAtOnce() throws Exception {
+        when(fileStorageStrategy.getFileDetails("123")).thenReturn(Optional.of(details("123", AvStatus.CLEAN)));
+
+        mockMvc.perform(get(EVENTS_PATH).param("fileIds", "123"))
+                .andExpect(content().string(containsString("event:av-status")));
+
+        verify(avStatusSource, never()).subscribe(any(), any());
+    }
+
+    @Test
+    @DisplayName("Test a stream for too many files is rejected")
+    void testTooManyFilesRejected() {
+        InvalidRequestException exception = assertThrows(InvalidRequestException.class,
+                () -> underTest.streamAvStatus(List.of("1", "2", "3")));
+
+        assertEquals("fileIds", exception.getParameter());
+        verify(fileStorageStrategy, never()).getFileDetails(any());
+    }
+
+    @Test
+    @DisplayName("Test the stream stops listening when a file's details cannot be looked up")
+    void testLookupFailureStopsListening() {
+        FileDetailsApi unscanned = details("123", AvStatus.NOT_SCANNED);
+        when(fileStorageStrategy.getFileDetails("123")).thenReturn(Optional.of(unscanned));
+        when(fileStorageStrategy.getFileDetails("456")).thenThrow(new IllegalStateException("S3 unavailable"));
+        when(avStatusSource.subscribe(eq(unscanned), any())).thenReturn(subscription);
+
+        assertThrows(IllegalStateException.class, () -> underTest.streamAvStatus(List.of("123", "456")));
+
+        verify(subscription).close();
+    }
+
+    private static FileDetailsApi details(final String fileId, final AvStatus avStatus) {
+        return new FileDetailsApi()
+                .id(fileId)
+                .avStatus(avStatus);
+    }
+}
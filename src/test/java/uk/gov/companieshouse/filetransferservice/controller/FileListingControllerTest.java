@@ -0,0 +1,176 @@
+package uk.gov.companieshouse.filetransferservice.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import uk.gov.companieshouse.api.filetransfer.AvStatus;
+import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
+import uk.gov.companieshouse.filetransferservice.exception.InvalidRequestException;
+import uk.gov.companieshouse.filetransferservice.service.storage.FileStorageStrategy;
+import uk.gov.companieshouse.logging.Logger;
+
+@ExtendWith(MockitoExtension.class)
+class FileListingControllerTest {
+
+    private static final Duration ASYNC_TIMEOUT = Duration.ofMillis(50);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private FileStorageStrategy fileStorageStrategy;
+
+    @Mock
+    private Logger logger;
+
+    private FileListingController underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new FileListingController(fileStorageStrategy, objectMapper, logger, 2);
+    }
+
+    @Test
+    @DisplayName("Test the listed files are written one per line")
+    void testFilesWrittenOnePerLine() throws Exception {
+        Instant createdFrom = Instant.parse("2024-01-01T00:00:00Z");
+        when(fileStorageStrategy.list("1", "100", createdFrom, null, 10))
+                .thenReturn(Stream.of(details("101"), details("102")));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        underTest.listFiles("1", "100", "2024-01-01T00:00:00Z", null, 10, false, response);
+
+        assertEquals(MediaType.APPLICATION_NDJSON_VALUE, response.getContentType());
+        String[] lines = lines(response);
+        assertEquals(3, lines.length);
+        assertEquals(objectMapper.writeValueAsString(details("101")), lines[0]);
+        assertEquals(objectMapper.writeValueAsString(details("102")), lines[1]);
+        assertEquals("{\"complete\":true,\"count\":2}", lines[2]);
+        verify(fileStorageStrategy, never()).refreshAvStatus(any());
+    }
+
+    @Test
+    @DisplayName("Test the listed files are written in order with their AV status, leaving out deleted files")
+    void testFilesWrittenWithAvStatus() throws Exception {
+        when(fileStorageStrategy.list(null, null, null, null, Integer.MAX_VALUE))
+                .thenReturn(Stream.of(details("101"), details("102"), details("103")));
+        when(fileStorageStrategy.refreshAvStatus(any())).thenAnswer(invocation -> {
+            FileDetailsApi fileDetails = invocation.getArgument(0);
+            return switch (fileDetails.getId()) {
+                case "101" -> Optional.of(details("101").avStatus(AvStatus.CLEAN));
+                case "102" -> Optional.empty();
+                default -> Optional.of(fileDetails);
+            };
+        });
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        underTest.listFiles(null, null, null, null, null, true, response);
+
+        String[] lines = lines(response);
+        assertEquals(3, lines.length);
+        assertEquals(objectMapper.writeValueAsString(details("101").avStatus(AvStatus.CLEAN)), lines[0]);
+        assertEquals(objectMapper.writeValueAsString(details("103").avTimestamp("").avStatus(AvStatus.NOT_SCANNED)),
+                lines[1]);
+        assertEquals("{\"complete\":true,\"count\":2}", lines[2]);
+    }
+
+    @Test
+    @DisplayName("Test a listing whose AV status lookup fails is failed without being marked complete")
+    void testFailedAvStatusLookupFailsListing() throws Exception {
+        when(fileStorageStrategy.list(null, null, null, null, Integer.MAX_VALUE))
+                .thenReturn(Stream.of(details("101"), details("102"), details("103")));
+        when(fileStorageStrategy.refreshAvStatus(any())).thenAnswer(invocation -> {
+            FileDetailsApi fileDetails = invocation.getArgument(0);
+            if (fileDetails.getId().equals("102")) {
+                throw new IllegalStateException("S3 unavailable");
+            }
+            return Optional.of(fileDetails);
+        });
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> underTest.listFiles(null, null, null, null, null, true, response));
+
+        assertEquals("S3 unavailable", exception.getMessage());
+        String[] lines = lines(response);
+        assertEquals(1, lines.length);
+        assertEquals(objectMapper.writeValueAsString(details("101").avTimestamp("").avStatus(AvStatus.NOT_SCANNED)),
+                lines[0]);
+    }
+
+    @Test
+    @DisplayName("Test a listing which takes longer than the async request timeout is written in full")
+    void testListingOutlastsAsyncTimeout() throws Exception {
+        when(fileStorageStrategy.list(null, null, null, null, Integer.MAX_VALUE))
+                .thenReturn(Stream.of(details("101"), details("102")));
+        when(fileStorageStrategy.refreshAvStatus(any())).thenAnswer(invocation -> {
+            Thread.sleep(ASYNC_TIMEOUT.multipliedBy(4).toMillis());
+            return Optional.of(invocation.<FileDetailsApi>getArgument(0));
+        });
+
+        MvcResult result = MockMvcBuilders.standaloneSetup(underTest)
+                .addPlaceholderValue("service.path.prefix", "/file-transfer-service")
+                .setAsyncRequestTimeout(ASYNC_TIMEOUT.toMillis())
+                .build()
+                .perform(get("/file-transfer-service/files").param("avStatus", "true"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isOk())
+                .andReturn();
+
+        String[] lines = lines(result.getResponse());
+        assertEquals(3, lines.length);
+        assertEquals("{\"complete\":true,\"count\":2}", lines[2]);
+    }
+
+    @Test
+    @DisplayName("Test a listing with an invalid date range or limit is rejected")
+    void testInvalidListingRejected() {
+        InvalidRequestException invalidDate = assertThrows(InvalidRequestException.class,
+                () -> underTest.listFiles(null, null, "yesterday", null, null, false, new MockHttpServletResponse()));
+        InvalidRequestException emptyRange = assertThrows(InvalidRequestException.class,
+                () -> underTest.listFiles(null, null, "2024-01-02T00:00:00Z", "2024-01-01T00:00:00Z", null, false,
+                        new MockHttpServletResponse()));
+        InvalidRequestException invalidLimit = assertThrows(InvalidRequestException.class,
+                () -> underTest.listFiles(null, null, null, null, 0, false, new MockHttpServletResponse()));
+
+        assertEquals("createdFrom", invalidDate.getParameter());
+        assertEquals("createdTo", emptyRange.getParameter());
+        assertEquals("limit", invalidLimit.getParameter());
+        verify(fileStorageStrategy, never()).list(any(), any(), any(), any(), anyInt());
+    }
+
+    private static String[] lines(final MockHttpServletResponse response) throws Exception {
+        String content = response.getContentAsString();
+        assertTrue(content.endsWith("\n"));
+        return content.split("\n");
+    }
+
+    private static FileDetailsApi details(final String fileId) {
+        return new FileDetailsApi()
+                .id(fileId)
+                .size(123L);
+    }
+}
@@ -6,17 +6,28 @@ import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.never;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -29,19 +40,31 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.multipart.MultipartFile;
 import uk.gov.companieshouse.api.filetransfer.AvStatus;
 import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
 import uk.gov.companieshouse.api.filetransfer.IdApi;
+import uk.gov.companieshouse.filetransferservice.admission.TransferAdmission;
+import uk.gov.companieshouse.filetransferservice.converter.FileDownloadApiToLegacyJsonConverter;
+import uk.gov.companieshouse.filetransferservice.converter.LegacyJsonToFileUploadApiConverter;
 import uk.gov.companieshouse.filetransferservice.converter.MultipartFileToFileUploadApiConverter;
 import uk.gov.companieshouse.filetransferservice.exception.FileNotCleanException;
 import uk.gov.companieshouse.filetransferservice.exception.FileNotFoundException;
 import uk.gov.companieshouse.filetransferservice.exception.InvalidMimeTypeException;
+import uk.gov.companieshouse.filetransferservice.exception.TransferRejectedException;
 import uk.gov.companieshouse.filetransferservice.model.FileDownloadApi;
+import uk.gov.companieshouse.filetransferservice.model.FileDownloadLinkApi;
 import uk.gov.companieshouse.filetransferservice.model.FileUploadApi;
 import uk.gov.companieshouse.filetransferservice.model.legacy.FileApi;
+import uk.gov.companieshouse.filetransferservice.service.avstatus.AvStatusWatcher;
 import uk.gov.companieshouse.filetransferservice.service.storage.FileStorageStrategy;
 import uk.gov.companieshouse.filetransferservice.validation.FileUploadValidator;
 import uk.gov.companieshouse.filetransferservice.validation.MimeTypeValidator;
@@ -56,21 +79,36 @@ class FileTransferControllerTest {
     @Spy
     private MultipartFileToFileUploadApiConverter converter;
 
+    private final LegacyJsonToFileUploadApiConverter legacyConverter =
+            new LegacyJsonToFileUploadApiConverter(new ObjectMapper(), DataSize.ofMegabytes(1));
+
+    private final FileDownloadApiToLegacyJsonConverter legacyDownloadConverter =
+            new FileDownloadApiToLegacyJsonConverter(new ObjectMapper());
+
     @Mock
     private MimeTypeValidator mimeTypeValidator;
 
     @Mock
     private FileUploadValidator fileUploadValidator;
 
+    private final TransferAdmission transferAdmission = new TransferAdmission(new SimpleMeterRegistry(),
+            DataSize.ofKilobytes(4), DataSize.ofKilobytes(4), Duration.ZERO, Duration.ofSeconds(5));
+
+    @Mock
+    private AvStatusWatcher avStatusWatcher;
+
     @Mock
     private Logger logger;
 
+    private static final Duration ASYNC_TIMEOUT = Duration.ofMillis(50);
+
     private FileTransferController fileTransferController;
 
     @BeforeEach
     void beforeEach() {
         fileTransferController = new FileTransferController(
-                fileStorageStrategy, converter, mimeTypeValidator, fileUploadValidator, logger, true);
+                fileStorageStrategy, converter, legacyConverter, legacyDownloadConverter, mimeTypeValidator, fileUploadValidator,
+                transferAdmission, avStatusWatcher, logger, true, Duration.ofSeconds(30));
     }
 
     @Test
@@ -84,9 +122,12 @@ class FileTransferControllerTest {
         fileApi.setSize(12);
         fileApi.setExtension("txt");
 
+        when(mimeTypeValidator.validate(anyString(), any(InputStream.class)))
+                .thenAnswer(invocation -> invocation.getArgument(1));
         when(fileStorageStrategy.save(any(FileUploadApi.class))).thenReturn("123");
 
-        ResponseEntity<?> response = fileTransferController.upload(fileApi);
+        ResponseEntity<?> response = fileTransferController.upload(
+                new ByteArrayInputStream(new ObjectMapper().writeValueAsBytes(fileApi)));
 
         verify(fileStorageStrategy, times(1)).save(any(FileUploadApi.class));
 
@@ -102,9 +143,11 @@ class FileTransferControllerTest {
                 "application/pdf",
                 "test".getBytes());
 
+        when(mimeTypeValidator.validate(anyString(), any(InputStream.class)))
+                .thenAnswer(invocation -> invocation.getArgument(1));
         when(fileStorageStrategy.save(any(FileUploadApi.class))).thenReturn("123");
 
-        ResponseEntity<?> response = fileTransferController.upload(mockFile);
+        ResponseEntity<?> response = fileTransferController.upload(mockFile, null, null, null);
 
         verify(fileStorageStrategy, times(1)).save(any(FileUploadApi.class));
 
@@ -112,6 +155,28 @@ class FileTransferControllerTest {
         assertEquals(new IdApi("123"), response.getBody());
     }
 
+    @Test
+    @DisplayName("Test uploading a file with an idempotency key saves it once for the key and its content")
+    void testUploadFileWithIdempotencyKey() throws IOException, InvalidMimeTypeException {
+        MultipartFile mockFile = new MockMultipartFile("test.pdf",
+                "test.pdf",
+                "application/pdf",
+                "test".getBytes());
+        // The SHA-256 of "test"
+        String contentHash = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+        when(mimeTypeValidator.validate(anyString(), any(InputStream.class)))
+                .thenAnswer(invocation -> invocation.getArgument(1));
+        when(fileStorageStrategy.save(any(FileUploadApi.class), eq("key:caller-1"), eq("key-1"), eq(contentHash)))
+                .thenReturn("123");
+
+        ResponseEntity<?> response = fileTransferController.upload(mockFile, "key-1", "key", "caller-1");
+
+        verify(fileStorageStrategy, never()).save(any(FileUploadApi.class));
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(new IdApi("123"), response.getBody());
+    }
+
     @Test
     @DisplayName("Test uploading a file with unsupported MIME type")
     void testUploadFileWithUnsupportedMimeType() throws InvalidMimeTypeException {
@@ -122,7 +187,7 @@ class FileTransferControllerTest {
                 "invalid",
                 "test".getBytes());
 
-        assertThrows(InvalidMimeTypeException.class, () -> fileTransferController.upload(mockFile));
+        assertThrows(InvalidMimeTypeException.class, () -> fileTransferController.upload(mockFile, null, null, null));
     }
 
     @Test
@@ -135,7 +200,8 @@ class FileTransferControllerTest {
 
         doThrow(new IOException("Empty file!")).when(fileUploadValidator).validate(mockFile);
 
-        IOException expectedException = assertThrows(IOException.class, () -> fileTransferController.upload(mockFile));
+        IOException expectedException = assertThrows(IOException.class,
+                () -> fileTransferController.upload(mockFile, null, null, null));
 
         verify(fileUploadValidator, times(1)).validate(mockFile);
 
@@ -205,17 +271,45 @@ class FileTransferControllerTest {
 
         when(fileStorageStrategy.load(fileDetails)).thenReturn(Optional.of(file));
 
-        ResponseEntity<uk.gov.companieshouse.filetransferservice.model.legacy.FileApi> response =
-                fileTransferController.downloadAsJson(fileId, true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        fileTransferController.downloadAsJson(fileId, true, response);
 
-        FileApi fileApi = requireNonNull(response.getBody());
+        FileApi fileApi = new ObjectMapper().readValue(response.getContentAsByteArray(), FileApi.class);
         byte[] responseContent = fileApi.getBody();
 
-        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
         assertEquals(content.length, responseContent.length);
         assertArrayEquals(content, responseContent);
         assertEquals(mimeType, fileApi.getMimeType());
-        assertEquals(0, response.getHeaders().size());
+        assertEquals(fileName, fileApi.getFileName());
+        assertEquals(content.length, fileApi.getSize());
+        assertEquals("txt", fileApi.getExtension());
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, response.getContentType());
+    }
+
+    @Test
+    @DisplayName("Test deprecated file download is written in full when it takes longer than the async request timeout")
+    void testDeprecatedDownloadOutlastsAsyncTimeout() throws Exception {
+        byte[] content = "test content".getBytes();
+        FileDetailsApi fileDetails = new FileDetailsApi()
+                .id("123")
+                .name("file.txt")
+                .size((long) content.length)
+                .contentType("text/plain")
+                .avStatus(AvStatus.CLEAN);
+        when(fileStorageStrategy.getFileDetails("123")).thenReturn(Optional.of(fileDetails));
+        when(fileStorageStrategy.load(fileDetails)).thenReturn(Optional.of(
+                new FileDownloadApi("file.txt", slowStream(content, ASYNC_TIMEOUT.multipliedBy(4)), "text/plain",
+                        content.length, "txt")));
+
+        MvcResult result = mockMvc(ASYNC_TIMEOUT).perform(get("/file-transfer-service/123/download")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isOk())
+                .andReturn();
+
+        FileApi fileApi = new ObjectMapper().readValue(result.getResponse().getContentAsByteArray(), FileApi.class);
+        assertArrayEquals(content, fileApi.getBody());
     }
 
     @Test
@@ -233,14 +327,14 @@ class FileTransferControllerTest {
                 .contentType(mimeType.toString())
                 .avStatus(AvStatus.CLEAN);
 
-        when(fileStorageStrategy.getFileDetails(fileId)).thenReturn(Optional.of(fileDetails));
-
-        var file = new FileDownloadApi(fileName, new ByteArrayInputStream(content), mimeType.toString(), content.length, "txt");
+        var file = new FileDownloadApi(fileName, new ByteArrayInputStream(content), mimeType.toString(), content.length, null);
 
+        when(fileStorageStrategy.getFileDetails(fileId)).thenReturn(Optional.of(fileDetails));
         when(fileStorageStrategy.load(fileDetails)).thenReturn(Optional.of(file));
 
-        ResponseEntity<byte[]> response = fileTransferController.downloadAsBinary(fileId, true);
-        byte[] responseContent = requireNonNull(response.getBody());
+        ResponseEntity<Resource> response = fileTransferController.downloadAsBinary(fileId, true);
+
+        byte[] responseContent = requireNonNull(response.getBody()).getInputStream().readAllBytes();
         HttpHeaders responseHeaders = response.getHeaders();
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -253,6 +347,73 @@ class FileTransferControllerTest {
         assertEquals(12L, responseHeaders.getContentLength());
     }
 
+    @Test
+    @DisplayName("Test deprecated binary file download is written in full when it takes longer than the async request "
+            + "timeout")
+    void testDeprecatedDownloadBinaryOutlastsAsyncTimeout() throws Exception {
+        byte[] content = "test content".getBytes();
+        FileDetailsApi fileDetails = new FileDetailsApi()
+                .id("123")
+                .name("file.txt")
+                .size((long) content.length)
+                .contentType("text/plain")
+                .avStatus(AvStatus.CLEAN);
+        when(fileStorageStrategy.getFileDetails("123")).thenReturn(Optional.of(fileDetails));
+        when(fileStorageStrategy.load(fileDetails)).thenReturn(Optional.of(new FileDownloadApi("file.txt",
+                slowStream(content, ASYNC_TIMEOUT.multipliedBy(4)), "text/plain", content.length, "txt")));
+
+        MvcResult result = mockMvc(ASYNC_TIMEOUT).perform(get("/file-transfer-service/123/downloadbinary"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertArrayEquals(content, result.getResponse().getContentAsByteArray());
+        assertEquals(content.length, result.getResponse().getContentLength());
+    }
+
+    @Test
+    @DisplayName("Test deprecated binary file download is refused when the file is not clean")
+    void testDeprecatedDownloadBinaryNotClean() {
+        String fileId = "123";
+
+        FileDetailsApi fileDetails = new FileDetailsApi()
+                .id(fileId)
+                .name("file.txt")
+                .size(12L)
+                .contentType("text/plain")
+                .avStatus(AvStatus.INFECTED);
+
+        when(fileStorageStrategy.getFileDetails(fileId)).thenReturn(Optional.of(fileDetails));
+
+        assertThrows(FileNotCleanException.class, () -> fileTransferController.downloadAsBinary(fileId, false));
+        verify(fileStorageStrategy, never()).load(any(FileDetailsApi.class));
+    }
+
+    @Test
+    @DisplayName("Test deprecated binary file download is rejected without loading the file when the download budget "
+            + "is in use")
+    void testDeprecatedDownloadBinaryRejectedOverBudget() throws IOException {
+        String fileId = "123";
+
+        FileDetailsApi fileDetails = new FileDetailsApi()
+                .id(fileId)
+                .name("file.txt")
+                .contentType("text/plain")
+                .size(3L * 1024)
+                .avStatus(AvStatus.CLEAN);
+
+        when(fileStorageStrategy.getFileDetails(fileId)).thenReturn(Optional.of(fileDetails));
+        when(fileStorageStrategy.load(fileDetails)).thenReturn(Optional.of(
+                new FileDownloadApi("file.txt", new ByteArrayInputStream(new byte[3 * 1024]), "text/plain", 0, null)));
+
+        ResponseEntity<Resource> first = fileTransferController.downloadAsBinary(fileId, true);
+
+        assertThrows(TransferRejectedException.class, () -> fileTransferController.downloadAsBinary(fileId, true));
+        verify(fileStorageStrategy, times(1)).load(fileDetails);
+
+        requireNonNull(first.getBody()).getInputStream().close();
+    }
+
     @Test
     @DisplayName("Test successful file download")
     void testDownloadSuccess() throws FileNotFoundException, FileNotCleanException, IOException {
@@ -285,6 +446,32 @@ class FileTransferControllerTest {
         assertEquals(2, response.getHeaders().size());
     }
 
+    @Test
+    @DisplayName("Test file download is rejected without loading the file when the download budget is in use")
+    void testDownloadRejectedOverBudget() throws IOException {
+        String fileId = "123";
+
+        FileDetailsApi fileDetails = new FileDetailsApi()
+                .id(fileId)
+                .contentType("text/plain")
+                .size(3L * 1024)
+                .avStatus(AvStatus.CLEAN);
+
+        when(fileStorageStrategy.getFileDetails(fileId)).thenReturn(Optional.of(fileDetails));
+        when(fileStorageStrategy.load(fileDetails)).thenReturn(Optional.of(
+                new FileDownloadApi("file.txt", new ByteArrayInputStream(new byte[3 * 1024]), "text/plain", 3 * 1024, "txt")));
+
+        ResponseEntity<Resource> first = fileTransferController.download(fileId, true);
+
+        assertThrows(TransferRejectedException.class, () -> fileTransferController.download(fileId, true));
+        verify(fileStorageStrategy, times(1)).load(fileDetails);
+
+        // Closing the first download's content releases its share of the budget
+        requireNonNull(first.getBody()).getInputStream().close();
+        fileTransferController.download(fileId, true);
+        verify(fileStorageStrategy, times(2)).load(fileDetails);
+    }
+
     @Test
     @DisplayName("Test unsuccessful file download due to missing file")
     void testDownloadFileNotFound() {
@@ -316,4 +503,156 @@ class FileTransferControllerTest {
         assertThat(expectedException.getAvStatus(), is(AvStatus.INFECTED));
     }
 
+    @Test
+    @DisplayName("Test successful presigned download redirect")
+    void testDownloadRedirectSuccess() {
+        String fileId = "123";
+        String url = "https://bucket.s3.amazonaws.com/123?X-Amz-Signature=abc";
+
+        FileDetailsApi fileDetails = new FileDetailsApi()
+                .id(fileId)
+                .avStatus(AvStatus.CLEAN);
+
+        when(fileStorageStrategy.getFileDetails(fileId)).thenReturn(Optional.of(fileDetails));
+        when(fileStorageStrategy.getDownloadLink(fileDetails))
+                .thenReturn(new FileDownloadLinkApi(url, "2024-01-01T10:05:00Z"));
+
+        ResponseEntity<Void> response = fileTransferController.downloadRedirect(fileId, false);
+
+        assertEquals(HttpStatus.FOUND, response.getStatusCode());
+        assertEquals(URI.create(url), response.getHeaders().getLocation());
+        assertEquals("no-store", response.getHeaders().getCacheControl());
+        verify(fileStorageStrategy, never()).load(any(FileDetailsApi.class));
+    }
+
+    @Test
+    @DisplayName("Test successful presigned download link")
+    void testDownloadLinkSuccess() {
+        String fileId = "123";
+        FileDownloadLinkApi downloadLink = new FileDownloadLinkApi("https://bucket.s3.amazonaws.com/123",
+                "2024-01-01T10:05:00Z");
+
+        FileDetailsApi fileDetails = new FileDetailsApi()
+                .id(fileId)
+                .avStatus(AvStatus.CLEAN);
+
+        when(fileStorageStrategy.getFileDetails(fileId)).thenReturn(Optional.of(fileDetails));
+        when(fileStorageStrategy.getDownloadLink(fileDetails)).thenReturn(downloadLink);
+
+        ResponseEntity<FileDownloadLinkApi> response = fileTransferController.downloadLink(fileId, false);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(downloadLink, response.getBody());
+    }
+
+    @Test
+    @DisplayName("Test presigned download link refused due to non-clean file status")
+    void testDownloadLinkFileNotClean() {
+        String fileId = "123";
+
+        FileDetailsApi fileDetails = new FileDetailsApi()
+                .id(fileId)
+                .avStatus(AvStatus.NOT_SCANNED);
+
+        when(fileStorageStrategy.getFileDetails(fileId)).thenReturn(Optional.of(fileDetails));
+
+        assertThrows(FileNotCleanException.class, () -> fileTransferController.downloadLink(fileId, false));
+        verify(fileStorageStrategy, never()).getDownloadLink(any(FileDetailsApi.class));
+    }
+
+    @Test
+    @DisplayName("Test AV status wait returns the details once the file is scanned")
+    void testAvStatusReturnedOnceScanned() {
+        String fileId = "123";
+        FileDetailsApi unscanned = new FileDetailsApi()
+                .id(fileId)
+                .avStatus(AvStatus.NOT_SCANNED);
+        FileDetailsApi clean = new FileDetailsApi()
+                .id(fileId)
+                .avStatus(AvStatus.CLEAN);
+
+        when(fileStorageStrategy.getFileDetails(fileId)).thenReturn(Optional.of(unscanned));
+        when(avStatusWatcher.await(unscanned, Duration.ofSeconds(10)))
+                .thenReturn(CompletableFuture.completedFuture(Optional.of(clean)));
+
+        DeferredResult<ResponseEntity<FileDetailsApi>> result = fileTransferController.getAvStatus(fileId, 10);
+
+        ResponseEntity<?> response = (ResponseEntity<?>) result.getResult();
+        assertEquals(HttpStatus.OK, requireNonNull(response).getStatusCode());
+        assertEquals(clean, response.getBody());
+        assertEquals("no-store", response.getHeaders().getCacheControl());
+    }
+
+    @Test
+    @DisplayName("Test AV status wait is capped at the maximum wait")
+    void testAvStatusWaitCapped() {
+        String fileId = "123";
+        FileDetailsApi unscanned = new FileDetailsApi()
+                .id(fileId)
+                .avStatus(AvStatus.NOT_SCANNED);
+
+        when(fileStorageStrategy.getFileDetails(fileId)).thenReturn(Optional.of(unscanned));
+        when(avStatusWatcher.await(unscanned, Duration.ofSeconds(30)))
+                .thenReturn(CompletableFuture.completedFuture(Optional.of(unscanned)));
+
+        DeferredResult<ResponseEntity<FileDetailsApi>> result = fileTransferController.getAvStatus(fileId, 600);
+
+        ResponseEntity<?> response = (ResponseEntity<?>) result.getResult();
+        assertEquals(unscanned, requireNonNull(response).getBody());
+    }
+
+    @Test
+    @DisplayName("Test AV status wait fails when the file is deleted while waiting")
+    void testAvStatusFileDeletedWhileWaiting() {
+        String fileId = "123";
+        FileDetailsApi unscanned = new FileDetailsApi()
+                .id(fileId)
+                .avStatus(AvStatus.NOT_SCANNED);
+
+        when(fileStorageStrategy.getFileDetails(fileId)).thenReturn(Optional.of(unscanned));
+        when(avStatusWatcher.await(unscanned, Duration.ofSeconds(10)))
+                .thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+        DeferredResult<ResponseEntity<FileDetailsApi>> result = fileTransferController.getAvStatus(fileId, 10);
+
+        assertEquals(FileNotFoundException.class, requireNonNull(result.getResult()).getClass());
+    }
+
+    @Test
+    @DisplayName("Test AV status of a missing file is not found")
+    void testAvStatusFileNotFound() {
+        when(fileStorageStrategy.getFileDetails("123")).thenReturn(Optional.empty());
+
+        assertThrows(FileNotFoundException.class, () -> fileTransferController.getAvStatus("123", 10));
+        verify(avStatusWatcher, never()).await(any(), any());
+    }
+
+    private MockMvc mockMvc(final Duration asyncTimeout) {
+        return MockMvcBuilders.standaloneSetup(fileTransferController)
+                .addPlaceholderValue("service.path.prefix", "/file-transfer-service")
+                .setAsyncRequestTimeout(asyncTimeout.toMillis())
+                .build();
+    }
+
+    /**
+     * @return a stream of the content which waits before the content can be read, as a slow S3 download would
+     */
+    private static InputStream slowStream(final byte[] content, final Duration delay) {
+        return new ByteArrayInputStream(content) {
+            private boolean waited;
+
+            @Override
+            public synchronized int read(final byte[] buffer, final int offset, final int length) {
+                if (!waited) {
+                    waited = true;
+                    try {
+                        Thread.sleep(delay.toMillis());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.read(buffer, offset, length);
+            }
+        };
+    }
 }
@@ -0,0 +1,138 @@
+package uk.gov.companieshouse.filetransferservice.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import uk.gov.companieshouse.api.filetransfer.AvStatus;
+import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
+import uk.gov.companieshouse.api.filetransfer.IdApi;
+import uk.gov.companieshouse.filetransferservice.exception.FileNotFoundException;
+import uk.gov.companieshouse.filetransferservice.exception.InvalidMimeTypeException;
+import uk.gov.companieshouse.filetransferservice.exception.InvalidUploadException;
+import uk.gov.companieshouse.filetransferservice.model.PresignedUploadApi;
+import uk.gov.companieshouse.filetransferservice.model.PresignedUploadPartApi;
+import uk.gov.companieshouse.filetransferservice.model.UploadInitiationApi;
+import uk.gov.companieshouse.filetransferservice.service.storage.FileStorageStrategy;
+import uk.gov.companieshouse.filetransferservice.validation.MimeTypeValidator;
+import uk.gov.companieshouse.logging.Logger;
+
+@ExtendWith(MockitoExtension.class)
+class PresignedUploadControllerTest {
+
+    @Mock
+    private FileStorageStrategy fileStorageStrategy;
+
+    @Mock
+    private MimeTypeValidator mimeTypeValidator;
+
+    @Mock
+    private Logger logger;
+
+    private PresignedUploadController presignedUploadController;
+
+    @BeforeEach
+    void beforeEach() {
+        presignedUploadController = new PresignedUploadController(fileStorageStrategy, mimeTypeValidator, logger,
+                DataSize.ofMegabytes(300));
+    }
+
+    @Test
+    @DisplayName("Test initiating a presigned upload with allowed MIME type")
+    void testInitiateUploadSuccess() {
+        UploadInitiationApi upload = new UploadInitiationApi("test.pdf", "application/pdf", 1024L);
+        PresignedUploadApi presignedUpload = PresignedUploadApi.multipart("123", "upload-id", 1024L,
+                List.of(new PresignedUploadPartApi(1, "https://bucket.s3.amazonaws.com/123?partNumber=1")),
+                "2024-01-01T10:15:00Z");
+
+        when(fileStorageStrategy.initiateUpload(upload)).thenReturn(presignedUpload);
+
+        ResponseEntity<PresignedUploadApi> response = presignedUploadController.initiate(upload);
+
+        verify(mimeTypeValidator).validate("application/pdf");
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(presignedUpload, response.getBody());
+    }
+
+    @Test
+    @DisplayName("Test initiating a presigned upload with unsupported MIME type")
+    void testInitiateUploadWithUnsupportedMimeType() {
+        doThrow(new InvalidMimeTypeException("invalid")).when(mimeTypeValidator).validate("invalid");
+
+        UploadInitiationApi upload = new UploadInitiationApi("test.txt", "invalid", 1024L);
+
+        assertThrows(InvalidMimeTypeException.class, () -> presignedUploadController.initiate(upload));
+        verify(fileStorageStrategy, never()).initiateUpload(any(UploadInitiationApi.class));
+    }
+
+    @Test
+    @DisplayName("Test initiating a presigned upload larger than the maximum file size")
+    void testInitiateUploadTooLarge() {
+        UploadInitiationApi upload = new UploadInitiationApi("test.pdf", "application/pdf",
+                DataSize.ofMegabytes(301).toBytes());
+
+        assertThrows(MaxUploadSizeExceededException.class, () -> presignedUploadController.initiate(upload));
+        verify(fileStorageStrategy, never()).initiateUpload(any(UploadInitiationApi.class));
+    }
+
+    @Test
+    @DisplayName("Test initiating a presigned upload without a filename")
+    void testInitiateUploadWithoutFilename() {
+        UploadInitiationApi upload = new UploadInitiationApi("", "application/pdf", 1024L);
+
+        assertThrows(InvalidUploadException.class, () -> presignedUploadController.initiate(upload));
+    }
+
+    @Test
+    @DisplayName("Test completing a verified presigned upload")
+    void testCompleteUploadSuccess() {
+        FileDetailsApi fileDetails = new FileDetailsApi("123", "", AvStatus.NOT_SCANNED, "application/pdf", 1024L,
+                "test.pdf", "2024-01-01T10:00:00Z", null);
+
+        when(fileStorageStrategy.completeUpload("123", "upload-id")).thenReturn(Optional.of(fileDetails));
+
+        ResponseEntity<IdApi> response = presignedUploadController.complete("123", "upload-id");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(new IdApi("123"), response.getBody());
+        verify(fileStorageStrategy, never()).delete(anyString());
+    }
+
+    @Test
+    @DisplayName("Test completing a presigned upload that was never uploaded")
+    void testCompleteUploadNotFound() {
+        when(fileStorageStrategy.completeUpload("123", null)).thenReturn(Optional.empty());
+
+        assertThrows(FileNotFoundException.class, () -> presignedUploadController.complete("123", null));
+        verify(fileStorageStrategy, never()).delete(anyString());
+    }
+
+    @Test
+    @DisplayName("Test completing a presigned upload that fails verification deletes the file")
+    void testCompleteUploadFailsVerification() {
+        FileDetailsApi fileDetails = new FileDetailsApi("123", "", AvStatus.NOT_SCANNED, "application/pdf", 0L,
+                "test.pdf", "2024-01-01T10:00:00Z", null);
+
+        when(fileStorageStrategy.completeUpload("123", null)).thenReturn(Optional.of(fileDetails));
+
+        assertThrows(InvalidUploadException.class, () -> presignedUploadController.complete("123", null));
+        verify(fileStorageStrategy).delete("123");
+    }
+}
@@ -0,0 +1,231 @@
+package uk.gov.companieshouse.filetransferservice.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import uk.gov.companieshouse.api.filetransfer.AvStatus;
+import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
+import uk.gov.companieshouse.api.filetransfer.IdApi;
+import uk.gov.companieshouse.filetransferservice.admission.TransferAdmission;
+import uk.gov.companieshouse.filetransferservice.admission.TransferAdmission.Permit;
+import uk.gov.companieshouse.filetransferservice.exception.FileNotFoundException;
+import uk.gov.companieshouse.filetransferservice.exception.InvalidMimeTypeException;
+import uk.gov.companieshouse.filetransferservice.exception.InvalidUploadException;
+import uk.gov.companieshouse.filetransferservice.exception.TransferRejectedException;
+import uk.gov.companieshouse.filetransferservice.model.ResumableUploadApi;
+import uk.gov.companieshouse.filetransferservice.model.ResumableUploadPartApi;
+import uk.gov.companieshouse.filetransferservice.model.UploadInitiationApi;
+import uk.gov.companieshouse.filetransferservice.service.storage.FileStorageStrategy;
+import uk.gov.companieshouse.filetransferservice.service.storage.ResumableUploadSession;
+import uk.gov.companieshouse.filetransferservice.validation.MimeTypeValidator;
+import uk.gov.companieshouse.logging.Logger;
+
+@ExtendWith(MockitoExtension.class)
+class ResumableUploadControllerTest {
+
+    private static final ResumableUploadSession SESSION = new ResumableUploadSession("123", "upload-id", 3072L,
+            1024L, Instant.parse("2024-01-01T10:00:00Z"));
+
+    @Mock
+    private FileStorageStrategy fileStorageStrategy;
+
+    @Mock
+    private MimeTypeValidator mimeTypeValidator;
+
+    @Mock
+    private Logger logger;
+
+    private final TransferAdmission transferAdmission = new TransferAdmission(new SimpleMeterRegistry(),
+            DataSize.ofKilobytes(4), DataSize.ofKilobytes(4), Duration.ZERO, Duration.ofSeconds(5));
+
+    private ResumableUploadController resumableUploadController;
+
+    @BeforeEach
+    void beforeEach() {
+        resumableUploadController = new ResumableUploadController(fileStorageStrategy, mimeTypeValidator,
+                transferAdmission, logger, DataSize.ofMegabytes(300), DataSize.ofBytes(1024));
+    }
+
+    @Test
+    @DisplayName("Test creating a resumable upload with allowed MIME type")
+    void testCreateSuccess() {
+        UploadInitiationApi upload = new UploadInitiationApi("test.pdf", "application/pdf", 3072L);
+        ResumableUploadApi resumableUpload = resumableUpload(List.of());
+
+        when(fileStorageStrategy.createResumableUpload(upload)).thenReturn(resumableUpload);
+
+        ResponseEntity<ResumableUploadApi> response = resumableUploadController.create(upload);
+
+        verify(mimeTypeValidator).validate("application/pdf");
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(resumableUpload, response.getBody());
+    }
+
+    @Test
+    @DisplayName("Test creating a resumable upload with unsupported MIME type")
+    void testCreateWithUnsupportedMimeType() {
+        doThrow(new InvalidMimeTypeException("invalid")).when(mimeTypeValidator).validate("invalid");
+
+        UploadInitiationApi upload = new UploadInitiationApi("test.txt", "invalid", 1024L);
+
+        assertThrows(InvalidMimeTypeException.class, () -> resumableUploadController.create(upload));
+        verify(fileStorageStrategy, never()).createResumableUpload(any(UploadInitiationApi.class));
+    }
+
+    @Test
+    @DisplayName("Test creating a resumable upload larger than the maximum file size")
+    void testCreateTooLarge() {
+        UploadInitiationApi upload = new UploadInitiationApi("test.pdf", "application/pdf",
+                DataSize.ofMegabytes(301).toBytes());
+
+        assertThrows(MaxUploadSizeExceededException.class, () -> resumableUploadController.create(upload));
+        verify(fileStorageStrategy, never()).createResumableUpload(any(UploadInitiationApi.class));
+    }
+
+    @Test
+    @DisplayName("Test getting a resumable upload lists the parts uploaded")
+    void testGetSuccess() {
+        ResumableUploadApi resumableUpload = resumableUpload(List.of(new ResumableUploadPartApi(1, 1024L)));
+
+        when(fileStorageStrategy.getResumableUpload(SESSION)).thenReturn(Optional.of(resumableUpload));
+
+        ResponseEntity<ResumableUploadApi> response = resumableUploadController.get(SESSION.encode());
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(resumableUpload, response.getBody());
+    }
+
+    @Test
+    @DisplayName("Test getting a resumable upload which has been completed or aborted")
+    void testGetNotFound() {
+        when(fileStorageStrategy.getResumableUpload(SESSION)).thenReturn(Optional.empty());
+
+        String session = SESSION.encode();
+        assertThrows(FileNotFoundException.class, () -> resumableUploadController.get(session));
+    }
+
+    @Test
+    @DisplayName("Test a session which is not a session token is rejected")
+    void testInvalidSession() {
+        assertThrows(InvalidUploadException.class, () -> resumableUploadController.get("not-a-session"));
+        verify(fileStorageStrategy, never()).getResumableUpload(any());
+    }
+
+    @Test
+    @DisplayName("Test a session token altered to another part size is rejected before the upload is read")
+    void testAlteredSessionRejected() {
+        String session = new ResumableUploadSession("123", "upload-id", 3072L, 1L, SESSION.initiated()).encode();
+        InputStream body = new ByteArrayInputStream(new byte[1]);
+
+        assertThrows(InvalidUploadException.class,
+                () -> resumableUploadController.uploadPart(session, 3000, 1L, body));
+        verify(fileStorageStrategy, never()).uploadPart(any(), anyInt(), any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Test uploading a part streams the body to storage")
+    void testUploadPartSuccess() {
+        InputStream body = new ByteArrayInputStream(new byte[1024]);
+
+        when(fileStorageStrategy.uploadPart(SESSION, 2, body, 1024L))
+                .thenReturn(Optional.of(new ResumableUploadPartApi(2, 1024L)));
+
+        ResponseEntity<ResumableUploadPartApi> response = resumableUploadController.uploadPart(SESSION.encode(), 2,
+                1024L, body);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(new ResumableUploadPartApi(2, 1024L), response.getBody());
+    }
+
+    @Test
+    @DisplayName("Test uploading a part of an upload which has been completed or aborted")
+    void testUploadPartNotFound() {
+        InputStream body = new ByteArrayInputStream(new byte[1024]);
+
+        when(fileStorageStrategy.uploadPart(SESSION, 1, body, 1024L)).thenReturn(Optional.empty());
+
+        String session = SESSION.encode();
+        assertThrows(FileNotFoundException.class,
+                () -> resumableUploadController.uploadPart(session, 1, 1024L, body));
+    }
+
+    @Test
+    @DisplayName("Test uploading a part beyond the upload budget is rejected before it is read")
+    void testUploadPartRejected() {
+        InputStream body = new ByteArrayInputStream(new byte[1024]);
+        String session = SESSION.encode();
+
+        try (Permit permit = transferAdmission.admitUpload(DataSize.ofKilobytes(4).toBytes())) {
+            assertThrows(TransferRejectedException.class,
+                    () -> resumableUploadController.uploadPart(session, 1, 1024L, body));
+        }
+
+        verify(fileStorageStrategy, never()).uploadPart(any(), anyInt(), any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Test completing a verified resumable upload")
+    void testCompleteSuccess() {
+        FileDetailsApi fileDetails = new FileDetailsApi("123", "", AvStatus.NOT_SCANNED, "application/pdf", 3072L,
+                "test.pdf", "2024-01-01T10:00:00Z", null);
+
+        when(fileStorageStrategy.completeResumableUpload(SESSION)).thenReturn(Optional.of(fileDetails));
+
+        ResponseEntity<IdApi> response = resumableUploadController.complete(SESSION.encode());
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(new IdApi("123"), response.getBody());
+        verify(fileStorageStrategy, never()).delete(anyString());
+    }
+
+    @Test
+    @DisplayName("Test completing a resumable upload that fails verification deletes the file")
+    void testCompleteFailsVerification() {
+        FileDetailsApi fileDetails = new FileDetailsApi("123", "", AvStatus.NOT_SCANNED, "application/pdf", 3072L,
+                "", "2024-01-01T10:00:00Z", null);
+
+        when(fileStorageStrategy.completeResumableUpload(SESSION)).thenReturn(Optional.of(fileDetails));
+
+        String session = SESSION.encode();
+        assertThrows(InvalidUploadException.class, () -> resumableUploadController.complete(session));
+        verify(fileStorageStrategy).delete("123");
+    }
+
+    @Test
+    @DisplayName("Test aborting a resumable upload")
+    void testAbort() {
+        ResponseEntity<Void> response = resumableUploadController.abort(SESSION.encode());
+
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        verify(fileStorageStrategy).abortResumableUpload(SESSION);
+    }
+
+    private static ResumableUploadApi resumableUpload(final List<ResumableUploadPartApi> parts) {
+        return new ResumableUploadApi("123", SESSION.encode(), 3072L, 1024L, 3, parts, "2024-01-02T10:00:00Z");
+    }
+}
@@ -0,0 +1,59 @@
+package uk.gov.companieshouse.filetransferservice.converter;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
+import uk.gov.companieshouse.filetransferservice.model.FileDownloadApi;
+import uk.gov.companieshouse.filetransferservice.model.legacy.FileApi;
+
+class FileDownloadApiToLegacyJsonConverterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final FileDownloadApiToLegacyJsonConverter underTest =
+            new FileDownloadApiToLegacyJsonConverter(objectMapper);
+
+    @Test
+    @DisplayName("Convert writes the same JSON as the legacy FileApi model")
+    void testConvertMatchesLegacyModel() throws IOException {
+        byte[] content = new byte[100_000];
+        new Random(1).nextBytes(content);
+
+        FileDetailsApi fileDetails = new FileDetailsApi()
+                .id("123")
+                .name("report.final.pdf")
+                .size((long) content.length)
+                .contentType("application/pdf");
+
+        AtomicBoolean closed = new AtomicBoolean();
+        ByteArrayInputStream body = new ByteArrayInputStream(content) {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+        FileDownloadApi fileDownload = new FileDownloadApi("report.final.pdf", body, "application/pdf",
+                content.length, "pdf");
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        underTest.write(fileDetails, fileDownload, outputStream);
+
+        FileApi expected = new FileApi("report.final.pdf", content, "application/pdf", content.length, "pdf");
+        JsonNode actualJson = objectMapper.readTree(outputStream.toByteArray());
+
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsBytes(expected)), actualJson);
+        assertArrayEquals(content, objectMapper.treeToValue(actualJson, FileApi.class).getBody());
+        assertTrue(closed.get());
+    }
+}
@@ -0,0 +1,98 @@
+package uk.gov.companieshouse.filetransferservice.converter;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import uk.gov.companieshouse.filetransferservice.exception.InvalidUploadException;
+import uk.gov.companieshouse.filetransferservice.model.FileUploadApi;
+import uk.gov.companieshouse.filetransferservice.model.legacy.FileApi;
+
+class LegacyJsonToFileUploadApiConverterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private LegacyJsonToFileUploadApiConverter underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new LegacyJsonToFileUploadApiConverter(objectMapper, DataSize.ofBytes(64));
+    }
+
+    @Test
+    @DisplayName("Convert legacy JSON payload decodes the body to a stream")
+    void testConvertLegacyJson() throws IOException {
+        byte[] content = "Hello, World!".getBytes(StandardCharsets.UTF_8);
+        FileApi fileApi = new FileApi("example.txt", content, "text/plain", 999, "txt");
+
+        FileUploadApi result = underTest.convert(toJson(fileApi));
+
+        assertEquals("example.txt", result.getFileName());
+        assertEquals("text/plain", result.getMimeType());
+        assertEquals("txt", result.getExtension());
+        assertEquals(content.length, result.getSize());
+        try (InputStream body = result.getBody()) {
+            assertArrayEquals(content, body.readAllBytes());
+        }
+    }
+
+    @Test
+    @DisplayName("Convert legacy JSON payload ignores unknown fields regardless of order")
+    void testConvertLegacyJsonWithUnknownFields() throws IOException {
+        String json = """
+                {"links": {"self": "/x"}, "body": "SGk=", "unknown": [1, 2], "mime_type": "text/plain",
+                 "file_name": "hi.txt"}""";
+
+        FileUploadApi result = underTest.convert(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("hi.txt", result.getFileName());
+        assertEquals("text/plain", result.getMimeType());
+        try (InputStream body = result.getBody()) {
+            assertArrayEquals("Hi".getBytes(StandardCharsets.UTF_8), body.readAllBytes());
+        }
+    }
+
+    @Test
+    @DisplayName("Convert legacy JSON payload with no body produces an empty stream")
+    void testConvertLegacyJsonWithoutBody() throws IOException {
+        String json = "{\"file_name\": \"empty.txt\", \"mime_type\": \"text/plain\", \"body\": null}";
+
+        FileUploadApi result = underTest.convert(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(0, result.getSize());
+        try (InputStream body = result.getBody()) {
+            assertEquals(0, body.readAllBytes().length);
+        }
+    }
+
+    @Test
+    @DisplayName("Convert legacy JSON payload rejects a body larger than the maximum file size")
+    void testConvertLegacyJsonExceedingMaxSize() throws IOException {
+        FileApi fileApi = new FileApi("big.txt", new byte[65], "text/plain", 65, "txt");
+        InputStream json = toJson(fileApi);
+
+        assertThrows(MaxUploadSizeExceededException.class, () -> underTest.convert(json));
+    }
+
+    @Test
+    @DisplayName("Convert rejects a payload that is not a JSON object")
+    void testConvertNonObject() {
+        InputStream json = new ByteArrayInputStream("[]".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(InvalidUploadException.class, () -> underTest.convert(json));
+    }
+
+    private InputStream toJson(final FileApi fileApi) throws IOException {
+        return new ByteArrayInputStream(objectMapper.writeValueAsBytes(fileApi));
+    }
+}
@@ -6,12 +6,14 @@ import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
@@ -45,6 +47,23 @@ class RestExceptionHandlerTest {
         assertThat(response.getBody().getErrors(), is(List.of(apiError)));
     }
 
+    @Test
+    void testHandleUploadAbortedException() {
+        ResponseEntity<ApiErrorResponse> response = underTest.handleUploadAborted(
+                new UploadAbortedException("fileId", "Part 2 could not be read from the client",
+                        new IOException("Connection reset by peer")));
+
+        ApiError apiError = new ApiError("Upload content could not be read",
+                "file",
+                "body_parameter",
+                "upload"
+        );
+
+        assertThat(response.getStatusCode(), is(HttpStatusCode.valueOf(HttpStatus.BAD_REQUEST.value())));
+        assertThat(response.getBody(), notNullValue());
+        assertThat(response.getBody().getErrors(), is(List.of(apiError)));
+    }
+
     @Test
     void testHandleInvalidMimeTypeException() {
         ResponseEntity<ApiErrorResponse> response = underTest.handleInvalidMimeType(
@@ -61,6 +80,22 @@ class RestExceptionHandlerTest {
         assertThat(response.getBody().getErrors(), is(List.of(apiError)));
     }
 
+    @Test
+    void testHandleInvalidUploadException() {
+        ResponseEntity<ApiErrorResponse> response = underTest.handleInvalidUpload(
+                new InvalidUploadException("fileId", "Uploaded file is empty"));
+
+        ApiError apiError = new ApiError("Uploaded file is empty",
+                "file",
+                "body_parameter",
+                "validation"
+        );
+
+        assertThat(response.getStatusCode(), is(HttpStatusCode.valueOf(HttpStatus.BAD_REQUEST.value())));
+        assertThat(response.getBody(), notNullValue());
+        assertThat(response.getBody().getErrors(), is(List.of(apiError)));
+    }
+
     @Test
     void testHandleFileNotCleanException() {
         ResponseEntity<ApiErrorResponse> response = underTest.handleFileNotCleanException(
@@ -93,6 +128,88 @@ class RestExceptionHandlerTest {
         assertThat(response.getBody().getErrors(), is(List.of(apiError)));
     }
 
+    @Test
+    void testHandleTransferRejectedException() {
+        ResponseEntity<ApiErrorResponse> response = underTest.handleTransferRejected(
+                new TransferRejectedException("Too many downloads in progress", Duration.ofSeconds(5)));
+
+        ApiError apiError = new ApiError("Service is busy, retry later",
+                "transfer",
+                "resource",
+                "admission"
+        );
+
+        assertThat(response.getStatusCode(), is(HttpStatusCode.valueOf(HttpStatus.SERVICE_UNAVAILABLE.value())));
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER), is("5"));
+        assertThat(response.getBody(), notNullValue());
+        assertThat(response.getBody().getErrors(), is(List.of(apiError)));
+    }
+
+    @Test
+    void testHandleS3UnavailableException() {
+        ResponseEntity<ApiErrorResponse> response = underTest.handleS3Unavailable(
+                new S3UnavailableException("S3 head calls are failing", Duration.ofSeconds(8)));
+
+        ApiError apiError = new ApiError("Storage is unavailable, retry later",
+                "storage",
+                "resource",
+                "circuit_breaker"
+        );
+
+        assertThat(response.getStatusCode(), is(HttpStatusCode.valueOf(HttpStatus.SERVICE_UNAVAILABLE.value())));
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER), is("8"));
+        assertThat(response.getBody(), notNullValue());
+        assertThat(response.getBody().getErrors(), is(List.of(apiError)));
+    }
+
+    @Test
+    void testHandleDeadlineExceededException() {
+        ResponseEntity<ApiErrorResponse> response = underTest.handleDeadlineExceeded(
+                new DeadlineExceededException("Request deadline passed before S3 head call"));
+
+        ApiError apiError = new ApiError("Request deadline passed before the request completed",
+                "X-Request-Timeout",
+                "header",
+                "deadline"
+        );
+
+        assertThat(response.getStatusCode(), is(HttpStatusCode.valueOf(HttpStatus.GATEWAY_TIMEOUT.value())));
+        assertThat(response.getBody(), notNullValue());
+        assertThat(response.getBody().getErrors(), is(List.of(apiError)));
+    }
+
+    @Test
+    void testHandleInvalidRequestException() {
+        ResponseEntity<ApiErrorResponse> response = underTest.handleInvalidRequest(
+                new InvalidRequestException("fileIds", "At most 100 files can be listened for"));
+
+        ApiError apiError = new ApiError("At most 100 files can be listened for",
+                "fileIds",
+                "query_parameter",
+                "validation"
+        );
+
+        assertThat(response.getStatusCode(), is(HttpStatusCode.valueOf(HttpStatus.BAD_REQUEST.value())));
+        assertThat(response.getBody(), notNullValue());
+        assertThat(response.getBody().getErrors(), is(List.of(apiError)));
+    }
+
+    @Test
+    void testHandleIdempotencyConflictException() {
+        ResponseEntity<ApiErrorResponse> response = underTest.handleIdempotencyConflict(
+                new IdempotencyConflictException("123"));
+
+        ApiError apiError = new ApiError("Idempotency-Key was already used for a different file",
+                "Idempotency-Key",
+                "header",
+                "idempotency"
+        );
+
+        assertThat(response.getStatusCode(), is(HttpStatusCode.valueOf(HttpStatus.UNPROCESSABLE_ENTITY.value())));
+        assertThat(response.getBody(), notNullValue());
+        assertThat(response.getBody().getErrors(), is(List.of(apiError)));
+    }
+
     @Test
     void testHandleMaxUploadSizeExceededException() {
         ResponseEntity<?> response = underTest.handleMaxUploadSizeExceededException(
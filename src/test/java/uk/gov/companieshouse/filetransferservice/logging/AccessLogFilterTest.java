@@ -0,0 +1,151 @@
+package uk.gov.companieshouse.filetransferservice.logging;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import jakarta.servlet.ServletException;
+import java.io.IOException;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+import uk.gov.companieshouse.logging.Logger;
+
+@ExtendWith(MockitoExtension.class)
+class AccessLogFilterTest {
+
+    private static final String REQUEST_ID = "request-id";
+
+    @Mock
+    private Logger logger;
+
+    @Captor
+    private ArgumentCaptor<Map<String, Object>> dataCaptor;
+
+    private AccessLogFilter underTest;
+
+    @AfterEach
+    void tearDown() {
+        underTest.destroy();
+    }
+
+    @Test
+    @DisplayName("Test a request is logged once with its status, route and headers")
+    void testRequestLogged() throws ServletException, IOException {
+        underTest = createFilter(1.0);
+        MockHttpServletRequest request = createRequest();
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/file-transfer-service/{fileId}");
+        request.addHeader("Accept", "application/json");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        underTest.doFilter(request, response, (filterRequest, filterResponse) ->
+                ((MockHttpServletResponse) filterResponse).setStatus(200));
+
+        verify(logger, timeout(1000)).infoContext(eq(REQUEST_ID), anyString(), dataCaptor.capture());
+        Map<String, Object> data = dataCaptor.getValue();
+        assertThat(data, hasEntry("method", "GET"));
+        assertThat(data, hasEntry("path", "/file-transfer-service/123"));
+        assertThat(data, hasEntry("route", "/file-transfer-service/{fileId}"));
+        assertThat(data, hasEntry("status", 200));
+        assertThat(data, hasEntry("accept", "application/json"));
+        assertThat(data, not(hasKey("content_type")));
+        assertThat(data, hasKey("duration_ms"));
+    }
+
+    @Test
+    @DisplayName("Test a successful request which is not sampled is not logged")
+    void testSuccessNotSampled() throws ServletException, IOException {
+        underTest = createFilter(0.0);
+
+        underTest.doFilter(createRequest(), new MockHttpServletResponse(), (filterRequest, filterResponse) -> {
+        });
+
+        verify(logger, after(200).never()).infoContext(anyString(), anyString(), anyMap());
+    }
+
+    @Test
+    @DisplayName("Test an error response is always logged")
+    void testErrorAlwaysLogged() throws ServletException, IOException {
+        underTest = createFilter(0.0);
+
+        underTest.doFilter(createRequest(), new MockHttpServletResponse(), (filterRequest, filterResponse) ->
+                ((MockHttpServletResponse) filterResponse).setStatus(404));
+
+        verify(logger, timeout(1000)).infoContext(eq(REQUEST_ID), anyString(), dataCaptor.capture());
+        assertThat(dataCaptor.getValue(), hasEntry("status", 404));
+    }
+
+    @Test
+    @DisplayName("Test a request which fails is logged as an error")
+    void testFailureLoggedAsError() {
+        underTest = createFilter(0.0);
+        IllegalStateException failure = new IllegalStateException("failed");
+
+        assertThrows(IllegalStateException.class, () -> underTest.doFilter(createRequest(),
+                new MockHttpServletResponse(), (filterRequest, filterResponse) -> {
+                    throw failure;
+                }));
+
+        verify(logger, timeout(1000)).error(anyString(), eq(failure), dataCaptor.capture());
+        assertThat(dataCaptor.getValue(), hasEntry("status", 500));
+    }
+
+    @Test
+    @DisplayName("Test an asynchronous request is logged when it completes")
+    void testAsyncRequestLoggedOnComplete() throws ServletException, IOException {
+        underTest = createFilter(1.0);
+        MockHttpServletRequest request = createRequest();
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        underTest.doFilter(request, response, (filterRequest, filterResponse) ->
+                filterRequest.startAsync());
+
+        verify(logger, after(200).never()).infoContext(anyString(), anyString(), anyMap());
+
+        request.getAsyncContext().complete();
+
+        verify(logger, timeout(1000)).infoContext(eq(REQUEST_ID), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Test the health check is not logged")
+    void testHealthCheckNotLogged() throws ServletException, IOException {
+        underTest = createFilter(1.0);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/file-transfer-service/healthcheck");
+
+        underTest.doFilter(request, new MockHttpServletResponse(), (filterRequest, filterResponse) -> {
+        });
+
+        verify(logger, after(200).never()).info(anyString(), anyMap());
+    }
+
+    private AccessLogFilter createFilter(final double sampleRate) {
+        return new AccessLogFilter(logger, sampleRate,
+                "/file-transfer-service/healthcheck", "/file-transfer-service/prometheus");
+    }
+
+    private static MockHttpServletRequest createRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/file-transfer-service/123");
+        request.addHeader(AccessLogFilter.REQUEST_ID_HEADER, REQUEST_ID);
+        return request;
+    }
+}
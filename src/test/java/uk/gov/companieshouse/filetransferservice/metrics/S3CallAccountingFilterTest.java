@@ -0,0 +1,90 @@
+package uk.gov.companieshouse.filetransferservice.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import java.io.IOException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+class S3CallAccountingFilterTest {
+
+    private SimpleMeterRegistry registry;
+    private TransferMetrics transferMetrics;
+    private S3CallAccountingFilter underTest;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        transferMetrics = new TransferMetrics(registry);
+        underTest = new S3CallAccountingFilter(transferMetrics);
+    }
+
+    @Test
+    @DisplayName("Test the S3 calls made before the body is written are in the Server-Timing header and metrics")
+    void testServerTimingHeaderAndMetrics() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/file-transfer-service/123");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/file-transfer-service/{fileId}");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        underTest.doFilter(request, response, (filterRequest, filterResponse) -> {
+            RequestContextHolder.setRequestAttributes(
+                    new ServletRequestAttributes((MockHttpServletRequest) filterRequest));
+            try {
+                transferMetrics.recordS3Call(S3Operation.GET, () -> "object");
+                transferMetrics.recordS3Call(S3Operation.TAGGING, () -> "tags");
+            } finally {
+                RequestContextHolder.resetRequestAttributes();
+            }
+
+            filterResponse.getOutputStream().write("{}".getBytes());
+
+            // Calls made once the body is being written are too late for the header
+            S3CallAccounting.of(filterRequest).orElseThrow().recordCall(1);
+        });
+
+        String serverTiming = response.getHeader(S3CallAccountingFilter.SERVER_TIMING_HEADER);
+        assertTrue(serverTiming.startsWith("s3;desc=\"2 calls\";dur="), serverTiming);
+
+        DistributionSummary calls = registry.get(TransferMetrics.REQUEST_S3_CALLS)
+                .tag(TransferMetrics.METHOD_TAG, "GET")
+                .tag(TransferMetrics.URI_TAG, "/file-transfer-service/{fileId}")
+                .summary();
+        assertEquals(1, calls.count());
+        assertEquals(3, calls.totalAmount());
+    }
+
+    @Test
+    @DisplayName("Test a response without a body still has the Server-Timing header")
+    void testServerTimingHeaderWithoutBody() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("DELETE", "/file-transfer-service/123");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        underTest.doFilter(request, response, (filterRequest, filterResponse) ->
+                response.setStatus(204));
+
+        assertEquals("s3;desc=\"0 calls\";dur=0.0", response.getHeader(S3CallAccountingFilter.SERVER_TIMING_HEADER));
+        assertEquals(0, registry.get(TransferMetrics.REQUEST_S3_CALLS)
+                .tag(TransferMetrics.URI_TAG, "UNKNOWN")
+                .summary().totalAmount());
+    }
+
+    @Test
+    @DisplayName("Test S3 calls outside a request are not accounted")
+    void testNoAccountingOutsideRequest() {
+        transferMetrics.recordS3Call(S3Operation.HEAD, () -> "head");
+
+        assertNull(RequestContextHolder.getRequestAttributes());
+        assertTrue(S3CallAccounting.current().isEmpty());
+    }
+}
@@ -0,0 +1,116 @@
+package uk.gov.companieshouse.filetransferservice.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.metrics.CoreMetric;
+import software.amazon.awssdk.http.HttpMetric;
+import software.amazon.awssdk.metrics.MetricCollector;
+import software.amazon.awssdk.metrics.MetricPublisher;
+import uk.gov.companieshouse.filetransferservice.admission.S3Lane;
+
+class S3ClientMetricPublisherTest {
+
+    private SimpleMeterRegistry registry;
+    private MetricPublisher underTest;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        underTest = new S3ClientMetricPublisher(registry).forLane(S3Lane.LARGE_TRANSFER);
+    }
+
+    @Test
+    @DisplayName("Test a throttled and retried call publishes call, attempt, retry, error and pool metrics")
+    void testPublishRetriedCall() {
+        MetricCollector apiCall = MetricCollector.create("ApiCall");
+        apiCall.reportMetric(CoreMetric.OPERATION_NAME, "GetObject");
+        apiCall.reportMetric(CoreMetric.API_CALL_DURATION, Duration.ofMillis(300));
+        apiCall.reportMetric(CoreMetric.API_CALL_SUCCESSFUL, true);
+        apiCall.reportMetric(CoreMetric.RETRY_COUNT, 1);
+
+        MetricCollector throttledAttempt = apiCall.createChild("ApiCallAttempt");
+        throttledAttempt.reportMetric(CoreMetric.SERVICE_CALL_DURATION, Duration.ofMillis(100));
+        throttledAttempt.reportMetric(CoreMetric.ERROR_TYPE, "Throttling");
+        reportConnectionPool(throttledAttempt.createChild("HttpClient"), 49, 1, 3, Duration.ofMillis(40));
+
+        MetricCollector successfulAttempt = apiCall.createChild("ApiCallAttempt");
+        successfulAttempt.reportMetric(CoreMetric.SERVICE_CALL_DURATION, Duration.ofMillis(150));
+        reportConnectionPool(successfulAttempt.createChild("HttpClient"), 50, 0, 0, Duration.ofMillis(2));
+
+        underTest.publish(apiCall.collect());
+
+        assertEquals(300, registry.get(S3ClientMetricPublisher.CALLS)
+                .tag(S3ClientMetricPublisher.LANE_TAG, "large-transfer")
+                .tag(S3ClientMetricPublisher.OPERATION_TAG, "GetObject")
+                .tag(S3ClientMetricPublisher.SUCCESSFUL_TAG, "true")
+                .timer().totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(2, registry.get(S3ClientMetricPublisher.ATTEMPTS).timer().count());
+        assertEquals(1, registry.get(S3ClientMetricPublisher.RETRIES).counter().count());
+        assertEquals(1, registry.get(S3ClientMetricPublisher.ERRORS)
+                .tag(S3ClientMetricPublisher.TYPE_TAG, "Throttling")
+                .counter().count());
+        assertEquals(2, acquire("large-transfer").count());
+        assertEquals(42, acquire("large-transfer").totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(0, acquire("metadata").count());
+
+        // The pool gauges show the most recently published attempt
+        assertEquals(50, concurrency("max"));
+        assertEquals(0, registry.get(S3ClientMetricPublisher.CONCURRENCY)
+                .tag(S3ClientMetricPublisher.LANE_TAG, "metadata")
+                .tag(S3ClientMetricPublisher.STATE_TAG, "max")
+                .gauge().value());
+        assertEquals(50, concurrency("leased"));
+        assertEquals(0, concurrency("available"));
+        assertEquals(0, concurrency("pending"));
+    }
+
+    @Test
+    @DisplayName("Test a call without retries or errors records no retries or errors")
+    void testPublishSuccessfulCall() {
+        MetricCollector apiCall = MetricCollector.create("ApiCall");
+        apiCall.reportMetric(CoreMetric.OPERATION_NAME, "HeadObject");
+        apiCall.reportMetric(CoreMetric.API_CALL_DURATION, Duration.ofMillis(20));
+        apiCall.reportMetric(CoreMetric.API_CALL_SUCCESSFUL, true);
+        apiCall.reportMetric(CoreMetric.RETRY_COUNT, 0);
+        apiCall.createChild("ApiCallAttempt").reportMetric(CoreMetric.SERVICE_CALL_DURATION, Duration.ofMillis(18));
+
+        underTest.publish(apiCall.collect());
+
+        assertEquals(1, registry.get(S3ClientMetricPublisher.CALLS)
+                .tag(S3ClientMetricPublisher.OPERATION_TAG, "HeadObject")
+                .timer().count());
+        assertNull(registry.find(S3ClientMetricPublisher.RETRIES).counter());
+        assertNull(registry.find(S3ClientMetricPublisher.ERRORS).counter());
+        assertEquals(0, acquire("large-transfer").count());
+    }
+
+    private static void reportConnectionPool(final MetricCollector httpClient, final int leased,
+            final int available, final int pending, final Duration acquireDuration) {
+        httpClient.reportMetric(HttpMetric.MAX_CONCURRENCY, 50);
+        httpClient.reportMetric(HttpMetric.LEASED_CONCURRENCY, leased);
+        httpClient.reportMetric(HttpMetric.AVAILABLE_CONCURRENCY, available);
+        httpClient.reportMetric(HttpMetric.PENDING_CONCURRENCY_ACQUIRES, pending);
+        httpClient.reportMetric(HttpMetric.CONCURRENCY_ACQUIRE_DURATION, acquireDuration);
+    }
+
+    private double concurrency(final String state) {
+        return registry.get(S3ClientMetricPublisher.CONCURRENCY)
+                .tag(S3ClientMetricPublisher.LANE_TAG, "large-transfer")
+                .tag(S3ClientMetricPublisher.STATE_TAG, state)
+                .gauge().value();
+    }
+
+    private Timer acquire(final String lane) {
+        return registry.get(S3ClientMetricPublisher.ACQUIRE)
+                .tag(S3ClientMetricPublisher.LANE_TAG, lane)
+                .timer();
+    }
+}
@@ -0,0 +1,174 @@
+package uk.gov.companieshouse.filetransferservice.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import software.amazon.awssdk.core.exception.AbortedException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+class TransferMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private TransferMetrics underTest;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        underTest = new TransferMetrics(registry);
+    }
+
+    @Test
+    @DisplayName("Test a successful S3 call is timed with its operation and outcome")
+    void testRecordS3CallSuccess() {
+        String result = underTest.recordS3Call(S3Operation.GET, () -> "result");
+
+        assertEquals("result", result);
+        assertEquals(1, s3Timer("get", "SUCCESS").count());
+    }
+
+    @Test
+    @DisplayName("Test failed S3 calls are timed with an outcome for the failure")
+    void testRecordS3CallFailures() {
+        assertThrows(NoSuchKeyException.class, () -> underTest.recordS3Call(S3Operation.HEAD, () -> {
+            throw NoSuchKeyException.builder().statusCode(404).build();
+        }));
+        assertThrows(S3Exception.class, () -> underTest.recordS3Call(S3Operation.HEAD, () -> {
+            throw S3Exception.builder().statusCode(500).build();
+        }));
+        assertThrows(S3Exception.class, () -> underTest.recordS3Call(S3Operation.HEAD, () -> {
+            throw S3Exception.builder().statusCode(403).build();
+        }));
+        assertThrows(SdkClientException.class, () -> underTest.recordS3Call(S3Operation.HEAD, () -> {
+            throw SdkClientException.create("Connection reset");
+        }));
+        assertThrows(AbortedException.class, () -> underTest.recordS3Call(S3Operation.HEAD, () -> {
+            throw AbortedException.create("Thread was interrupted");
+        }));
+
+        assertEquals(1, s3Timer("head", "NOT_FOUND").count());
+        assertEquals(1, s3Timer("head", "SERVER_ERROR").count());
+        assertEquals(1, s3Timer("head", "CLIENT_ERROR").count());
+        assertEquals(1, s3Timer("head", "CONNECTION_ERROR").count());
+        assertEquals(1, s3Timer("head", "CANCELLED").count());
+    }
+
+    @Test
+    @DisplayName("Test a successful upload is timed and its bytes counted")
+    void testRecordUpload() {
+        underTest.recordUpload(1024, () -> {
+            assertEquals(1, inFlight(TransferMetrics.UPLOAD));
+            return null;
+        });
+
+        assertEquals(1, s3Timer("put", "SUCCESS").count());
+        assertEquals(1024, bytes(TransferMetrics.UPLOAD));
+        assertEquals(1024, size(TransferMetrics.UPLOAD).totalAmount());
+        assertEquals(0, inFlight(TransferMetrics.UPLOAD));
+    }
+
+    @Test
+    @DisplayName("Test a failed upload is not counted as transferred")
+    void testRecordUploadFailure() {
+        assertThrows(SdkClientException.class, () -> underTest.recordUpload(1024, () -> {
+            throw SdkClientException.create("Connection reset");
+        }));
+
+        assertEquals(1, s3Timer("put", "CONNECTION_ERROR").count());
+        assertEquals(0, bytes(TransferMetrics.UPLOAD));
+        assertEquals(0, size(TransferMetrics.UPLOAD).count());
+        assertEquals(0, inFlight(TransferMetrics.UPLOAD));
+    }
+
+    @Test
+    @DisplayName("Test an uploaded part is timed as a part and its bytes counted, but not its size")
+    void testRecordUploadPart() {
+        underTest.recordUploadPart(1024, () -> {
+            assertEquals(1, inFlight(TransferMetrics.UPLOAD));
+            return null;
+        });
+
+        assertEquals(1, s3Timer("upload_part", "SUCCESS").count());
+        assertEquals(1024, bytes(TransferMetrics.UPLOAD));
+        assertEquals(0, size(TransferMetrics.UPLOAD).count());
+        assertEquals(0, inFlight(TransferMetrics.UPLOAD));
+    }
+
+    @Test
+    @DisplayName("Test a download counts the bytes read and is in flight until closed")
+    void testMeterDownload() throws IOException {
+        InputStream download = underTest.meterDownload(new ByteArrayInputStream(new byte[100]));
+
+        assertEquals(1, inFlight(TransferMetrics.DOWNLOAD));
+        download.read();
+        download.readNBytes(49);
+
+        download.close();
+        download.close();
+
+        assertEquals(50, bytes(TransferMetrics.DOWNLOAD));
+        assertEquals(1, size(TransferMetrics.DOWNLOAD).count());
+        assertEquals(50, size(TransferMetrics.DOWNLOAD).totalAmount());
+        assertEquals(0, inFlight(TransferMetrics.DOWNLOAD));
+    }
+
+    @Test
+    @DisplayName("Test S3 calls and bytes are added to the current request's accounting")
+    void testRequestAccounting() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        S3CallAccounting accounting = new S3CallAccounting();
+        request.setAttribute(S3CallAccounting.ATTRIBUTE, accounting);
+
+        InputStream download;
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        try {
+            underTest.recordUpload(1024, () -> null);
+            underTest.recordS3Call(S3Operation.GET, () -> null);
+            download = underTest.meterDownload(new ByteArrayInputStream(new byte[100]));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        // Download content is usually streamed from another thread
+        download.readAllBytes();
+        download.close();
+
+        assertEquals(2, accounting.getCalls());
+        assertEquals(1124, accounting.getBytes());
+    }
+
+    private Timer s3Timer(final String operation, final String outcome) {
+        Timer timer = registry.find(TransferMetrics.S3_REQUESTS)
+                .tag(TransferMetrics.OPERATION_TAG, operation)
+                .tag(TransferMetrics.OUTCOME_TAG, outcome)
+                .timer();
+        assertNotNull(timer);
+        return timer;
+    }
+
+    private double bytes(final String direction) {
+        return registry.get(TransferMetrics.BYTES).tag(TransferMetrics.DIRECTION_TAG, direction).counter().count();
+    }
+
+    private DistributionSummary size(final String direction) {
+        return registry.get(TransferMetrics.SIZE).tag(TransferMetrics.DIRECTION_TAG, direction).summary();
+    }
+
+    private double inFlight(final String direction) {
+        return registry.get(TransferMetrics.IN_FLIGHT).tag(TransferMetrics.DIRECTION_TAG, direction).gauge().value();
+    }
+}
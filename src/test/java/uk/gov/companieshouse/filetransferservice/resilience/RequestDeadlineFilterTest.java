@@ -0,0 +1,107 @@
+package uk.gov.companieshouse.filetransferservice.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jakarta.servlet.ServletException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+class RequestDeadlineFilterTest {
+
+    private final RequestDeadlineFilter underTest = new RequestDeadlineFilter();
+
+    @Test
+    @DisplayName("Test a request with a timeout header has a deadline for the time given")
+    void testDeadlineFromHeader() throws ServletException, IOException {
+        MockHttpServletRequest request = createRequest();
+        request.addHeader(RequestDeadlineFilter.TIMEOUT_HEADER, "5000");
+
+        Optional<RequestDeadline> deadline = filter(request);
+
+        assertTrue(deadline.isPresent());
+        Duration remaining = deadline.get().remaining();
+        assertTrue(remaining.compareTo(Duration.ofSeconds(4)) > 0 && remaining.compareTo(Duration.ofSeconds(5)) <= 0,
+                remaining::toString);
+        assertFalse(deadline.get().isExpired());
+    }
+
+    @Test
+    @DisplayName("Test a request without a timeout header has no deadline")
+    void testNoDeadlineWithoutHeader() throws ServletException, IOException {
+        assertTrue(filter(createRequest()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test a timeout header which is not a positive number of milliseconds is ignored")
+    void testInvalidHeaderIgnored() throws ServletException, IOException {
+        for (String header : new String[] {"soon", "-1", "0", "1.5", "99999999999999999999",
+                Long.toString(Long.MIN_VALUE)}) {
+            MockHttpServletRequest request = createRequest();
+            request.addHeader(RequestDeadlineFilter.TIMEOUT_HEADER, header);
+
+            assertTrue(filter(request).isEmpty(), header);
+        }
+    }
+
+    @Test
+    @DisplayName("Test a timeout header too long for a deadline in nanoseconds is cut to the maximum")
+    void testHugeTimeoutClamped() throws ServletException, IOException {
+        MockHttpServletRequest request = createRequest();
+        request.addHeader(RequestDeadlineFilter.TIMEOUT_HEADER, Long.toString(Long.MAX_VALUE));
+
+        Optional<RequestDeadline> deadline = filter(request);
+
+        assertTrue(deadline.isPresent());
+        Duration remaining = deadline.get().remaining();
+        assertTrue(remaining.compareTo(RequestDeadline.MAX_TIMEOUT.minusSeconds(1)) > 0
+                && remaining.compareTo(RequestDeadline.MAX_TIMEOUT) <= 0, remaining::toString);
+        assertFalse(deadline.get().isExpired());
+    }
+
+    @Test
+    @DisplayName("Test a deadline which has long passed has expired")
+    void testLongPassedDeadlineExpired() {
+        RequestDeadline deadline = RequestDeadline.after(Duration.ofSeconds(Long.MIN_VALUE));
+
+        assertTrue(deadline.isExpired());
+        assertTrue(deadline.remaining().isNegative());
+    }
+
+    @Test
+    @DisplayName("Test a deadline has expired once its time has passed")
+    void testDeadlineExpires() {
+        RequestDeadline deadline = RequestDeadline.after(Duration.ofMillis(-1));
+
+        assertTrue(deadline.isExpired());
+        assertTrue(deadline.remaining().isNegative());
+    }
+
+    private Optional<RequestDeadline> filter(final MockHttpServletRequest request)
+            throws ServletException, IOException {
+        AtomicReference<Optional<RequestDeadline>> deadline = new AtomicReference<>();
+
+        underTest.doFilter(request, new MockHttpServletResponse(), (filterRequest, filterResponse) -> {
+            RequestContextHolder.setRequestAttributes(
+                    new ServletRequestAttributes((MockHttpServletRequest) filterRequest));
+            try {
+                deadline.set(RequestDeadline.current());
+            } finally {
+                RequestContextHolder.resetRequestAttributes();
+            }
+        });
+        return deadline.get();
+    }
+
+    private static MockHttpServletRequest createRequest() {
+        return new MockHttpServletRequest("GET", "/file-transfer-service/123");
+    }
+}
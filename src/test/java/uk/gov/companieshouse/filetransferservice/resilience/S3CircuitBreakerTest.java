@@ -0,0 +1,147 @@
+package uk.gov.companieshouse.filetransferservice.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import uk.gov.companieshouse.filetransferservice.exception.S3UnavailableException;
+import uk.gov.companieshouse.filetransferservice.metrics.S3Operation;
+import uk.gov.companieshouse.filetransferservice.resilience.S3CircuitBreaker.State;
+
+class S3CircuitBreakerTest {
+
+    private SimpleMeterRegistry registry;
+    private S3CircuitBreaker underTest;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        underTest = createCircuitBreaker(Duration.ofSeconds(10));
+    }
+
+    @Test
+    @DisplayName("Test the circuit opens once enough calls fail, and then rejects calls without making them")
+    void testOpensOnFailureRate() {
+        failCalls(S3Operation.HEAD, 4);
+        assertEquals(State.CLOSED, underTest.getState(S3Operation.HEAD));
+
+        failCalls(S3Operation.HEAD, 1);
+        assertEquals(State.OPEN, underTest.getState(S3Operation.HEAD));
+
+        AtomicInteger calls = new AtomicInteger();
+        S3UnavailableException e = assertThrows(S3UnavailableException.class,
+                () -> underTest.call(S3Operation.HEAD, calls::incrementAndGet));
+        assertEquals(0, calls.get());
+        assertTrue(e.getRetryAfter().toSeconds() >= 1);
+        assertEquals(1, registry.get(S3CircuitBreaker.REJECTED)
+                .tag(S3CircuitBreaker.OPERATION_TAG, S3Operation.HEAD.getTagValue())
+                .counter().count());
+        assertEquals(2, registry.get(S3CircuitBreaker.STATE)
+                .tag(S3CircuitBreaker.OPERATION_TAG, S3Operation.HEAD.getTagValue())
+                .gauge().value());
+    }
+
+    @Test
+    @DisplayName("Test each operation has its own circuit")
+    void testOperationsHaveOwnCircuits() {
+        failCalls(S3Operation.TAGGING, 5);
+
+        assertEquals(State.OPEN, underTest.getState(S3Operation.TAGGING));
+        assertEquals(State.CLOSED, underTest.getState(S3Operation.DELETE));
+        assertEquals("deleted", underTest.call(S3Operation.DELETE, () -> "deleted"));
+        assertEquals(Set.of(S3Operation.TAGGING), underTest.getUnavailableOperations());
+    }
+
+    @Test
+    @DisplayName("Test client errors do not open the circuit")
+    void testClientErrorsNotFailures() {
+        for (int i = 0; i < 10; i++) {
+            assertThrows(NoSuchKeyException.class, () -> underTest.call(S3Operation.HEAD, () -> {
+                throw NoSuchKeyException.builder().statusCode(404).build();
+            }));
+        }
+
+        assertEquals(State.CLOSED, underTest.getState(S3Operation.HEAD));
+    }
+
+    @Test
+    @DisplayName("Test the circuit opens when most calls are slow")
+    void testOpensOnSlowCallRate() {
+        for (int i = 0; i < 5; i++) {
+            underTest.call(S3Operation.HEAD, () -> sleep(30));
+        }
+
+        assertEquals(State.OPEN, underTest.getState(S3Operation.HEAD));
+    }
+
+    @Test
+    @DisplayName("Test slow uploads do not open the circuit")
+    void testSlowUploadsNotSlowCalls() {
+        for (int i = 0; i < 5; i++) {
+            underTest.call(S3Operation.PUT, () -> sleep(30));
+        }
+
+        assertEquals(State.CLOSED, underTest.getState(S3Operation.PUT));
+    }
+
+    @Test
+    @DisplayName("Test the circuit half opens after the open duration and closes when its probes succeed")
+    void testClosesAfterProbesSucceed() {
+        underTest = createCircuitBreaker(Duration.ZERO);
+        failCalls(S3Operation.HEAD, 5);
+
+        assertEquals(State.HALF_OPEN, underTest.getState(S3Operation.HEAD));
+        underTest.call(S3Operation.HEAD, () -> "probe");
+        assertEquals(State.HALF_OPEN, underTest.getState(S3Operation.HEAD));
+        underTest.call(S3Operation.HEAD, () -> "probe");
+
+        assertEquals(State.CLOSED, underTest.getState(S3Operation.HEAD));
+    }
+
+    @Test
+    @DisplayName("Test a half open circuit opens again when a probe fails")
+    void testReopensWhenProbeFails() {
+        underTest = createCircuitBreaker(Duration.ofMillis(20));
+        failCalls(S3Operation.HEAD, 5);
+        sleep(30);
+
+        assertEquals(State.HALF_OPEN, underTest.getState(S3Operation.HEAD));
+        failCalls(S3Operation.HEAD, 1);
+
+        assertEquals(State.OPEN, underTest.getState(S3Operation.HEAD));
+    }
+
+    private void failCalls(final S3Operation operation, final int calls) {
+        for (int i = 0; i < calls; i++) {
+            int attempt = i;
+            assertThrows(RuntimeException.class, () -> underTest.call(operation, () -> {
+                throw attempt % 2 == 0
+                        ? S3Exception.builder().statusCode(503).build()
+                        : SdkClientException.create("Unable to connect");
+            }));
+        }
+    }
+
+    private S3CircuitBreaker createCircuitBreaker(final Duration openDuration) {
+        return new S3CircuitBreaker(registry, 10, 5, 0.5, Duration.ofMillis(20), 0.8, openDuration, 2);
+    }
+
+    private static Object sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+}
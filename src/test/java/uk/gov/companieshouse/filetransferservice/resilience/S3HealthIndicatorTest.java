@@ -0,0 +1,45 @@
+package uk.gov.companieshouse.filetransferservice.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+import java.util.EnumSet;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import uk.gov.companieshouse.filetransferservice.metrics.S3Operation;
+
+@ExtendWith(MockitoExtension.class)
+class S3HealthIndicatorTest {
+
+    @Mock
+    private S3CircuitBreaker circuitBreaker;
+
+    @InjectMocks
+    private S3HealthIndicator underTest;
+
+    @Test
+    @DisplayName("Test S3 is up while every circuit is closed")
+    void testUpWhenClosed() {
+        when(circuitBreaker.getUnavailableOperations()).thenReturn(EnumSet.noneOf(S3Operation.class));
+
+        assertEquals(Status.UP, underTest.health().getStatus());
+    }
+
+    @Test
+    @DisplayName("Test S3 is degraded while a circuit is not closed")
+    void testDegradedWhenOpen() {
+        when(circuitBreaker.getUnavailableOperations()).thenReturn(EnumSet.of(S3Operation.HEAD));
+
+        Health health = underTest.health();
+
+        assertEquals(S3HealthIndicator.DEGRADED, health.getStatus());
+        assertEquals(List.of("head"), health.getDetails().get("unavailableOperations"));
+    }
+}
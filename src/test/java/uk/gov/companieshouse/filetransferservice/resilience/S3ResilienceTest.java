@@ -0,0 +1,281 @@
+package uk.gov.companieshouse.filetransferservice.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import software.amazon.awssdk.core.exception.AbortedException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import uk.gov.companieshouse.filetransferservice.admission.AdaptiveConcurrencyLimiter;
+import uk.gov.companieshouse.filetransferservice.admission.S3Lane;
+import uk.gov.companieshouse.filetransferservice.config.properties.S3LaneProperties;
+import uk.gov.companieshouse.filetransferservice.metrics.S3Operation;
+
+class S3ResilienceTest {
+
+    private SimpleMeterRegistry registry;
+    private S3Resilience underTest;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        underTest = createResilience(3, 20);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        underTest.destroy();
+    }
+
+    @Test
+    @DisplayName("Test a call which S3 fails with a server error is retried")
+    void testServerErrorRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = underTest.call(S3Operation.DELETE, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw S3Exception.builder().statusCode(503).build();
+            }
+            return "deleted";
+        });
+
+        assertEquals("deleted", result);
+        assertEquals(2, attempts.get());
+        assertEquals(1, registry.get(S3Resilience.RETRIES)
+                .tag(S3Resilience.OPERATION_TAG, S3Operation.DELETE.getTagValue())
+                .counter().count());
+    }
+
+    @Test
+    @DisplayName("Test a call which fails to connect is retried up to the maximum attempts")
+    void testRetriedUpToMaxAttempts() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(SdkClientException.class, () -> underTest.call(S3Operation.DELETE, () -> {
+            attempts.incrementAndGet();
+            throw SdkClientException.create("Unable to connect");
+        }));
+
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    @DisplayName("Test a call which S3 rejects as a client error is not retried")
+    void testClientErrorNotRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(NoSuchKeyException.class, () -> underTest.call(S3Operation.DELETE, () -> {
+            attempts.incrementAndGet();
+            throw NoSuchKeyException.builder().statusCode(404).build();
+        }));
+
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    @DisplayName("Test retries stop when the retry budget is empty")
+    void testRetriesStopWhenBudgetEmpty() {
+        underTest.destroy();
+        underTest = createResilience(5, 1);
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(S3Exception.class, () -> underTest.call(S3Operation.DELETE, () -> {
+            attempts.incrementAndGet();
+            throw S3Exception.builder().statusCode(503).build();
+        }));
+
+        assertEquals(2, attempts.get());
+        assertEquals(1, registry.get(S3Resilience.BUDGET_EXHAUSTED).counter().count());
+        assertEquals(0, registry.get(S3Resilience.BUDGET).gauge().value());
+    }
+
+    @Test
+    @DisplayName("Test a metadata read slower than its recent latencies is hedged")
+    void testSlowReadHedged() {
+        for (int i = 0; i < 128; i++) {
+            underTest.call(S3Operation.HEAD, () -> "fast");
+        }
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = underTest.call(S3Operation.HEAD, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                awaitQuietly(release);
+                return "primary";
+            }
+            return "hedge";
+        });
+        release.countDown();
+
+        assertEquals("hedge", result);
+        assertEquals(1, registry.get(S3Resilience.HEDGES)
+                .tag(S3Resilience.OPERATION_TAG, S3Operation.HEAD.getTagValue())
+                .tag(S3Resilience.WINNER_TAG, "hedge")
+                .counter().count());
+    }
+
+    @Test
+    @DisplayName("Test the losing attempt of a hedged read is interrupted")
+    void testLosingAttemptInterrupted() throws Exception {
+        timeFastCalls();
+        CountDownLatch interrupted = new CountDownLatch(1);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = underTest.call(S3Operation.HEAD, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                try {
+                    new CountDownLatch(1).await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return "primary";
+            }
+            return "hedge";
+        });
+
+        assertEquals("hedge", result);
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Test the losing attempt of a hedged read does not cut its lane's concurrency limit")
+    void testLosingAttemptKeepsLaneLimit() throws Exception {
+        timeFastCalls();
+        S3LaneProperties lanes = new S3LaneProperties();
+        for (S3Lane lane : S3Lane.values()) {
+            lanes.getMaxConnections().put(lane, 20);
+        }
+        lanes.setLargeTransferThreshold(DataSize.ofMegabytes(8));
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(registry, lanes, 10, 2,
+                Duration.ofSeconds(1), 0.5, Duration.ofSeconds(5));
+        CountDownLatch cancelled = new CountDownLatch(1);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // The losing attempt fails as the SDK fails a call whose thread is interrupted
+        String result = underTest.call(S3Operation.HEAD, () -> limiter.call(S3Lane.METADATA, S3Operation.HEAD, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                try {
+                    new CountDownLatch(1).await(5, TimeUnit.SECONDS);
+                    return "primary";
+                } catch (InterruptedException e) {
+                    cancelled.countDown();
+                    throw AbortedException.create("Thread was interrupted");
+                }
+            }
+            return "hedge";
+        }));
+
+        assertEquals("hedge", result);
+        assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals(10, limiter.getLimit(S3Lane.METADATA));
+    }
+
+    @Test
+    @DisplayName("Test the losing attempt of a hedged read still has the request's deadline once the request completes")
+    void testLosingAttemptOutlivesRequest() throws Exception {
+        timeFastCalls();
+        RequestDeadline deadline = RequestDeadline.after(Duration.ofMinutes(1));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(RequestDeadline.ATTRIBUTE, deadline);
+        ServletRequestAttributes requestAttributes = new ServletRequestAttributes(request);
+        RequestContextHolder.setRequestAttributes(requestAttributes);
+        CountDownLatch requestCompleted = new CountDownLatch(1);
+        CompletableFuture<Optional<RequestDeadline>> losingDeadline = new CompletableFuture<>();
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = underTest.call(S3Operation.HEAD, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                awaitUninterruptibly(requestCompleted);
+                try {
+                    losingDeadline.complete(RequestDeadline.current());
+                } catch (RuntimeException e) {
+                    losingDeadline.completeExceptionally(e);
+                }
+                return "primary";
+            }
+            return "hedge";
+        });
+        requestAttributes.requestCompleted();
+        requestCompleted.countDown();
+
+        assertEquals("hedge", result);
+        assertEquals(Optional.of(deadline), losingDeadline.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Test a metadata read is not hedged until enough calls have been timed")
+    void testNotHedgedWithoutLatencies() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = underTest.call(S3Operation.TAGGING, () -> {
+            attempts.incrementAndGet();
+            sleep(50);
+            return "tags";
+        });
+
+        assertEquals("tags", result);
+        assertEquals(1, attempts.get());
+        assertEquals(0, registry.find(S3Resilience.HEDGES).counters().size());
+    }
+
+    private void timeFastCalls() {
+        for (int i = 0; i < 128; i++) {
+            underTest.call(S3Operation.HEAD, () -> "fast");
+        }
+    }
+
+    private S3Resilience createResilience(final int maxAttempts, final int budgetMaxTokens) {
+        return new S3Resilience(registry, maxAttempts, Duration.ofMillis(1), Duration.ofMillis(5), 0.0,
+                budgetMaxTokens, true, 0.95, Duration.ofMillis(10));
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitUninterruptibly(final CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package uk.gov.companieshouse.filetransferservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+class RequestMemoTest {
+
+    private static final String NAME = "test";
+    private static final String KEY = "file-id";
+
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final Supplier<Integer> lookup = lookups::incrementAndGet;
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("Test every lookup is made outside a request")
+    void testNoMemoOutsideRequest() {
+        assertEquals(1, RequestMemo.computeIfAbsent(NAME, KEY, lookup));
+        assertEquals(2, RequestMemo.computeIfAbsent(NAME, KEY, lookup));
+    }
+
+    @Test
+    @DisplayName("Test a lookup is made once per key within a request")
+    void testMemoWithinRequest() {
+        startRequest();
+
+        assertEquals(1, RequestMemo.computeIfAbsent(NAME, KEY, lookup));
+        assertEquals(1, RequestMemo.computeIfAbsent(NAME, KEY, lookup));
+        assertEquals(2, RequestMemo.computeIfAbsent(NAME, "other-file-id", lookup));
+        assertEquals(3, RequestMemo.computeIfAbsent("other", KEY, lookup));
+
+        // A new request looks up again
+        startRequest();
+        assertEquals(4, RequestMemo.computeIfAbsent(NAME, KEY, lookup));
+    }
+
+    @Test
+    @DisplayName("Test a put value is used and an evicted value is looked up again")
+    void testPutAndEvict() {
+        startRequest();
+
+        RequestMemo.put(NAME, KEY, 10);
+        assertEquals(10, RequestMemo.computeIfAbsent(NAME, KEY, lookup));
+
+        RequestMemo.evict(NAME, KEY);
+        assertEquals(1, RequestMemo.computeIfAbsent(NAME, KEY, lookup));
+    }
+
+    @Test
+    @DisplayName("Test a lookup which throws is not remembered")
+    void testFailedLookupNotRemembered() {
+        startRequest();
+
+        assertThrows(IllegalStateException.class, () -> RequestMemo.computeIfAbsent(NAME, KEY, () -> {
+            throw new IllegalStateException("S3 unavailable");
+        }));
+        assertEquals(1, RequestMemo.computeIfAbsent(NAME, KEY, lookup));
+    }
+
+    private static void startRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+}
@@ -0,0 +1,125 @@
+package uk.gov.companieshouse.filetransferservice.service.avstatus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.companieshouse.api.filetransfer.AvStatus;
+import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
+import uk.gov.companieshouse.filetransferservice.service.avstatus.AvStatusSource.Subscription;
+
+@ExtendWith(MockitoExtension.class)
+class AvStatusWatcherTest {
+
+    private static final String FILE_ID = "123";
+
+    @Mock
+    private AvStatusSource avStatusSource;
+
+    @Mock
+    private Subscription subscription;
+
+    @Captor
+    private ArgumentCaptor<Consumer<Optional<FileDetailsApi>>> listener;
+
+    private SimpleMeterRegistry registry;
+    private AvStatusWatcher underTest;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        underTest = new AvStatusWatcher(avStatusSource, registry, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        underTest.destroy();
+    }
+
+    @Test
+    @DisplayName("Test a waiting request completes once the file is scanned")
+    void testCompletesOnceScanned() {
+        FileDetailsApi unscanned = details(AvStatus.NOT_SCANNED);
+        FileDetailsApi clean = details(AvStatus.CLEAN);
+        when(avStatusSource.subscribe(eq(unscanned), listener.capture())).thenReturn(subscription);
+
+        CompletableFuture<Optional<FileDetailsApi>> waiter = underTest.await(unscanned, Duration.ofSeconds(5));
+        assertFalse(waiter.isDone());
+        assertEquals(1, registry.get(AvStatusWatcher.WAITING).gauge().value());
+
+        listener.getValue().accept(Optional.of(clean));
+
+        assertEquals(Optional.of(clean), waiter.getNow(null));
+        assertEquals(0, registry.get(AvStatusWatcher.WAITING).gauge().value());
+        verify(subscription).close();
+    }
+
+    @Test
+    @DisplayName("Test a request whose wait expires completes with the file not scanned")
+    void testWaitExpires() throws Exception {
+        FileDetailsApi unscanned = details(AvStatus.NOT_SCANNED);
+        when(avStatusSource.subscribe(eq(unscanned), any())).thenReturn(subscription);
+
+        CompletableFuture<Optional<FileDetailsApi>> waiter = underTest.await(unscanned, Duration.ofMillis(50));
+
+        assertEquals(Optional.of(unscanned), waiter.get(5, TimeUnit.SECONDS));
+        verify(subscription).close();
+    }
+
+    @Test
+    @DisplayName("Test a waiting request which is cancelled stops listening")
+    void testCancelledWaitStopsListening() {
+        FileDetailsApi unscanned = details(AvStatus.NOT_SCANNED);
+        when(avStatusSource.subscribe(eq(unscanned), any())).thenReturn(subscription);
+
+        CompletableFuture<Optional<FileDetailsApi>> waiter = underTest.await(unscanned, Duration.ofSeconds(5));
+        assertTrue(waiter.cancel(false));
+
+        verify(subscription).close();
+        assertEquals(0, registry.get(AvStatusWatcher.WAITING).gauge().value());
+    }
+
+    @Test
+    @DisplayName("Test a request beyond the maximum waiting, or for a scanned file, completes at once")
+    void testCompletesAtOnce() {
+        FileDetailsApi unscanned = details(AvStatus.NOT_SCANNED);
+        FileDetailsApi clean = details(AvStatus.CLEAN);
+        when(avStatusSource.subscribe(eq(unscanned), any())).thenReturn(subscription);
+        underTest.await(unscanned, Duration.ofSeconds(5));
+        underTest.await(unscanned, Duration.ofSeconds(5));
+
+        CompletableFuture<Optional<FileDetailsApi>> overLimit = underTest.await(unscanned, Duration.ofSeconds(5));
+        CompletableFuture<Optional<FileDetailsApi>> scanned = underTest.await(clean, Duration.ofSeconds(5));
+
+        assertEquals(Optional.of(unscanned), overLimit.getNow(null));
+        assertEquals(Optional.of(clean), scanned.getNow(null));
+        assertEquals(2, registry.get(AvStatusWatcher.WAITING).gauge().value());
+        verify(avStatusSource, never()).subscribe(eq(clean), any());
+    }
+
+    private static FileDetailsApi details(final AvStatus avStatus) {
+        return new FileDetailsApi()
+                .id(FILE_ID)
+                .avStatus(avStatus);
+    }
+}
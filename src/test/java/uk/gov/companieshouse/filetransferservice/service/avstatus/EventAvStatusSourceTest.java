@@ -0,0 +1,141 @@
+package uk.gov.companieshouse.filetransferservice.service.avstatus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import uk.gov.companieshouse.api.filetransfer.AvStatus;
+import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
+import uk.gov.companieshouse.filetransferservice.service.avstatus.AvStatusSource.Subscription;
+import uk.gov.companieshouse.filetransferservice.service.storage.FileStorageStrategy;
+import uk.gov.companieshouse.logging.Logger;
+
+@ExtendWith(MockitoExtension.class)
+class EventAvStatusSourceTest {
+
+    private static final String FILE_ID = "123";
+
+    @Mock
+    private FileStorageStrategy fileStorageStrategy;
+
+    @Mock
+    private Logger logger;
+
+    @Mock
+    private FileScannedEventPublisher publisher;
+
+    private EventAvStatusSource underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new EventAvStatusSource(fileStorageStrategy, publishers(Map.of("publisher", publisher)), logger);
+    }
+
+    @AfterEach
+    void tearDown() {
+        underTest.destroy();
+    }
+
+    @Test
+    @DisplayName("Test the events source refuses to start when nothing publishes the events")
+    void testNoPublisher() {
+        ObjectProvider<FileScannedEventPublisher> noPublishers = publishers(Map.of());
+
+        assertThrows(IllegalStateException.class,
+                () -> new EventAvStatusSource(fileStorageStrategy, noPublishers, logger));
+    }
+
+    @Test
+    @DisplayName("Test a listener is called with the AV status from the file's scanned event")
+    void testListenerCalledOnEvent() throws Exception {
+        FileDetailsApi unscanned = details();
+        when(fileStorageStrategy.refreshAvStatus(unscanned)).thenReturn(Optional.of(unscanned));
+        CompletableFuture<Optional<FileDetailsApi>> listener = new CompletableFuture<>();
+
+        underTest.subscribe(unscanned, listener::complete);
+        verify(fileStorageStrategy, timeout(5000)).refreshAvStatus(unscanned);
+        underTest.onFileScanned(new FileScannedEvent(FILE_ID, AvStatus.NOT_SCANNED, ""));
+        assertFalse(listener.isDone());
+        underTest.onFileScanned(new FileScannedEvent(FILE_ID, AvStatus.CLEAN, "2024-01-01T10:00:00Z"));
+
+        FileDetailsApi scanned = listener.get(5, TimeUnit.SECONDS).orElseThrow();
+        assertEquals(AvStatus.CLEAN, scanned.getAvStatus());
+        assertEquals("2024-01-01T10:00:00Z", scanned.getAvTimestamp());
+        assertEquals("name", scanned.getName());
+    }
+
+    @Test
+    @DisplayName("Test a file scanned before its listener subscribed is found by the lookup on subscribing")
+    void testScannedBeforeSubscribing() throws Exception {
+        FileDetailsApi unscanned = details();
+        FileDetailsApi clean = details().avStatus(AvStatus.CLEAN);
+        when(fileStorageStrategy.refreshAvStatus(unscanned)).thenReturn(Optional.of(clean));
+        CompletableFuture<Optional<FileDetailsApi>> listener = new CompletableFuture<>();
+
+        underTest.subscribe(unscanned, listener::complete);
+
+        assertEquals(Optional.of(clean), listener.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Test a listener whose lookup fails is not told the file is deleted, and waits for its event")
+    void testFailedLookupWaitsForEvent() throws Exception {
+        FileDetailsApi unscanned = details();
+        when(fileStorageStrategy.refreshAvStatus(unscanned)).thenThrow(new IllegalStateException("S3 unavailable"));
+        CompletableFuture<Optional<FileDetailsApi>> listener = new CompletableFuture<>();
+
+        underTest.subscribe(unscanned, listener::complete);
+        verify(fileStorageStrategy, timeout(5000)).refreshAvStatus(unscanned);
+        verify(logger, timeout(5000)).errorContext(eq(FILE_ID), anyString(), any(), anyMap());
+        assertFalse(listener.isDone());
+        underTest.onFileScanned(new FileScannedEvent(FILE_ID, AvStatus.CLEAN, "2024-01-01T10:00:00Z"));
+
+        assertEquals(AvStatus.CLEAN, listener.get(5, TimeUnit.SECONDS).orElseThrow().getAvStatus());
+    }
+
+    @Test
+    @DisplayName("Test a listener whose subscription is closed is not called")
+    void testClosedSubscriptionNotCalled() {
+        FileDetailsApi unscanned = details();
+        when(fileStorageStrategy.refreshAvStatus(unscanned)).thenReturn(Optional.of(unscanned));
+        CompletableFuture<Optional<FileDetailsApi>> listener = new CompletableFuture<>();
+
+        Subscription subscription = underTest.subscribe(unscanned, listener::complete);
+        verify(fileStorageStrategy, timeout(5000)).refreshAvStatus(unscanned);
+        subscription.close();
+        underTest.onFileScanned(new FileScannedEvent(FILE_ID, AvStatus.CLEAN, "2024-01-01T10:00:00Z"));
+
+        assertFalse(listener.isDone());
+    }
+
+    private static FileDetailsApi details() {
+        return new FileDetailsApi()
+                .id(FILE_ID)
+                .avStatus(AvStatus.NOT_SCANNED)
+                .name("name");
+    }
+
+    private static ObjectProvider<FileScannedEventPublisher> publishers(final Map<String, Object> beans) {
+        return new StaticListableBeanFactory(beans).getBeanProvider(FileScannedEventPublisher.class);
+    }
+}
@@ -0,0 +1,138 @@
+package uk.gov.companieshouse.filetransferservice.service.avstatus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.companieshouse.api.filetransfer.AvStatus;
+import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
+import uk.gov.companieshouse.filetransferservice.service.avstatus.AvStatusSource.Subscription;
+import uk.gov.companieshouse.filetransferservice.service.storage.FileStorageStrategy;
+import uk.gov.companieshouse.logging.Logger;
+
+@ExtendWith(MockitoExtension.class)
+class PollingAvStatusSourceTest {
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(50);
+
+    @Mock
+    private FileStorageStrategy fileStorageStrategy;
+
+    @Mock
+    private Logger logger;
+
+    private SimpleMeterRegistry registry;
+    private PollingAvStatusSource underTest;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        underTest = new PollingAvStatusSource(fileStorageStrategy, registry, logger, POLL_INTERVAL, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        underTest.destroy();
+    }
+
+    @Test
+    @DisplayName("Test every listener for a file shares one poll and is called once it is scanned")
+    void testListenersSharePoll() throws Exception {
+        FileDetailsApi unscanned = details("123", AvStatus.NOT_SCANNED);
+        FileDetailsApi clean = details("123", AvStatus.CLEAN);
+        when(fileStorageStrategy.refreshAvStatus(unscanned))
+                .thenReturn(Optional.of(unscanned))
+                .thenReturn(Optional.of(clean));
+        CompletableFuture<Optional<FileDetailsApi>> first = new CompletableFuture<>();
+        CompletableFuture<Optional<FileDetailsApi>> second = new CompletableFuture<>();
+
+        underTest.subscribe(unscanned, first::complete);
+        underTest.subscribe(unscanned, second::complete);
+
+        assertEquals(Optional.of(clean), first.get(5, TimeUnit.SECONDS));
+        assertEquals(Optional.of(clean), second.get(5, TimeUnit.SECONDS));
+        verify(fileStorageStrategy, times(2)).refreshAvStatus(unscanned);
+        assertEquals(2, registry.get(PollingAvStatusSource.POLLS).counter().count());
+        assertEquals(0, registry.get(PollingAvStatusSource.WATCHED).gauge().value());
+    }
+
+    @Test
+    @DisplayName("Test every file listened for is looked up in each sweep")
+    void testSweepLooksUpEveryFile() throws Exception {
+        FileDetailsApi first = details("123", AvStatus.NOT_SCANNED);
+        FileDetailsApi second = details("456", AvStatus.NOT_SCANNED);
+        when(fileStorageStrategy.refreshAvStatus(first)).thenReturn(Optional.of(details("123", AvStatus.CLEAN)));
+        when(fileStorageStrategy.refreshAvStatus(second)).thenReturn(Optional.of(details("456", AvStatus.INFECTED)));
+        CompletableFuture<Optional<FileDetailsApi>> firstScanned = new CompletableFuture<>();
+        CompletableFuture<Optional<FileDetailsApi>> secondScanned = new CompletableFuture<>();
+
+        underTest.subscribe(first, firstScanned::complete);
+        underTest.subscribe(second, secondScanned::complete);
+
+        assertEquals(AvStatus.CLEAN, firstScanned.get(5, TimeUnit.SECONDS).orElseThrow().getAvStatus());
+        assertEquals(AvStatus.INFECTED, secondScanned.get(5, TimeUnit.SECONDS).orElseThrow().getAvStatus());
+    }
+
+    @Test
+    @DisplayName("Test a listener for a file which is deleted is called with empty")
+    void testFileDeleted() throws Exception {
+        FileDetailsApi unscanned = details("123", AvStatus.NOT_SCANNED);
+        when(fileStorageStrategy.refreshAvStatus(unscanned)).thenReturn(Optional.empty());
+        CompletableFuture<Optional<FileDetailsApi>> listener = new CompletableFuture<>();
+
+        underTest.subscribe(unscanned, listener::complete);
+
+        assertEquals(Optional.empty(), listener.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Test a failed lookup is polled again rather than the file being taken to be deleted")
+    void testFailedLookupPolledAgain() throws Exception {
+        FileDetailsApi unscanned = details("123", AvStatus.NOT_SCANNED);
+        FileDetailsApi infected = details("123", AvStatus.INFECTED);
+        when(fileStorageStrategy.refreshAvStatus(unscanned))
+                .thenThrow(new IllegalStateException("S3 unavailable"))
+                .thenThrow(new IllegalStateException("S3 unavailable"))
+                .thenReturn(Optional.of(infected));
+        CompletableFuture<Optional<FileDetailsApi>> listener = new CompletableFuture<>();
+
+        underTest.subscribe(unscanned, listener::complete);
+
+        assertEquals(Optional.of(infected), listener.get(5, TimeUnit.SECONDS));
+        verify(fileStorageStrategy, times(3)).refreshAvStatus(unscanned);
+    }
+
+    @Test
+    @DisplayName("Test a file is no longer polled once every subscription to it is closed")
+    void testClosedSubscriptionStopsPolling() throws Exception {
+        FileDetailsApi unscanned = details("123", AvStatus.NOT_SCANNED);
+
+        Subscription subscription = underTest.subscribe(unscanned, fileDetails -> { });
+        subscription.close();
+        Thread.sleep(POLL_INTERVAL.multipliedBy(3).toMillis());
+
+        verify(fileStorageStrategy, never()).refreshAvStatus(any());
+        assertEquals(0, registry.get(PollingAvStatusSource.WATCHED).gauge().value());
+    }
+
+    private static FileDetailsApi details(final String fileId, final AvStatus avStatus) {
+        return new FileDetailsApi()
+                .id(fileId)
+                .avStatus(avStatus);
+    }
+}
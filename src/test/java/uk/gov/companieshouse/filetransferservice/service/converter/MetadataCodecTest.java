@@ -0,0 +1,104 @@
+package uk.gov.companieshouse.filetransferservice.service.converter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class MetadataCodecTest {
+
+    private static final String[] FRAGMENTS = {
+            "a", "Z", "0", ".", "-", "*", "_", "+", " ", "%", "2", "A", "F", "f", "~", "/", "é", "’", "😀",
+            "\uD83D", "\uDE00", "%20", "%E2%80%99", "%C3%A9", "%F0%9F%98%80", "%ED%A0%80", "%C0%AF", "%2A", "%2a",
+            "%FF", "%E2%80", "%25"
+    };
+
+    @ParameterizedTest(name = "{index} {0}")
+    @CsvSource(delimiter = '|', value = {
+            "report.pdf|PLAIN",
+            "test%20file.txt|ENCODED",
+            "test+file.txt|ENCODED",
+            "test file.txt|NOT_ENCODED",
+            "test%2afile.txt|NOT_ENCODED",
+            "test%41file.txt|NOT_ENCODED",
+            "test%C3file.txt|NOT_ENCODED",
+            "test file%2.txt|MALFORMED",
+            "test%2|MALFORMED"
+    })
+    @DisplayName("Test classification of metadata values")
+    void testClassify(String input, MetadataCodec.Form expected) {
+        assertThat(MetadataCodec.classify(input), is(expected));
+    }
+
+    @Test
+    @DisplayName("Test plain values are returned without conversion")
+    void testPlainValueIsSameInstance() {
+        String input = "CIC_31102024.zip";
+
+        assertThat(MetadataCodec.encode(input) == input, is(true));
+        assertThat(MetadataCodec.decode(input) == input, is(true));
+    }
+
+    @Test
+    @DisplayName("Test supplementary and unpaired surrogate characters are encoded as URLEncoder would")
+    void testSurrogates() {
+        assertThat(MetadataCodec.encode("😀 \uD83D.txt"), is("%F0%9F%98%80%20%3F.txt"));
+        assertThat(MetadataCodec.decode("%F0%9F%98%80%20.txt"), is("😀 .txt"));
+    }
+
+    @Test
+    @DisplayName("Test conversion matches the previous URLEncoder/URLDecoder based implementation")
+    void testMatchesReferenceImplementation() {
+        Random random = new Random(42);
+
+        for (int n = 0; n < 100_000; n++) {
+            StringBuilder builder = new StringBuilder();
+            int length = random.nextInt(8);
+            for (int i = 0; i < length; i++) {
+                builder.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            String input = builder.toString();
+
+            assertThat(input, MetadataCodec.encode(input), is(referenceEncode(input)));
+            assertThat(input, MetadataCodec.decode(input), is(referenceDecode(input)));
+        }
+    }
+
+    private static String referenceEncode(final String source) {
+        try {
+            if (source.isEmpty() || isUrlEncoded(source)) {
+                return source;
+            }
+            return URLEncoder.encode(source, StandardCharsets.UTF_8).replace("+", "%20");
+
+        } catch (Exception e) {
+            return source;
+        }
+    }
+
+    private static String referenceDecode(final String source) {
+        try {
+            if (source.isEmpty() || !isUrlEncoded(source)) {
+                return source;
+            }
+            return URLDecoder.decode(source, StandardCharsets.UTF_8);
+
+        } catch (Exception e) {
+            return source;
+        }
+    }
+
+    private static boolean isUrlEncoded(final String input) {
+        String decoded = URLDecoder.decode(input, StandardCharsets.UTF_8);
+        String encoded = URLEncoder.encode(decoded, StandardCharsets.UTF_8).replace("+", "%20");
+
+        return input.replace("+", "%20").equals(encoded);
+    }
+}
@@ -1,38 +1,88 @@
 package uk.gov.companieshouse.filetransferservice.service.impl;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static uk.gov.companieshouse.filetransferservice.service.storage.S3FileStorage.FILENAME_METADATA_KEY;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
 import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.ApiCallTimeoutException;
 import software.amazon.awssdk.core.exception.SdkClientException;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.http.SdkHttpResponse;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectTaggingRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectTaggingResponse;
 import software.amazon.awssdk.services.s3.model.HeadBucketRequest;
 import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
 import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListMultipartUploadsRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.ListPartsRequest;
+import software.amazon.awssdk.services.s3.model.MultipartUpload;
 import software.amazon.awssdk.services.s3.model.NoSuchBucketException;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.Part;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+import software.amazon.awssdk.services.s3.paginators.ListMultipartUploadsIterable;
+import software.amazon.awssdk.services.s3.paginators.ListPartsIterable;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+import uk.gov.companieshouse.filetransferservice.admission.AdaptiveConcurrencyLimiter;
+import uk.gov.companieshouse.filetransferservice.admission.S3Lane;
+import uk.gov.companieshouse.filetransferservice.admission.S3LaneClients;
 import uk.gov.companieshouse.filetransferservice.config.properties.AWSServiceProperties;
+import uk.gov.companieshouse.filetransferservice.config.properties.S3LaneProperties;
+import uk.gov.companieshouse.filetransferservice.config.properties.S3TimeoutProperties;
+import uk.gov.companieshouse.filetransferservice.exception.DeadlineExceededException;
+import uk.gov.companieshouse.filetransferservice.exception.UploadAbortedException;
+import uk.gov.companieshouse.filetransferservice.metrics.S3Operation;
+import uk.gov.companieshouse.filetransferservice.metrics.TransferMetrics;
+import uk.gov.companieshouse.filetransferservice.resilience.RequestDeadline;
+import uk.gov.companieshouse.filetransferservice.resilience.S3CircuitBreaker;
+import uk.gov.companieshouse.filetransferservice.resilience.S3Resilience;
 import uk.gov.companieshouse.logging.Logger;
 
 @ExtendWith(MockitoExtension.class)
@@ -51,6 +101,12 @@ class AmazonFileTransferImplTest {
     @Mock
     private S3Client client;
     @Mock
+    private S3Presigner presigner;
+    @Mock
+    private PresignedGetObjectRequest presignedGetObjectRequest;
+    @Mock
+    private PresignedPutObjectRequest presignedPutObjectRequest;
+    @Mock
     private PutObjectRequest putObjectRequest;
     @Mock
     private PutObjectResponse putObjectResult;
@@ -65,6 +121,17 @@ class AmazonFileTransferImplTest {
     @Mock
     private ResponseInputStream<GetObjectResponse> responseInputStream;
 
+    private final TransferMetrics transferMetrics = new TransferMetrics(new SimpleMeterRegistry());
+    private final S3LaneProperties laneProperties = createLaneProperties();
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter = new AdaptiveConcurrencyLimiter(
+            new SimpleMeterRegistry(), laneProperties, 10, 1, Duration.ofSeconds(1), 0.9, Duration.ofSeconds(5));
+    // A single attempt without hedging, so each failure is seen by the test as S3 returned it
+    private final S3Resilience s3Resilience = new S3Resilience(
+            new SimpleMeterRegistry(), 1, Duration.ZERO, Duration.ZERO, 0.1, 20, false, 0.95, Duration.ZERO);
+    private final S3TimeoutProperties timeoutProperties = createTimeoutProperties();
+    private final S3CircuitBreaker circuitBreaker = new S3CircuitBreaker(new SimpleMeterRegistry(),
+            10, 5, 0.5, Duration.ofSeconds(2), 0.8, Duration.ofSeconds(10), 1);
+
     @Test
     @DisplayName("Test successful File Upload")
     void testUploadFileIsSuccessful() {
@@ -72,7 +139,7 @@ class AmazonFileTransferImplTest {
         when(properties.getBucketName()).thenReturn(S3_PATH + BUCKET_NAME);
         when(client.putObject(any(PutObjectRequest.class), any(RequestBody.class))).thenReturn(putObjectResult);
 
-        AmazonFileTransferImpl amazonFileTransfer = new AmazonFileTransferImpl(client, properties, logger);
+        AmazonFileTransferImpl amazonFileTransfer = createAmazonFileTransfer();
         amazonFileTransfer.uploadFile("123", createValidMetaData(), getInputStream());
 
         verify(client).putObject(any(PutObjectRequest.class), any(RequestBody.class));
@@ -84,7 +151,7 @@ class AmazonFileTransferImplTest {
         when(properties.getS3PathPrefix()).thenReturn(VALID_S3_PATH_PREFIX);
         when(properties.getBucketName()).thenReturn(BUCKET_NAME);
 
-        AmazonFileTransferImpl amazonFileTransfer = new AmazonFileTransferImpl(client, properties, logger);
+        AmazonFileTransferImpl amazonFileTransfer = createAmazonFileTransfer();
 
         assertThrows(SdkClientException.class, () -> amazonFileTransfer.uploadFile("123", Map.of(), getInputStream()));
     }
@@ -94,7 +161,7 @@ class AmazonFileTransferImplTest {
     void testUploadFileWhenInvalidS3Path() {
         when(properties.getS3PathPrefix()).thenReturn(INVALID_S3_PATH_PREFIX);
 
-        assertThrows(SdkClientException.class, () -> new AmazonFileTransferImpl(client, properties, logger));
+        assertThrows(SdkClientException.class, () -> createAmazonFileTransfer());
     }
 
     @Test
@@ -103,7 +170,7 @@ class AmazonFileTransferImplTest {
         when(properties.getS3PathPrefix()).thenReturn(VALID_S3_PATH_PREFIX);
         when(properties.getBucketName()).thenReturn("");
 
-        assertThrows(SdkClientException.class, () -> new AmazonFileTransferImpl(client, properties, logger));
+        assertThrows(SdkClientException.class, () -> createAmazonFileTransfer());
     }
 
     @Test
@@ -113,7 +180,7 @@ class AmazonFileTransferImplTest {
         when(properties.getBucketName()).thenReturn(BUCKET_NAME);
         when(client.headBucket(any(HeadBucketRequest.class))).thenThrow(NoSuchBucketException.builder().build());
 
-        assertThrows(SdkClientException.class, () ->  new AmazonFileTransferImpl(client, properties, logger));
+        assertThrows(SdkClientException.class, () -> createAmazonFileTransfer());
     }
 
     @Test
@@ -123,9 +190,9 @@ class AmazonFileTransferImplTest {
         when(properties.getBucketName()).thenReturn(BUCKET_NAME);
         when(client.getObject(any(GetObjectRequest.class))).thenReturn(responseInputStream);
 
-        AmazonFileTransferImpl amazonFileTransfer = new AmazonFileTransferImpl(client, properties, logger);
+        AmazonFileTransferImpl amazonFileTransfer = createAmazonFileTransfer();
 
-        Optional<InputStream> actual = amazonFileTransfer.downloadStream("123");
+        Optional<InputStream> actual = amazonFileTransfer.downloadStream("123", 1024);
 
         verify(client, times(1)).getObject(any(GetObjectRequest.class));
         verify(client, times(0)).headObject(any(HeadObjectRequest.class));
@@ -139,9 +206,9 @@ class AmazonFileTransferImplTest {
         when(properties.getS3PathPrefix()).thenReturn(VALID_S3_PATH_PREFIX);
         when(properties.getBucketName()).thenReturn(BUCKET_NAME);
 
-        AmazonFileTransferImpl amazonFileTransfer = new AmazonFileTransferImpl(client, properties, logger);
+        AmazonFileTransferImpl amazonFileTransfer = createAmazonFileTransfer();
 
-        Optional<InputStream> actual = amazonFileTransfer.downloadStream("123");
+        Optional<InputStream> actual = amazonFileTransfer.downloadStream("123", 1024);
 
         verify(client, times(1)).getObject(any(GetObjectRequest.class));
         verify(client, times(0)).headObject(any(HeadObjectRequest.class));
@@ -149,6 +216,409 @@ class AmazonFileTransferImplTest {
         assertTrue(actual.isEmpty());
     }
 
+    @Test
+    @DisplayName("Test successful presigned download URL creation")
+    void testPresignDownloadIsSuccessful() {
+        when(properties.getS3PathPrefix()).thenReturn(VALID_S3_PATH_PREFIX);
+        when(properties.getBucketName()).thenReturn(BUCKET_NAME);
+        when(presigner.presignGetObject(any(GetObjectPresignRequest.class))).thenReturn(presignedGetObjectRequest);
+
+        AmazonFileTransferImpl amazonFileTransfer = createAmazonFileTransfer();
+
+        PresignedGetObjectRequest actual = amazonFileTransfer.presignDownload("123",
+                "attachment; filename=\"file.pdf\"", "application/pdf", Duration.ofMinutes(5));
+
+        ArgumentCaptor<GetObjectPresignRequest> captor = ArgumentCaptor.forClass(GetObjectPresignRequest.class);
+        verify(presigner).presignGetObject(captor.capture());
+
+        assertSame(presignedGetObjectRequest, actual);
+        assertEquals(Duration.ofMinutes(5), captor.getValue().signatureDuration());
+        assertEquals(BUCKET_NAME, captor.getValue().getObjectRequest().bucket());
+        assertEquals("123", captor.getValue().getObjectRequest().key());
+        assertEquals("attachment; filename=\"file.pdf\"", captor.getValue().getObjectRequest().responseContentDisposition());
+        assertEquals("application/pdf", captor.getValue().getObjectRequest().responseContentType());
+    }
+
+    @Test
+    @DisplayName("Test a presigned upload URL is signed for the file size, and only if there is no object with its key")
+    void testPresignUploadIsSuccessful() {
+        when(properties.getS3PathPrefix()).thenReturn(VALID_S3_PATH_PREFIX);
+        when(properties.getBucketName()).thenReturn(BUCKET_NAME);
+        when(presigner.presignPutObject(any(PutObjectPresignRequest.class))).thenReturn(presignedPutObjectRequest);
+
+        PresignedPutObjectRequest actual = createAmazonFileTransfer().presignUpload("123",
+                Map.of("filename", "file.pdf"), 1024L, Duration.ofMinutes(15));
+
+        ArgumentCaptor<PutObjectPresignRequest> captor = ArgumentCaptor.forClass(PutObjectPresignRequest.class);
+        verify(presigner).presignPutObject(captor.capture());
+
+        assertSame(presignedPutObjectRequest, actual);
+        assertEquals(Duration.ofMinutes(15), captor.getValue().signatureDuration());
+        assertEquals("123", captor.getValue().putObjectRequest().key());
+        assertEquals(Map.of("filename", "file.pdf"), captor.getValue().putObjectRequest().metadata());
+        assertEquals(1024L, captor.getValue().putObjectRequest().contentLength());
+        assertEquals("*", captor.getValue().putObjectRequest().ifNoneMatch());
+    }
+
+    @Test
+    @DisplayName("Test a conditional File Upload is made only if there is no object with its key")
+    void testUploadFileIfAbsentIsSuccessful() {
+        when(properties.getS3PathPrefix()).thenReturn(VALID_S3_PATH_PREFIX);
+        when(properties.getBucketName()).thenReturn(BUCKET_NAME);
+        when(client.putObject(any(PutObjectRequest.class), any(RequestBody.class))).thenReturn(putObjectResult);
+
+        assertTrue(createAmazonFileTransfer().uploadFileIfAbsent("123", createValidMetaData(), getInputStream()));
+
+        ArgumentCaptor<PutObjectRequest> captor = ArgumentCaptor.forClass(PutObjectRequest.class);
+        verify(client).putObject(captor.capture(), any(RequestBody.class));
+        assertEquals("*", captor.getValue().ifNoneMatch());
+    }
+
+    @Test
+    @DisplayName("Test a conditional File Upload to a key which already has an object is not made")
+    void testUploadFileIfAbsentWhenObjectExists() {
+        when(properties.getS3PathPrefix()).thenReturn(VALID_S3_PATH_PREFIX);
+        when(properties.getBucketName()).thenReturn(BUCKET_NAME);
+        when(client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+                .thenThrow(S3Exception.builder().statusCode(412).build());
+
+        assertFalse(createAmazonFileTransfer().uploadFileIfAbsent("123", createValidMetaData(), getInputStream()));
+    }
+
+    @Test
+    @DisplayName("Test successful creation of a multipart upload")
+    void testCreateMultipartUploadIsSuccessful() {
+        when(properties.getS3PathPrefix()).thenReturn(VALID_S3_PATH_PREFIX);
+        when(properties.getBucketName()).thenReturn(BUCKET_NAME);
+        when(client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-id").build());
+
+        AmazonFileTransferImpl amazonFileTransfer = createAmazonFileTransfer();
+
+        String actual = amazonFileTransfer.createMultipartUpload("123", createValidMetaData());
+
+        assertEquals("upload-id", actual);
+    }
+
+    @Test
+    @DisplayName("Test multipart upload is completed from the parts held by S3")
+    void testCompleteMultipartUploadIsSuccessful() {
+        when(properties.getS3PathPrefix()).thenReturn(VALID_S3_PATH_PREFIX);
+        when(properties.getBucketName()).thenReturn(BUCKET_NAME);
+
+        ListPartsIterable listPartsIterable = mock(ListPartsIterable.class);
+        when(listPartsIterable.parts()).thenReturn(() -> List.of(
+                Part.builder().partNumber(1).eTag("etag-1").build(),
+                Part.builder().partNumber(2).eTag("etag-2").build()).iterator());
+        when(client.listPartsPaginator(any(ListPartsRequest.class))).thenReturn(listPartsIterable);
+
+        AmazonFileTransferImpl amazonFileTransfer = createAmazonFileTransfer();
+
+        amazonFileTransfer.completeMultipartUpload("123", "upload-id");
+
+        ArgumentCaptor<CompleteMultipartUploadRequest> captor =
+                ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(client).completeMultipartUpload(captor.capture());
+
+        assertEquals("upload-id", captor.getValue().uploadId());
+        assertEquals(2, captor.getValue().multipartUpload().parts().size());
+        assertEquals("etag-2", captor.getValue().multipartUpload().parts().get(1).eTag());
+    }
+
+    @Test
+    @DisplayName("Test a part is uploaded with the client for its size")
+    void testUploadPartIsSuccessful() {
+        when(properties.getS3PathPrefix()).thenReturn(VALID_S3_PATH_PREFIX);
+        when(properties.getBucketName()).thenReturn(BUCKET_NAME);
+        S3Client smallTransferClient = mock(S3Client.class);
+
+        AmazonFileTransferImpl amazonFileTransfer = createAmazonFileTransfer(new S3LaneClients(Map.of(
+                S3Lane.METADATA, client,
+                S3Lane.SMALL_TRANSFER, smallTransferClient,
+                S3Lane.LARGE_TRANSFER, mock(S3Client.class))));
+
+        amazonFileTransfer.uploadPart("123", "upload-id", 2, getInputStream(), 8L);
+
+        ArgumentCaptor<UploadPartRequest> captor = ArgumentCaptor.forClass(UploadPartRequest.class);
+        verify(smallTransferClient).uploadPart(captor.capture(), any(RequestBody.class));
+        assertEquals("upload-id", captor.getValue().uploadId());
+        assertEquals(2, captor.getValue().partNumber());
+        assertEquals(8L, captor.getValue().contentLength());
+    }
+
+    @Test
+    @DisplayName("Test a part whose client drops its connection neither counts against S3 nor cuts the lane's limit")
+    void testUploadPartClientDisconnects() {
+        when(properties.getS3PathPrefix()).thenReturn(VALID_S3_PATH_PREFIX);
+        when(properties.getBucketName()).thenReturn(BUCKET_NAME);
+        S3Client smallTransferClient = mock(S3Client.class);
+        // As the SDK reports a failure to read the request body
+        when(smallTransferClient.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenAnswer(invocation -> {
+                    try (InputStream body = invocation.getArgument(1, RequestBody.class)
+                            .contentStreamProvider().newStream()) {
+                        body.readAllBytes();
+                    } catch (IOException e) {
+                        throw SdkClientException.create("Unable to execute HTTP request", e);
+                    }
+                    return UploadPartResponse.builder().build();
+                });
+        AmazonFileTransferImpl amazonFileTransfer = createAmazonFileTransfer(new S3LaneClients(Map.of(
+                S3Lane.METADATA, client,
+                S3Lane.SMALL_TRANSFER, smallTransferClient,
+                S3Lane.LARGE_TRANSFER, mock(S3Client.class))));
+
+        for (int i = 0; i < 10; i++) {
+            InputStream disconnecting = new SequenceInputStream(new ByteArrayInputStream(new byte[4]),
+                    new InputStream() {
+                        @Override
+                        public int read() throws IOException {
+                            throw new IOException("Connection reset by peer");
+                        }
+                    });
+            assertThrows(UploadAbortedException.class,
+                    () -> amazonFileTransfer.uploadPart("123", "upload-id", 2, disconnecting, 8L));
+        }
+
+        assertEquals(S3CircuitBreaker.State.CLOSED, circuitBreaker.getState(S3Operation.UPLOAD_PART));
+        assertEquals(10, concurrencyLimiter.getLimit(S3Lane.SMALL_TRANSFER));
+    }
+
+    @Test
+    @DisplayName("Test a part which S3 fails to store still counts against S3")
+    void testUploadPartS3Fails() {
+        when(properties.getS3PathPrefix()).thenReturn(VALID_S3_PATH_PREFIX);
+        when(properties.getBucketName()).thenReturn(BUCKET_NAME);
+        S3Client smallTransferClient = mock(S3Client.class);
+        when(smallTransferClient.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenThrow(SdkClientException.create("Connection reset"));
+        AmazonFileTransferImpl amazonFileTransfer = createAmazonFileTransfer(new S3LaneClients(Map.of(
+                S3Lane.METADATA, client,
+                S3Lane.SMALL_TRANSFER, smallTransferClient,
+                S3Lane.LARGE_TRANSFER, mock(S3Client.class))));
+        InputStream content = getInputStream();
+
+        assertThrows(SdkClientException.class,
+                () -> amazonFileTransfer.uploadPart("123", "upload-id", 2, content, 8L));
+
+        assertEquals(9, concurrencyLimiter.getLimit(S3Lane.SMALL_TRANSFER));
+    }
+
+    @Test
+    @DisplayName("Test successful abort of a multipart upload")
+    void testAbortMultipartUploadIsSuccessful() {
+        when(properties.getS3PathPrefix()).thenReturn(VALID_S3_PATH_PREFIX);
+        when(properties.getBucketName()).thenReturn(BUCKET_NAME);
+
+        createAmazonFileTransfer().abortMultipartUpload("123", "upload-id");
+
+        ArgumentCaptor<AbortMultipartUploadRequest> captor = ArgumentCaptor.forClass(AbortMultipartUploadRequest.class);
+        verify(client).abortMultipartUpload(captor.capture());
+        assertEquals("123", captor.getValue().key());
+        assertEquals("upload-id", captor.getValue().uploadId());
+    }
+
+    @Test
+    @DisplayName("Test the multipart uploads in progress are listed from every page")
+    void testListMultipartUploadsIsSuccessful() {
+        when(properties.getS3PathPrefix()).thenReturn(VALID_S3_PATH_PREFIX);
+        when(properties.getBucketName()).thenReturn(BUCKET_NAME);
+
+        List<MultipartUpload> uploads = List.of(
+                MultipartUpload.builder().key("123").uploadId("upload-1").build(),
+                MultipartUpload.builder().key("456").uploadId("upload-2").build());
+        ListMultipartUploadsIterable listMultipartUploadsIterable = mock(ListMultipartUploadsIterable.class);
+        when(listMultipartUploadsIterable.uploads()).thenReturn(uploads::iterator);
+        when(client.listMultipartUploadsPaginator(any(ListMultipartUploadsRequest.class)))
+                .thenReturn(listMultipartUploadsIterable);
+
+        assertEquals(uploads, createAmazonFileTransfer().listMultipartUploads());
+    }
+
+    @Test
+    @DisplayName("Test a page of files is listed from where the previous page ended")
+    void testListFilesIsSuccessful() {
+        when(properties.getS3PathPrefix()).thenReturn(VALID_S3_PATH_PREFIX);
+        when(properties.getBucketName()).thenReturn(BUCKET_NAME);
+        ListObjectsV2Response response = ListObjectsV2Response.builder().isTruncated(false).build();
+        when(client.listObjectsV2(any(ListObjectsV2Request.class))).thenReturn(response);
+
+        assertSame(response, createAmazonFileTransfer().listFiles("12", "123", "token", 100));
+
+        ArgumentCaptor<ListObjectsV2Request> captor = ArgumentCaptor.forClass(ListObjectsV2Request.class);
+        verify(client).listObjectsV2(captor.capture());
+        assertEquals(BUCKET_NAME, captor.getValue().bucket());
+        assertEquals("12", captor.getValue().prefix());
+        assertEquals("123", captor.getValue().startAfter());
+        assertEquals("token", captor.getValue().continuationToken());
+        assertEquals(100, captor.getValue().maxKeys());
+    }
+
+    @Test
+    @DisplayName("Test file tags are empty when S3 Object not found")
+    void testGetFileTagsWhenS3ObjectNotFound() {
+        when(properties.getS3PathPrefix()).thenReturn(VALID_S3_PATH_PREFIX);
+        when(properties.getBucketName()).thenReturn(BUCKET_NAME);
+        when(client.getObjectTagging(any(GetObjectTaggingRequest.class)))
+                .thenThrow(NoSuchKeyException.builder().build());
+
+        assertTrue(createAmazonFileTransfer().getFileTags("123").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test a failed file tags lookup throws rather than the file being taken to be missing")
+    void testGetFileTagsWhenLookupFails() {
+        when(properties.getS3PathPrefix()).thenReturn(VALID_S3_PATH_PREFIX);
+        when(properties.getBucketName()).thenReturn(BUCKET_NAME);
+        when(client.getObjectTagging(any(GetObjectTaggingRequest.class)))
+                .thenThrow(ApiCallTimeoutException.create(3000));
+
+        AmazonFileTransferImpl amazonFileTransfer = createAmazonFileTransfer();
+
+        assertThrows(ApiCallTimeoutException.class, () -> amazonFileTransfer.getFileTags("123"));
+    }
+
+    @Test
+    @DisplayName("Test object metadata is empty when S3 Object not found")
+    void testGetFileMetadataWhenS3ObjectNotFound() {
+        when(properties.getS3PathPrefix()).thenReturn(VALID_S3_PATH_PREFIX);
+        when(properties.getBucketName()).thenReturn(BUCKET_NAME);
+        when(client.headObject(any(HeadObjectRequest.class))).thenThrow(NoSuchKeyException.builder().build());
+
+        AmazonFileTransferImpl amazonFileTransfer = createAmazonFileTransfer();
+
+        assertTrue(amazonFileTransfer.getFileMetadata("123").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test transfers are made with the client for their size, and metadata calls with their own client")
+    void testCallsMadeInLanes() {
+        when(properties.getS3PathPrefix()).thenReturn(VALID_S3_PATH_PREFIX);
+        when(properties.getBucketName()).thenReturn(BUCKET_NAME);
+        S3Client smallTransferClient = mock(S3Client.class);
+        S3Client largeTransferClient = mock(S3Client.class);
+        when(smallTransferClient.getObject(any(GetObjectRequest.class))).thenReturn(responseInputStream);
+        when(largeTransferClient.getObject(any(GetObjectRequest.class))).thenReturn(responseInputStream);
+        when(client.headObject(any(HeadObjectRequest.class))).thenReturn(headObjectResponse);
+
+        AmazonFileTransferImpl amazonFileTransfer = createAmazonFileTransfer(new S3LaneClients(Map.of(
+                S3Lane.METADATA, client,
+                S3Lane.SMALL_TRANSFER, smallTransferClient,
+                S3Lane.LARGE_TRANSFER, largeTransferClient)));
+
+        amazonFileTransfer.downloadStream("small", 1024);
+        amazonFileTransfer.downloadStream("large", DataSize.ofMegabytes(100).toBytes());
+        amazonFileTransfer.getFileObject("small-object", 1024);
+        amazonFileTransfer.getFileObject("unknown-size", -1);
+        amazonFileTransfer.getFileMetadata("123");
+
+        verify(smallTransferClient, times(2)).getObject(any(GetObjectRequest.class));
+        verify(largeTransferClient, times(2)).getObject(any(GetObjectRequest.class));
+        verify(client).headObject(any(HeadObjectRequest.class));
+        verify(client, times(0)).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    @DisplayName("Test S3 calls are made with their operation's API call timeout")
+    void testCallsHaveApiCallTimeout() {
+        when(properties.getS3PathPrefix()).thenReturn(VALID_S3_PATH_PREFIX);
+        when(properties.getBucketName()).thenReturn(BUCKET_NAME);
+        when(client.headObject(any(HeadObjectRequest.class))).thenReturn(headObjectResponse);
+        ArgumentCaptor<HeadObjectRequest> captor = ArgumentCaptor.forClass(HeadObjectRequest.class);
+
+        createAmazonFileTransfer().getFileMetadata("123");
+
+        verify(client).headObject(captor.capture());
+        assertEquals(Optional.of(Duration.ofSeconds(5)),
+                captor.getValue().overrideConfiguration().flatMap(AwsRequestOverrideConfiguration::apiCallTimeout));
+    }
+
+    @Test
+    @DisplayName("Test an S3 call's timeout is cut short to the request's deadline")
+    void testApiCallTimeoutCutToDeadline() {
+        when(properties.getS3PathPrefix()).thenReturn(VALID_S3_PATH_PREFIX);
+        when(properties.getBucketName()).thenReturn(BUCKET_NAME);
+        when(client.headObject(any(HeadObjectRequest.class))).thenReturn(headObjectResponse);
+        ArgumentCaptor<HeadObjectRequest> captor = ArgumentCaptor.forClass(HeadObjectRequest.class);
+        AmazonFileTransferImpl amazonFileTransfer = createAmazonFileTransfer();
+
+        withDeadline(Duration.ofSeconds(2), () -> amazonFileTransfer.getFileMetadata("123"));
+
+        verify(client).headObject(captor.capture());
+        Duration timeout = captor.getValue().overrideConfiguration()
+                .flatMap(AwsRequestOverrideConfiguration::apiCallTimeout)
+                .orElseThrow();
+        assertTrue(timeout.compareTo(Duration.ofSeconds(2)) <= 0 && timeout.compareTo(Duration.ZERO) > 0,
+                timeout::toString);
+    }
+
+    @Test
+    @DisplayName("Test no S3 call is made once the request's deadline has passed")
+    void testNoCallAfterDeadline() {
+        when(properties.getS3PathPrefix()).thenReturn(VALID_S3_PATH_PREFIX);
+        when(properties.getBucketName()).thenReturn(BUCKET_NAME);
+        AmazonFileTransferImpl amazonFileTransfer = createAmazonFileTransfer();
+
+        assertThrows(DeadlineExceededException.class,
+                () -> withDeadline(Duration.ofMillis(-1), () -> amazonFileTransfer.getFileMetadata("123")));
+
+        verify(client, times(0)).headObject(any(HeadObjectRequest.class));
+    }
+
+    @Test
+    @DisplayName("Test an S3 call which times out at the request's deadline fails as the deadline passing")
+    void testTimeoutAtDeadline() {
+        when(properties.getS3PathPrefix()).thenReturn(VALID_S3_PATH_PREFIX);
+        when(properties.getBucketName()).thenReturn(BUCKET_NAME);
+        when(client.headObject(any(HeadObjectRequest.class))).thenAnswer(invocation -> {
+            Thread.sleep(60);
+            throw ApiCallTimeoutException.create(50);
+        });
+        AmazonFileTransferImpl amazonFileTransfer = createAmazonFileTransfer();
+
+        assertThrows(DeadlineExceededException.class,
+                () -> withDeadline(Duration.ofMillis(50), () -> amazonFileTransfer.getFileMetadata("123")));
+
+        assertEquals(S3CircuitBreaker.State.CLOSED, circuitBreaker.getState(S3Operation.HEAD));
+    }
+
+    private static void withDeadline(final Duration timeout, final Runnable work) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(RequestDeadline.class.getName(), RequestDeadline.after(timeout));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        try {
+            work.run();
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    private AmazonFileTransferImpl createAmazonFileTransfer() {
+        return createAmazonFileTransfer(S3LaneClients.shared(client));
+    }
+
+    private AmazonFileTransferImpl createAmazonFileTransfer(final S3LaneClients s3Clients) {
+        return new AmazonFileTransferImpl(s3Clients, presigner, properties, laneProperties, timeoutProperties,
+                transferMetrics, concurrencyLimiter, circuitBreaker, s3Resilience, logger);
+    }
+
+    private static S3LaneProperties createLaneProperties() {
+        S3LaneProperties laneProperties = new S3LaneProperties();
+        for (S3Lane lane : S3Lane.values()) {
+            laneProperties.getMaxConnections().put(lane, 10);
+        }
+        laneProperties.setLargeTransferThreshold(DataSize.ofMegabytes(8));
+        return laneProperties;
+    }
+
+    private static S3TimeoutProperties createTimeoutProperties() {
+        S3TimeoutProperties timeoutProperties = new S3TimeoutProperties();
+        for (S3Operation operation : S3Operation.values()) {
+            timeoutProperties.getApiCall().put(operation, Duration.ofSeconds(5));
+        }
+        return timeoutProperties;
+    }
+
     private InputStream getInputStream() {
         return new ByteArrayInputStream("anything".getBytes());
     }
@@ -0,0 +1,101 @@
+package uk.gov.companieshouse.filetransferservice.service.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.s3.model.MultipartUpload;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
+import uk.gov.companieshouse.filetransferservice.service.AmazonFileTransfer;
+import uk.gov.companieshouse.logging.Logger;
+
+@ExtendWith(MockitoExtension.class)
+class AbandonedUploadSweeperTest {
+
+    @Mock
+    private AmazonFileTransfer amazonFileTransfer;
+
+    @Mock
+    private Logger logger;
+
+    private SimpleMeterRegistry registry;
+    private AbandonedUploadSweeper underTest;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        // A sweep interval long enough that only the sweeps made by the tests run
+        underTest = new AbandonedUploadSweeper(amazonFileTransfer, registry, logger, Duration.ofHours(24),
+                Duration.ofDays(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        underTest.destroy();
+    }
+
+    @Test
+    @DisplayName("Test only uploads started before the abandoned cutoff are aborted")
+    void testAbortsAbandonedUploads() {
+        when(amazonFileTransfer.listMultipartUploads()).thenReturn(List.of(
+                upload("abandoned", Instant.now().minus(Duration.ofHours(25))),
+                upload("in-progress", Instant.now().minus(Duration.ofHours(1)))));
+
+        underTest.sweep();
+
+        verify(amazonFileTransfer).abortMultipartUpload("abandoned", "abandoned-upload");
+        verify(amazonFileTransfer, never()).abortMultipartUpload("in-progress", "in-progress-upload");
+        assertEquals(1, registry.get(AbandonedUploadSweeper.ABANDONED).counter().count());
+    }
+
+    @Test
+    @DisplayName("Test an upload which fails to abort does not stop the others being aborted")
+    void testAbortFailureDoesNotStopSweep() {
+        Instant abandoned = Instant.now().minus(Duration.ofDays(2));
+        when(amazonFileTransfer.listMultipartUploads()).thenReturn(List.of(
+                upload("completed", abandoned),
+                upload("failing", abandoned),
+                upload("abandoned", abandoned)));
+        doThrow(NoSuchUploadException.builder().build()).when(amazonFileTransfer)
+                .abortMultipartUpload("completed", "completed-upload");
+        doThrow(new IllegalStateException("S3 unavailable")).when(amazonFileTransfer)
+                .abortMultipartUpload("failing", "failing-upload");
+
+        underTest.sweep();
+
+        verify(amazonFileTransfer).abortMultipartUpload("abandoned", "abandoned-upload");
+        assertEquals(1, registry.get(AbandonedUploadSweeper.ABANDONED).counter().count());
+    }
+
+    @Test
+    @DisplayName("Test a sweep which cannot list the uploads aborts nothing")
+    void testListFailure() {
+        when(amazonFileTransfer.listMultipartUploads()).thenThrow(new IllegalStateException("S3 unavailable"));
+
+        underTest.sweep();
+
+        verify(amazonFileTransfer, never()).abortMultipartUpload(anyString(), anyString());
+    }
+
+    private static MultipartUpload upload(final String fileId, final Instant initiated) {
+        return MultipartUpload.builder()
+                .key(fileId)
+                .uploadId(fileId + "-upload")
+                .initiated(initiated)
+                .build();
+    }
+}
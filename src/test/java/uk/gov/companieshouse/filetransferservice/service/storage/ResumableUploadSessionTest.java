@@ -0,0 +1,94 @@
+package uk.gov.companieshouse.filetransferservice.service.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import uk.gov.companieshouse.filetransferservice.exception.InvalidUploadException;
+
+class ResumableUploadSessionTest {
+
+    private static final ResumableUploadSession SESSION = new ResumableUploadSession(
+            "9d4d6a4e-3c4b-4b59-8a4a-2b4c3b1d1f0e", "VXBsb2FkSWQ:with.separators_-", 2500L, 1000L,
+            Instant.parse("2024-01-01T10:00:00Z"));
+    private static final long PART_SIZE = 1000L;
+    private static final long MAX_SIZE = 5000L;
+
+    @Test
+    @DisplayName("Test a session survives being encoded as a URL safe token")
+    void testEncodeDecode() {
+        String token = SESSION.encode();
+
+        assertFalse(token.matches(".*[+/=].*"), token);
+        assertEquals(SESSION, ResumableUploadSession.decode(token, PART_SIZE, MAX_SIZE));
+    }
+
+    @Test
+    @DisplayName("Test every part but the last is the part size, and the last is the remainder")
+    void testPartSizes() {
+        assertEquals(3, SESSION.partCount());
+        assertEquals(1000L, SESSION.partSize(1));
+        assertEquals(1000L, SESSION.partSize(2));
+        assertEquals(500L, SESSION.partSize(3));
+    }
+
+    @Test
+    @DisplayName("Test a file an exact number of parts long has no short last part")
+    void testExactPartSizes() {
+        ResumableUploadSession session = new ResumableUploadSession("123", "upload-id", 2000L, 1000L,
+                Instant.EPOCH);
+
+        assertEquals(2, session.partCount());
+        assertEquals(1000L, session.partSize(2));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"not base64!", "MTox", "eDoxOjE6MTIzOnVwbG9hZA", "MDoxOjE6MTIzOnVwbG9hZA",
+            "MTAwOjEwOjE6MTIzOg"})
+    @DisplayName("Test a token which is not a session is rejected")
+    void testInvalidToken(final String token) {
+        assertThrows(InvalidUploadException.class, () -> ResumableUploadSession.decode(token, PART_SIZE, MAX_SIZE));
+    }
+
+    @Test
+    @DisplayName("Test a token with a non-numeric size is rejected")
+    void testNonNumericSize() {
+        String token = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("size:10:1:123:upload-id".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(InvalidUploadException.class, () -> ResumableUploadSession.decode(token, PART_SIZE, MAX_SIZE));
+    }
+
+    @Test
+    @DisplayName("Test a token with a part size other than the service's is rejected")
+    void testOtherPartSizeRejected() {
+        String token = new ResumableUploadSession("123", "upload-id", 2500L, 1L, Instant.EPOCH).encode();
+
+        assertThrows(InvalidUploadException.class, () -> ResumableUploadSession.decode(token, PART_SIZE, MAX_SIZE));
+    }
+
+    @Test
+    @DisplayName("Test a token for a file larger than the service accepts is rejected")
+    void testTooLargeRejected() {
+        String token = new ResumableUploadSession("123", "upload-id", Long.MAX_VALUE, PART_SIZE, Instant.EPOCH)
+                .encode();
+
+        assertThrows(InvalidUploadException.class, () -> ResumableUploadSession.decode(token, PART_SIZE, MAX_SIZE));
+    }
+
+    @Test
+    @DisplayName("Test the part count of the largest file does not overflow")
+    void testLargestPartCount() {
+        ResumableUploadSession session = new ResumableUploadSession("123", "upload-id", Long.MAX_VALUE,
+                Long.MAX_VALUE / 2, Instant.EPOCH);
+
+        assertEquals(3, session.partCount());
+    }
+}
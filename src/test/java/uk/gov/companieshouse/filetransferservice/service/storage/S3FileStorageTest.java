@@ -3,26 +3,43 @@ package uk.gov.companieshouse.filetransferservice.service.storage;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasEntry;
 import static org.junit.Assert.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static uk.gov.companieshouse.filetransferservice.service.storage.S3FileStorage.FILENAME_METADATA_KEY;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -31,14 +48,38 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.http.Abortable;
+import software.amazon.awssdk.http.AbortableInputStream;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
+import software.amazon.awssdk.services.s3.model.Part;
+import software.amazon.awssdk.services.s3.model.S3Object;
 import software.amazon.awssdk.services.s3.model.Tag;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedUploadPartRequest;
 import uk.gov.companieshouse.api.filetransfer.AvStatus;
 import uk.gov.companieshouse.api.filetransfer.FileDetailsApi;
+import uk.gov.companieshouse.filetransferservice.exception.FileNotCleanException;
+import uk.gov.companieshouse.filetransferservice.exception.IdempotencyConflictException;
+import uk.gov.companieshouse.filetransferservice.exception.InvalidUploadException;
+import uk.gov.companieshouse.filetransferservice.metrics.TransferMetrics;
 import uk.gov.companieshouse.filetransferservice.model.FileDownloadApi;
+import uk.gov.companieshouse.filetransferservice.model.FileDownloadLinkApi;
 import uk.gov.companieshouse.filetransferservice.model.FileUploadApi;
+import uk.gov.companieshouse.filetransferservice.model.PresignedUploadApi;
+import uk.gov.companieshouse.filetransferservice.model.ResumableUploadApi;
+import uk.gov.companieshouse.filetransferservice.model.ResumableUploadPartApi;
+import uk.gov.companieshouse.filetransferservice.model.UploadInitiationApi;
 import uk.gov.companieshouse.filetransferservice.service.AmazonFileTransfer;
 import uk.gov.companieshouse.filetransferservice.service.converter.MetadataDecoder;
 import uk.gov.companieshouse.filetransferservice.service.converter.MetadataEncoder;
@@ -50,13 +91,24 @@ import uk.gov.companieshouse.logging.LoggerFactory;
 class S3FileStorageTest {
 
     private static final String TEST_FILE_NAME = "test.pdf";
+    private static final String CONTENT_HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+    private static final String CALLER = "key:caller-1";
     private static final String SOME_CONTENT = "anything";
 
     @Mock
     private AmazonFileTransfer amazonFileTransfer;
 
     @Mock
-    private ByteArrayInputStream mockInputStream;
+    private Abortable abortable;
+
+    @Mock
+    private PresignedGetObjectRequest presignedGetObjectRequest;
+
+    @Mock
+    private PresignedPutObjectRequest presignedPutObjectRequest;
+
+    @Mock
+    private PresignedUploadPartRequest presignedUploadPartRequest;
 
     private S3FileStorage underTest;
 
@@ -65,7 +117,8 @@ class S3FileStorageTest {
         Logger logger = LoggerFactory.getLogger("S3FileStorageTest");
 
         underTest = new S3FileStorage(amazonFileTransfer, new MetadataEncoder(), new MetadataDecoder(),
-                logger, "test-service-path");
+                new TransferMetrics(new SimpleMeterRegistry()), logger, "test-service-path", Duration.ofMinutes(5), Duration.ofMinutes(15), DataSize.ofMegabytes(64),
+                DataSize.ofMegabytes(8), Duration.ofHours(24));
     }
 
     @Test
@@ -82,6 +135,99 @@ class S3FileStorageTest {
         assertThat(metaDataCapture.getValue(), hasEntry(FILENAME_METADATA_KEY, TEST_FILE_NAME));
     }
 
+    @Test
+    @DisplayName("Test a save with an idempotency key stores the file under an id derived from the key")
+    void testIdempotentSaveDerivesFileId() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, String>> metaDataCapture = ArgumentCaptor.forClass(Map.class);
+        when(amazonFileTransfer.getFileMetadata(anyString())).thenReturn(Optional.empty());
+        when(amazonFileTransfer.uploadFileIfAbsent(anyString(), metaDataCapture.capture(), any(InputStream.class)))
+                .thenReturn(true);
+
+        String actual = underTest.save(createTestFileUploadApi(), CALLER, "key-1", CONTENT_HASH);
+
+        assertEquals(actual, underTest.save(createTestFileUploadApi(), CALLER, "key-1", CONTENT_HASH));
+        assertNotNull(UUID.fromString(actual));
+        assertThat(metaDataCapture.getValue(), hasEntry("content-sha256", CONTENT_HASH));
+    }
+
+    @Test
+    @DisplayName("Test the same idempotency key from different callers saves different files")
+    void testIdempotencyKeyScopedToCaller() {
+        when(amazonFileTransfer.getFileMetadata(anyString())).thenReturn(Optional.empty());
+        when(amazonFileTransfer.uploadFileIfAbsent(anyString(), anyMap(), any(InputStream.class))).thenReturn(true);
+
+        String first = underTest.save(createTestFileUploadApi(), CALLER, "key-1", CONTENT_HASH);
+        String second = underTest.save(createTestFileUploadApi(), "key:other-caller", "key-1", CONTENT_HASH);
+
+        assertNotEquals(first, second);
+        verify(amazonFileTransfer, times(2)).uploadFileIfAbsent(anyString(), anyMap(), any(InputStream.class));
+    }
+
+    @Test
+    @DisplayName("Test a retried save with an idempotency key returns the stored file without storing it again")
+    void testIdempotentSaveRetried() {
+        when(amazonFileTransfer.getFileMetadata(anyString())).thenReturn(Optional.of(savedWithHash(CONTENT_HASH)));
+
+        String actual = underTest.save(createTestFileUploadApi(), CALLER, "key-1", CONTENT_HASH);
+
+        assertNotNull(UUID.fromString(actual));
+        verify(amazonFileTransfer, times(0)).uploadFileIfAbsent(anyString(), anyMap(), any(InputStream.class));
+    }
+
+    @Test
+    @DisplayName("Test a save with an idempotency key already used for different content is rejected")
+    void testIdempotentSaveConflict() {
+        when(amazonFileTransfer.getFileMetadata(anyString())).thenReturn(Optional.of(savedWithHash("other")));
+        FileUploadApi file = createTestFileUploadApi();
+
+        assertThrows(IdempotencyConflictException.class, () -> underTest.save(file, CALLER, "key-1", CONTENT_HASH));
+        verify(amazonFileTransfer, times(0)).uploadFileIfAbsent(anyString(), anyMap(), any(InputStream.class));
+    }
+
+    @Test
+    @DisplayName("Test a save with an idempotency key which loses the conditional write returns the winner's file")
+    void testIdempotentSaveLosesConditionalWrite() {
+        when(amazonFileTransfer.getFileMetadata(anyString()))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(savedWithHash(CONTENT_HASH)));
+        when(amazonFileTransfer.uploadFileIfAbsent(anyString(), anyMap(), any(InputStream.class))).thenReturn(false);
+
+        String actual = underTest.save(createTestFileUploadApi(), CALLER, "key-1", CONTENT_HASH);
+
+        assertNotNull(UUID.fromString(actual));
+        verify(amazonFileTransfer, times(2)).getFileMetadata(actual);
+    }
+
+    @Test
+    @DisplayName("Test saves with the same idempotency key in progress at once are coalesced into one")
+    void testIdempotentSavesCoalesced() throws Exception {
+        CountDownLatch uploading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Should the second save start after the first is done, it finds the stored file rather than storing another
+        when(amazonFileTransfer.getFileMetadata(anyString()))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(savedWithHash(CONTENT_HASH)));
+        when(amazonFileTransfer.uploadFileIfAbsent(anyString(), anyMap(), any(InputStream.class)))
+                .thenAnswer(invocation -> {
+                    uploading.countDown();
+                    return release.await(5, TimeUnit.SECONDS);
+                });
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(
+                () -> underTest.save(createTestFileUploadApi(), CALLER, "key-1", CONTENT_HASH));
+        assertTrue(uploading.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(
+                () -> underTest.save(createTestFileUploadApi(), CALLER, "key-1", CONTENT_HASH));
+        FileUploadApi different = createTestFileUploadApi();
+        assertThrows(IdempotencyConflictException.class, () -> underTest.save(different, CALLER, "key-1", "other"));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertEquals(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        verify(amazonFileTransfer).uploadFileIfAbsent(anyString(), anyMap(), any(InputStream.class));
+    }
+
     @Test
     @DisplayName("Test SdkClientException thrown on unsuccessful File Save")
     void testSdkClientExceptionThrownFromFileSaveFailure() {
@@ -93,11 +239,11 @@ class S3FileStorageTest {
     @Test
     @DisplayName("Test successful File Load")
     void testLoadFileSuccess() {
-        when(amazonFileTransfer.downloadStream(anyString()))
+        when(amazonFileTransfer.downloadStream(anyString(), anyLong()))
                 .thenReturn(Optional.of(new ByteArrayInputStream("sdf".getBytes())));
 
         Optional<FileDownloadApi> actual = underTest.load(createTestFileDetailsApi());
-        verify(amazonFileTransfer).downloadStream(anyString());
+        verify(amazonFileTransfer).downloadStream("id", 123L);
 
         assertTrue(actual.isPresent());
     }
@@ -105,95 +251,535 @@ class S3FileStorageTest {
     @Test
     @DisplayName("Test SdkClientException thrown on unsuccessful File Load")
     void testLoadFileFailureReturnsEmptyObject() {
-        when(amazonFileTransfer.downloadStream(anyString())).thenReturn(Optional.empty());
+        when(amazonFileTransfer.downloadStream(anyString(), anyLong())).thenReturn(Optional.empty());
 
         Optional<FileDownloadApi> actual = underTest.load(createTestFileDetailsApi());
 
-        verify(amazonFileTransfer).downloadStream(anyString());
+        verify(amazonFileTransfer).downloadStream(anyString(), anyLong());
+
+        assertTrue(actual.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test successful Get Download Link")
+    void testGetDownloadLinkSuccess() throws Exception {
+        URL url = new URI("https://bucket.s3.amazonaws.com/id?X-Amz-Signature=abc").toURL();
+        Instant expiration = Instant.parse("2024-01-01T10:05:00Z");
+
+        when(presignedGetObjectRequest.url()).thenReturn(url);
+        when(presignedGetObjectRequest.expiration()).thenReturn(expiration);
+        when(amazonFileTransfer.presignDownload("id", "attachment; filename=\"name\"", "contentType",
+                Duration.ofMinutes(5))).thenReturn(presignedGetObjectRequest);
+
+        FileDownloadLinkApi actual = underTest.getDownloadLink(createTestFileDetailsApi());
+
+        assertEquals(url.toString(), actual.getUrl());
+        assertEquals("2024-01-01T10:05:00Z", actual.getExpiresAt());
+    }
+
+    @Test
+    @DisplayName("Test Initiate Upload creates a single presigned PUT for a small file")
+    void testInitiateUploadSinglePart() throws Exception {
+        URL url = new URI("https://bucket.s3.amazonaws.com/id?X-Amz-Signature=abc").toURL();
+
+        when(presignedPutObjectRequest.url()).thenReturn(url);
+        when(presignedPutObjectRequest.expiration()).thenReturn(Instant.parse("2024-01-01T10:15:00Z"));
+        when(presignedPutObjectRequest.signedHeaders()).thenReturn(Map.of(
+                "host", List.of("bucket.s3.amazonaws.com"),
+                "x-amz-meta-filename", List.of(TEST_FILE_NAME),
+                "content-length", List.of("1024"),
+                "if-none-match", List.of("*")));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, String>> metaDataCapture = ArgumentCaptor.forClass(Map.class);
+        when(amazonFileTransfer.presignUpload(anyString(), metaDataCapture.capture(), eq(1024L),
+                eq(Duration.ofMinutes(15)))).thenReturn(presignedPutObjectRequest);
+
+        PresignedUploadApi actual = underTest.initiateUpload(
+                new UploadInitiationApi(TEST_FILE_NAME, "application/pdf", 1024L));
+
+        assertNotNull(UUID.fromString(actual.getId()));
+        assertEquals(url.toString(), actual.getUrl());
+        assertEquals(Map.of("x-amz-meta-filename", TEST_FILE_NAME, "content-length", "1024", "if-none-match", "*"),
+                actual.getHeaders());
+        assertNull(actual.getUploadId());
+        assertNull(actual.getParts());
+        assertThat(metaDataCapture.getValue(), hasEntry("presigned-upload", "true"));
+        verify(amazonFileTransfer, times(0)).createMultipartUpload(anyString(), anyMap());
+    }
+
+    @Test
+    @DisplayName("Test Initiate Upload creates a presigned multipart upload for a large file")
+    void testInitiateUploadMultipart() throws Exception {
+        URL url = new URI("https://bucket.s3.amazonaws.com/id?partNumber=1").toURL();
+
+        when(presignedUploadPartRequest.url()).thenReturn(url);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, String>> metaDataCapture = ArgumentCaptor.forClass(Map.class);
+        when(amazonFileTransfer.createMultipartUpload(anyString(), metaDataCapture.capture())).thenReturn("upload-id");
+        when(amazonFileTransfer.presignUploadPart(anyString(), eq("upload-id"), anyInt(),
+                eq(Duration.ofMinutes(15)))).thenReturn(presignedUploadPartRequest);
+
+        PresignedUploadApi actual = underTest.initiateUpload(new UploadInitiationApi(TEST_FILE_NAME,
+                "application/pdf", DataSize.ofMegabytes(200).toBytes()));
+
+        assertEquals("upload-id", actual.getUploadId());
+        assertEquals(DataSize.ofMegabytes(64).toBytes(), actual.getPartSize());
+        assertEquals(4, actual.getParts().size());
+        assertEquals(4, actual.getParts().get(3).getPartNumber());
+        assertNull(actual.getUrl());
+        assertThat(metaDataCapture.getValue(), hasEntry("presigned-upload", "true"));
+        verify(amazonFileTransfer, times(0)).presignUpload(anyString(), anyMap(), anyLong(), any(Duration.class));
+    }
+
+    @Test
+    @DisplayName("Test Complete Upload completes the multipart upload and returns the stored file details")
+    void testCompleteUploadMultipartSuccess() {
+        HeadObjectResponse headObjectResponse = HeadObjectResponse.builder()
+                .contentLength(1024L)
+                .lastModified(Instant.now())
+                .metadata(Map.of("content-type", "application/pdf", FILENAME_METADATA_KEY, TEST_FILE_NAME,
+                        "presigned-upload", "true"))
+                .build();
+
+        when(amazonFileTransfer.getFileMetadata("id")).thenReturn(Optional.of(headObjectResponse));
+
+        Optional<FileDetailsApi> actual = underTest.completeUpload("id", "upload-id");
+
+        verify(amazonFileTransfer).completeMultipartUpload("id", "upload-id");
+        assertTrue(actual.isPresent());
+        assertEquals(AvStatus.NOT_SCANNED, actual.get().getAvStatus());
+        assertEquals("application/pdf", actual.get().getContentType());
+        assertEquals(TEST_FILE_NAME, actual.get().getName());
+        assertEquals(1024L, actual.get().getSize());
+    }
+
+    @Test
+    @DisplayName("Test Complete Upload leaves a file which was not uploaded with presigned URLs untouched")
+    void testCompleteUploadNotPresigned() {
+        HeadObjectResponse headObjectResponse = HeadObjectResponse.builder()
+                .contentLength(1024L)
+                .lastModified(Instant.now())
+                .metadata(Map.of("content-type", "application/pdf", FILENAME_METADATA_KEY, TEST_FILE_NAME))
+                .build();
+
+        when(amazonFileTransfer.getFileMetadata("id")).thenReturn(Optional.of(headObjectResponse));
+
+        Optional<FileDetailsApi> actual = underTest.completeUpload("id", null);
 
         assertTrue(actual.isEmpty());
+        verify(amazonFileTransfer, never()).deleteFile(anyString());
+    }
+
+    @Test
+    @DisplayName("Test Complete Upload returns empty when the multipart upload does not exist")
+    void testCompleteUploadNoSuchUpload() {
+        doThrow(NoSuchUploadException.builder().build()).when(amazonFileTransfer)
+                .completeMultipartUpload("id", "upload-id");
+
+        Optional<FileDetailsApi> actual = underTest.completeUpload("id", "upload-id");
+
+        assertTrue(actual.isEmpty());
+        verify(amazonFileTransfer, times(0)).getFileMetadata(anyString());
+    }
+
+    @Test
+    @DisplayName("Test Create Resumable Upload starts a multipart upload and returns its session")
+    void testCreateResumableUpload() {
+        when(amazonFileTransfer.createMultipartUpload(anyString(), anyMap())).thenReturn("upload-id");
+
+        ResumableUploadApi actual = underTest.createResumableUpload(new UploadInitiationApi(TEST_FILE_NAME,
+                "application/pdf", DataSize.ofMegabytes(20).toBytes()));
+
+        ResumableUploadSession session = ResumableUploadSession.decode(actual.getSession(),
+                DataSize.ofMegabytes(8).toBytes(), DataSize.ofMegabytes(20).toBytes());
+        assertEquals(actual.getId(), session.fileId());
+        assertEquals("upload-id", session.uploadId());
+        assertEquals(DataSize.ofMegabytes(8).toBytes(), actual.getPartSize());
+        assertEquals(3, actual.getPartCount());
+        assertTrue(actual.getParts().isEmpty());
+        assertEquals(session.initiated().plus(Duration.ofHours(24)).toString(), actual.getExpiresAt());
+    }
+
+    @Test
+    @DisplayName("Test Get Resumable Upload lists the parts S3 holds")
+    void testGetResumableUpload() {
+        ResumableUploadSession session = resumableSession();
+        when(amazonFileTransfer.listParts("id", "upload-id"))
+                .thenReturn(List.of(Part.builder().partNumber(2).size(1000L).build()));
+
+        Optional<ResumableUploadApi> actual = underTest.getResumableUpload(session);
+
+        assertTrue(actual.isPresent());
+        assertEquals(List.of(new ResumableUploadPartApi(2, 1000L)), actual.get().getParts());
+    }
+
+    @Test
+    @DisplayName("Test Get Resumable Upload returns empty when the multipart upload does not exist")
+    void testGetResumableUploadNoSuchUpload() {
+        when(amazonFileTransfer.listParts("id", "upload-id")).thenThrow(NoSuchUploadException.builder().build());
+
+        assertTrue(underTest.getResumableUpload(resumableSession()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test Upload Part uploads a part of the session's part size, or the remainder for the last")
+    void testUploadPart() {
+        ResumableUploadSession session = resumableSession();
+        InputStream body = new ByteArrayInputStream(new byte[500]);
+
+        Optional<ResumableUploadPartApi> actual = underTest.uploadPart(session, 3, body, 500L);
+
+        assertEquals(Optional.of(new ResumableUploadPartApi(3, 500L)), actual);
+        verify(amazonFileTransfer).uploadPart("id", "upload-id", 3, body, 500L);
+    }
+
+    @Test
+    @DisplayName("Test Upload Part rejects a part which does not exist or is the wrong size")
+    void testUploadPartInvalid() {
+        ResumableUploadSession session = resumableSession();
+        InputStream body = new ByteArrayInputStream(new byte[1000]);
+
+        assertThrows(InvalidUploadException.class, () -> underTest.uploadPart(session, 0, body, 1000L));
+        assertThrows(InvalidUploadException.class, () -> underTest.uploadPart(session, 4, body, 1000L));
+        assertThrows(InvalidUploadException.class, () -> underTest.uploadPart(session, 1, body, 999L));
+        assertThrows(InvalidUploadException.class, () -> underTest.uploadPart(session, 3, body, 1000L));
+        verify(amazonFileTransfer, times(0)).uploadPart(anyString(), anyString(), anyInt(), any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Test Complete Resumable Upload completes from the listed parts once all are uploaded")
+    void testCompleteResumableUpload() {
+        List<Part> parts = List.of(Part.builder().partNumber(1).size(1000L).build(),
+                Part.builder().partNumber(2).size(1000L).build(),
+                Part.builder().partNumber(3).size(500L).build());
+        HeadObjectResponse headObjectResponse = HeadObjectResponse.builder()
+                .contentLength(2500L)
+                .lastModified(Instant.now())
+                .metadata(Map.of("content-type", "application/pdf", FILENAME_METADATA_KEY, TEST_FILE_NAME))
+                .build();
+
+        when(amazonFileTransfer.listParts("id", "upload-id")).thenReturn(parts);
+        when(amazonFileTransfer.getFileMetadata("id")).thenReturn(Optional.of(headObjectResponse));
+
+        Optional<FileDetailsApi> actual = underTest.completeResumableUpload(resumableSession());
+
+        verify(amazonFileTransfer).completeMultipartUpload("id", "upload-id", parts);
+        assertTrue(actual.isPresent());
+        assertEquals(2500L, actual.get().getSize());
+        assertEquals(TEST_FILE_NAME, actual.get().getName());
+    }
+
+    @Test
+    @DisplayName("Test Complete Resumable Upload is rejected while parts are missing")
+    void testCompleteResumableUploadMissingParts() {
+        ResumableUploadSession session = resumableSession();
+        when(amazonFileTransfer.listParts("id", "upload-id"))
+                .thenReturn(List.of(Part.builder().partNumber(2).size(1000L).build()));
+
+        InvalidUploadException exception = assertThrows(InvalidUploadException.class,
+                () -> underTest.completeResumableUpload(session));
+
+        assertEquals("Upload is missing parts [1, 3]", exception.getMessage());
+        verify(amazonFileTransfer, times(0)).completeMultipartUpload(anyString(), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Test Abort Resumable Upload ignores an upload which no longer exists")
+    void testAbortResumableUploadNoSuchUpload() {
+        doThrow(NoSuchUploadException.builder().build()).when(amazonFileTransfer)
+                .abortMultipartUpload("id", "upload-id");
+
+        underTest.abortResumableUpload(resumableSession());
+
+        verify(amazonFileTransfer).abortMultipartUpload("id", "upload-id");
+    }
+
+    @Test
+    @DisplayName("Test successful File Load fetches the content in the lane for the size looked up first")
+    void testLoadFileWithDetailsSuccess() throws Exception {
+        byte[] content = SOME_CONTENT.getBytes();
+        when(amazonFileTransfer.getFileMetadata("id")).thenReturn(Optional.of(createTestHeadObject().get().toBuilder()
+                .metadata(Map.of(FILENAME_METADATA_KEY, TEST_FILE_NAME, "Content-Type", "application/pdf"))
+                .build()));
+        when(amazonFileTransfer.getFileTags("id")).thenReturn(Optional.of(List.of()));
+        when(amazonFileTransfer.getFileObject("id", content.length)).thenReturn(Optional.of(
+                new ResponseInputStream<>(createTestS3ObjectWithNullTags().build(),
+                        AbortableInputStream.create(new ByteArrayInputStream(content), abortable))));
+
+        List<FileDetailsApi> checkedDetails = new ArrayList<>();
+        Optional<FileDownloadApi> actual = underTest.load("id", checkedDetails::add);
+
+        assertTrue(actual.isPresent());
+        assertEquals(TEST_FILE_NAME, actual.get().getFileName());
+        assertEquals("application/pdf", actual.get().getMimeType());
+        assertEquals(content.length, actual.get().getSize());
+        assertEquals(1, checkedDetails.size());
+        assertEquals(AvStatus.NOT_SCANNED, checkedDetails.get(0).getAvStatus());
+
+        try (InputStream body = actual.get().getBody()) {
+            assertArrayEquals(content, body.readAllBytes());
+        }
+
+        verify(abortable, times(0)).abort();
+        verify(amazonFileTransfer, times(0)).downloadStream(anyString(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Test File Load does not fetch the content when the details check fails")
+    void testLoadFileWithDetailsCheckFailure() {
+        when(amazonFileTransfer.getFileMetadata("id")).thenReturn(createTestHeadObject());
+        when(amazonFileTransfer.getFileTags("id")).thenReturn(Optional.of(List.of()));
+
+        Consumer<FileDetailsApi> failingCheck = details -> {
+            throw new FileNotCleanException(details.getAvStatus(), details.getId());
+        };
+
+        assertThrows(FileNotCleanException.class, () -> underTest.load("id", failingCheck));
+        verify(amazonFileTransfer, times(0)).getFileObject(anyString(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Test File Load of a missing file does not fetch the content")
+    void testLoadFileWithDetailsNotFound() {
+        when(amazonFileTransfer.getFileMetadata("id")).thenReturn(Optional.empty());
+
+        assertTrue(underTest.load("id", details -> {}).isEmpty());
+        verify(amazonFileTransfer, times(0)).getFileObject(anyString(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Test File Load aborts the S3 response when the body is closed early")
+    void testLoadFileWithDetailsClosedEarly() throws Exception {
+        when(amazonFileTransfer.getFileMetadata("id")).thenReturn(createTestHeadObject());
+        when(amazonFileTransfer.getFileTags("id")).thenReturn(Optional.of(List.of()));
+        when(amazonFileTransfer.getFileObject("id", SOME_CONTENT.length())).thenReturn(Optional.of(
+                new ResponseInputStream<>(createTestS3ObjectWithNullTags().build(),
+                        AbortableInputStream.create(new ByteArrayInputStream(SOME_CONTENT.getBytes()), abortable))));
+
+        Optional<FileDownloadApi> actual = underTest.load("id", details -> {});
+
+        try (InputStream body = actual.get().getBody()) {
+            assertEquals(SOME_CONTENT.charAt(0), body.read());
+        }
+
+        verify(abortable).abort();
     }
 
     @Test
     @DisplayName("Test successful Get File Details with AV tags")
     void testGetFileDetailsSuccessWithAvTags() {
-        when(amazonFileTransfer.getFileObject(anyString())).thenReturn(createTestS3ObjectTags(4));
+        when(amazonFileTransfer.getFileMetadata(anyString())).thenReturn(createTestHeadObject());
         when(amazonFileTransfer.getFileTags(anyString())).thenReturn(createMixedTags());
 
         Optional<FileDetailsApi> actual = underTest.getFileDetails(TEST_FILE_NAME);
 
         assertTrue(actual.isPresent());
         assertNotNull(actual.get().getAvTimestamp());
-        assertNotNull(actual.get().getAvStatus());
-        verify(amazonFileTransfer).getFileObject(anyString());
+        assertEquals(AvStatus.CLEAN, actual.get().getAvStatus());
+        verify(amazonFileTransfer).getFileMetadata(anyString());
         verify(amazonFileTransfer).getFileTags(anyString());
     }
 
     @Test
-    @DisplayName("Test successful Get File Details with empty tags")
-    void testGetFileDetailsSuccessWithNullTags() {
-        when(amazonFileTransfer.getFileObject(anyString())).thenReturn(Optional.of(
-                new ResponseInputStream<>(createTestS3ObjectWithNullTags().build(), mockInputStream)
-        ));
+    @DisplayName("Test successful Get File Details with no tags")
+    void testGetFileDetailsSuccessWithNoTags() {
+        when(amazonFileTransfer.getFileMetadata(anyString())).thenReturn(createTestHeadObject());
+        when(amazonFileTransfer.getFileTags(anyString())).thenReturn(Optional.of(List.of()));
 
         Optional<FileDetailsApi> actual = underTest.getFileDetails(TEST_FILE_NAME);
 
         assertTrue(actual.isPresent());
-        verify(amazonFileTransfer).getFileObject(anyString());
-        verify(amazonFileTransfer, times(0)).getFileTags(anyString());
+        assertEquals(AvStatus.NOT_SCANNED, actual.get().getAvStatus());
+        assertEquals((long) SOME_CONTENT.length(), actual.get().getSize());
     }
 
     @Test
-    @DisplayName("Test successful Get File Details with zero tags")
-    void testGetFileDetailsSuccessWithZeroTags() {
-        when(amazonFileTransfer.getFileObject(anyString())).thenReturn(createTestS3ObjectTags(0));
-
-        Optional<FileDetailsApi> actual = underTest.getFileDetails(TEST_FILE_NAME);
+    @DisplayName("Test Get File Details does not fetch the file content")
+    void testGetFileDetailsDoesNotFetchContent() {
+        when(amazonFileTransfer.getFileMetadata(anyString())).thenReturn(createTestHeadObject());
+        when(amazonFileTransfer.getFileTags(anyString())).thenReturn(Optional.of(List.of()));
 
-        assertTrue(actual.isPresent());
-        verify(amazonFileTransfer).getFileObject(anyString());
+        underTest.getFileDetails(TEST_FILE_NAME);
 
-        verify(amazonFileTransfer, times(0)).getFileTags(anyString());
+        verify(amazonFileTransfer, times(0)).getFileObject(anyString(), anyLong());
+        verify(amazonFileTransfer, times(0)).downloadStream(anyString(), anyLong());
     }
 
     @Test
     @DisplayName("Test failure Get File Details with no AV tags")
     void testGetFileDetailsSuccessWithNoAVTags() {
-        when(amazonFileTransfer.getFileObject(anyString())).thenReturn(createTestS3ObjectTags(2));
+        when(amazonFileTransfer.getFileMetadata(anyString())).thenReturn(createTestHeadObject());
         when(amazonFileTransfer.getFileTags(anyString())).thenReturn(createNonAvTags());
 
         Optional<FileDetailsApi> actual = underTest.getFileDetails(TEST_FILE_NAME);
 
         assertTrue(actual.isEmpty());
-        verify(amazonFileTransfer).getFileObject(anyString());
+        verify(amazonFileTransfer).getFileMetadata(anyString());
         verify(amazonFileTransfer).getFileTags(anyString());
     }
 
     @Test
     @DisplayName("Test failure Get File Details when s3 object not found")
     void testGetFileDetailsFailsWhenS3ObjectNotFound() {
-        when(amazonFileTransfer.getFileObject(anyString())).thenReturn(Optional.empty());
+        when(amazonFileTransfer.getFileMetadata(anyString())).thenReturn(Optional.empty());
 
         Optional<FileDetailsApi> actual = underTest.getFileDetails(TEST_FILE_NAME);
 
         assertTrue(actual.isEmpty());
-        verify(amazonFileTransfer).getFileObject(anyString());
+        verify(amazonFileTransfer).getFileMetadata(anyString());
         verify(amazonFileTransfer, times(0)).getFileTags(anyString());
     }
 
     @Test
     @DisplayName("Test failure no Get File Details when Get File Tags fails")
     void testGetFileDetailsFailsOnRetrievingTags() {
-        when(amazonFileTransfer.getFileObject(anyString())).thenReturn(createTestS3ObjectTags(1));
+        when(amazonFileTransfer.getFileMetadata(anyString())).thenReturn(createTestHeadObject());
         when(amazonFileTransfer.getFileTags(anyString())).thenReturn(Optional.empty());
 
         Optional<FileDetailsApi> actual = underTest.getFileDetails(TEST_FILE_NAME);
 
         assertTrue(actual.isEmpty());
-        verify(amazonFileTransfer).getFileObject(anyString());
+        verify(amazonFileTransfer).getFileMetadata(anyString());
         verify(amazonFileTransfer).getFileTags(anyString());
     }
 
+    @Test
+    @DisplayName("Test a Get File Details whose tags lookup throws is not remembered as the file being missing")
+    void testGetFileDetailsTagsLookupFailureNotRemembered() {
+        when(amazonFileTransfer.getFileMetadata(anyString())).thenReturn(createTestHeadObject());
+        when(amazonFileTransfer.getFileTags(anyString()))
+                .thenThrow(SdkClientException.create("Unable to connect"))
+                .thenReturn(createMixedTags());
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            assertThrows(SdkClientException.class, () -> underTest.getFileDetails(TEST_FILE_NAME));
+
+            assertTrue(underTest.getFileDetails(TEST_FILE_NAME).isPresent());
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @Test
+    @DisplayName("Test Get File Details looks up the details once per request")
+    void testGetFileDetailsMemoizedWithinRequest() {
+        when(amazonFileTransfer.getFileMetadata(anyString())).thenReturn(createTestHeadObject());
+        when(amazonFileTransfer.getFileTags(anyString())).thenReturn(createMixedTags());
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            Optional<FileDetailsApi> first = underTest.getFileDetails(TEST_FILE_NAME);
+            Optional<FileDetailsApi> second = underTest.getFileDetails(TEST_FILE_NAME);
+
+            assertTrue(first.isPresent());
+            assertEquals(first, second);
+
+            underTest.delete(TEST_FILE_NAME);
+            underTest.getFileDetails(TEST_FILE_NAME);
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        verify(amazonFileTransfer, times(2)).getFileMetadata(TEST_FILE_NAME);
+    }
+
+    @Test
+    @DisplayName("Test refreshing AV status picks up the AV tags without looking up the file details")
+    void testRefreshAvStatusScanned() {
+        FileDetailsApi unscanned = createTestFileDetailsApi().avStatus(AvStatus.NOT_SCANNED).avTimestamp("");
+        when(amazonFileTransfer.getFileTags("id")).thenReturn(createAvTags());
+
+        Optional<FileDetailsApi> actual = underTest.refreshAvStatus(unscanned);
+
+        assertTrue(actual.isPresent());
+        assertEquals(AvStatus.CLEAN, actual.get().getAvStatus());
+        assertEquals("name", actual.get().getName());
+        assertEquals(123L, actual.get().getSize());
+        verify(amazonFileTransfer, times(0)).getFileMetadata(anyString());
+    }
+
+    @Test
+    @DisplayName("Test refreshing AV status of a file with no tags leaves it not scanned")
+    void testRefreshAvStatusNotScanned() {
+        FileDetailsApi unscanned = createTestFileDetailsApi().avStatus(AvStatus.NOT_SCANNED).avTimestamp("");
+        when(amazonFileTransfer.getFileTags("id")).thenReturn(Optional.of(List.of()));
+
+        Optional<FileDetailsApi> actual = underTest.refreshAvStatus(unscanned);
+
+        assertEquals(Optional.of(unscanned), actual);
+    }
+
+    @Test
+    @DisplayName("Test refreshing AV status of a file whose tags are not AV tags leaves it not scanned")
+    void testRefreshAvStatusNonAvTags() {
+        FileDetailsApi unscanned = createTestFileDetailsApi().avStatus(AvStatus.NOT_SCANNED).avTimestamp("");
+        when(amazonFileTransfer.getFileTags("id")).thenReturn(createNonAvTags());
+
+        Optional<FileDetailsApi> actual = underTest.refreshAvStatus(unscanned);
+
+        assertEquals(Optional.of(unscanned), actual);
+    }
+
+    @Test
+    @DisplayName("Test refreshing AV status throws when the tags lookup fails, rather than the file seeming deleted")
+    void testRefreshAvStatusLookupFails() {
+        FileDetailsApi unscanned = createTestFileDetailsApi().avStatus(AvStatus.NOT_SCANNED).avTimestamp("");
+        when(amazonFileTransfer.getFileTags("id")).thenThrow(SdkClientException.create("Unable to connect"));
+
+        assertThrows(SdkClientException.class, () -> underTest.refreshAvStatus(unscanned));
+    }
+
+    @Test
+    @DisplayName("Test refreshing AV status of a deleted file returns empty")
+    void testRefreshAvStatusFileDeleted() {
+        FileDetailsApi unscanned = createTestFileDetailsApi().avStatus(AvStatus.NOT_SCANNED).avTimestamp("");
+        when(amazonFileTransfer.getFileTags("id")).thenThrow(NoSuchKeyException.builder().build());
+
+        Optional<FileDetailsApi> actual = underTest.refreshAvStatus(unscanned);
+
+        assertTrue(actual.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test files are listed from every page, filtered by when they were created")
+    void testListFilesFromEveryPage() {
+        Instant createdFrom = Instant.parse("2024-01-02T00:00:00Z");
+        Instant createdTo = Instant.parse("2024-01-03T00:00:00Z");
+        when(amazonFileTransfer.listFiles("1", "100", null, 1000)).thenReturn(ListObjectsV2Response.builder()
+                .contents(listedObject("101", "2024-01-01T12:00:00Z"), listedObject("102", "2024-01-02T00:00:00Z"))
+                .isTruncated(true)
+                .nextContinuationToken("token")
+                .build());
+        when(amazonFileTransfer.listFiles("1", "100", "token", 1000)).thenReturn(ListObjectsV2Response.builder()
+                .contents(listedObject("103", "2024-01-02T12:00:00Z"), listedObject("104", "2024-01-03T00:00:00Z"))
+                .isTruncated(false)
+                .build());
+
+        List<FileDetailsApi> actual = underTest.list("1", "100", createdFrom, createdTo, Integer.MAX_VALUE).toList();
+
+        assertEquals(List.of("102", "103"), actual.stream().map(FileDetailsApi::getId).toList());
+        assertEquals(123L, actual.getFirst().getSize());
+        assertEquals("2024-01-02T00:00:00Z", actual.getFirst().getCreatedOn());
+        assertTrue(actual.getFirst().getLinks().getSelf().endsWith("/102"));
+        assertNull(actual.getFirst().getAvStatus());
+    }
+
+    @Test
+    @DisplayName("Test a listing stops once it has found as many files as its limit")
+    void testListFilesStopsAtLimit() {
+        when(amazonFileTransfer.listFiles(null, null, null, 2)).thenReturn(ListObjectsV2Response.builder()
+                .contents(listedObject("101", "2024-01-01T12:00:00Z"), listedObject("102", "2024-01-02T00:00:00Z"))
+                .isTruncated(true)
+                .nextContinuationToken("token")
+                .build());
+
+        List<FileDetailsApi> actual = underTest.list(null, null, null, null, 2).toList();
+
+        assertEquals(2, actual.size());
+        verify(amazonFileTransfer, never()).listFiles(null, null, "token", 2);
+    }
+
     @Test
     @DisplayName("Test successful File Delete")
     void testDeleteFileSuccess() {
@@ -239,11 +825,12 @@ class S3FileStorageTest {
                 .lastModified(Instant.now().minusSeconds(10));
     }
 
-    private Optional<ResponseInputStream<GetObjectResponse>>  createTestS3ObjectTags(int tagCount) {
-        GetObjectResponse.Builder  objectResponseBuilder = createTestS3ObjectWithNullTags();
-        objectResponseBuilder.tagCount(tagCount);
-
-        return Optional.of(new ResponseInputStream<>(objectResponseBuilder.build(), mockInputStream));
+    private Optional<HeadObjectResponse> createTestHeadObject() {
+        return Optional.of(HeadObjectResponse.builder()
+                .contentType(SOME_CONTENT)
+                .contentLength((long) SOME_CONTENT.length())
+                .lastModified(Instant.now().minusSeconds(10))
+                .build());
     }
 
     private Optional<List<Tag>> createAvTags() {
@@ -276,4 +863,22 @@ class S3FileStorageTest {
                 createNonAvTags().get().stream())
                 .toList());
     }
-}
\ No newline at end of file
+
+    private static HeadObjectResponse savedWithHash(final String contentHash) {
+        return HeadObjectResponse.builder()
+                .metadata(Map.of("content-sha256", contentHash))
+                .build();
+    }
+
+    private static ResumableUploadSession resumableSession() {
+        return new ResumableUploadSession("id", "upload-id", 2500L, 1000L, Instant.parse("2024-01-01T10:00:00Z"));
+    }
+
+    private static S3Object listedObject(final String fileId, final String lastModified) {
+        return S3Object.builder()
+                .key(fileId)
+                .size(123L)
+                .lastModified(Instant.parse(lastModified))
+                .build();
+    }
+}
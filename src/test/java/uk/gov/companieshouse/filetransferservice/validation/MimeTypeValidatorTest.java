@@ -1,13 +1,16 @@
 package uk.gov.companieshouse.filetransferservice.validation;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -114,4 +117,72 @@ class MimeTypeValidatorTest {
         // Verify that an exception is thrown when the validator is used to validate the file
         assertThrows(InvalidMimeTypeException.class, () -> validator.validate(file.getMimeType()));
     }
-}
\ No newline at end of file
+
+    public static Stream<Arguments> getMatchingContent() {
+        byte[] tar = new byte[512];
+        System.arraycopy("ustar".getBytes(), 0, tar, 257, 5);
+
+        return Stream.of(
+                Arguments.of("text/plain", "file content".getBytes()),
+                Arguments.of("text/csv", "a,b,c\n1,2,3".getBytes()),
+                Arguments.of("application/xml", "<?xml version=\"1.0\"?><a/>".getBytes()),
+                Arguments.of("image/png", new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0}),
+                Arguments.of("image/jpeg", new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0}),
+                Arguments.of("image/gif", "GIF89a...".getBytes()),
+                Arguments.of("application/pdf", "%PDF-1.7\n".getBytes()),
+                Arguments.of("application/pdf", "\r\n%PDF-1.4\n".getBytes()),
+                Arguments.of("application/zip", new byte[]{'P', 'K', 0x03, 0x04, 0}),
+                Arguments.of("application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+                        new byte[]{'P', 'K', 0x03, 0x04, 0}),
+                Arguments.of("application/msword",
+                        new byte[]{(byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0, (byte) 0xA1, (byte) 0xB1, 0x1A, (byte) 0xE1}),
+                Arguments.of("application/vnd.rar", new byte[]{'R', 'a', 'r', '!', 0x1A, 0x07, 0x00}),
+                Arguments.of("application/x-7z-compressed", new byte[]{'7', 'z', (byte) 0xBC, (byte) 0xAF, 0x27, 0x1C}),
+                Arguments.of("application/x-tar", tar),
+                Arguments.of("application/octet-stream", new byte[]{0, 1, 2, 3}),
+                Arguments.of("application/pdf", new byte[0])
+        );
+    }
+
+    public static Stream<Arguments> getMismatchedContent() {
+        return Stream.of(
+                Arguments.of("text/plain", new byte[]{'M', 'Z', 0, 0}),
+                Arguments.of("image/png", "%PDF-1.7".getBytes()),
+                Arguments.of("image/jpeg", new byte[]{(byte) 0x89, 'P', 'N', 'G'}),
+                Arguments.of("application/pdf", "<html></html>".getBytes()),
+                Arguments.of("application/zip", "not a zip".getBytes()),
+                Arguments.of("application/msword", new byte[]{'P', 'K', 0x03, 0x04}),
+                Arguments.of("application/x-tar", new byte[512])
+        );
+    }
+
+    @ParameterizedTest(name = "{index} {0}")
+    @MethodSource("getMatchingContent")
+    @DisplayName("Given content matching its mime type, when validated, then the whole content can still be read")
+    void testMatchingContentPassesValidation(String mimeType, byte[] content) throws IOException {
+        InputStream validated = validator.validate(mimeType, new ByteArrayInputStream(content));
+
+        assertArrayEquals(content, validated.readAllBytes());
+    }
+
+    @ParameterizedTest(name = "{index} {0}")
+    @MethodSource("getMismatchedContent")
+    @DisplayName("Given content not matching its mime type, when validated, an exception should be thrown")
+    void testMismatchedContentThrowsException(String mimeType, byte[] content) {
+        InputStream inputStream = new ByteArrayInputStream(content);
+
+        assertThrows(InvalidMimeTypeException.class, () -> validator.validate(mimeType, inputStream));
+    }
+
+    @Test
+    @DisplayName("Given content larger than the sniffed prefix, when validated, then the whole content can still be read")
+    void testLargeContentIsNotTruncated() throws IOException {
+        byte[] content = new byte[MimeTypeValidator.SNIFF_LENGTH * 3 + 17];
+        Arrays.fill(content, (byte) 'a');
+        System.arraycopy("%PDF-1.7".getBytes(), 0, content, 0, 8);
+
+        InputStream validated = validator.validate("application/pdf", new ByteArrayInputStream(content));
+
+        assertArrayEquals(content, validated.readAllBytes());
+    }
+}
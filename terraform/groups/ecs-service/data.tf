@@ -149,7 +149,8 @@ data "aws_iam_policy_document" "file_transfer_ecs_execution" {
     effect = "Allow"
 
     actions = [
-      "s3:ListBucket"
+      "s3:ListBucket",
+      "s3:ListBucketMultipartUploads"
     ]
 
     resources = [
@@ -167,7 +168,9 @@ data "aws_iam_policy_document" "file_transfer_ecs_execution" {
       "s3:DeleteObject",
       "s3:GetObjectAcl",
       "s3:GetObjectTagging",
-      "s3:PutObjectTagging"
+      "s3:PutObjectTagging",
+      "s3:ListMultipartUploadParts",
+      "s3:AbortMultipartUpload"
     ]
 
     resources = [
@@ -197,7 +200,8 @@ data "aws_iam_policy_document" "file_transfer_secure_ecs_execution" {
     effect = "Allow"
 
     actions = [
-      "s3:ListBucket"
+      "s3:ListBucket",
+      "s3:ListBucketMultipartUploads"
     ]
 
     resources = [
@@ -215,7 +219,9 @@ data "aws_iam_policy_document" "file_transfer_secure_ecs_execution" {
       "s3:DeleteObject",
       "s3:GetObjectAcl",
       "s3:GetObjectTagging",
-      "s3:PutObjectTagging"
+      "s3:PutObjectTagging",
+      "s3:ListMultipartUploadParts",
+      "s3:AbortMultipartUpload"
     ]
 
     resources = [